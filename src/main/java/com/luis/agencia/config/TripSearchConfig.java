@@ -0,0 +1,26 @@
+package com.luis.agencia.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+/**
+ * Ejecutor propio de la búsqueda de paquetes de viaje, que lanza a la vez la búsqueda de
+ * vuelos y la de hoteles. Tiene un número de hilos y una cola limitados, para que un pico de
+ * búsquedas no agote los hilos de las peticiones HTTP; si la cola se llena, la búsqueda se
+ * rechaza en lugar de esperar.
+ */
+@Configuration
+public class TripSearchConfig {
+
+    @Bean
+    public ThreadPoolTaskExecutor tripSearchExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(8);
+        executor.setMaxPoolSize(16);
+        executor.setQueueCapacity(100);
+        executor.setThreadNamePrefix("trip-search-");
+        executor.setWaitForTasksToCompleteOnShutdown(false);
+        return executor;
+    }
+}
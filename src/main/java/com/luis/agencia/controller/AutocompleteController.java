@@ -0,0 +1,62 @@
+package com.luis.agencia.controller;
+
+import com.luis.agencia.service.AutocompleteIndex;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Locale;
+
+/**
+ * Controlador de sugerencias para autocompletar los campos de búsqueda de vuelos y hoteles.
+ */
+@RestController
+@RequestMapping("/agency/autocomplete")
+public class AutocompleteController {
+
+    private static final Logger logger = LoggerFactory.getLogger(AutocompleteController.class);
+
+    /**
+     * Índice de términos de vuelos y hoteles.
+     * Inyectado por Spring.
+     */
+    @Autowired
+    private AutocompleteIndex autocompleteIndex;
+
+    /**
+     * Devuelve los términos que empiezan por el texto escrito, sin distinguir mayúsculas ni acentos.
+     *
+     * @param field  Campo que se autocompleta: "origin", "destination", "place" o "hotel".
+     * @param prefix Texto escrito por el usuario.
+     * @param limit  Número máximo de sugerencias (por defecto 10, como mucho 50).
+     * @return Respuesta HTTP 200 (OK) con las sugerencias en orden alfabético, o 400 (BAD_REQUEST)
+     *         si el campo no existe.
+     */
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Sugerencias devueltas con éxito"),
+            @ApiResponse(responseCode = "400", description = "Campo desconocido")
+    })
+    @GetMapping
+    public ResponseEntity<Object> suggest(
+            @RequestParam("field") String field,
+            @RequestParam("prefix") String prefix,
+            @RequestParam(value = "limit", defaultValue = "10") int limit) {
+        AutocompleteIndex.Field indexField;
+        try {
+            indexField = AutocompleteIndex.Field.valueOf(field.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            logger.error("Campo de autocompletado desconocido: {}", field);
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body("El campo debe ser origin, destination, place o hotel.");
+        }
+        return new ResponseEntity<>(autocompleteIndex.suggest(indexField, prefix, limit), HttpStatus.OK);
+    }
+}
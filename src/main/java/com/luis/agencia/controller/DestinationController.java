@@ -0,0 +1,68 @@
+package com.luis.agencia.controller;
+
+import com.luis.agencia.dto.DestinationDto;
+import com.luis.agencia.service.DestinationDictionary;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+/**
+ * Controlador del catálogo de destinos compartido por vuelos y hoteles.
+ */
+@RestController
+@RequestMapping("/agency/destinations")
+public class DestinationController {
+
+    private static final Logger logger = LoggerFactory.getLogger(DestinationController.class);
+
+    /**
+     * Diccionario de destinos con sus alias.
+     * Inyectado por Spring.
+     */
+    @Autowired
+    private DestinationDictionary destinationDictionary;
+
+    /**
+     * Devuelve todos los destinos del catálogo con sus alias.
+     *
+     * @return Respuesta HTTP 200 (OK) con los destinos ordenados por identificador.
+     */
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Destinos devueltos con éxito")
+    })
+    @GetMapping
+    public ResponseEntity<List<DestinationDto>> getDestinations() {
+        return new ResponseEntity<>(destinationDictionary.findAll(), HttpStatus.OK);
+    }
+
+    /**
+     * Añade un nombre alternativo a un destino, de modo que las búsquedas de vuelos y
+     * habitaciones con ese nombre encuentren el destino. Un nombre que ya es de otro destino
+     * no se puede añadir: los destinos no se fusionan.
+     *
+     * @param id    Identificador del destino.
+     * @param alias Nombre alternativo (por ejemplo, "London" para "Londres").
+     * @return Respuesta HTTP con el destino actualizado, o 400 (BAD_REQUEST) si no existe o el alias ya se usa.
+     */
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Alias añadido con éxito"),
+            @ApiResponse(responseCode = "400", description = "Destino inexistente o alias ya usado por otro destino "
+                    + "(los destinos no se fusionan)")
+    })
+    @PostMapping("/{id}/aliases")
+    public ResponseEntity<Object> addAlias(@PathVariable int id, @RequestParam String alias) {
+        try {
+            return new ResponseEntity<>(destinationDictionary.addAlias(id, alias), HttpStatus.OK);
+        } catch (IllegalArgumentException e) {
+            logger.error("Error en addAlias: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage());
+        }
+    }
+}
@@ -3,15 +3,22 @@ package com.luis.agencia.controller;
 import com.luis.agencia.dto.FlightBookingDetailDto;
 import com.luis.agencia.dto.FlightBookingDto;
 import com.luis.agencia.model.FlightBooking;
+import com.luis.agencia.service.FileFormat;
 import com.luis.agencia.service.IFlightBookingService;
+import com.luis.agencia.service.KeysetPage;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import jakarta.validation.Valid;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
 
@@ -114,15 +121,26 @@ public class FlightBookingController {
     }
 
     /**
-     * Obtiene la lista de todas las reservas de vuelo.
+     * Obtiene las reservas de vuelo por páginas. Si hay más reservas, el cursor de la página
+     * siguiente se devuelve en la cabecera {@code X-Next-Cursor}.
      *
+     * @param cursor Id del último elemento de la página anterior (cabecera {@code X-Next-Cursor}),
+     *               o vacío para la primera página.
+     * @param size   Tamaño de página (por defecto 50, como mucho 500).
      * @return Lista de {@link FlightBooking} o mensaje de error.
      */
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Listado de reservas de vuelo obtenido con éxito. "
+                    + KeysetPageHeaders.API_DESCRIPTION),
+            @ApiResponse(responseCode = "500", description = INTERNAL_SERVER_ERROR)
+    })
     @GetMapping
-    public ResponseEntity<Object> getAllFlightBookings() {
+    public ResponseEntity<Object> getAllFlightBookings(
+            @RequestParam(value = "cursor", required = false) Long cursor,
+            @RequestParam(value = "size", required = false) Integer size) {
         try {
-            List<FlightBooking> bookings = flightBookingService.findAll();
-            return ResponseEntity.ok(bookings);
+            KeysetPage<FlightBooking> bookings = flightBookingService.findAll(cursor, size);
+            return ResponseEntity.ok().headers(KeysetPageHeaders.of(bookings)).body(bookings.getItems());
         } catch (IllegalArgumentException ex) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND).body(ex.getMessage());
         } catch (Exception ex) {
@@ -132,6 +150,30 @@ public class FlightBookingController {
         }
     }
 
+    /**
+     * Exporta todas las reservas de vuelo, con los datos de su vuelo, como fichero descargable.
+     * Las reservas se escriben en la respuesta a medida que se leen de la base de datos.
+     *
+     * @param format Formato de la exportación: {@code ndjson} (por defecto) o {@code csv}.
+     * @return Contenido de la exportación, o 400 (BAD_REQUEST) si el formato no es válido.
+     */
+    @GetMapping("/export")
+    public ResponseEntity<Object> exportFlightBookings(
+            @RequestParam(value = "format", defaultValue = "ndjson") String format) {
+        FileFormat fileFormat;
+        try {
+            fileFormat = FileFormat.of(format);
+        } catch (IllegalArgumentException ex) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(ex.getMessage());
+        }
+        StreamingResponseBody body = out -> flightBookingService.exportAll(out, fileFormat);
+        return ResponseEntity.ok()
+                .contentType(fileFormat.getMediaType())
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                        .filename("flight-bookings." + fileFormat.name().toLowerCase()).build().toString())
+                .body(body);
+    }
+
     /**
      * Obtiene los detalles de una reserva de vuelo por su identificador.
      *
@@ -1,8 +1,15 @@
 package com.luis.agencia.controller;
 
+import com.luis.agencia.dto.ConnectionDto;
+import com.luis.agencia.dto.FareCalendarDayDto;
+import com.luis.agencia.dto.FlexibleDateSearchDto;
 import com.luis.agencia.dto.FlightDto;
+import com.luis.agencia.dto.RoundTripDto;
 import com.luis.agencia.model.Flight;
+import com.luis.agencia.service.FileFormat;
+import com.luis.agencia.service.FlightImportService;
 import com.luis.agencia.service.FlightService;
+import com.luis.agencia.service.KeysetPage;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import jakarta.validation.Valid;
@@ -11,13 +18,22 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
 import java.time.LocalDate;
+import java.time.YearMonth;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -47,6 +63,13 @@ public class FlightController {
     @Autowired
     private FlightService flightService;
 
+    /**
+     * Servicio para la importación masiva de vuelos.
+     * Inyectado por Spring.
+     */
+    @Autowired
+    private FlightImportService flightImportService;
+
     /**
      * Crea un nuevo vuelo a partir de los datos proporcionados en el DTO.
      *
@@ -78,6 +101,45 @@ public class FlightController {
         }
     }
 
+    /**
+     * Importa vuelos de forma masiva desde el cuerpo de la petición, que se lee en streaming.
+     * Admite NDJSON ({@code application/x-ndjson}, un vuelo JSON por línea) y CSV
+     * ({@code text/csv}, con una cabecera con los nombres de los campos del vuelo).
+     * Requiere un rol de FLIGHT_ADMIN para poder realizar la operación.
+     *
+     * @param contentType Tipo de contenido del cuerpo.
+     * @param body        Cuerpo de la petición.
+     * @return Respuesta HTTP con el resultado de la importación o un mensaje de error:
+     *         <ul>
+     *             <li>200 (OK) con los vuelos importados y los errores de cada fila rechazada.</li>
+     *             <li>400 (BAD_REQUEST) si la cabecera CSV no es válida.</li>
+     *             <li>415 (UNSUPPORTED_MEDIA_TYPE) si el formato no es NDJSON ni CSV.</li>
+     *             <li>500 (INTERNAL_SERVER_ERROR) si ocurre un error interno.</li>
+     *         </ul>
+     */
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Importación realizada, con el detalle de las filas rechazadas"),
+            @ApiResponse(responseCode = "400", description = "Cabecera CSV inválida"),
+            @ApiResponse(responseCode = "415", description = "Formato no admitido"),
+            @ApiResponse(responseCode = "500", description = "Error interno del servidor")
+    })
+    @PreAuthorize("hasRole('FLIGHT_ADMIN')")
+    @PostMapping(value = "/import", consumes = {"application/x-ndjson", "text/csv"})
+    public ResponseEntity<Object> importFlights(@RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType,
+                                                InputStream body) {
+        MediaType mediaType = MediaType.parseMediaType(contentType);
+        FileFormat format = FileFormat.of(mediaType);
+        Charset charset = mediaType.getCharset() != null ? mediaType.getCharset() : StandardCharsets.UTF_8;
+        try (Reader reader = new InputStreamReader(body, charset)) {
+            return new ResponseEntity<>(flightImportService.importFlights(reader, format), HttpStatus.OK);
+        } catch (IllegalArgumentException e) {
+            return new ResponseEntity<>(e.getMessage(), HttpStatus.BAD_REQUEST);
+        } catch (Exception e) {
+            logger.error("Error interno del servidor en importFlights: {}", e.getMessage());
+            return new ResponseEntity<>(INTERNAL_SERVER_ERROR, HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
     /**
      * Edita los datos de un vuelo existente, identificado por su ID.
      * Requiere un rol de FLIGHT_ADMIN para poder realizar la operación.
@@ -164,8 +226,13 @@ public class FlightController {
     }
 
     /**
-     * Lista todos los vuelos disponibles en el sistema, retornándolos en formato DTO.
+     * Lista los vuelos disponibles en el sistema por páginas, retornándolos en formato DTO.
+     * Si hay más vuelos, el id a partir del cual pedir la página siguiente se devuelve en la
+     * cabecera {@code X-Next-Cursor}.
      *
+     * @param cursor Id del último elemento de la página anterior (cabecera {@code X-Next-Cursor}),
+     *               o vacío para la primera página.
+     * @param size   Tamaño de página (por defecto 50, como mucho 500).
      * @return Respuesta HTTP con la lista de vuelos y el código de estado:
      *         <ul>
      *             <li>200 (OK) si la lista no está vacía.</li>
@@ -174,18 +241,21 @@ public class FlightController {
      *         </ul>
      */
     @ApiResponses(value = {
-            @ApiResponse(responseCode = "200", description = "Lista de vuelos devuelta con éxito"),
+            @ApiResponse(responseCode = "200", description = "Lista de vuelos devuelta con éxito. "
+                    + KeysetPageHeaders.API_DESCRIPTION),
             @ApiResponse(responseCode = "204", description = "lista de vuelos vacía"),
             @ApiResponse(responseCode = "500", description = "Error interno del servidor")
     })
     @GetMapping
-    public ResponseEntity<List<FlightDto>> listFlights() {
+    public ResponseEntity<List<FlightDto>> listFlights(
+            @RequestParam(value = "cursor", required = false) Long cursor,
+            @RequestParam(value = "size", required = false) Integer size) {
         try {
-            List<FlightDto> listaVuelos = flightService.listFlights();
+            KeysetPage<FlightDto> listaVuelos = flightService.listFlights(cursor, size);
             if (listaVuelos.isEmpty()) {
                 return new ResponseEntity<>(HttpStatus.NO_CONTENT);
             } else {
-                return new ResponseEntity<>(listaVuelos, HttpStatus.OK);
+                return new ResponseEntity<>(listaVuelos.getItems(), KeysetPageHeaders.of(listaVuelos), HttpStatus.OK);
             }
         } catch (Exception e) {
             logger.error("Error interno del servidor en listFlights: {}", e.getMessage());
@@ -286,10 +356,210 @@ public class FlightController {
             return new ResponseEntity<>(INTERNAL_SERVER_ERROR, HttpStatus.INTERNAL_SERVER_ERROR);
         }
     }
-}
 
+    /**
+     * Busca vuelos de ida y vuelta con fechas flexibles, agrupados por día.
+     *
+     * @param dateFrom    Fecha de ida central, con el patrón "dd/MM/yyyy".
+     * @param dateTo      Fecha de vuelta central, con el patrón "dd/MM/yyyy".
+     * @param origin      Origen del viaje.
+     * @param destination Destino del viaje.
+     * @param flexDays    Días de margen antes y después de cada fecha (por defecto 3, como mucho 7).
+     * @return Respuesta HTTP que contiene los vuelos por día o un mensaje de error:
+     *         <ul>
+     *             <li>200 (OK) si hay algún vuelo en los rangos.</li>
+     *             <li>204 (NO_CONTENT) si no hay vuelos en ningún día.</li>
+     *             <li>400 (BAD_REQUEST) si los parámetros no son válidos.</li>
+     *             <li>500 (INTERNAL_SERVER_ERROR) si ocurre un error interno.</li>
+     *         </ul>
+     */
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Vuelos por día devueltos con éxito"),
+            @ApiResponse(responseCode = "204", description = "No hay vuelos disponibles en las fechas indicadas"),
+            @ApiResponse(responseCode = "400", description = "Solicitud incorrecta"),
+            @ApiResponse(responseCode = "500", description = "Error interno del servidor")
+    })
+    @GetMapping("/search/flexible")
+    public ResponseEntity<Object> getVuelosDisponiblesFlexibles(
+            @RequestParam("dateFrom") @DateTimeFormat(pattern = "dd/MM/yyyy") LocalDate dateFrom,
+            @RequestParam("dateTo") @DateTimeFormat(pattern = "dd/MM/yyyy") LocalDate dateTo,
+            @RequestParam("origin") String origin,
+            @RequestParam("destination") String destination,
+            @RequestParam(value = "flexDays", defaultValue = "3") int flexDays) {
+
+        try {
+            FlexibleDateSearchDto result = flightService.getVuelosDisponiblesFlexibles(dateFrom, dateTo, origin,
+                    destination, flexDays);
+            boolean sinVuelos = result.getOutboundDays().stream().allMatch(day -> day.getFlights().isEmpty())
+                    && result.getReturnDays().stream().allMatch(day -> day.getFlights().isEmpty());
+            if (sinVuelos) {
+                return new ResponseEntity<>(HttpStatus.NO_CONTENT);
+            }
+            return new ResponseEntity<>(result, HttpStatus.OK);
+        } catch (IllegalArgumentException e) {
+            return new ResponseEntity<>(e.getMessage(), HttpStatus.BAD_REQUEST);
+        } catch (Exception e) {
+            logger.error("Error interno del servidor en getVuelosDisponiblesFlexibles: {}", e.getMessage());
+            return new ResponseEntity<>(INTERNAL_SERVER_ERROR, HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
+    /**
+     * Devuelve el calendario de tarifas de una ruta: el precio mínimo de turista y de business
+     * de cada día del mes indicado.
+     *
+     * @param origin      Origen del viaje.
+     * @param destination Destino del viaje.
+     * @param year        Año del calendario.
+     * @param month       Mes del calendario (1-12).
+     * @return Respuesta HTTP que contiene las tarifas por día o un mensaje de error:
+     *         <ul>
+     *             <li>200 (OK) si algún día del mes tiene tarifa.</li>
+     *             <li>204 (NO_CONTENT) si no hay vuelos con asientos libres en el mes.</li>
+     *             <li>400 (BAD_REQUEST) si el mes no es válido.</li>
+     *             <li>503 (SERVICE_UNAVAILABLE) si el calendario aún no está cargado.</li>
+     *             <li>500 (INTERNAL_SERVER_ERROR) si ocurre un error interno.</li>
+     *         </ul>
+     */
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Calendario de tarifas devuelto con éxito"),
+            @ApiResponse(responseCode = "204", description = "No hay tarifas en el mes indicado"),
+            @ApiResponse(responseCode = "400", description = "Solicitud incorrecta"),
+            @ApiResponse(responseCode = "503", description = "Calendario de tarifas no disponible"),
+            @ApiResponse(responseCode = "500", description = "Error interno del servidor")
+    })
+    @GetMapping("/search/fare-calendar")
+    public ResponseEntity<Object> getFareCalendar(
+            @RequestParam("origin") String origin,
+            @RequestParam("destination") String destination,
+            @RequestParam("year") int year,
+            @RequestParam("month") int month) {
 
+        try {
+            List<FareCalendarDayDto> calendar = flightService.getFareCalendar(origin, destination,
+                    YearMonth.of(year, month));
+            boolean sinTarifas = calendar.stream()
+                    .allMatch(day -> day.getMinEconomyPrice() == null && day.getMinBusinessPrice() == null);
+            if (sinTarifas) {
+                return new ResponseEntity<>(HttpStatus.NO_CONTENT);
+            }
+            return new ResponseEntity<>(calendar, HttpStatus.OK);
+        } catch (DateTimeException e) {
+            return new ResponseEntity<>("El mes indicado no es válido", HttpStatus.BAD_REQUEST);
+        } catch (IllegalStateException e) {
+            return new ResponseEntity<>(e.getMessage(), HttpStatus.SERVICE_UNAVAILABLE);
+        } catch (Exception e) {
+            logger.error("Error interno del servidor en getFareCalendar: {}", e.getMessage());
+            return new ResponseEntity<>(INTERNAL_SERVER_ERROR, HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
 
+    /**
+     * Busca combinaciones de ida y vuelta ya emparejadas y con precio total, ordenadas de la
+     * más barata a la más cara.
+     *
+     * @param dateFrom    Fecha de ida, con el patrón "dd/MM/yyyy".
+     * @param dateTo      Fecha de vuelta, con el patrón "dd/MM/yyyy".
+     * @param origin      Origen del viaje.
+     * @param destination Destino del viaje.
+     * @param passengers  Número de pasajeros (por defecto 1).
+     * @param business    {@code true} para viajar en business (por defecto turista).
+     * @param limit       Número máximo de combinaciones (por defecto 20, como mucho 100).
+     * @return Respuesta HTTP que contiene las combinaciones o un mensaje de error:
+     *         <ul>
+     *             <li>200 (OK) si se encuentran combinaciones.</li>
+     *             <li>204 (NO_CONTENT) si no hay combinaciones disponibles.</li>
+     *             <li>400 (BAD_REQUEST) si los parámetros no son válidos.</li>
+     *             <li>500 (INTERNAL_SERVER_ERROR) si ocurre un error interno.</li>
+     *         </ul>
+     */
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Combinaciones de ida y vuelta devueltas con éxito"),
+            @ApiResponse(responseCode = "204", description = "No hay combinaciones disponibles"),
+            @ApiResponse(responseCode = "400", description = "Solicitud incorrecta"),
+            @ApiResponse(responseCode = "500", description = "Error interno del servidor")
+    })
+    @GetMapping("/search/round-trip")
+    public ResponseEntity<Object> getRoundTrips(
+            @RequestParam("dateFrom") @DateTimeFormat(pattern = "dd/MM/yyyy") LocalDate dateFrom,
+            @RequestParam("dateTo") @DateTimeFormat(pattern = "dd/MM/yyyy") LocalDate dateTo,
+            @RequestParam("origin") String origin,
+            @RequestParam("destination") String destination,
+            @RequestParam(value = "passengers", defaultValue = "1") int passengers,
+            @RequestParam(value = "business", defaultValue = "false") boolean business,
+            @RequestParam(value = "limit", defaultValue = "20") int limit) {
 
+        try {
+            List<RoundTripDto> roundTrips = flightService.findRoundTrips(dateFrom, dateTo, origin, destination,
+                    passengers, business, limit);
+            if (roundTrips.isEmpty()) {
+                return new ResponseEntity<>(HttpStatus.NO_CONTENT);
+            }
+            return new ResponseEntity<>(roundTrips, HttpStatus.OK);
+        } catch (IllegalArgumentException e) {
+            return new ResponseEntity<>(e.getMessage(), HttpStatus.BAD_REQUEST);
+        } catch (Exception e) {
+            logger.error("Error interno del servidor en getRoundTrips: {}", e.getMessage());
+            return new ResponseEntity<>(INTERNAL_SERVER_ERROR, HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
 
+    /**
+     * Busca itinerarios con una o dos escalas entre dos ciudades. Como los vuelos solo tienen
+     * fecha, la escala se expresa en días entre la salida de un tramo y la del siguiente.
+     *
+     * @param date           Fecha de salida, con el patrón "dd/MM/yyyy".
+     * @param origin         Ciudad de origen.
+     * @param destination    Ciudad de destino.
+     * @param passengers     Número de pasajeros (por defecto 1).
+     * @param business       {@code true} para viajar en business (por defecto turista).
+     * @param maxStops       Número máximo de escalas, 1 o 2 (por defecto 2).
+     * @param minLayoverDays Días mínimos de escala (por defecto 0).
+     * @param maxLayoverDays Días máximos de escala, como mucho 3 (por defecto 1).
+     * @param limit          Número máximo de itinerarios (por defecto 20, como mucho 100).
+     * @return Respuesta HTTP que contiene los itinerarios o un mensaje de error:
+     *         <ul>
+     *             <li>200 (OK) si se encuentran itinerarios.</li>
+     *             <li>204 (NO_CONTENT) si no hay itinerarios.</li>
+     *             <li>400 (BAD_REQUEST) si los parámetros no son válidos.</li>
+     *             <li>503 (SERVICE_UNAVAILABLE) si el índice de vuelos aún se está cargando.</li>
+     *             <li>500 (INTERNAL_SERVER_ERROR) si ocurre un error interno.</li>
+     *         </ul>
+     */
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Itinerarios con escalas devueltos con éxito"),
+            @ApiResponse(responseCode = "204", description = "No hay itinerarios disponibles"),
+            @ApiResponse(responseCode = "400", description = "Solicitud incorrecta"),
+            @ApiResponse(responseCode = "503", description = "El índice de vuelos aún se está cargando"),
+            @ApiResponse(responseCode = "500", description = "Error interno del servidor")
+    })
+    @GetMapping("/search/connections")
+    @SuppressWarnings("java:S107") // Se suprime la advertencia de demasiados parámetros
+    public ResponseEntity<Object> getConnections(
+            @RequestParam("date") @DateTimeFormat(pattern = "dd/MM/yyyy") LocalDate date,
+            @RequestParam("origin") String origin,
+            @RequestParam("destination") String destination,
+            @RequestParam(value = "passengers", defaultValue = "1") int passengers,
+            @RequestParam(value = "business", defaultValue = "false") boolean business,
+            @RequestParam(value = "maxStops", defaultValue = "2") int maxStops,
+            @RequestParam(value = "minLayoverDays", defaultValue = "0") int minLayoverDays,
+            @RequestParam(value = "maxLayoverDays", defaultValue = "1") int maxLayoverDays,
+            @RequestParam(value = "limit", defaultValue = "20") int limit) {
 
+        try {
+            List<ConnectionDto> connections = flightService.findConnections(date, origin, destination, passengers,
+                    business, maxStops, minLayoverDays, maxLayoverDays, limit);
+            if (connections.isEmpty()) {
+                return new ResponseEntity<>(HttpStatus.NO_CONTENT);
+            }
+            return new ResponseEntity<>(connections, HttpStatus.OK);
+        } catch (IllegalArgumentException e) {
+            return new ResponseEntity<>(e.getMessage(), HttpStatus.BAD_REQUEST);
+        } catch (IllegalStateException e) {
+            return new ResponseEntity<>(e.getMessage(), HttpStatus.SERVICE_UNAVAILABLE);
+        } catch (Exception e) {
+            logger.error("Error interno del servidor en getConnections: {}", e.getMessage());
+            return new ResponseEntity<>(INTERNAL_SERVER_ERROR, HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+}
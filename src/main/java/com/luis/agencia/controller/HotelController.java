@@ -1,7 +1,9 @@
 package com.luis.agencia.controller;
 
 import com.luis.agencia.dto.HotelDto;
+import com.luis.agencia.dto.HotelRoomCounterDto;
 import com.luis.agencia.service.IHotelService;
+import com.luis.agencia.service.KeysetPage;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import jakarta.validation.Valid;
@@ -197,8 +199,12 @@ public class HotelController {
     }
 
     /**
-     * Endpoint para listar todos los hoteles.
+     * Endpoint para listar los hoteles por páginas. Si hay más hoteles, el cursor de la
+     * página siguiente se devuelve en la cabecera {@code X-Next-Cursor}.
      *
+     * @param cursor Id del último elemento de la página anterior (cabecera {@code X-Next-Cursor}),
+     *               o vacío para la primera página.
+     * @param size   Tamaño de página (por defecto 50, como mucho 500).
      * @return Respuesta HTTP que contiene la lista de hoteles:
      *         <ul>
      *           <li>200 (OK): Si la lista se devolvió con éxito.</li>
@@ -207,23 +213,75 @@ public class HotelController {
      *         </ul>
      */
     @ApiResponses(value = {
-            @ApiResponse(responseCode = "200", description = "Lista de hoteles devuelta con " + LITERAL_EXITO),
+            @ApiResponse(responseCode = "200", description = "Lista de hoteles devuelta con " + LITERAL_EXITO + ". "
+                    + KeysetPageHeaders.API_DESCRIPTION),
             @ApiResponse(responseCode = "204", description = "Lista de hoteles vacía"),
             @ApiResponse(responseCode = "500", description = LITERAL_ERROR_INTERNO)
     })
     @GetMapping
-    public ResponseEntity<List<HotelDto>> listAllHotels() {
+    public ResponseEntity<List<HotelDto>> listAllHotels(
+            @RequestParam(value = "cursor", required = false) Long cursor,
+            @RequestParam(value = "size", required = false) Integer size) {
         try {
-            List<HotelDto> hotels = hotelService.listHotels();
+            KeysetPage<HotelDto> hotels = hotelService.listHotels(cursor, size);
             if (hotels.isEmpty()) {
                 return new ResponseEntity<>(HttpStatus.NO_CONTENT);
             }
-            return new ResponseEntity<>(hotels, HttpStatus.OK);
+            return new ResponseEntity<>(hotels.getItems(), KeysetPageHeaders.of(hotels), HttpStatus.OK);
         } catch (Exception e) {
             logger.error("Error interno del servidor en listAllHotels: {}", e.getMessage());
             return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
         }
     }
-}
 
+    /**
+     * Endpoint para conciliar los contadores de habitaciones de los hoteles con
+     * las habitaciones que tienen dadas de alta.
+     *
+     * @return Respuesta HTTP que contiene los hoteles cuyos contadores no coinciden:
+     *         <ul>
+     *           <li>200 (OK): Si se devolvió la lista (vacía si todos los contadores coinciden).</li>
+     *           <li>500 (INTERNAL_SERVER_ERROR): En caso de error interno.</li>
+     *         </ul>
+     */
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Conciliación de contadores devuelta con " + LITERAL_EXITO),
+            @ApiResponse(responseCode = "500", description = LITERAL_ERROR_INTERNO)
+    })
+    @GetMapping("/room-counters/mismatches")
+    public ResponseEntity<List<HotelRoomCounterDto>> findRoomCounterMismatches() {
+        try {
+            return new ResponseEntity<>(hotelService.findRoomCounterMismatches(), HttpStatus.OK);
+        } catch (Exception e) {
+            logger.error("Error interno del servidor en findRoomCounterMismatches: {}", e.getMessage());
+            return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
 
+    /**
+     * Endpoint para recalcular los contadores de habitaciones de todos los hoteles a partir
+     * de las habitaciones que tienen dadas de alta.
+     *
+     * @return Respuesta HTTP con mensaje y código de estado:
+     *         <ul>
+     *           <li>200 (OK): Si los contadores se recalcularon con éxito.</li>
+     *           <li>500 (INTERNAL_SERVER_ERROR): En caso de error interno.</li>
+     *         </ul>
+     */
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Contadores recalculados con " + LITERAL_EXITO),
+            @ApiResponse(responseCode = "500", description = LITERAL_ERROR_INTERNO)
+    })
+    @PostMapping("/room-counters/recompute")
+    public ResponseEntity<String> recomputeRoomCounters() {
+        try {
+            int updated = hotelService.recomputeRoomCounters();
+            return new ResponseEntity<>("Contadores recalculados con " + LITERAL_EXITO + " en " + updated + " hoteles",
+                    HttpStatus.OK);
+        } catch (Exception e) {
+            logger.error("Error interno del servidor en recomputeRoomCounters: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(LITERAL_ERROR_INTERNO + ".");
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.luis.agencia.controller;
+
+import com.luis.agencia.service.KeysetPage;
+import org.springframework.http.HttpHeaders;
+
+/**
+ * Cabeceras HTTP de los listados paginados por clave: los controladores responden con los
+ * elementos de la {@link KeysetPage} y el cursor de la página siguiente en {@link #NEXT_CURSOR_HEADER}.
+ */
+public final class KeysetPageHeaders {
+
+    /**
+     * Cabecera HTTP en la que se devuelve el cursor de la página siguiente.
+     */
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
+    /**
+     * Descripción de la paginación para la documentación de los listados.
+     */
+    public static final String API_DESCRIPTION = "Devuelve como mucho " + KeysetPage.DEFAULT_SIZE
+            + " elementos si no se indica size (hasta " + KeysetPage.MAX_SIZE + "); si hay más, el cursor de la "
+            + "página siguiente se devuelve en la cabecera " + NEXT_CURSOR_HEADER;
+
+    private KeysetPageHeaders() {
+    }
+
+    /**
+     * @param page Página devuelta por el servicio.
+     * @return Cabeceras de la respuesta, con {@link #NEXT_CURSOR_HEADER} si hay página siguiente.
+     */
+    public static HttpHeaders of(KeysetPage<?> page) {
+        HttpHeaders headers = new HttpHeaders();
+        if (page.getNextCursor() != null) {
+            headers.add(NEXT_CURSOR_HEADER, page.getNextCursor().toString());
+        }
+        return headers;
+    }
+}
@@ -2,6 +2,7 @@ package com.luis.agencia.controller;
 
 import com.luis.agencia.dto.PassengerDto;
 import com.luis.agencia.service.IPassengerService;
+import com.luis.agencia.service.KeysetPage;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import jakarta.validation.Valid;
@@ -36,8 +37,12 @@ public class PassengerController {
     private static final String LITERAL_ERROR_INTERNO = "Error interno del servidor";
 
     /**
-     * Endpoint para obtener el listado de todos los pasajeros.
+     * Endpoint para obtener el listado de pasajeros por páginas. Si hay más pasajeros, el
+     * cursor de la página siguiente se devuelve en la cabecera {@code X-Next-Cursor}.
      *
+     * @param cursor Id del último elemento de la página anterior (cabecera {@code X-Next-Cursor}),
+     *               o vacío para la primera página.
+     * @param size   Tamaño de página (por defecto 50, como mucho 500).
      * @return Respuesta HTTP con la lista de pasajeros en formato DTO:
      *         <ul>
      *           <li>200 (OK): Si se obtienen pasajeros.</li>
@@ -46,18 +51,21 @@ public class PassengerController {
      *         </ul>
      */
     @ApiResponses(value = {
-            @ApiResponse(responseCode = "200", description = "Listado de pasajeros obtenido con éxito"),
+            @ApiResponse(responseCode = "200", description = "Listado de pasajeros obtenido con éxito. "
+                    + KeysetPageHeaders.API_DESCRIPTION),
             @ApiResponse(responseCode = "204", description = "No hay pasajeros disponibles"),
             @ApiResponse(responseCode = "500", description = LITERAL_ERROR_INTERNO)
     })
     @GetMapping
-    public ResponseEntity<List<PassengerDto>> listPassengers() {
+    public ResponseEntity<List<PassengerDto>> listPassengers(
+            @RequestParam(value = "cursor", required = false) Long cursor,
+            @RequestParam(value = "size", required = false) Integer size) {
         try {
-            List<PassengerDto> passengers = passengerService.listPassengers();
+            KeysetPage<PassengerDto> passengers = passengerService.listPassengers(cursor, size);
             if (passengers.isEmpty()) {
                 return ResponseEntity.status(HttpStatus.NO_CONTENT).build();
             }
-            return ResponseEntity.ok(passengers);
+            return ResponseEntity.ok().headers(KeysetPageHeaders.of(passengers)).body(passengers.getItems());
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
         }
@@ -3,17 +3,22 @@ package com.luis.agencia.controller;
 import com.luis.agencia.dto.RoomBookingDto;
 import com.luis.agencia.dto.RoomBookingDetailDto;
 import com.luis.agencia.dto.RoomDto;
+import com.luis.agencia.service.FileFormat;
 import com.luis.agencia.service.IRoomBookingService;
 import com.luis.agencia.service.IroomService;
+import com.luis.agencia.service.KeysetPage;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.time.LocalDate;
 import java.util.List;
@@ -153,29 +158,65 @@ public class RoomBookingController {
     }
 
     /**
-     * Lista todas las reservas de habitación con sus detalles.
+     * Lista las reservas de habitación con sus detalles, por páginas. Si hay más reservas,
+     * el cursor de la página siguiente se devuelve en la cabecera {@code X-Next-Cursor}.
      *
+     * @param cursor Id del último elemento de la página anterior (cabecera {@code X-Next-Cursor}),
+     *               o vacío para la primera página.
+     * @param size   Tamaño de página (por defecto 50, como mucho 500).
      * @return ResponseEntity con la lista de reservas en formato DTO y código 200 (OK),
      *         204 (NO_CONTENT) si no hay reservas, o 500 (INTERNAL_SERVER_ERROR) en caso de error.
      */
     @ApiResponses(value = {
-            @ApiResponse(responseCode = "200", description = "Listado de reservas devuelto con éxito"),
+            @ApiResponse(responseCode = "200", description = "Listado de reservas devuelto con éxito. "
+                    + KeysetPageHeaders.API_DESCRIPTION),
             @ApiResponse(responseCode = "204", description = "No hay reservas"),
             @ApiResponse(responseCode = "500", description = LITERAL_ERROR_INTERNO)
     })
     @GetMapping
-    public ResponseEntity<List<RoomBookingDetailDto>> listAllRoomBookings() {
+    public ResponseEntity<List<RoomBookingDetailDto>> listAllRoomBookings(
+            @RequestParam(value = "cursor", required = false) Long cursor,
+            @RequestParam(value = "size", required = false) Integer size) {
         try {
-            List<RoomBookingDetailDto> bookings = roomBookingService.listAllRoomBookings();
+            KeysetPage<RoomBookingDetailDto> bookings = roomBookingService.listAllRoomBookings(cursor, size);
             if (bookings.isEmpty()) {
                 return ResponseEntity.status(HttpStatus.NO_CONTENT).build();
             }
-            return ResponseEntity.ok(bookings);
+            return ResponseEntity.ok().headers(KeysetPageHeaders.of(bookings)).body(bookings.getItems());
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
         }
     }
 
+    /**
+     * Exporta todas las reservas de habitación, con el mismo detalle que el listado, como fichero
+     * descargable. Las reservas se escriben en la respuesta a medida que se leen de la base de datos.
+     *
+     * @param format Formato de la exportación: {@code ndjson} (por defecto) o {@code csv}.
+     * @return ResponseEntity con el contenido de la exportación y código 200 (OK),
+     *         o mensaje de error con código 400 (BAD_REQUEST) si el formato no es válido.
+     */
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Exportación de reservas devuelta con éxito"),
+            @ApiResponse(responseCode = "400", description = "Formato de exportación no válido")
+    })
+    @GetMapping("/export")
+    public ResponseEntity<Object> exportRoomBookings(
+            @RequestParam(value = "format", defaultValue = "ndjson") String format) {
+        FileFormat fileFormat;
+        try {
+            fileFormat = FileFormat.of(format);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage());
+        }
+        StreamingResponseBody body = out -> roomBookingService.exportAll(out, fileFormat);
+        return ResponseEntity.ok()
+                .contentType(fileFormat.getMediaType())
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                        .filename("room-bookings." + fileFormat.name().toLowerCase()).build().toString())
+                .body(body);
+    }
+
     /**
      * Obtiene los detalles de una reserva de habitación por su identificador.
      *
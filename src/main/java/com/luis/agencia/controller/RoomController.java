@@ -2,6 +2,7 @@ package com.luis.agencia.controller;
 
 import com.luis.agencia.dto.RoomDto;
 import com.luis.agencia.service.IroomService;
+import com.luis.agencia.service.KeysetPage;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -220,8 +221,12 @@ public class RoomController {
     }
 
     /**
-     * Lista todas las habitaciones.
+     * Lista las habitaciones por páginas. Si hay más habitaciones, el cursor de la página
+     * siguiente se devuelve en la cabecera {@code X-Next-Cursor}.
      *
+     * @param cursor Id del último elemento de la página anterior (cabecera {@code X-Next-Cursor}),
+     *               o vacío para la primera página.
+     * @param size   Tamaño de página (por defecto 50, como mucho 500).
      * @return ResponseEntity con la lista completa de habitaciones en formato DTO:
      *         <ul>
      *           <li>200 (OK): Si se obtienen las habitaciones.</li>
@@ -230,13 +235,15 @@ public class RoomController {
      */
     @GetMapping
     @ApiResponses(value = {
-            @ApiResponse(responseCode = "200", description = "Successfully retrieved all rooms"),
+            @ApiResponse(responseCode = "200", description = "Successfully retrieved all rooms. " + KeysetPageHeaders.API_DESCRIPTION),
             @ApiResponse(responseCode = "500", description = INTERNAL_SERVER_ERROR)
     })
-    public ResponseEntity<Object> listAllRooms() {
+    public ResponseEntity<Object> listAllRooms(
+            @RequestParam(value = "cursor", required = false) Long cursor,
+            @RequestParam(value = "size", required = false) Integer size) {
         try {
-            List<RoomDto> rooms = roomService.listAllRooms();
-            return new ResponseEntity<>(rooms, HttpStatus.OK);
+            KeysetPage<RoomDto> rooms = roomService.listAllRooms(cursor, size);
+            return new ResponseEntity<>(rooms.getItems(), KeysetPageHeaders.of(rooms), HttpStatus.OK);
         } catch (Exception e) {
             return new ResponseEntity<>(INTERNAL_SERVER_ERROR, HttpStatus.INTERNAL_SERVER_ERROR);
         }
@@ -0,0 +1,40 @@
+package com.luis.agencia.controller;
+
+import com.luis.agencia.dto.SearchCacheStatsDto;
+import com.luis.agencia.service.SearchCache;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Controlador con la información de la caché de resultados de búsqueda.
+ */
+@RestController
+@RequestMapping("/agency/search-cache")
+public class SearchCacheController {
+
+    /**
+     * Caché de resultados de búsqueda de vuelos y habitaciones.
+     * Inyectada por Spring.
+     */
+    @Autowired
+    private SearchCache searchCache;
+
+    /**
+     * Devuelve los contadores de aciertos, fallos y descartes de la caché de búsquedas.
+     *
+     * @return Respuesta HTTP 200 (OK) con los contadores.
+     */
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Contadores de la caché devueltos con éxito")
+    })
+    @GetMapping("/stats")
+    public ResponseEntity<SearchCacheStatsDto> getStats() {
+        return new ResponseEntity<>(searchCache.stats(), HttpStatus.OK);
+    }
+}
@@ -0,0 +1,92 @@
+package com.luis.agencia.controller;
+
+import com.luis.agencia.dto.TripSearchDto;
+import com.luis.agencia.service.ITripSearchService;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.LocalDate;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Controlador de la búsqueda de paquetes de viaje (vuelos más hotel).
+ */
+@RestController
+@RequestMapping("/agency/packages")
+public class TripSearchController {
+
+    private static final Logger logger = LoggerFactory.getLogger(TripSearchController.class);
+
+    private static final String INTERNAL_SERVER_ERROR = "Error interno del servidor";
+
+    /**
+     * Servicio de búsqueda de paquetes.
+     * Inyectado por Spring.
+     */
+    @Autowired
+    private ITripSearchService tripSearchService;
+
+    /**
+     * Busca paquetes de vuelos de ida y vuelta en turista más alojamiento en el destino,
+     * ordenados por precio total. Los vuelos y los hoteles se buscan a la vez.
+     *
+     * @param dateFrom    Fecha de ida y de entrada en el hotel, con el patrón "dd/MM/yyyy".
+     * @param dateTo      Fecha de vuelta y de salida del hotel, con el patrón "dd/MM/yyyy".
+     * @param origin      Origen del viaje.
+     * @param destination Destino del viaje y lugar del hotel.
+     * @param passengers  Número de pasajeros (por defecto 1).
+     * @param limit       Número máximo de paquetes (por defecto 20, como mucho 100).
+     * @return Respuesta HTTP que contiene los paquetes o un mensaje de error:
+     *         <ul>
+     *             <li>200 (OK) con los paquetes; si alguna búsqueda no ha terminado a tiempo,
+     *             su indicador es {@code false}.</li>
+     *             <li>204 (NO_CONTENT) si ambas búsquedas han terminado y no hay paquetes.</li>
+     *             <li>400 (BAD_REQUEST) si los parámetros no son válidos.</li>
+     *             <li>503 (SERVICE_UNAVAILABLE) si hay demasiadas búsquedas en curso.</li>
+     *             <li>500 (INTERNAL_SERVER_ERROR) si ocurre un error interno.</li>
+     *         </ul>
+     */
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Paquetes devueltos con éxito"),
+            @ApiResponse(responseCode = "204", description = "No hay paquetes disponibles"),
+            @ApiResponse(responseCode = "400", description = "Solicitud incorrecta"),
+            @ApiResponse(responseCode = "503", description = "Demasiadas búsquedas en curso"),
+            @ApiResponse(responseCode = "500", description = INTERNAL_SERVER_ERROR)
+    })
+    @GetMapping("/search")
+    public ResponseEntity<Object> searchPackages(
+            @RequestParam("dateFrom") @DateTimeFormat(pattern = "dd/MM/yyyy") LocalDate dateFrom,
+            @RequestParam("dateTo") @DateTimeFormat(pattern = "dd/MM/yyyy") LocalDate dateTo,
+            @RequestParam("origin") String origin,
+            @RequestParam("destination") String destination,
+            @RequestParam(value = "passengers", defaultValue = "1") int passengers,
+            @RequestParam(value = "limit", defaultValue = "20") int limit) {
+
+        try {
+            TripSearchDto result = tripSearchService.searchPackages(dateFrom, dateTo, origin, destination,
+                    passengers, limit);
+            if (result.getPackages().isEmpty() && result.isFlightsComplete() && result.isHotelsComplete()) {
+                return new ResponseEntity<>(HttpStatus.NO_CONTENT);
+            }
+            return new ResponseEntity<>(result, HttpStatus.OK);
+        } catch (IllegalArgumentException e) {
+            return new ResponseEntity<>(e.getMessage(), HttpStatus.BAD_REQUEST);
+        } catch (RejectedExecutionException e) {
+            logger.warn("Búsqueda de paquetes rechazada: {}", e.getMessage());
+            return new ResponseEntity<>("Demasiadas búsquedas en curso, inténtelo de nuevo", HttpStatus.SERVICE_UNAVAILABLE);
+        } catch (Exception e) {
+            logger.error("Error interno del servidor en searchPackages: {}", e.getMessage());
+            return new ResponseEntity<>(INTERNAL_SERVER_ERROR, HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+}
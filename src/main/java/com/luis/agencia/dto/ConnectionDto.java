@@ -0,0 +1,33 @@
+package com.luis.agencia.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.List;
+
+/**
+ * DTO que representa un itinerario con escalas y su precio total.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class ConnectionDto {
+
+    /**
+     * Tramos del itinerario, en orden.
+     */
+    private List<FlightDto> legs;
+
+    /**
+     * Número de escalas (tramos menos uno).
+     */
+    private int stops;
+
+    /**
+     * Precio total del itinerario para todos los pasajeros.
+     */
+    private double totalPrice;
+}
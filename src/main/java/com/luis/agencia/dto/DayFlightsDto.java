@@ -0,0 +1,32 @@
+package com.luis.agencia.dto;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * DTO con los vuelos de un día concreto dentro de una búsqueda con fechas flexibles.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class DayFlightsDto {
+
+    /**
+     * Día al que corresponden los vuelos.
+     * Se formatea como "dd-MM-yyyy" en la representación JSON.
+     */
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "dd-MM-yyyy")
+    private LocalDate date;
+
+    /**
+     * Vuelos del día (vacía si no hay ninguno).
+     */
+    private List<FlightDto> flights;
+}
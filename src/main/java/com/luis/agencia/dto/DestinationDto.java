@@ -0,0 +1,33 @@
+package com.luis.agencia.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.List;
+
+/**
+ * DTO de un destino del catálogo compartido por vuelos y hoteles.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class DestinationDto {
+
+    /**
+     * Identificador del destino.
+     */
+    private Integer id;
+
+    /**
+     * Nombre principal del destino.
+     */
+    private String name;
+
+    /**
+     * Claves normalizadas con las que se reconoce el destino, ordenadas alfabéticamente.
+     */
+    private List<String> aliasKeys;
+}
@@ -0,0 +1,36 @@
+package com.luis.agencia.dto;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDate;
+
+/**
+ * DTO con las tarifas mínimas de un día del calendario de tarifas de una ruta.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class FareCalendarDayDto {
+
+    /**
+     * Día de ida.
+     * Se formatea como "dd-MM-yyyy" en la representación JSON.
+     */
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "dd-MM-yyyy")
+    private LocalDate date;
+
+    /**
+     * Precio mínimo de un asiento de turista ese día, o {@code null} si no hay asientos libres.
+     */
+    private Double minEconomyPrice;
+
+    /**
+     * Precio mínimo de un asiento business ese día, o {@code null} si no hay asientos libres.
+     */
+    private Double minBusinessPrice;
+}
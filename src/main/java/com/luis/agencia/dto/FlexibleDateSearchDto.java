@@ -0,0 +1,29 @@
+package com.luis.agencia.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.List;
+
+/**
+ * DTO con el resultado de una búsqueda de vuelos con fechas flexibles: los vuelos de ida y
+ * de vuelta agrupados por día, con una entrada por cada día del rango aunque no haya vuelos.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class FlexibleDateSearchDto {
+
+    /**
+     * Vuelos de ida por día de salida, en orden cronológico.
+     */
+    private List<DayFlightsDto> outboundDays;
+
+    /**
+     * Vuelos de vuelta por día de vuelta, en orden cronológico.
+     */
+    private List<DayFlightsDto> returnDays;
+}
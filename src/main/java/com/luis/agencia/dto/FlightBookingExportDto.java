@@ -0,0 +1,62 @@
+package com.luis.agencia.dto;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDate;
+
+/**
+ * DTO con una reserva de vuelo y los datos de su vuelo, tal y como se exporta.
+ * Se construye directamente en la consulta, sin cargar entidades.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class FlightBookingExportDto {
+
+    /**
+     * Identificador de la reserva.
+     */
+    private Long id;
+
+    /**
+     * Fecha del vuelo reservado.
+     * Se formatea como "dd-MM-yyyy" en la representación JSON.
+     */
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "dd-MM-yyyy")
+    private LocalDate date;
+
+    /**
+     * Cantidad de personas de la reserva.
+     */
+    private int peopleQ;
+
+    /**
+     * Identificador del vuelo.
+     */
+    private Long flightId;
+
+    /**
+     * Número del vuelo.
+     */
+    private String flightNumber;
+
+    /**
+     * Nombre del vuelo.
+     */
+    private String flightName;
+
+    /**
+     * Origen del vuelo.
+     */
+    private String origin;
+
+    /**
+     * Destino del vuelo.
+     */
+    private String destination;
+}
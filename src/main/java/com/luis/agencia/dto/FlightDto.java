@@ -1,6 +1,7 @@
 package com.luis.agencia.dto;
 
 import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Positive;
@@ -23,6 +24,13 @@ import java.time.LocalDate;
 @NoArgsConstructor
 public class FlightDto {
 
+    /**
+     * Identificador del vuelo.
+     * Solo se devuelve en las respuestas: al crear o editar un vuelo se ignora.
+     */
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private Long id;
+
     /**
      * Nombre del vuelo.
      * Este campo no puede estar vacío.
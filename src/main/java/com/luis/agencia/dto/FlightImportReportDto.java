@@ -0,0 +1,35 @@
+package com.luis.agencia.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * DTO con el resultado de una importación masiva de vuelos.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class FlightImportReportDto {
+
+    /**
+     * Número de vuelos insertados.
+     */
+    private int imported;
+
+    /**
+     * Número de filas rechazadas.
+     */
+    private int rejected;
+
+    /**
+     * Errores de las filas rechazadas, en orden de línea. Solo se detallan los primeros;
+     * el total está en {@link #rejected}.
+     */
+    private List<ImportRowErrorDto> errors = new ArrayList<>();
+}
@@ -1,7 +1,9 @@
 package com.luis.agencia.dto;
 
+import com.fasterxml.jackson.annotation.JsonProperty;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Positive;
+import java.util.ArrayList;
 import java.util.List;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
@@ -46,17 +48,17 @@ public class HotelDto {
     private String place;
 
     /**
-     * Número de habitaciones individuales disponibles.
-     * Debe ser un número positivo.
+     * Número de habitaciones individuales dadas de alta en el hotel.
+     * Solo se devuelve en las respuestas: al crear o editar un hotel se ignora.
      */
-    @Positive(message = "El número de habitaciones individuales debe ser positivo")
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
     private int singleRoomsQ;
 
     /**
-     * Número de habitaciones dobles disponibles.
-     * Debe ser un número positivo.
+     * Número de habitaciones dobles dadas de alta en el hotel.
+     * Solo se devuelve en las respuestas: al crear o editar un hotel se ignora.
      */
-    @Positive(message = "El número de habitaciones dobles debe ser positivo")
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
     private int doubleRoomsQ;
 
     /**
@@ -78,6 +80,17 @@ public class HotelDto {
      * (Si se utiliza para relacionar con la entidad Room).
      */
     private List<Long> rooms;
+
+    /**
+     * Constructor usado por las proyecciones de consulta, que leen solo las columnas del hotel.
+     * La lista de habitaciones se deja vacía para rellenarla aparte.
+     */
+    @SuppressWarnings("java:S107") // Se suprime la advertencia de demasiados parámetros
+    public HotelDto(Long id, String hotelCode, String name, String place, int singleRoomsQ, int doubleRoomsQ,
+                    double simpleRoomPrice, double doubleRoomPrice) {
+        this(id, hotelCode, name, place, singleRoomsQ, doubleRoomsQ, simpleRoomPrice, doubleRoomPrice,
+                new ArrayList<>());
+    }
 }
 
 
@@ -0,0 +1,46 @@
+package com.luis.agencia.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * DTO que representa el alojamiento más barato de un hotel para un grupo y unas noches.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class HotelOptionDto {
+
+    /**
+     * Identificador del hotel.
+     */
+    private Long hotelId;
+
+    /**
+     * Nombre del hotel.
+     */
+    private String name;
+
+    /**
+     * Lugar del hotel.
+     */
+    private String place;
+
+    /**
+     * Habitaciones dobles necesarias.
+     */
+    private int doubleRooms;
+
+    /**
+     * Habitaciones individuales necesarias.
+     */
+    private int singleRooms;
+
+    /**
+     * Precio total de las habitaciones durante todas las noches.
+     */
+    private double totalPrice;
+}
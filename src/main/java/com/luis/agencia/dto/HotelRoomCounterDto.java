@@ -0,0 +1,47 @@
+package com.luis.agencia.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * DTO con el resultado de conciliar los contadores de habitaciones de un hotel
+ * con las habitaciones que tiene dadas de alta.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class HotelRoomCounterDto {
+
+    /**
+     * Identificador del hotel.
+     */
+    private Long hotelId;
+
+    /**
+     * Código del hotel.
+     */
+    private String hotelCode;
+
+    /**
+     * Habitaciones simples según el contador del hotel.
+     */
+    private int singleRoomsQ;
+
+    /**
+     * Habitaciones dobles según el contador del hotel.
+     */
+    private int doubleRoomsQ;
+
+    /**
+     * Habitaciones simples dadas de alta en el hotel.
+     */
+    private long singleRooms;
+
+    /**
+     * Habitaciones dobles dadas de alta en el hotel.
+     */
+    private long doubleRooms;
+}
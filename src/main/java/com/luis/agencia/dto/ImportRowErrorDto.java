@@ -0,0 +1,26 @@
+package com.luis.agencia.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * DTO con el error de una fila rechazada en una importación masiva.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class ImportRowErrorDto {
+
+    /**
+     * Número de línea del fichero (empezando en 1).
+     */
+    private long line;
+
+    /**
+     * Motivo por el que se ha rechazado la fila.
+     */
+    private String message;
+}
@@ -0,0 +1,31 @@
+package com.luis.agencia.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * DTO que representa una combinación de ida y vuelta con su precio total.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class RoundTripDto {
+
+    /**
+     * Vuelo de ida.
+     */
+    private FlightDto outbound;
+
+    /**
+     * Vuelo de vuelta.
+     */
+    private FlightDto inbound;
+
+    /**
+     * Precio total de la combinación para todos los pasajeros.
+     */
+    private double totalPrice;
+}
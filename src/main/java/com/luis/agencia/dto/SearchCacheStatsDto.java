@@ -0,0 +1,51 @@
+package com.luis.agencia.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * DTO con los contadores de la caché de resultados de búsqueda desde el arranque de la aplicación.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class SearchCacheStatsDto {
+
+    /**
+     * Búsquedas respondidas desde la caché.
+     */
+    private long hits;
+
+    /**
+     * Búsquedas que han tenido que calcularse.
+     */
+    private long misses;
+
+    /**
+     * Resultados descartados por superar el tamaño máximo.
+     */
+    private long evictions;
+
+    /**
+     * Resultados descartados por caducar.
+     */
+    private long expirations;
+
+    /**
+     * Resultados descartados por un cambio en los datos (reservas, vuelos o habitaciones).
+     */
+    private long invalidations;
+
+    /**
+     * Resultados guardados actualmente.
+     */
+    private int size;
+
+    /**
+     * Número máximo de resultados guardados.
+     */
+    private int maxSize;
+}
@@ -0,0 +1,31 @@
+package com.luis.agencia.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * DTO que representa un paquete de viaje: vuelos de ida y vuelta más el alojamiento en destino.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class TripPackageDto {
+
+    /**
+     * Vuelos de ida y vuelta con su precio.
+     */
+    private RoundTripDto flights;
+
+    /**
+     * Alojamiento en el destino con su precio.
+     */
+    private HotelOptionDto hotel;
+
+    /**
+     * Precio total del paquete para todos los pasajeros.
+     */
+    private double totalPrice;
+}
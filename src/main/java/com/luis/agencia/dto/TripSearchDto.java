@@ -0,0 +1,34 @@
+package com.luis.agencia.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.List;
+
+/**
+ * DTO con el resultado de una búsqueda de paquetes de viaje. Si la búsqueda de vuelos o la
+ * de hoteles no termina a tiempo, su indicador queda a {@code false} y no hay paquetes.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class TripSearchDto {
+
+    /**
+     * Paquetes, del más barato al más caro.
+     */
+    private List<TripPackageDto> packages;
+
+    /**
+     * Indica si la búsqueda de vuelos ha terminado dentro de su plazo.
+     */
+    private boolean flightsComplete;
+
+    /**
+     * Indica si la búsqueda de hoteles ha terminado dentro de su plazo.
+     */
+    private boolean hotelsComplete;
+}
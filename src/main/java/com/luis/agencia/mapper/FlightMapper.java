@@ -2,33 +2,58 @@ package com.luis.agencia.mapper;
 
 import com.luis.agencia.dto.FlightDto;
 import com.luis.agencia.model.Flight;
-import org.modelmapper.ModelMapper;
-import org.modelmapper.convention.MatchingStrategies;
 import org.springframework.stereotype.Component;
 
+/**
+ * Mapper para convertir entre la entidad {@link Flight} y su representación en DTO {@link FlightDto}.
+ * <p>
+ * El mapeo se escribe campo a campo, sin reflexión, porque se ejecuta para cada vuelo de los
+ * listados y búsquedas. Copia los mismos campos que copiaba ModelMapper con la estrategia
+ * {@code STRICT}, salvo el identificador del DTO, que no se lleva a la entidad porque lo
+ * asigna la base de datos. La versión y las reservas del vuelo no se copian.
+ */
 @Component
 public class FlightMapper {
 
-    private final ModelMapper modelMapper;
-
-    public FlightMapper(ModelMapper modelMapper) {
-        this.modelMapper = modelMapper;
-        this.modelMapper.getConfiguration()
-                .setMatchingStrategy(MatchingStrategies.STRICT);
-    }
-
+    /**
+     * Convierte una entidad {@link Flight} a un DTO {@link FlightDto}.
+     *
+     * @param flight La entidad de vuelo a convertir.
+     * @return El DTO correspondiente, o {@code null} si la entidad es {@code null}.
+     */
     public FlightDto entityToDto(Flight flight) {
         if (flight == null) {
             return null;
         }
-        return modelMapper.map(flight, FlightDto.class);
+        FlightDto flightDto = new FlightDto();
+        flightDto.setId(flight.getId());
+        flightDto.setName(flight.getName());
+        flightDto.setFlightNumber(flight.getFlightNumber());
+        flightDto.setOrigin(flight.getOrigin());
+        flightDto.setDestination(flight.getDestination());
+        flightDto.setBusinessSeatsQ(flight.getBusinessSeatsQ());
+        flightDto.setEconomySeatsQ(flight.getEconomySeatsQ());
+        flightDto.setBusinessSeatPrice(flight.getBusinessSeatPrice());
+        flightDto.setEconomySeatPrice(flight.getEconomySeatPrice());
+        flightDto.setDateFrom(flight.getDateFrom());
+        flightDto.setDateTo(flight.getDateTo());
+        flightDto.setActiva(flight.isActiva());
+        return flightDto;
     }
 
+    /**
+     * Convierte un DTO {@link FlightDto} a su entidad correspondiente {@link Flight}.
+     *
+     * @param flightDto El DTO que contiene la información del vuelo.
+     * @return La entidad {@link Flight} resultante, o {@code null} si el DTO es {@code null}.
+     */
     public Flight dtoToEntity(FlightDto flightDto) {
         if (flightDto == null) {
             return null;
         }
-        return modelMapper.map(flightDto, Flight.class);
+        return new Flight(flightDto.getName(), flightDto.getFlightNumber(), flightDto.getOrigin(),
+                flightDto.getDestination(), flightDto.getBusinessSeatsQ(), flightDto.getEconomySeatsQ(),
+                flightDto.getBusinessSeatPrice(), flightDto.getEconomySeatPrice(), flightDto.isActiva(),
+                flightDto.getDateFrom(), flightDto.getDateTo());
     }
 }
-
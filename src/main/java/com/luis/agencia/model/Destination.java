@@ -0,0 +1,61 @@
+package com.luis.agencia.model;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Destino del catálogo compartido por vuelos y hoteles.
+ * <p>
+ * Cada ciudad tiene un identificador entero compacto al que hacen referencia el origen y el
+ * destino de {@link Flight} y el lugar de {@link Hotel}, de modo que los índices, las
+ * consultas y las estructuras de búsqueda en memoria comparan enteros en lugar de textos.
+ * Los nombres con los que se conoce la ciudad (el principal y sus alias, por ejemplo
+ * "Londres" y "London") se guardan como claves normalizadas ({@link PlaceKeys}), y cada clave
+ * pertenece a un único destino.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@Entity
+@Table(name = "destination")
+public class Destination {
+
+    /**
+     * Identificador del destino. La secuencia avanza de uno en uno para que los identificadores
+     * sean consecutivos: se crean pocos destinos y se usan como índices en memoria.
+     */
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "destination_id")
+    @SequenceGenerator(name = "destination_id", sequenceName = "destination_seq", allocationSize = 1)
+    private Integer id;
+
+    /**
+     * Nombre principal del destino, tal como se escribió la primera vez.
+     */
+    @Column(nullable = false)
+    private String name;
+
+    /**
+     * Claves normalizadas del nombre principal y de sus alias.
+     */
+    @ElementCollection(fetch = FetchType.EAGER)
+    @CollectionTable(name = "destination_alias", joinColumns = @JoinColumn(name = "destination_id"),
+            uniqueConstraints = @UniqueConstraint(name = "uk_destination_alias_key", columnNames = "alias_key"))
+    @Column(name = "alias_key", nullable = false)
+    private Set<String> aliasKeys = new HashSet<>();
+
+    /**
+     * Crea un destino cuyo nombre principal es también su primera clave.
+     *
+     * @param name Nombre del destino.
+     */
+    public Destination(String name) {
+        this.name = name;
+        this.aliasKeys.add(PlaceKeys.of(name));
+    }
+}
@@ -2,6 +2,7 @@ package com.luis.agencia.model;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
+import lombok.AccessLevel;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
@@ -20,16 +21,27 @@ import java.util.List;
  * con el código existente, aunque supere el límite de parámetros recomendado.
  * Se sugiere, en proyectos nuevos, utilizar patrones como Builder o agrupar
  * parámetros en objetos de valor para mayor legibilidad.</p>
+ *
+ * <p>Los índices cubren las búsquedas por ruta y fecha de ida o de vuelta, y por fecha
+ * de ida o de vuelta sola. La ruta se busca por los identificadores del origen y el destino
+ * en el catálogo de destinos (ver {@link Destination}).</p>
  */
 @Getter
 @Setter
 @AllArgsConstructor
 @NoArgsConstructor
 @Entity
+@Table(name = "flight", indexes = {
+        @Index(name = "idx_flight_route_date_from", columnList = "origin_id, destination_id, date_from"),
+        @Index(name = "idx_flight_route_date_to", columnList = "origin_id, destination_id, date_to"),
+        @Index(name = "idx_flight_date_from", columnList = "date_from"),
+        @Index(name = "idx_flight_date_to", columnList = "date_to")
+})
 public class Flight {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "flight_id")
+    @SequenceGenerator(name = "flight_id", sequenceName = "flight_seq", allocationSize = IdGenerators.ALLOCATION_SIZE)
     private Long id;
 
     @Column(unique = true, nullable = false)
@@ -41,6 +53,26 @@ public class Flight {
     private String origin;
     private String destination;
 
+    /**
+     * Claves normalizadas del origen y el destino, mantenidas al asignar estos.
+     */
+    @JsonIgnore
+    @Setter(AccessLevel.NONE)
+    private String originKey;
+
+    @JsonIgnore
+    @Setter(AccessLevel.NONE)
+    private String destinationKey;
+
+    /**
+     * Identificadores del origen y el destino en el catálogo de destinos, asignados al guardar el vuelo.
+     */
+    @JsonIgnore
+    private Integer originId;
+
+    @JsonIgnore
+    private Integer destinationId;
+
     private int businessSeatsQ;
     private int economySeatsQ;
 
@@ -57,6 +89,15 @@ public class Flight {
     @Column(columnDefinition = "DATE", nullable = false)
     private LocalDate dateTo;   // Fecha de vuelta
 
+    /**
+     * Versión para el bloqueo optimista. Las actualizaciones atómicas de asientos
+     * la incrementan también, de modo que una edición concurrente del vuelo se detecta.
+     */
+    @JsonIgnore
+    @Version
+    @Column(nullable = false, columnDefinition = "bigint default 0")
+    private long version;
+
     @JsonIgnore
     @OneToMany(mappedBy = "flight")
     private List<FlightBooking> flightBookings = new ArrayList<>();
@@ -95,8 +136,8 @@ public class Flight {
 
         this.name = name;
         this.flightNumber = flightNumber;
-        this.origin = origin;
-        this.destination = destination;
+        setOrigin(origin);
+        setDestination(destination);
         this.businessSeatsQ = businessSeatsQ;
         this.economySeatsQ = economySeatsQ;
         this.businessSeatPrice = businessSeatPrice;
@@ -105,6 +146,26 @@ public class Flight {
         this.dateFrom = dateFrom;
         this.dateTo = dateTo;
     }
+
+    public void setOrigin(String origin) {
+        this.origin = origin;
+        this.originKey = PlaceKeys.of(origin);
+    }
+
+    public void setDestination(String destination) {
+        this.destination = destination;
+        this.destinationKey = PlaceKeys.of(destination);
+    }
+
+    /**
+     * Recalcula las claves antes de escribir, por si el vuelo se creó sin pasar por los setters.
+     */
+    @PrePersist
+    @PreUpdate
+    void refreshPlaceKeys() {
+        this.originKey = PlaceKeys.of(origin);
+        this.destinationKey = PlaceKeys.of(destination);
+    }
 }
 
 
@@ -29,7 +29,8 @@ public class FlightBooking {
      * Identificador único de la reserva de vuelo.
      */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "flight_booking_id")
+    @SequenceGenerator(name = "flight_booking_id", sequenceName = "flight_booking_seq", allocationSize = IdGenerators.ALLOCATION_SIZE)
     private Long id;
 
     /**
@@ -60,6 +61,15 @@ public class FlightBooking {
     @Min(value = 1, message = "La cantidad de personas debe ser al menos 1")
     private int peopleQ;
 
+    /**
+     * Versión para el bloqueo optimista. Dos ediciones simultáneas de la misma reserva
+     * devolverían dos veces sus asientos al vuelo: la segunda falla y se repite con los datos actuales.
+     */
+    @JsonIgnore
+    @Version
+    @Column(nullable = false, columnDefinition = "bigint default 0")
+    private long version;
+
     /**
      * Lista de pasajeros asociados a la reserva de vuelo.
      * Se utiliza la relación OneToMany, donde un vuelo puede tener múltiples pasajeros.
@@ -2,6 +2,7 @@ package com.luis.agencia.model;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
+import lombok.AccessLevel;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
@@ -15,19 +16,23 @@ import java.util.List;
  * Contiene información como el código, nombre, ubicación,
  * número de habitaciones (simples y dobles) y su precio.
  * Además, mantiene una relación OneToMany con la entidad Room.
+ * El índice sobre el identificador del lugar en el catálogo de destinos (ver {@link Destination})
+ * cubre las búsquedas de habitaciones por destino.
  */
 @Getter
 @Setter
 @NoArgsConstructor
 @AllArgsConstructor
 @Entity
+@Table(name = "hotel", indexes = @Index(name = "idx_hotel_place_id", columnList = "place_id"))
 public class Hotel {
 
     /**
      * Identificador único del hotel.
      */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "hotel_id")
+    @SequenceGenerator(name = "hotel_id", sequenceName = "hotel_seq", allocationSize = IdGenerators.ALLOCATION_SIZE)
     private Long id;
 
     /**
@@ -48,12 +53,27 @@ public class Hotel {
     private String place;
 
     /**
-     * Cantidad de habitaciones simples disponibles en el hotel.
+     * Clave normalizada del lugar, mantenida al asignar este.
+     */
+    @JsonIgnore
+    @Setter(AccessLevel.NONE)
+    private String placeKey;
+
+    /**
+     * Identificador del lugar en el catálogo de destinos, asignado al guardar el hotel.
+     */
+    @JsonIgnore
+    private Integer placeId;
+
+    /**
+     * Cantidad de habitaciones simples del hotel. Las reservas no la modifican: la ocupación
+     * se lleva por noches en {@link RoomNight}.
      */
     private int singleRoomsQ;
 
     /**
-     * Cantidad de habitaciones dobles disponibles en el hotel.
+     * Cantidad de habitaciones dobles del hotel. Las reservas no la modifican: la ocupación
+     * se lleva por noches en {@link RoomNight}.
      */
     private int doubleRoomsQ;
 
@@ -80,6 +100,20 @@ public class Hotel {
     @JsonIgnore
     @OneToMany(mappedBy = "hotel", orphanRemoval = true)
     private List<Room> rooms = new ArrayList<>();
+
+    public void setPlace(String place) {
+        this.place = place;
+        this.placeKey = PlaceKeys.of(place);
+    }
+
+    /**
+     * Recalcula la clave antes de escribir, por si el hotel se creó sin pasar por el setter.
+     */
+    @PrePersist
+    @PreUpdate
+    void refreshPlaceKey() {
+        this.placeKey = PlaceKeys.of(place);
+    }
 }
 
 
@@ -0,0 +1,20 @@
+package com.luis.agencia.model;
+
+/**
+ * Parámetros comunes de la generación de identificadores de las entidades.
+ * <p>
+ * Las entidades obtienen sus identificadores de una secuencia por tabla (en MySQL, una tabla
+ * {@code <entidad>_seq} que la emula) con el optimizador {@code pooled}: cada lectura de la
+ * secuencia reserva un bloque de {@link #ALLOCATION_SIZE} identificadores, de modo que
+ * Hibernate puede agrupar los INSERT en lotes JDBC, cosa que no hace con {@code IDENTITY}.
+ */
+public final class IdGenerators {
+
+    /**
+     * Número de identificadores que se reservan en cada lectura de la secuencia.
+     */
+    public static final int ALLOCATION_SIZE = 50;
+
+    private IdGenerators() {
+    }
+}
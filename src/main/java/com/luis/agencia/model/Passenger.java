@@ -9,15 +9,18 @@ import lombok.Setter;
 // Entidad Pasajero (Passenger) - Para ambos tipos de reserva
 //Passenger tiene relaciones ManyToOne con RoomBooking y FlightBooking.
 // Un pasajero puede estar asociado con una reserva de habitación y una reserva de vuelo.
+// El índice sobre el DNI cubre la búsqueda de pasajeros por DNI.
 @Getter
 @Setter
 @NoArgsConstructor
 @AllArgsConstructor
 @Entity
+@Table(name = "passenger", indexes = @Index(name = "idx_passenger_dni", columnList = "dni"))
 public class Passenger {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "passenger_id")
+    @SequenceGenerator(name = "passenger_id", sequenceName = "passenger_seq", allocationSize = IdGenerators.ALLOCATION_SIZE)
     private Long id;
     private String name;
     private String lastName;
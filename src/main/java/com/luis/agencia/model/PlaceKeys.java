@@ -0,0 +1,36 @@
+package com.luis.agencia.model;
+
+import java.text.Normalizer;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Normalización de nombres de ciudades y destinos para compararlos.
+ * <p>
+ * Las entidades guardan junto a cada lugar su clave normalizada (sin espacios al principio ni
+ * al final, en minúsculas y sin acentos), calculada al escribirlo, y el catálogo de destinos
+ * ({@link Destination}) reconoce cada ciudad por estas claves. Así "Málaga", " malaga" y
+ * "MALAGA" llevan al mismo destino, y las búsquedas comparan su identificador por igualdad
+ * con una columna indexada, sin aplicar funciones a la columna ni comparar fila a fila en Java.
+ */
+public final class PlaceKeys {
+
+    private static final Pattern COMBINING_MARKS = Pattern.compile("\\p{M}+");
+
+    private PlaceKeys() {
+    }
+
+    /**
+     * Devuelve la clave normalizada de un lugar.
+     *
+     * @param place Nombre del lugar.
+     * @return La clave, o una cadena vacía si el lugar es {@code null}.
+     */
+    public static String of(String place) {
+        if (place == null) {
+            return "";
+        }
+        String folded = Normalizer.normalize(place.trim(), Normalizer.Form.NFD);
+        return COMBINING_MARKS.matcher(folded).replaceAll("").toLowerCase(Locale.ROOT);
+    }
+}
@@ -13,20 +13,29 @@ import java.time.LocalDate;
 /**
  * Entidad que representa una habitación (Room) dentro de la agencia de viajes.
  * Cada habitación se asocia a un tipo específico (RoomType), un intervalo de disponibilidad
- * y está vinculada a un hotel y, opcionalmente, a una reserva de habitación.
+ * y está vinculada a un hotel. Las noches en que está reservada se registran en {@link RoomNight},
+ * de modo que la misma habitación puede venderse para estancias que no se solapan.
+ * Los índices cubren las búsquedas por tipo o por hotel y rango de disponibilidad.
  */
 @Getter
 @Setter
 @NoArgsConstructor
 @AllArgsConstructor
 @Entity
+@Table(name = "room", indexes = {
+        @Index(name = "idx_room_type_availability",
+                columnList = "room_type, disponibility_date_from, disponibility_date_to"),
+        @Index(name = "idx_room_hotel_availability",
+                columnList = "hotel_id, disponibility_date_from, disponibility_date_to")
+})
 public class Room {
 
     /**
      * Identificador único de la habitación.
      */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "room_id")
+    @SequenceGenerator(name = "room_id", sequenceName = "room_seq", allocationSize = IdGenerators.ALLOCATION_SIZE)
     private Long id;
 
     /**
@@ -61,15 +70,5 @@ public class Room {
     @ManyToOne
     @JoinColumn(name = "hotel_id", nullable = false)
     private Hotel hotel;
-
-    /**
-     * Reserva de habitación a la que está asociada esta habitación (opcional).
-     * Relación ManyToOne, ya que una habitación solo puede estar en una reserva a la vez.
-     * Se ignora en la serialización JSON para evitar ciclos de referencia.
-     */
-    @JsonIgnore
-    @ManyToOne
-    @JoinColumn(name = "room_booking_id")
-    private RoomBooking roomBooking;
 }
 
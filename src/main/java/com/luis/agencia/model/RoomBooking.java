@@ -26,7 +26,8 @@ public class RoomBooking {
      * Identificador único de la reserva de habitación.
      */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "room_booking_id")
+    @SequenceGenerator(name = "room_booking_id", sequenceName = "room_booking_seq", allocationSize = IdGenerators.ALLOCATION_SIZE)
     private Long id;
 
     /**
@@ -54,12 +55,16 @@ public class RoomBooking {
     private int peopleQ;
 
     /**
-     * Relación OneToMany con la entidad Room.
-     * Se configuran las operaciones de cascada PERSIST, MERGE y REFRESH para evitar que
-     * las habitaciones sean eliminadas físicamente al borrar la reserva.
+     * Relación ManyToMany con la entidad Room, a través de la tabla room_booking_room.
+     * Una habitación puede pertenecer a varias reservas siempre que sus noches no se solapen;
+     * la ocupación de cada noche se registra en {@link RoomNight}.
+     * No se propaga ninguna operación en cascada, para que las habitaciones no se modifiquen
+     * ni se eliminen al guardar o borrar la reserva.
      */
-    @OneToMany(mappedBy = "roomBooking",
-            cascade = {CascadeType.PERSIST, CascadeType.MERGE, CascadeType.REFRESH})
+    @ManyToMany
+    @JoinTable(name = "room_booking_room",
+            joinColumns = @JoinColumn(name = "room_booking_id"),
+            inverseJoinColumns = @JoinColumn(name = "room_id"))
     private List<Room> rooms = new ArrayList<>();
 
     /**
@@ -0,0 +1,53 @@
+package com.luis.agencia.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDate;
+
+/**
+ * Entidad que representa una noche ocupada de una habitación por una reserva.
+ * Una reserva de N noches genera N filas por habitación. La restricción única sobre
+ * (habitación, noche) impide vender dos veces la misma noche, y su índice permite
+ * comprobar la disponibilidad de una habitación con un recorrido por rango de fechas.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "room_night",
+        uniqueConstraints = @UniqueConstraint(name = "uk_room_night_room_night", columnNames = {"room_id", "night"}),
+        indexes = @Index(name = "idx_room_night_booking_room", columnList = "room_booking_id, room_id"))
+public class RoomNight {
+
+    /**
+     * Identificador único de la noche reservada.
+     */
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    /**
+     * Habitación ocupada.
+     */
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "room_id", nullable = false)
+    private Room room;
+
+    /**
+     * Reserva que ocupa la habitación esa noche.
+     */
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "room_booking_id", nullable = false)
+    private RoomBooking roomBooking;
+
+    /**
+     * Noche ocupada (fecha de entrada de esa noche).
+     */
+    @Column(columnDefinition = "DATE", nullable = false)
+    private LocalDate night;
+}
@@ -0,0 +1,24 @@
+package com.luis.agencia.repository;
+
+import com.luis.agencia.model.Destination;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Optional;
+
+/**
+ * Repositorio para la entidad {@link Destination}.
+ * Gestiona el catálogo de destinos y sus alias.
+ */
+public interface IDestinationRepository extends JpaRepository<Destination, Integer> {
+
+    /**
+     * Busca el destino al que pertenece una clave normalizada (su nombre principal o un alias).
+     *
+     * @param aliasKey la clave normalizada del nombre.
+     * @return un Optional con el destino, o vacío si ningún destino usa esa clave.
+     */
+    @Query("SELECT d FROM Destination d JOIN d.aliasKeys a WHERE a = :aliasKey")
+    Optional<Destination> findByAliasKey(@Param("aliasKey") String aliasKey);
+}
@@ -1,7 +1,57 @@
 package com.luis.agencia.repository;
 
+import com.luis.agencia.dto.FlightBookingExportDto;
 import com.luis.agencia.model.FlightBooking;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.AvailableHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+
+import java.util.List;
+import java.util.stream.Stream;
 
 public interface IFlightBookingRepository extends JpaRepository<FlightBooking, Long> {
+
+    /**
+     * Tamaño de lectura de las exportaciones: {@link Integer#MIN_VALUE} hace que MySQL Connector/J
+     * entregue las filas una a una según llegan, en lugar de cargar el resultado entero en memoria,
+     * sin activar {@code useCursorFetch} para todas las consultas. Mientras el flujo está abierto
+     * la conexión no admite otras consultas.
+     */
+    String EXPORT_FETCH_SIZE = "" + Integer.MIN_VALUE;
+
+    /**
+     * Comprueba si un vuelo tiene alguna reserva, sin cargar las reservas.
+     *
+     * @param flightId el identificador del vuelo.
+     * @return {@code true} si existe al menos una reserva para el vuelo.
+     */
+    boolean existsByFlightId(Long flightId);
+
+    /**
+     * Devuelve una página de reservas de vuelo con id mayor que el cursor, en orden ascendente de id.
+     *
+     * @param afterId id a partir del cual (sin incluirlo) empieza la página.
+     * @param limit   número máximo de filas a devolver.
+     * @return reservas de vuelo de la página.
+     */
+    List<FlightBooking> findByIdGreaterThanOrderByIdAsc(Long afterId, Limit limit);
+
+    /**
+     * Recorre todas las reservas de vuelo con los datos de su vuelo, en orden de id, leyendo
+     * de la base de datos fila a fila ({@link #EXPORT_FETCH_SIZE}). Las filas se construyen
+     * como DTO, así que no quedan entidades en el contexto de persistencia. El flujo debe
+     * consumirse y cerrarse dentro de una transacción.
+     *
+     * @return flujo de reservas para exportar.
+     */
+    @QueryHints({
+            @QueryHint(name = AvailableHints.HINT_FETCH_SIZE, value = EXPORT_FETCH_SIZE),
+            @QueryHint(name = AvailableHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT new com.luis.agencia.dto.FlightBookingExportDto(b.id, b.date, b.peopleQ, f.id, f.flightNumber, "
+            + "f.name, f.origin, f.destination) FROM FlightBooking b JOIN b.flight f ORDER BY b.id")
+    Stream<FlightBookingExportDto> streamAllForExport();
 }
@@ -1,12 +1,18 @@
 package com.luis.agencia.repository;
+import com.luis.agencia.dto.FlightDto;
 import com.luis.agencia.model.Flight;
+import com.luis.agencia.model.Destination;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.Optional;
 import java.util.List;
+import java.util.Set;
 
 /**
  * Repositorio para la entidad {@link Flight}.
@@ -15,6 +21,13 @@ import java.util.List;
  */
 public interface IFlightRepository extends JpaRepository<Flight, Long> {
 
+    /**
+     * Expresión de proyección de un vuelo {@code f} sobre {@link FlightDto}.
+     */
+    String FLIGHT_DTO = "new com.luis.agencia.dto.FlightDto(f.id, f.name, f.flightNumber, f.origin, f.destination, "
+            + "f.businessSeatsQ, f.economySeatsQ, f.businessSeatPrice, f.economySeatPrice, f.dateFrom, f.dateTo, "
+            + "f.isActiva)";
+
     /**
      * Busca un vuelo por su número único.
      *
@@ -25,23 +38,77 @@ public interface IFlightRepository extends JpaRepository<Flight, Long> {
 
     /**
      * Obtiene una lista de vuelos que coinciden con la fecha de salida, origen y destino especificados.
+     * El origen y el destino se comparan por sus identificadores en el catálogo de destinos ({@link Destination}).
      *
-     * @param dateFrom la fecha de salida del vuelo.
-     * @param origin   el origen del vuelo.
-     * @param destination el destino del vuelo.
+     * @param dateFrom      la fecha de salida del vuelo.
+     * @param originId      el identificador del origen del vuelo.
+     * @param destinationId el identificador del destino del vuelo.
      * @return lista de vuelos que cumplen con los criterios.
      */
-    List<Flight> findByDateFromAndOriginAndDestination(LocalDate dateFrom, String origin, String destination);
+    List<Flight> findByDateFromAndOriginIdAndDestinationId(LocalDate dateFrom, Integer originId, Integer destinationId);
 
     /**
      * Obtiene una lista de vuelos que coinciden con la fecha de llegada, origen y destino especificados.
+     * El origen y el destino se comparan por sus identificadores en el catálogo de destinos ({@link Destination}).
      *
-     * @param dateTo   la fecha de llegada del vuelo.
-     * @param origin   el origen del vuelo.
-     * @param destination el destino del vuelo.
+     * @param dateTo        la fecha de llegada del vuelo.
+     * @param originId      el identificador del origen del vuelo.
+     * @param destinationId el identificador del destino del vuelo.
      * @return lista de vuelos que cumplen con los criterios.
      */
-    List<Flight> findByDateToAndOriginAndDestination(LocalDate dateTo, String origin, String destination);
+    List<Flight> findByDateToAndOriginIdAndDestinationId(LocalDate dateTo, Integer originId, Integer destinationId);
+
+    /**
+     * Devuelve, de entre los números de vuelo indicados, los que ya existen.
+     *
+     * @param flightNumbers números de vuelo a comprobar.
+     * @return números de vuelo ya registrados.
+     */
+    @Query("SELECT f.flightNumber FROM Flight f WHERE f.flightNumber IN :flightNumbers")
+    Set<String> findExistingFlightNumbers(@Param("flightNumbers") Collection<String> flightNumbers);
+
+    /**
+     * Devuelve, de entre los nombres de vuelo indicados, los que ya existen.
+     *
+     * @param names nombres de vuelo a comprobar.
+     * @return nombres de vuelo ya registrados.
+     */
+    @Query("SELECT f.name FROM Flight f WHERE f.name IN :names")
+    Set<String> findExistingNames(@Param("names") Collection<String> names);
+
+    /**
+     * Obtiene en una sola consulta los vuelos activos de una ruta cuya fecha de salida está
+     * dentro del rango indicado, leyendo directamente las columnas del DTO.
+     *
+     * @param origin      el identificador del origen del vuelo.
+     * @param destination el identificador del destino del vuelo.
+     * @param from        primera fecha de salida (incluida).
+     * @param to          última fecha de salida (incluida).
+     * @return vuelos ordenados por fecha de salida e id.
+     */
+    @Query("SELECT " + FLIGHT_DTO + " FROM Flight f WHERE f.originId = :origin AND f.destinationId = :destination "
+            + "AND f.isActiva = true AND f.dateFrom BETWEEN :from AND :to ORDER BY f.dateFrom, f.id")
+    List<FlightDto> findActiveDtosByDateFromBetween(@Param("origin") Integer origin,
+                                                   @Param("destination") Integer destination,
+                                                   @Param("from") LocalDate from,
+                                                   @Param("to") LocalDate to);
+
+    /**
+     * Obtiene en una sola consulta los vuelos activos de una ruta cuya fecha de vuelta está
+     * dentro del rango indicado, leyendo directamente las columnas del DTO.
+     *
+     * @param origin      el identificador del origen del vuelo.
+     * @param destination el identificador del destino del vuelo.
+     * @param from        primera fecha de vuelta (incluida).
+     * @param to          última fecha de vuelta (incluida).
+     * @return vuelos ordenados por fecha de vuelta e id.
+     */
+    @Query("SELECT " + FLIGHT_DTO + " FROM Flight f WHERE f.originId = :origin AND f.destinationId = :destination "
+            + "AND f.isActiva = true AND f.dateTo BETWEEN :from AND :to ORDER BY f.dateTo, f.id")
+    List<FlightDto> findActiveDtosByDateToBetween(@Param("origin") Integer origin,
+                                                 @Param("destination") Integer destination,
+                                                 @Param("from") LocalDate from,
+                                                 @Param("to") LocalDate to);
 
     /**
      * Consulta personalizada que obtiene vuelos donde la fecha de salida o la fecha de llegada
@@ -52,6 +119,79 @@ public interface IFlightRepository extends JpaRepository<Flight, Long> {
      */
     @Query("SELECT f FROM Flight f WHERE f.dateFrom = :date OR f.dateTo = :date")
     List<Flight> findByDateFromOrDateTo(@Param("date") LocalDate date);
-}
 
+    /**
+     * Descuenta asientos de un vuelo de forma atómica, solo si quedan suficientes
+     * asientos de ambas clases. Incrementa la versión del vuelo.
+     *
+     * @param id            el identificador del vuelo.
+     * @param economySeats  asientos de turista a descontar.
+     * @param businessSeats asientos business a descontar.
+     * @return número de filas actualizadas: 1 si se reservaron los asientos, 0 si no había suficientes.
+     */
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE Flight f SET f.economySeatsQ = f.economySeatsQ - :economySeats, "
+            + "f.businessSeatsQ = f.businessSeatsQ - :businessSeats, f.version = f.version + 1 "
+            + "WHERE f.id = :id AND f.economySeatsQ >= :economySeats AND f.businessSeatsQ >= :businessSeats")
+    int decrementSeats(@Param("id") Long id,
+                       @Param("economySeats") int economySeats,
+                       @Param("businessSeats") int businessSeats);
+
+    /**
+     * Devuelve asientos a un vuelo de forma atómica e incrementa su versión.
+     *
+     * @param id            el identificador del vuelo.
+     * @param economySeats  asientos de turista a devolver.
+     * @param businessSeats asientos business a devolver.
+     * @return número de filas actualizadas.
+     */
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE Flight f SET f.economySeatsQ = f.economySeatsQ + :economySeats, "
+            + "f.businessSeatsQ = f.businessSeatsQ + :businessSeats, f.version = f.version + 1 "
+            + "WHERE f.id = :id")
+    int incrementSeats(@Param("id") Long id,
+                       @Param("economySeats") int economySeats,
+                       @Param("businessSeats") int businessSeats);
+
+    /**
+     * Lee directamente de la base de datos los asientos disponibles y la versión de un vuelo,
+     * sin pasar por las entidades ya cargadas en el contexto de persistencia.
+     *
+     * @param id el identificador del vuelo.
+     * @return la disponibilidad de asientos, o vacío si el vuelo no existe.
+     */
+    @Query("SELECT f.economySeatsQ AS economySeatsQ, f.businessSeatsQ AS businessSeatsQ, f.version AS version "
+            + "FROM Flight f WHERE f.id = :id")
+    Optional<SeatAvailability> findSeatAvailabilityById(@Param("id") Long id);
+
+    /**
+     * Devuelve una página de vuelos activos con id mayor que el cursor, en orden ascendente de id,
+     * leyendo directamente las columnas del DTO.
+     *
+     * @param afterId id a partir del cual (sin incluirlo) empieza la página.
+     * @param limit   número máximo de filas a devolver.
+     * @return vuelos activos de la página.
+     */
+    @Query("SELECT " + FLIGHT_DTO + " FROM Flight f WHERE f.isActiva = true AND f.id > :afterId ORDER BY f.id")
+    List<FlightDto> findActiveDtoPage(@Param("afterId") Long afterId, Limit limit);
+
+    /**
+     * Busca un vuelo por su identificador leyendo directamente las columnas del DTO.
+     *
+     * @param id el identificador del vuelo.
+     * @return el vuelo en forma de DTO, o vacío si no existe.
+     */
+    @Query("SELECT " + FLIGHT_DTO + " FROM Flight f WHERE f.id = :id")
+    Optional<FlightDto> findDtoById(@Param("id") Long id);
 
+    /**
+     * Proyección con los asientos disponibles de un vuelo y su versión.
+     */
+    interface SeatAvailability {
+        int getEconomySeatsQ();
+
+        int getBusinessSeatsQ();
+
+        long getVersion();
+    }
+}
@@ -1,8 +1,14 @@
 package com.luis.agencia.repository;
 
+import com.luis.agencia.dto.HotelDto;
 import com.luis.agencia.model.Hotel;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.util.List;
 import java.util.Optional;
 
 /**
@@ -12,6 +18,12 @@ import java.util.Optional;
  */
 public interface IHotelRepository extends JpaRepository<Hotel, Long> {
 
+    /**
+     * Expresión de proyección de un hotel {@code h} sobre {@link HotelDto}.
+     */
+    String HOTEL_DTO = "new com.luis.agencia.dto.HotelDto(h.id, h.hotelCode, h.name, h.place, "
+            + "h.singleRoomsQ, h.doubleRoomsQ, h.simpleRoomPrice, h.doubleRoomPrice)";
+
     /**
      * Busca un hotel por su código único.
      *
@@ -19,5 +31,79 @@ public interface IHotelRepository extends JpaRepository<Hotel, Long> {
      * @return un Optional que contiene el hotel encontrado o vacío si no existe.
      */
     Optional<Hotel> findByHotelCode(String hotelCode);
-}
 
+    /**
+     * Busca un hotel activo por su identificador leyendo solo las columnas del DTO
+     * (sin la lista de habitaciones).
+     *
+     * @param id el identificador del hotel.
+     * @return el hotel en forma de DTO, o vacío si no existe o está dado de baja.
+     */
+    @Query("SELECT " + HOTEL_DTO + " FROM Hotel h WHERE h.id = :id AND h.isActive = true")
+    Optional<HotelDto> findActiveDtoById(@Param("id") Long id);
+
+    /**
+     * Devuelve una página de hoteles activos con id mayor que el cursor, en orden ascendente de id,
+     * leyendo solo las columnas del DTO (sin la lista de habitaciones).
+     *
+     * @param afterId id a partir del cual (sin incluirlo) empieza la página.
+     * @param limit   número máximo de filas a devolver.
+     * @return hoteles activos de la página.
+     */
+    @Query("SELECT " + HOTEL_DTO + " FROM Hotel h WHERE h.isActive = true AND h.id > :afterId ORDER BY h.id")
+    List<HotelDto> findActiveDtoPage(@Param("afterId") Long afterId, Limit limit);
+
+    /**
+     * Compara los contadores de habitaciones de cada hotel activo con las habitaciones de cada
+     * tipo que tiene dadas de alta, y devuelve solo los hoteles en los que no coinciden.
+     *
+     * @return hoteles con contadores desajustados.
+     */
+    @Query(value = "SELECT h.id AS hotelId, h.hotel_code AS hotelCode, " +
+            "h.single_rooms_q AS singleRoomsQ, h.double_rooms_q AS doubleRoomsQ, " +
+            "COALESCE(SUM(r.room_type = 'SINGLE'), 0) AS singleRooms, " +
+            "COALESCE(SUM(r.room_type = 'DOUBLE'), 0) AS doubleRooms " +
+            "FROM hotel h LEFT JOIN room r ON r.hotel_id = h.id " +
+            "WHERE h.is_active = TRUE " +
+            "GROUP BY h.id, h.hotel_code, h.single_rooms_q, h.double_rooms_q " +
+            "HAVING h.single_rooms_q <> singleRooms OR h.double_rooms_q <> doubleRooms " +
+            "ORDER BY h.id",
+            nativeQuery = true)
+    List<RoomCounterMismatch> findRoomCounterMismatches();
+
+    /**
+     * Iguala en una sola sentencia los contadores de habitaciones de todos los hoteles con las
+     * habitaciones de cada tipo que tienen dadas de alta. Solo se actualizan los hoteles
+     * desajustados, así que el número de filas que devuelve MySQL (que cuenta las encontradas,
+     * no las modificadas) es el de hoteles corregidos.
+     *
+     * @return número de hoteles cuyos contadores han cambiado.
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query(value = "UPDATE hotel h LEFT JOIN (" +
+            "SELECT r.hotel_id AS hotel_id, SUM(r.room_type = 'SINGLE') AS single_rooms, " +
+            "SUM(r.room_type = 'DOUBLE') AS double_rooms FROM room r GROUP BY r.hotel_id) c " +
+            "ON c.hotel_id = h.id " +
+            "SET h.single_rooms_q = COALESCE(c.single_rooms, 0), h.double_rooms_q = COALESCE(c.double_rooms, 0) " +
+            "WHERE h.single_rooms_q <> COALESCE(c.single_rooms, 0) " +
+            "OR h.double_rooms_q <> COALESCE(c.double_rooms, 0)",
+            nativeQuery = true)
+    int recomputeRoomCounters();
+
+    /**
+     * Proyección con los contadores de un hotel y las habitaciones que tiene dadas de alta.
+     */
+    interface RoomCounterMismatch {
+        Long getHotelId();
+
+        String getHotelCode();
+
+        Integer getSingleRoomsQ();
+
+        Integer getDoubleRoomsQ();
+
+        Long getSingleRooms();
+
+        Long getDoubleRooms();
+    }
+}
@@ -1,9 +1,17 @@
 package com.luis.agencia.repository;
 
+import com.luis.agencia.model.FlightBooking;
 import com.luis.agencia.model.Passenger;
+import com.luis.agencia.model.RoomBooking;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.lang.NonNull;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 /**
@@ -28,6 +36,55 @@ public interface IPassengerRepository extends JpaRepository<Passenger, Long> {
      * @return true si existe un pasajero con ese ID, false en caso contrario.
      */
     boolean existsById(@NonNull Long id);
-}
 
+    /**
+     * Asocia en una sola sentencia los pasajeros indicados a una reserva de vuelo.
+     *
+     * @param flightBooking la reserva de vuelo, ya persistida.
+     * @param ids           los identificadores de los pasajeros.
+     * @return número de pasajeros actualizados.
+     */
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE Passenger p SET p.flightBooking = :flightBooking WHERE p.id IN :ids")
+    int assignFlightBooking(@Param("flightBooking") FlightBooking flightBooking, @Param("ids") Collection<Long> ids);
+
+    /**
+     * Desvincula en una sola sentencia todos los pasajeros de una reserva de vuelo.
+     *
+     * @param flightBooking la reserva de vuelo.
+     * @return número de pasajeros actualizados.
+     */
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE Passenger p SET p.flightBooking = NULL WHERE p.flightBooking = :flightBooking")
+    int unassignFlightBooking(@Param("flightBooking") FlightBooking flightBooking);
+
+    /**
+     * Asocia en una sola sentencia los pasajeros indicados a una reserva de habitación.
+     *
+     * @param roomBooking la reserva de habitación, ya persistida.
+     * @param ids         los identificadores de los pasajeros.
+     * @return número de pasajeros actualizados.
+     */
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE Passenger p SET p.roomBooking = :roomBooking WHERE p.id IN :ids")
+    int assignRoomBooking(@Param("roomBooking") RoomBooking roomBooking, @Param("ids") Collection<Long> ids);
+
+    /**
+     * Desvincula en una sola sentencia todos los pasajeros de una reserva de habitación.
+     *
+     * @param roomBooking la reserva de habitación.
+     * @return número de pasajeros actualizados.
+     */
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE Passenger p SET p.roomBooking = NULL WHERE p.roomBooking = :roomBooking")
+    int unassignRoomBooking(@Param("roomBooking") RoomBooking roomBooking);
 
+    /**
+     * Devuelve una página de pasajeros con id mayor que el cursor, en orden ascendente de id.
+     *
+     * @param afterId id a partir del cual (sin incluirlo) empieza la página.
+     * @param limit   número máximo de filas a devolver.
+     * @return pasajeros de la página.
+     */
+    List<Passenger> findByIdGreaterThanOrderByIdAsc(Long afterId, Limit limit);
+}
@@ -1,7 +1,17 @@
 package com.luis.agencia.repository;
 
 import com.luis.agencia.model.RoomBooking;
+import com.luis.agencia.model.RoomType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.AvailableHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.stream.Stream;
 
 /**
  * Repositorio para la entidad {@link RoomBooking}.
@@ -9,5 +19,59 @@ import org.springframework.data.jpa.repository.JpaRepository;
  * y consultas adicionales sobre la base de datos.
  */
 public interface IRoomBookingRepository extends JpaRepository<RoomBooking, Long> {
-}
 
+    /**
+     * Devuelve una página de reservas de habitación con id mayor que el cursor, en orden ascendente de id.
+     *
+     * @param afterId id a partir del cual (sin incluirlo) empieza la página.
+     * @param limit   número máximo de filas a devolver.
+     * @return reservas de habitación de la página.
+     */
+    List<RoomBooking> findByIdGreaterThanOrderByIdAsc(Long afterId, Limit limit);
+
+    /**
+     * Recorre todas las reservas de habitación con una fila por cada habitación reservada
+     * (o una sola fila sin habitación si no tiene ninguna), junto con su hotel, en orden de
+     * reserva y habitación. Se lee fila a fila ({@link IFlightBookingRepository#EXPORT_FETCH_SIZE})
+     * y sin cargar entidades, en lugar de cargar las habitaciones y hoteles de cada reserva
+     * por separado. El flujo debe consumirse y cerrarse dentro de una transacción.
+     *
+     * @return flujo de habitaciones reservadas para exportar.
+     */
+    @QueryHints({
+            @QueryHint(name = AvailableHints.HINT_FETCH_SIZE, value = IFlightBookingRepository.EXPORT_FETCH_SIZE),
+            @QueryHint(name = AvailableHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT b.id AS bookingId, b.dateFrom AS dateFrom, b.dateTo AS dateTo, b.nights AS nights, "
+            + "b.peopleQ AS peopleQ, r.id AS roomId, r.roomType AS roomType, h.name AS hotelName, "
+            + "h.place AS place, h.doubleRoomPrice AS doubleRoomPrice, h.simpleRoomPrice AS simpleRoomPrice "
+            + "FROM RoomBooking b LEFT JOIN b.rooms r LEFT JOIN r.hotel h ORDER BY b.id, r.id")
+    Stream<BookedRoomRow> streamBookedRoomsForExport();
+
+    /**
+     * Proyección con una habitación de una reserva y los datos de su hotel.
+     */
+    interface BookedRoomRow {
+        Long getBookingId();
+
+        LocalDate getDateFrom();
+
+        LocalDate getDateTo();
+
+        int getNights();
+
+        int getPeopleQ();
+
+        Long getRoomId();
+
+        RoomType getRoomType();
+
+        String getHotelName();
+
+        String getPlace();
+
+        Double getDoubleRoomPrice();
+
+        Double getSimpleRoomPrice();
+    }
+}
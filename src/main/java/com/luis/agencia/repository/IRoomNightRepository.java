@@ -0,0 +1,102 @@
+package com.luis.agencia.repository;
+
+import com.luis.agencia.model.RoomBooking;
+import com.luis.agencia.model.RoomNight;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Repositorio para la entidad {@link RoomNight}.
+ * Gestiona la ocupación por noches de las habitaciones.
+ */
+public interface IRoomNightRepository extends JpaRepository<RoomNight, Long> {
+
+    /**
+     * Ocupa para una reserva, en una sola sentencia, todas las noches del rango
+     * [{@code dateFrom}, {@code dateTo}) de las habitaciones indicadas que sigan libres en todo el rango.
+     * Las habitaciones con alguna noche ya ocupada no se modifican.
+     * <p>
+     * Si una reserva concurrente ocupa a la vez alguna de esas noches, la restricción única
+     * (habitación, noche) deja la fila existente tal cual ({@code ON DUPLICATE KEY UPDATE}) en lugar
+     * de abortar la sentencia; cualquier otro error (clave ajena, dato no válido) sí la aborta. La
+     * habitación puede quedar así ocupada solo en parte, y como el número de filas que devuelve
+     * MySQL cuenta también las repetidas, quien llama lo comprueba con {@link #findFullyClaimedRoomIds}.
+     *
+     * @param roomBookingId identificador de la reserva, ya persistida.
+     * @param ids           identificadores de las habitaciones.
+     * @param dateFrom      primera noche (fecha de entrada).
+     * @param dateTo        fecha de salida (no incluida).
+     */
+    @Modifying(flushAutomatically = true)
+    @Query(value = "INSERT INTO room_night (room_id, room_booking_id, night) " +
+            "WITH RECURSIVE nights (night) AS (" +
+            "SELECT CAST(:dateFrom AS DATE) " +
+            "UNION ALL SELECT night + INTERVAL 1 DAY FROM nights WHERE night + INTERVAL 1 DAY < :dateTo) " +
+            "SELECT r.id, :roomBookingId, n.night FROM room r CROSS JOIN nights n " +
+            "WHERE r.id IN (:ids) " +
+            "AND NOT EXISTS (SELECT 1 FROM room_night x WHERE x.room_id = r.id " +
+            "AND x.night >= :dateFrom AND x.night < :dateTo) " +
+            "ON DUPLICATE KEY UPDATE room_id = room_id",
+            nativeQuery = true)
+    void claimNights(@Param("roomBookingId") Long roomBookingId,
+                     @Param("ids") Collection<Long> ids,
+                     @Param("dateFrom") LocalDate dateFrom,
+                     @Param("dateTo") LocalDate dateTo);
+
+    /**
+     * Devuelve, de entre los identificadores indicados, los de las habitaciones que tienen
+     * ocupadas por la reserva las {@code nights} noches de su estancia.
+     */
+    @Query("SELECT n.room.id FROM RoomNight n WHERE n.roomBooking = :roomBooking AND n.room.id IN :ids " +
+            "GROUP BY n.room.id HAVING COUNT(n) = :nights")
+    List<Long> findFullyClaimedRoomIds(@Param("roomBooking") RoomBooking roomBooking,
+                                       @Param("ids") Collection<Long> ids,
+                                       @Param("nights") long nights);
+
+    /**
+     * Libera las noches que una reserva tiene ocupadas en las habitaciones indicadas.
+     *
+     * @return número de noches liberadas.
+     */
+    @Modifying(flushAutomatically = true)
+    @Query("DELETE FROM RoomNight n WHERE n.roomBooking = :roomBooking AND n.room.id IN :ids")
+    int releaseNights(@Param("roomBooking") RoomBooking roomBooking, @Param("ids") Collection<Long> ids);
+
+    /**
+     * Libera en una sola sentencia todas las noches ocupadas por una reserva.
+     *
+     * @return número de noches liberadas.
+     */
+    @Modifying(flushAutomatically = true)
+    @Query("DELETE FROM RoomNight n WHERE n.roomBooking = :roomBooking")
+    int releaseNights(@Param("roomBooking") RoomBooking roomBooking);
+
+    /**
+     * Devuelve todas las noches reservadas, solo con la habitación y la fecha.
+     * Se utiliza para cargar el índice de disponibilidad en memoria.
+     */
+    @Query("SELECT n.room.id AS roomId, n.night AS night FROM RoomNight n")
+    List<BookedNight> findAllBookedNights();
+
+    /**
+     * Devuelve las noches reservadas de las habitaciones indicadas, solo con la habitación y la fecha.
+     * Se utiliza para refrescar en el índice de disponibilidad las habitaciones de una reserva.
+     */
+    @Query("SELECT n.room.id AS roomId, n.night AS night FROM RoomNight n WHERE n.room.id IN :roomIds")
+    List<BookedNight> findBookedNightsByRoomIdIn(@Param("roomIds") Collection<Long> roomIds);
+
+    /**
+     * Proyección con la habitación y la fecha de una noche reservada.
+     */
+    interface BookedNight {
+        Long getRoomId();
+
+        LocalDate getNight();
+    }
+}
@@ -1,12 +1,15 @@
 package com.luis.agencia.repository;
 
+import com.luis.agencia.model.Destination;
 import com.luis.agencia.model.Room;
 import com.luis.agencia.model.RoomType;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 
 public interface IRoomRepository extends JpaRepository<Room, Long> {
@@ -17,29 +20,34 @@ public interface IRoomRepository extends JpaRepository<Room, Long> {
     List<Room> findByHotelId(Long hotelId);
 
     /**
-     * Devuelve habitaciones disponibles (sin reserva) de un tipo específico dentro de un rango de fechas.
+     * Devuelve los identificadores de las habitaciones de varios hoteles en una sola consulta.
+     *
+     * @param hotelIds identificadores de los hoteles.
+     * @return pares (hotel, habitación), en orden ascendente de id de habitación.
      */
-    List<Room> findByRoomTypeAndDisponibilityDateFromLessThanEqualAndDisponibilityDateToGreaterThanEqualAndRoomBookingIsNull(
-            RoomType roomType,
-            LocalDate dateFrom,
-            LocalDate dateTo
-    );
+    @Query("SELECT r.hotel.id AS hotelId, r.id AS roomId FROM Room r WHERE r.hotel.id IN :hotelIds ORDER BY r.id")
+    List<HotelRoomId> findRoomIdsByHotelIdIn(@Param("hotelIds") Collection<Long> hotelIds);
 
     /**
      * Devuelve habitaciones disponibles por tipo y destino (usando JPQL).
-     * Filtra por roomType, rango de fechas y que el hotel esté en el destino indicado.
+     * Filtra por roomType, que la habitación se ofrezca durante todo el rango de fechas,
+     * que el hotel esté en el destino indicado y que ninguna noche de la estancia
+     * [dateFrom, dateTo) esté ya ocupada. En estas búsquedas el destino es el identificador del
+     * lugar en el catálogo de destinos ({@link Destination}), que se compara por igualdad con la
+     * columna indexada del hotel.
      */
     @Query("SELECT r FROM Room r " +
             "WHERE r.roomType = :roomType " +
-            "AND r.disponibilityDateFrom <= :dateTo " +
-            "AND r.disponibilityDateTo >= :dateFrom " +
-            "AND r.roomBooking IS NULL " +
-            "AND LOWER(r.hotel.place) = LOWER(:destination)")
+            "AND r.disponibilityDateFrom <= :dateFrom " +
+            "AND r.disponibilityDateTo >= :dateTo " +
+            "AND r.hotel.placeId = :destination " +
+            "AND NOT EXISTS (SELECT n FROM RoomNight n WHERE n.room = r " +
+            "AND n.night >= :dateFrom AND n.night < :dateTo)")
     List<Room> findAvailableRoomsByTypeAndDestination(
             @Param("roomType") RoomType roomType,
             @Param("dateFrom") LocalDate dateFrom,
             @Param("dateTo") LocalDate dateTo,
-            @Param("destination") String destination
+            @Param("destination") Integer destination
     );
 
     /**
@@ -53,21 +61,65 @@ public interface IRoomRepository extends JpaRepository<Room, Long> {
 
     /**
      * Devuelve habitaciones disponibles por destino y rango de fechas (usando JPQL).
+     * Una habitación está disponible si ninguna noche de [fromDate, toDate) está ocupada,
+     * lo que se comprueba con un recorrido por rango sobre el índice (habitación, noche).
      */
     @Query("SELECT r FROM Room r " +
-            "WHERE LOWER(r.hotel.place) = LOWER(:destination) " +
+            "WHERE r.hotel.placeId = :destination " +
             "AND r.disponibilityDateFrom <= :toDate " +
             "AND r.disponibilityDateTo >= :fromDate " +
-            "AND r.roomBooking IS NULL")
+            "AND NOT EXISTS (SELECT n FROM RoomNight n WHERE n.room = r " +
+            "AND n.night >= :fromDate AND n.night < :toDate)")
     List<Room> findAvailableRoomsByDestination(
-            @Param("destination") String destination,
+            @Param("destination") Integer destination,
             @Param("fromDate") LocalDate fromDate,
             @Param("toDate") LocalDate toDate
     );
-}
-
-
 
+    /**
+     * Devuelve hasta {@code limit} habitaciones candidatas de un tipo en un destino, disponibles
+     * durante todo el rango de fechas, sin noches ocupadas en él y que no estén entre las
+     * excluidas. Es una lectura sin bloqueos: dos reservas simultáneas pueden recibir la misma
+     * habitación, y la que llegue tarde la pierde al ocupar sus noches, que protege la clave única
+     * (habitación, noche) de {@code room_night}. Quien llama excluye las habitaciones perdidas al
+     * pedir sustitutas, porque la lectura puede seguir viéndolas libres.
+     */
+    @Query(value = "SELECT r.* FROM room r " +
+            "JOIN hotel h ON h.id = r.hotel_id " +
+            "WHERE r.room_type = :roomType " +
+            "AND r.disponibility_date_from <= :dateFrom " +
+            "AND r.disponibility_date_to >= :dateTo " +
+            "AND NOT EXISTS (SELECT 1 FROM room_night n WHERE n.room_id = r.id " +
+            "AND n.night >= :dateFrom AND n.night < :dateTo) " +
+            "AND h.place_id = :destination " +
+            "AND r.id NOT IN (:excludedIds) " +
+            "ORDER BY r.id " +
+            "LIMIT :limit",
+            nativeQuery = true)
+    List<Room> findRoomCandidatesByTypeAndDestination(
+            @Param("roomType") String roomType,
+            @Param("dateFrom") LocalDate dateFrom,
+            @Param("dateTo") LocalDate dateTo,
+            @Param("destination") Integer destination,
+            @Param("excludedIds") Collection<Long> excludedIds,
+            @Param("limit") int limit
+    );
 
+    /**
+     * Devuelve una página de habitaciones con id mayor que el cursor, en orden ascendente de id.
+     *
+     * @param afterId id a partir del cual (sin incluirlo) empieza la página.
+     * @param limit   número máximo de filas a devolver.
+     * @return habitaciones de la página.
+     */
+    List<Room> findByIdGreaterThanOrderByIdAsc(Long afterId, Limit limit);
 
+    /**
+     * Proyección con el identificador de una habitación y el de su hotel.
+     */
+    interface HotelRoomId {
+        Long getHotelId();
 
+        Long getRoomId();
+    }
+}
@@ -0,0 +1,32 @@
+package com.luis.agencia.service;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Aplaza hasta el commit de la transacción en curso los cambios de los índices en memoria, para
+ * que no reflejen datos que luego se deshacen. Fuera de una transacción se aplican en el acto.
+ */
+final class AfterCommit {
+
+    private AfterCommit() {
+    }
+
+    /**
+     * Ejecuta la acción tras el commit de la transacción en curso, o inmediatamente si no hay ninguna.
+     *
+     * @param action Cambio que se aplica al índice.
+     */
+    static void run(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+}
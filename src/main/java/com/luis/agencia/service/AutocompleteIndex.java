@@ -0,0 +1,232 @@
+package com.luis.agencia.service;
+
+import com.luis.agencia.model.Flight;
+import com.luis.agencia.model.Hotel;
+import com.luis.agencia.model.PlaceKeys;
+import com.luis.agencia.repository.IFlightRepository;
+import com.luis.agencia.repository.IHotelRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Índice en memoria para autocompletar los orígenes y destinos de los vuelos, los lugares de
+ * los hoteles y los nombres de hotel.
+ * <p>
+ * Cada campo guarda sus términos en un mapa ordenado por su clave normalizada
+ * ({@link PlaceKeys}), así que las sugerencias de un prefijo son un recorrido del mapa desde
+ * ese prefijo que se detiene al llenar el límite o al dejar de coincidir, sin mayúsculas,
+ * acentos ni espacios de por medio. De cada término se cuenta cuántos vuelos u hoteles
+ * activos lo usan, para retirarlo cuando deja de usarlo el último, y se devuelve la forma
+ * escrita más habitual. Se reconstruye al arrancar la aplicación y se mantiene sincronizado
+ * desde {@link FlightService}, {@link FlightImportService} y {@link HotelService}; los cambios
+ * se aplican tras el commit de la transacción.
+ */
+@Component
+public class AutocompleteIndex {
+
+    /**
+     * Campos que se pueden autocompletar.
+     */
+    public enum Field {
+        ORIGIN, DESTINATION, PLACE, HOTEL
+    }
+
+    /**
+     * Número máximo de sugerencias por petición.
+     */
+    public static final int MAX_LIMIT = 50;
+
+    private static final Logger logger = LoggerFactory.getLogger(AutocompleteIndex.class);
+
+    private final IFlightRepository flightRepository;
+
+    private final IHotelRepository hotelRepository;
+
+    /**
+     * Términos de cada campo, por clave normalizada.
+     */
+    private final Map<Field, ConcurrentSkipListMap<String, Term>> terms = new EnumMap<>(Field.class);
+
+    /**
+     * Términos que aporta cada vuelo activo: origen y destino.
+     */
+    private final Map<Long, List<String>> flightTerms = new ConcurrentHashMap<>();
+
+    /**
+     * Términos que aporta cada hotel activo: lugar y nombre.
+     */
+    private final Map<Long, List<String>> hotelTerms = new ConcurrentHashMap<>();
+
+    public AutocompleteIndex(IFlightRepository flightRepository, IHotelRepository hotelRepository) {
+        this.flightRepository = flightRepository;
+        this.hotelRepository = hotelRepository;
+        for (Field field : Field.values()) {
+            terms.put(field, new ConcurrentSkipListMap<>());
+        }
+    }
+
+    /**
+     * Carga (o recarga) el índice completo a partir de los vuelos y hoteles de la base de datos.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void rebuild() {
+        terms.values().forEach(Map::clear);
+        flightTerms.clear();
+        hotelTerms.clear();
+        List<Flight> flights = flightRepository.findAll();
+        for (Flight flight : flights) {
+            applyFlight(flight.getId(), termsOf(flight));
+        }
+        List<Hotel> hotels = hotelRepository.findAll();
+        for (Hotel hotel : hotels) {
+            applyHotel(hotel.getId(), termsOf(hotel));
+        }
+        logger.debug("Índice de autocompletado cargado con {} vuelos y {} hoteles", flights.size(), hotels.size());
+    }
+
+    /**
+     * Devuelve los términos de un campo que empiezan por un prefijo, sin distinguir
+     * mayúsculas, acentos ni espacios al principio o al final.
+     *
+     * @param field  Campo que se autocompleta.
+     * @param prefix Texto escrito por el usuario.
+     * @param limit  Número máximo de sugerencias (entre 1 y {@link #MAX_LIMIT}).
+     * @return Los términos en orden alfabético de su clave, o una lista vacía si el prefijo está vacío.
+     */
+    public List<String> suggest(Field field, String prefix, int limit) {
+        String key = PlaceKeys.of(prefix);
+        int max = Math.max(1, Math.min(limit, MAX_LIMIT));
+        if (key.isEmpty()) {
+            return List.of();
+        }
+        List<String> suggestions = new ArrayList<>(max);
+        for (Map.Entry<String, Term> entry : terms.get(field).tailMap(key).entrySet()) {
+            if (!entry.getKey().startsWith(key) || suggestions.size() == max) {
+                break;
+            }
+            suggestions.add(entry.getValue().display);
+        }
+        return suggestions;
+    }
+
+    /**
+     * Refleja en el índice el estado actual de un vuelo una vez confirmada la transacción.
+     * Los vuelos inactivos dejan de aportar sus términos.
+     *
+     * @param flight Vuelo creado, editado o eliminado.
+     */
+    public void refreshFlightAfterCommit(Flight flight) {
+        if (flight == null || flight.getId() == null) {
+            return;
+        }
+        // Se copian los valores ahora: la entidad puede cambiar antes del commit
+        Long id = flight.getId();
+        List<String> values = termsOf(flight);
+        AfterCommit.run(() -> applyFlight(id, values));
+    }
+
+    /**
+     * Refleja en el índice el estado actual de un hotel una vez confirmada la transacción.
+     * Los hoteles inactivos dejan de aportar sus términos.
+     *
+     * @param hotel Hotel creado, editado o eliminado.
+     */
+    public void refreshHotelAfterCommit(Hotel hotel) {
+        if (hotel == null || hotel.getId() == null) {
+            return;
+        }
+        Long id = hotel.getId();
+        List<String> values = termsOf(hotel);
+        AfterCommit.run(() -> applyHotel(id, values));
+    }
+
+    private static List<String> termsOf(Flight flight) {
+        return flight.isActiva() ? Arrays.asList(flight.getOrigin(), flight.getDestination()) : null;
+    }
+
+    private static List<String> termsOf(Hotel hotel) {
+        return hotel.isActive() ? Arrays.asList(hotel.getPlace(), hotel.getName()) : null;
+    }
+
+    private synchronized void applyFlight(Long id, List<String> values) {
+        replace(flightTerms, id, values, Field.ORIGIN, Field.DESTINATION);
+    }
+
+    private synchronized void applyHotel(Long id, List<String> values) {
+        replace(hotelTerms, id, values, Field.PLACE, Field.HOTEL);
+    }
+
+    /**
+     * Sustituye los términos que aporta un vuelo u hotel: resta los anteriores y suma los nuevos,
+     * campo a campo en el orden indicado.
+     */
+    private void replace(Map<Long, List<String>> contributions, Long id, List<String> values, Field... fields) {
+        List<String> previous = values == null ? contributions.remove(id) : contributions.put(id, values);
+        for (int i = 0; i < fields.length; i++) {
+            if (previous != null) {
+                remove(fields[i], previous.get(i));
+            }
+            if (values != null) {
+                add(fields[i], values.get(i));
+            }
+        }
+    }
+
+    private void add(Field field, String value) {
+        String key = PlaceKeys.of(value);
+        if (!key.isEmpty()) {
+            terms.get(field).computeIfAbsent(key, k -> new Term()).add(value.trim());
+        }
+    }
+
+    private void remove(Field field, String value) {
+        String key = PlaceKeys.of(value);
+        Term term = terms.get(field).get(key);
+        if (term != null && term.remove(value.trim())) {
+            terms.get(field).remove(key);
+        }
+    }
+
+    /**
+     * Formas escritas de un término con su número de usos. Se modifica solo con el bloqueo del
+     * índice; las búsquedas leen únicamente la forma a mostrar.
+     */
+    private static final class Term {
+
+        private final Map<String, Integer> spellings = new HashMap<>();
+
+        private volatile String display;
+
+        void add(String spelling) {
+            spellings.merge(spelling, 1, Integer::sum);
+            updateDisplay();
+        }
+
+        /**
+         * @return {@code true} si el término ya no lo usa ningún vuelo u hotel.
+         */
+        boolean remove(String spelling) {
+            spellings.computeIfPresent(spelling, (s, count) -> count == 1 ? null : count - 1);
+            if (spellings.isEmpty()) {
+                return true;
+            }
+            updateDisplay();
+            return false;
+        }
+
+        private void updateDisplay() {
+            display = spellings.entrySet().stream()
+                    .max(Map.Entry.<String, Integer>comparingByValue()
+                            .thenComparing(Map.Entry.comparingByKey(Comparator.reverseOrder())))
+                    .orElseThrow()
+                    .getKey();
+        }
+    }
+}
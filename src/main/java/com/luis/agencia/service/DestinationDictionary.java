@@ -0,0 +1,217 @@
+package com.luis.agencia.service;
+
+import com.luis.agencia.dto.DestinationDto;
+import com.luis.agencia.model.Destination;
+import com.luis.agencia.model.Flight;
+import com.luis.agencia.model.Hotel;
+import com.luis.agencia.model.PlaceKeys;
+import com.luis.agencia.repository.IDestinationRepository;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Diccionario en memoria del catálogo de destinos ({@link Destination}).
+ * <p>
+ * Traduce cualquier nombre con el que se conoce una ciudad (su nombre principal o un alias,
+ * sin importar mayúsculas, acentos ni espacios) al identificador entero del destino. Los
+ * vuelos y hoteles guardan ese identificador al escribirse, y las búsquedas traducen una sola
+ * vez el texto recibido, de modo que después las consultas, los índices y las comparaciones
+ * de rutas trabajan con enteros.
+ * <p>
+ * Los destinos nuevos se crean en su propia transacción, para que el identificador ya esté
+ * confirmado cuando se publica en el diccionario aunque la operación que lo pidió se deshaga.
+ */
+@Component
+public class DestinationDictionary {
+
+    /**
+     * Identificador que se devuelve para los nombres que no están en el catálogo.
+     * No corresponde a ningún destino, así que las búsquedas con él no encuentran nada.
+     */
+    public static final int UNKNOWN = 0;
+
+    private static final Logger logger = LoggerFactory.getLogger(DestinationDictionary.class);
+
+    private final IDestinationRepository destinationRepository;
+
+    private final TransactionTemplate newTransaction;
+
+    private final SearchCache searchCache;
+
+    /**
+     * Identificador del destino de cada clave normalizada.
+     */
+    private final Map<String, Integer> idsByKey = new ConcurrentHashMap<>();
+
+    /**
+     * Nombre principal de cada destino.
+     */
+    private final Map<Integer, String> namesById = new ConcurrentHashMap<>();
+
+    public DestinationDictionary(IDestinationRepository destinationRepository,
+                                 PlatformTransactionManager transactionManager, SearchCache searchCache) {
+        this.destinationRepository = destinationRepository;
+        this.searchCache = searchCache;
+        this.newTransaction = new TransactionTemplate(transactionManager);
+        this.newTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * Carga el catálogo completo.
+     */
+    @PostConstruct
+    public void load() {
+        List<Destination> destinations = destinationRepository.findAll();
+        destinations.forEach(this::register);
+        logger.debug("Catálogo de destinos cargado con {} destinos", destinations.size());
+    }
+
+    /**
+     * Devuelve el identificador del destino que corresponde a un nombre, sin crearlo.
+     *
+     * @param place Nombre de la ciudad, tal como lo escribe el usuario.
+     * @return El identificador, o {@link #UNKNOWN} si el nombre no está en el catálogo.
+     */
+    public int idOf(String place) {
+        Integer id = idsByKey.get(PlaceKeys.of(place));
+        return id == null ? UNKNOWN : id;
+    }
+
+    /**
+     * Devuelve el nombre principal de un destino.
+     *
+     * @param id Identificador del destino.
+     * @return El nombre, o {@code null} si no existe.
+     */
+    public String nameOf(int id) {
+        return namesById.get(id);
+    }
+
+    /**
+     * Devuelve el identificador del destino que corresponde a un nombre, creando el destino
+     * si el nombre no está en el catálogo.
+     *
+     * @param place Nombre de la ciudad.
+     * @return El identificador, o {@link #UNKNOWN} si el nombre está vacío.
+     */
+    public int resolve(String place) {
+        String key = PlaceKeys.of(place);
+        Integer id = idsByKey.get(key);
+        if (id != null) {
+            return id;
+        }
+        if (key.isEmpty()) {
+            return UNKNOWN;
+        }
+        synchronized (this) {
+            id = idsByKey.get(key);
+            if (id != null) {
+                return id;
+            }
+            Destination destination;
+            try {
+                destination = newTransaction.execute(status -> destinationRepository.findByAliasKey(key)
+                        .orElseGet(() -> destinationRepository.save(new Destination(place.trim()))));
+            } catch (DataIntegrityViolationException e) {
+                // Otra instancia de la aplicación ha creado el destino a la vez
+                destination = newTransaction.execute(status -> destinationRepository.findByAliasKey(key).orElseThrow());
+            }
+            register(destination);
+            return destination.getId();
+        }
+    }
+
+    /**
+     * Asigna a un vuelo los identificadores de su origen y su destino, creando los que falten.
+     *
+     * @param flight Vuelo que se va a guardar.
+     */
+    public void assignIds(Flight flight) {
+        flight.setOriginId(resolve(flight.getOrigin()));
+        flight.setDestinationId(resolve(flight.getDestination()));
+    }
+
+    /**
+     * Asigna a un hotel el identificador de su lugar, creándolo si falta.
+     *
+     * @param hotel Hotel que se va a guardar.
+     */
+    public void assignId(Hotel hotel) {
+        hotel.setPlaceId(resolve(hotel.getPlace()));
+    }
+
+    /**
+     * Devuelve todos los destinos del catálogo.
+     *
+     * @return Destinos ordenados por identificador.
+     */
+    public List<DestinationDto> findAll() {
+        return destinationRepository.findAll().stream()
+                .sorted(Comparator.comparing(Destination::getId))
+                .map(DestinationDictionary::toDto)
+                .toList();
+    }
+
+    /**
+     * Añade un alias a un destino, para que las búsquedas con ese nombre lo encuentren, y
+     * descarta los resultados guardados en la {@link SearchCache}, calculados cuando el alias
+     * aún no llevaba a este destino.
+     * <p>
+     * Los destinos no se fusionan: si el alias ya es un nombre de otro destino (por ejemplo,
+     * porque un vuelo lo creó antes con ese nombre), se rechaza, ya que moverlo dejaría los
+     * vuelos y hoteles de ese destino con un identificador al que ya no lleva ningún nombre.
+     *
+     * @param id    Identificador del destino.
+     * @param alias Nombre alternativo de la ciudad.
+     * @return El destino con el nuevo alias.
+     * @throws IllegalArgumentException si el destino no existe, el alias está vacío o ya es de otro destino.
+     */
+    public synchronized DestinationDto addAlias(int id, String alias) {
+        String key = PlaceKeys.of(alias);
+        if (key.isEmpty()) {
+            throw new IllegalArgumentException("El alias no puede estar vacío.");
+        }
+        Integer owner = idsByKey.get(key);
+        if (owner != null && owner != id) {
+            throw new IllegalArgumentException("El alias ya pertenece al destino " + nameOf(owner) + " (id " + owner
+                    + ") y los destinos no se pueden fusionar.");
+        }
+        Destination destination;
+        try {
+            destination = newTransaction.execute(status -> {
+                Destination found = destinationRepository.findById(id)
+                        .orElseThrow(() -> new IllegalArgumentException("No existe ningún destino con ese id."));
+                found.getAliasKeys().add(key);
+                return destinationRepository.save(found);
+            });
+        } catch (DataIntegrityViolationException e) {
+            throw new IllegalArgumentException("El alias ya pertenece a otro destino.", e);
+        }
+        register(destination);
+        searchCache.invalidateAll();
+        return toDto(destination);
+    }
+
+    private void register(Destination destination) {
+        namesById.put(destination.getId(), destination.getName());
+        for (String key : destination.getAliasKeys()) {
+            idsByKey.put(key, destination.getId());
+        }
+    }
+
+    private static DestinationDto toDto(Destination destination) {
+        return new DestinationDto(destination.getId(), destination.getName(),
+                destination.getAliasKeys().stream().sorted().toList());
+    }
+}
@@ -0,0 +1,106 @@
+package com.luis.agencia.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Escribe las filas de una exportación en NDJSON o CSV directamente en el flujo de salida,
+ * una a una, sin acumularlas en memoria.
+ * <p>
+ * En CSV las fechas se escriben como "dd-MM-yyyy", igual que en JSON, y las listas con sus
+ * elementos separados por {@code ;}.
+ *
+ * @param <T> Tipo de las filas.
+ */
+final class ExportWriter<T> {
+
+    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("dd-MM-yyyy");
+
+    private final Writer out;
+
+    private final FileFormat format;
+
+    private final ObjectWriter json;
+
+    private final Function<T, List<Object>> csvValues;
+
+    /**
+     * Crea el escritor y, en CSV, escribe la cabecera.
+     *
+     * @param out          Flujo de salida (no se cierra).
+     * @param format       Formato de la exportación.
+     * @param objectMapper Conversor JSON para NDJSON.
+     * @param rowType      Tipo de las filas.
+     * @param csvHeader    Nombres de las columnas CSV.
+     * @param csvValues    Valores de cada columna CSV de una fila, en el mismo orden que la cabecera.
+     */
+    ExportWriter(OutputStream out, FileFormat format, ObjectMapper objectMapper, Class<T> rowType,
+                 List<String> csvHeader, Function<T, List<Object>> csvValues) throws IOException {
+        this.out = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        this.format = format;
+        this.json = objectMapper.writerFor(rowType);
+        this.csvValues = csvValues;
+        if (format == FileFormat.CSV) {
+            writeCsvLine(List.copyOf(csvHeader));
+        }
+    }
+
+    /**
+     * Escribe una fila.
+     */
+    void write(T row) throws IOException {
+        if (format == FileFormat.CSV) {
+            writeCsvLine(csvValues.apply(row));
+        } else {
+            out.write(json.writeValueAsString(row));
+            out.write('\n');
+        }
+    }
+
+    /**
+     * Envía al flujo de salida lo que quede en el búfer.
+     */
+    void flush() throws IOException {
+        out.flush();
+    }
+
+    private void writeCsvLine(List<?> values) throws IOException {
+        for (int i = 0; i < values.size(); i++) {
+            if (i > 0) {
+                out.write(',');
+            }
+            out.write(csvField(values.get(i)));
+        }
+        out.write('\n');
+    }
+
+    static String csvField(Object value) {
+        String text;
+        if (value == null) {
+            text = "";
+        } else if (value instanceof LocalDate date) {
+            text = DATE_FORMAT.format(date);
+        } else if (value instanceof Collection<?> values) {
+            text = values.stream().map(String::valueOf).collect(Collectors.joining(";"));
+        } else {
+            text = value.toString();
+        }
+        if (text.indexOf(',') >= 0 || text.indexOf('"') >= 0 || text.indexOf('\n') >= 0 || text.indexOf('\r') >= 0) {
+            return '"' + text.replace("\"", "\"\"") + '"';
+        }
+        return text;
+    }
+}
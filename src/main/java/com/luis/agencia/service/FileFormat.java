@@ -0,0 +1,58 @@
+package com.luis.agencia.service;
+
+import org.springframework.http.MediaType;
+
+/**
+ * Formatos de fichero de las importaciones y exportaciones masivas.
+ */
+public enum FileFormat {
+
+    /**
+     * Un objeto JSON por línea.
+     */
+    NDJSON(MediaType.parseMediaType("application/x-ndjson")),
+
+    /**
+     * Valores separados por comas, con una primera línea de cabecera con los nombres de los campos.
+     */
+    CSV(MediaType.parseMediaType("text/csv"));
+
+    private final MediaType mediaType;
+
+    FileFormat(MediaType mediaType) {
+        this.mediaType = mediaType;
+    }
+
+    /**
+     * @return Tipo de contenido del formato.
+     */
+    public MediaType getMediaType() {
+        return mediaType;
+    }
+
+    /**
+     * Devuelve el formato correspondiente a un tipo de contenido.
+     *
+     * @param mediaType Tipo de contenido.
+     * @return {@link #CSV} para {@code text/csv}; {@link #NDJSON} en otro caso.
+     */
+    public static FileFormat of(MediaType mediaType) {
+        return CSV.mediaType.includes(mediaType) ? CSV : NDJSON;
+    }
+
+    /**
+     * Devuelve el formato indicado por su nombre, sin distinguir mayúsculas.
+     *
+     * @param name Nombre del formato ("ndjson" o "csv").
+     * @return El formato correspondiente.
+     * @throws IllegalArgumentException si el formato no existe.
+     */
+    public static FileFormat of(String name) {
+        for (FileFormat format : values()) {
+            if (format.name().equalsIgnoreCase(name)) {
+                return format;
+            }
+        }
+        throw new IllegalArgumentException("Formato no admitido: " + name);
+    }
+}
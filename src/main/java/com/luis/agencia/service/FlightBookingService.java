@@ -2,16 +2,27 @@ package com.luis.agencia.service;
 
 import com.luis.agencia.dto.FlightBookingDetailDto;
 import com.luis.agencia.dto.FlightBookingDto;
+import com.luis.agencia.dto.FlightBookingExportDto;
 import com.luis.agencia.model.Flight;
 import com.luis.agencia.model.FlightBooking;
 import com.luis.agencia.model.Passenger;
 import com.luis.agencia.repository.IFlightBookingRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.transaction.Transactional;
-import org.hibernate.Hibernate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
 
 
 /**
@@ -23,6 +34,20 @@ import java.util.List;
 @SuppressWarnings("SpringJavaInjectionPointsAutowiringInspection") // El IDE no detecta la inyección en tiempo de compilación
 public class FlightBookingService implements IFlightBookingService {
 
+    /**
+     * Columnas de la exportación en CSV.
+     */
+    private static final List<String> EXPORT_COLUMNS = List.of("id", "date", "peopleQ", "flightId",
+            "flightNumber", "flightName", "origin", "destination");
+
+    /**
+     * Número máximo de intentos de una reserva que entra en conflicto con otra
+     * actualización concurrente de la misma reserva.
+     */
+    private static final int MAX_OPTIMISTIC_ATTEMPTS = 3;
+
+    private static final Logger logger = LoggerFactory.getLogger(FlightBookingService.class);
+
     /**
      * Servicio para gestionar la lógica de vuelos.
      * Asignado por Spring en tiempo de ejecución.
@@ -44,6 +69,27 @@ public class FlightBookingService implements IFlightBookingService {
     @Autowired
     private IPassengerService passengerService;
 
+    /**
+     * Catálogo de destinos, que da a cada ciudad el identificador con el que se compara.
+     * Inyectado por Spring.
+     */
+    @Autowired
+    private DestinationDictionary destinationDictionary;
+
+    /**
+     * Conversor JSON para la exportación en NDJSON.
+     * Inyectado por Spring.
+     */
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    /**
+     * Plantilla transaccional para reintentar las reservas que fallan por bloqueo optimista.
+     * Inyectada por Spring.
+     */
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
     /**
      * Crea una nueva reserva de vuelo a partir de los datos recibidos.
      *
@@ -51,25 +97,26 @@ public class FlightBookingService implements IFlightBookingService {
      * @return Un {@link FlightBookingDetailDto} con los datos finales de la reserva creada.
      */
     @Override
-    @Transactional
     public FlightBookingDetailDto create(FlightBookingDto dto) {
-        return saveOrUpdate(new FlightBooking(), dto, true);
+        return executeWithOptimisticRetry(() -> saveOrUpdate(new FlightBooking(), dto, true));
     }
 
     /**
      * Edita una reserva de vuelo existente.
+     * Si otra edición modifica la reserva a la vez, esta se repite con los datos actuales.
      *
      * @param id  Identificador de la reserva de vuelo que se desea editar.
      * @param dto DTO con los nuevos datos para actualizar la reserva.
      * @return Un {@link FlightBookingDetailDto} con los datos finales de la reserva editada.
      */
     @Override
-    @Transactional
     public FlightBookingDetailDto edit(Long id, FlightBookingDto dto) {
-        FlightBooking flightBooking = flightBookingRepo.findById(id)
-                .orElseThrow(() -> new IllegalArgumentException(
-                        "La reserva de vuelo con el ID " + id + " no existe"));
-        return saveOrUpdate(flightBooking, dto, false);
+        return executeWithOptimisticRetry(() -> {
+            FlightBooking flightBooking = flightBookingRepo.findById(id)
+                    .orElseThrow(() -> new IllegalArgumentException(
+                            "La reserva de vuelo con el ID " + id + " no existe"));
+            return saveOrUpdate(flightBooking, dto, false);
+        });
     }
 
     /**
@@ -87,9 +134,10 @@ public class FlightBookingService implements IFlightBookingService {
         String destino = dto.getDestination();
         FlightBookingDetailDto detailDto = new FlightBookingDetailDto();
 
-        // 1. Validar existencia de pasajeros.
+        // 1. Validar existencia de pasajeros, cargándolos todos en una sola consulta.
+        Map<Long, Passenger> pasajerosPorId = passengerService.findPassengersByIds(dto.getPassengersIds());
         List<Long> invalidPassengersIds = dto.getPassengersIds().stream()
-                .filter(id -> !passengerService.existsById(id))
+                .filter(id -> !pasajerosPorId.containsKey(id))
                 // Reemplazamos Collectors.toList() por toList(), ya que no modificamos la lista posteriormente
                 .toList();
         if (!invalidPassengersIds.isEmpty()) {
@@ -99,10 +147,7 @@ public class FlightBookingService implements IFlightBookingService {
         // Si estamos editando, primero devolvemos los asientos al vuelo original.
         if (!isNew) {
             Flight originalFlight = flightBooking.getFlight();
-            originalFlight.setEconomySeatsQ(originalFlight.getEconomySeatsQ() + flightBooking.getPeopleQ());
-            originalFlight.setBusinessSeatsQ(originalFlight.getBusinessSeatsQ() + flightBooking.getPeopleQ());
-            originalFlight.getFlightBookings().remove(flightBooking);
-            flightService.save(originalFlight);
+            flightService.releaseSeats(originalFlight.getId(), flightBooking.getPeopleQ(), flightBooking.getPeopleQ());
         }
 
         // 2. Buscar vuelos en la fecha indicada.
@@ -111,11 +156,13 @@ public class FlightBookingService implements IFlightBookingService {
             throw new IllegalArgumentException("No hay vuelos disponibles en esas fechas");
         }
 
-        // 3. Filtrar vuelos por origen y destino (o viceversa).
+        // 3. Filtrar vuelos por origen y destino (o viceversa), comparando sus identificadores del catálogo.
+        Integer origenId = destinationDictionary.idOf(origen);
+        Integer destinoId = destinationDictionary.idOf(destino);
         List<Flight> vuelosOk = vuelosEnFecha.stream()
                 .filter(vuelo ->
-                        (vuelo.getOrigin().equalsIgnoreCase(origen) && vuelo.getDestination().equalsIgnoreCase(destino))
-                                || (vuelo.getOrigin().equalsIgnoreCase(destino) && vuelo.getDestination().equalsIgnoreCase(origen))
+                        (origenId.equals(vuelo.getOriginId()) && destinoId.equals(vuelo.getDestinationId()))
+                                || (destinoId.equals(vuelo.getOriginId()) && origenId.equals(vuelo.getDestinationId()))
                 )
                 // Reemplazamos Collectors.toList() por toList(), ya que no modificamos la lista posteriormente
                 .toList();
@@ -131,12 +178,15 @@ public class FlightBookingService implements IFlightBookingService {
         flightBooking.setFlight(flight);
         detailDto.setFlightId(flight.getId());
 
-        // 5. Validar disponibilidad de asientos.
-        if (flight.getEconomySeatsQ() < dto.getTouristSeats()) {
-            throw new IllegalArgumentException("No hay suficientes asientos de turista disponibles");
-        }
-        if (flight.getBusinessSeatsQ() < dto.getBussinessSeats()) {
-            throw new IllegalArgumentException("No hay suficientes asientos de clase business disponibles");
+        // 5. Reservar los asientos: el descuento se hace en la base de datos y solo se aplica
+        //    si quedan suficientes, de modo que dos reservas simultáneas no pueden sobrevender el vuelo.
+        if (!flightService.reserveSeats(flight.getId(), dto.getTouristSeats(), dto.getBussinessSeats())) {
+            boolean faltanTurista = flightService.findSeatAvailability(flight.getId())
+                    .map(seats -> seats.getEconomySeatsQ() < dto.getTouristSeats())
+                    .orElse(true);
+            throw new IllegalArgumentException(faltanTurista
+                    ? "No hay suficientes asientos de turista disponibles"
+                    : "No hay suficientes asientos de clase business disponibles");
         }
 
         // 6. Asignar fecha y cantidad de personas.
@@ -158,36 +208,25 @@ public class FlightBookingService implements IFlightBookingService {
                         + flight.getEconomySeatPrice() * detailDto.getTouristSeats()
         );
 
-        // 9. Asociar la lista de pasajeros a la reserva.
-        List<Passenger> listaPasajeros = dto.getPassengersIds().stream()
-                .map(passengerService::findPassengerById)
-                // Reemplazamos Collectors.toList() por toList(), ya que no modificamos la lista posteriormente
-                .toList();
+        // 9. Asociar la lista de pasajeros a la reserva (en memoria; la clave foránea se actualiza en el paso 11).
+        List<Passenger> listaPasajeros = List.copyOf(pasajerosPorId.values());
         flightBooking.getPassengers().clear();
         flightBooking.getPassengers().addAll(listaPasajeros);
-        for (Passenger p : listaPasajeros) {
-            p.setFlightBooking(flightBooking);
-        }
         detailDto.setPassengersIds(dto.getPassengersIds());
 
-        // 10. Decrementar asientos disponibles en el vuelo.
-        flight.setEconomySeatsQ(flight.getEconomySeatsQ() - dto.getTouristSeats());
-        flight.setBusinessSeatsQ(flight.getBusinessSeatsQ() - dto.getBussinessSeats());
-
-        // 11. Agregar la reserva a la lista del vuelo (inicializada con Hibernate).
-        Hibernate.initialize(flight.getFlightBookings());
-        flight.getFlightBookings().add(flightBooking);
-
-        // 12. Persistir primero el vuelo (con la nueva reserva) y luego la reserva de vuelo.
-        flightService.save(flight);
+        // 10. Persistir la reserva de vuelo (los asientos ya se descontaron en el paso 5).
+        //     La relación se guarda en la reserva, por lo que no hace falta cargar
+        //     ni modificar la colección de reservas del vuelo.
         flightBookingRepo.save(flightBooking);
 
-        // 13. Actualizar (re-guardar) los pasajeros, ahora que flightBooking ya está persistido.
-        for (Passenger p : listaPasajeros) {
-            passengerService.save(p);
+        // 11. Vincular los pasajeros a la reserva con una única actualización, ahora que
+        //     flightBooking ya está persistido. Al editar, antes se desvinculan los anteriores.
+        if (!isNew) {
+            passengerService.unassignFlightBooking(flightBooking);
         }
+        passengerService.assignFlightBooking(flightBooking, pasajerosPorId.keySet());
 
-        // 14. Establecer los campos adicionales en el DTO de detalle.
+        // 12. Establecer los campos adicionales en el DTO de detalle.
         detailDto.setId(flightBooking.getId());
         detailDto.setFlightName(flight.getName());
 
@@ -196,7 +235,7 @@ public class FlightBookingService implements IFlightBookingService {
 
     /**
      * Elimina una reserva de vuelo por su identificador.
-     * Se encarga de desvincular pasajeros y actualizar el vuelo asociado.
+     * Se encarga de desvincular los pasajeros de la reserva.
      *
      * @param id Identificador de la reserva que se desea eliminar.
      */
@@ -206,20 +245,8 @@ public class FlightBookingService implements IFlightBookingService {
         FlightBooking flightBookingDel = flightBookingRepo.findById(id)
                 .orElseThrow(() -> new IllegalArgumentException("La reserva no existe"));
 
-        // Desvincular pasajeros de la reserva.
-        if (flightBookingDel.getPassengers() != null) {
-            for (Passenger passenger : flightBookingDel.getPassengers()) {
-                passenger.setFlightBooking(null);
-                passengerService.save(passenger);
-            }
-        }
-
-        // Remover la reserva de la lista del vuelo asociado.
-        Flight flight = flightBookingDel.getFlight();
-        if (flight != null) {
-            flight.getFlightBookings().remove(flightBookingDel);
-            flightService.save(flight);
-        }
+        // Desvincular pasajeros de la reserva con una única actualización.
+        passengerService.unassignFlightBooking(flightBookingDel);
 
         // Eliminar la reserva.
         flightBookingRepo.delete(flightBookingDel);
@@ -241,32 +268,64 @@ public class FlightBookingService implements IFlightBookingService {
     }
 
     /**
-     * Retorna la lista de todas las reservas de vuelo.
+     * Exporta todas las reservas de vuelo, con los datos de su vuelo, escribiéndolas en el flujo
+     * de salida a medida que se leen de la base de datos. La memoria usada no depende del número
+     * de reservas: se recorre la consulta por bloques y cada fila se escribe y se descarta.
+     *
+     * @param out    Flujo de salida (no se cierra).
+     * @param format Formato de la exportación.
+     * @throws IOException si falla la escritura.
+     */
+    @Override
+    @Transactional
+    public void exportAll(OutputStream out, FileFormat format) throws IOException {
+        ExportWriter<FlightBookingExportDto> writer = new ExportWriter<>(out, format, objectMapper,
+                FlightBookingExportDto.class, EXPORT_COLUMNS, booking -> Arrays.asList(booking.getId(), booking.getDate(),
+                booking.getPeopleQ(), booking.getFlightId(), booking.getFlightNumber(), booking.getFlightName(),
+                booking.getOrigin(), booking.getDestination()));
+        try (Stream<FlightBookingExportDto> bookings = flightBookingRepo.streamAllForExport()) {
+            for (FlightBookingExportDto booking : (Iterable<FlightBookingExportDto>) bookings::iterator) {
+                writer.write(booking);
+            }
+        }
+        writer.flush();
+    }
+
+    /**
+     * Retorna una página de reservas de vuelo.
      *
-     * @return Lista de todas las reservas de vuelo.
-     * @throws IllegalArgumentException si la lista está vacía.
+     * @param cursor Id de la última reserva de la página anterior, o {@code null} para la primera página.
+     * @param size   Tamaño de página solicitado.
+     * @return Página de reservas de vuelo.
+     * @throws IllegalArgumentException si la página está vacía.
      */
     @Override
     @Transactional
-    public List<FlightBooking> findAll() {
-        List<FlightBooking> listaReservas = flightBookingRepo.findAll();
+    public KeysetPage<FlightBooking> findAll(Long cursor, Integer size) {
+        int pageSize = KeysetPage.pageSize(size);
+        List<FlightBooking> listaReservas = flightBookingRepo.findByIdGreaterThanOrderByIdAsc(
+                KeysetPage.after(cursor), KeysetPage.limit(pageSize));
         if (listaReservas.isEmpty()) {
             throw new IllegalArgumentException("La lista está vacía");
         }
-        return listaReservas;
+        return KeysetPage.of(listaReservas, pageSize, FlightBooking::getId);
     }
-}
-
-
-
-
-
-
-
-
-
-
-
-
-
 
+    /**
+     * Ejecuta una reserva en su propia transacción, repitiéndola (hasta
+     * {@link #MAX_OPTIMISTIC_ATTEMPTS} veces) si falla por bloqueo optimista. Los asientos se
+     * descuentan con una actualización condicional, así que un reintento no puede sobrevender el vuelo.
+     */
+    private <T> T executeWithOptimisticRetry(Supplier<T> operation) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return transactionTemplate.execute(status -> operation.get());
+            } catch (OptimisticLockingFailureException e) {
+                if (attempt >= MAX_OPTIMISTIC_ATTEMPTS) {
+                    throw e;
+                }
+                logger.debug("Conflicto de versión en la reserva, reintento {} de {}", attempt + 1, MAX_OPTIMISTIC_ATTEMPTS);
+            }
+        }
+    }
+}
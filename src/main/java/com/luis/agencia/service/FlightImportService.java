@@ -0,0 +1,386 @@
+package com.luis.agencia.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.luis.agencia.dto.FlightDto;
+import com.luis.agencia.dto.FlightImportReportDto;
+import com.luis.agencia.dto.ImportRowErrorDto;
+import com.luis.agencia.mapper.FlightMapper;
+import com.luis.agencia.model.Flight;
+import com.luis.agencia.model.PlaceKeys;
+import com.luis.agencia.repository.IFlightRepository;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Servicio de importación masiva de vuelos.
+ * <p>
+ * Lee el fichero línea a línea, sin cargarlo entero en memoria, y procesa los vuelos en lotes
+ * de {@link #BATCH_SIZE}: comprueba con una consulta por lote que el número y el nombre de
+ * cada vuelo no existan ya, reserva de una vez los identificadores del lote en la secuencia de
+ * vuelos e inserta los válidos con sentencias JDBC por lotes en una transacción por lote. Las filas no válidas no detienen la importación: se informan en el
+ * resultado con su número de línea. Si la base de datos rechaza un lote, se reintenta por
+ * mitades para rechazar solo las filas culpables.
+ * <p>
+ * Los vuelos repetidos se detectan en memoria solo dentro del lote en curso, para que la memoria
+ * no crezca con el tamaño del fichero; un vuelo repetido en un lote posterior ya está insertado
+ * cuando se comprueba ese lote y se rechaza con la consulta a la base de datos.
+ */
+@Service
+@SuppressWarnings("SpringJavaInjectionPointsAutowiringInspection") // El IDE no detecta la inyección en tiempo de compilación
+public class FlightImportService implements IFlightImportService {
+
+    /**
+     * Número de vuelos que se comprueban e insertan juntos.
+     */
+    static final int BATCH_SIZE = 1000;
+
+    /**
+     * Número máximo de errores que se detallan en el resultado.
+     */
+    static final int MAX_REPORTED_ERRORS = 1000;
+
+    private static final String INSERT_SQL = "INSERT INTO flight (id, name, flight_number, origin, destination, " +
+            "origin_key, destination_key, origin_id, destination_id, business_seats_q, economy_seats_q, " +
+            "business_seat_price, economy_seat_price, is_activa, date_from, date_to, version) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, 0)";
+
+    private static final String FLIGHT_SEQUENCE = "flight_seq";
+
+    private static final Logger logger = LoggerFactory.getLogger(FlightImportService.class);
+
+    /**
+     * Plantilla JDBC para las inserciones por lotes.
+     * Inyectada por Spring.
+     */
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    /**
+     * Repositorio de vuelos, usado para comprobar duplicados.
+     * Inyectado por Spring.
+     */
+    @Autowired
+    private IFlightRepository flightRepository;
+
+    /**
+     * Secuencias de identificadores, de la que se reservan los de cada lote.
+     * Inyectado por Spring.
+     */
+    @Autowired
+    private IdSequences idSequences;
+
+    /**
+     * Mapper para publicar en el índice los vuelos importados.
+     * Inyectado por Spring.
+     */
+    @Autowired
+    private FlightMapper flightMapper;
+
+    /**
+     * Índice en memoria de vuelos, al que se añaden los vuelos importados.
+     * Inyectado por Spring.
+     */
+    @Autowired
+    private FlightScheduleIndex flightScheduleIndex;
+
+    /**
+     * Catálogo de destinos, del que se obtienen los identificadores de origen y destino.
+     * Inyectado por Spring.
+     */
+    @Autowired
+    private DestinationDictionary destinationDictionary;
+
+    /**
+     * Índice de autocompletado, que recibe los orígenes y destinos de los vuelos importados.
+     * Inyectado por Spring.
+     */
+    @Autowired
+    private AutocompleteIndex autocompleteIndex;
+
+    /**
+     * Plantilla transaccional para insertar cada lote en su propia transacción.
+     * Inyectada por Spring.
+     */
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    /**
+     * Conversor JSON, usado para leer las filas como {@link FlightDto}.
+     * Inyectado por Spring.
+     */
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    /**
+     * Validador de las restricciones declaradas en {@link FlightDto}.
+     * Inyectado por Spring.
+     */
+    @Autowired
+    private Validator validator;
+
+    /**
+     * Importa los vuelos leídos de un flujo de texto en formato NDJSON o CSV.
+     * En CSV la primera línea es la cabecera, con los nombres de los campos de {@link FlightDto}.
+     *
+     * @param reader Flujo con el contenido del fichero.
+     * @param format Formato del contenido.
+     * @return Número de vuelos importados y de filas rechazadas, con el motivo de cada rechazo.
+     * @throws IOException si falla la lectura del flujo.
+     * @throws IllegalArgumentException si la cabecera CSV no es válida.
+     */
+    @Override
+    public FlightImportReportDto importFlights(Reader reader, FileFormat format) throws IOException {
+        FlightImportReportDto report = new FlightImportReportDto();
+        BufferedReader lines = reader instanceof BufferedReader buffered ? buffered : new BufferedReader(reader);
+        long lineNumber = 0;
+        List<String> header = null;
+        if (format == FileFormat.CSV) {
+            String first = lines.readLine();
+            if (first == null) {
+                return report;
+            }
+            lineNumber++;
+            header = parseHeader(first);
+        }
+
+        Set<String> seenNumbers = new HashSet<>();
+        Set<String> seenNames = new HashSet<>();
+        List<Row> batch = new ArrayList<>(BATCH_SIZE);
+        String line;
+        while ((line = lines.readLine()) != null) {
+            lineNumber++;
+            if (line.isBlank()) {
+                continue;
+            }
+            FlightDto dto;
+            try {
+                dto = format == FileFormat.CSV
+                        ? objectMapper.convertValue(toFields(header, line), FlightDto.class)
+                        : objectMapper.readValue(line, FlightDto.class);
+            } catch (JsonProcessingException | IllegalArgumentException e) {
+                reject(report, lineNumber, "Fila con formato no válido");
+                continue;
+            }
+            String error = validate(dto);
+            if (error == null && seenNumbers.contains(dto.getFlightNumber())) {
+                error = "Número de vuelo repetido en el fichero";
+            } else if (error == null && seenNames.contains(dto.getName())) {
+                error = "Nombre de vuelo repetido en el fichero";
+            }
+            if (error != null) {
+                reject(report, lineNumber, error);
+                continue;
+            }
+            seenNumbers.add(dto.getFlightNumber());
+            seenNames.add(dto.getName());
+            batch.add(new Row(lineNumber, dto, DestinationDictionary.UNKNOWN, DestinationDictionary.UNKNOWN));
+            if (batch.size() == BATCH_SIZE) {
+                insertBatch(batch, report);
+                batch.clear();
+                seenNumbers.clear();
+                seenNames.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            insertBatch(batch, report);
+        }
+        report.getErrors().sort(Comparator.comparingLong(ImportRowErrorDto::getLine));
+        logger.debug("Importación de vuelos: {} importados, {} rechazados", report.getImported(), report.getRejected());
+        return report;
+    }
+
+    /**
+     * Descarta las filas de un lote que ya existen en la base de datos e inserta el resto.
+     */
+    private void insertBatch(List<Row> batch, FlightImportReportDto report) {
+        List<String> numbers = batch.stream().map(row -> row.flight().getFlightNumber()).toList();
+        Set<String> existingNumbers = flightRepository.findExistingFlightNumbers(numbers);
+        Set<String> existingNames = flightRepository.findExistingNames(
+                batch.stream().map(row -> row.flight().getName()).toList());
+
+        List<Row> rows = new ArrayList<>(batch.size());
+        for (Row row : batch) {
+            if (existingNumbers.contains(row.flight().getFlightNumber())) {
+                reject(report, row.line(), "Ya existe un vuelo con ese número.");
+            } else if (existingNames.contains(row.flight().getName())) {
+                reject(report, row.line(), "Ya existe un vuelo con ese nombre.");
+            } else {
+                rows.add(row.withPlaceIds(destinationDictionary.resolve(row.flight().getOrigin()),
+                        destinationDictionary.resolve(row.flight().getDestination())));
+            }
+        }
+        if (rows.isEmpty()) {
+            return;
+        }
+
+        long firstId = idSequences.reserve(FLIGHT_SEQUENCE, rows.size());
+        for (int i = 0; i < rows.size(); i++) {
+            rows.get(i).flight().setId(firstId + i);
+        }
+        List<Row> inserted = insertRows(rows, report);
+        report.setImported(report.getImported() + inserted.size());
+        for (Row row : inserted) {
+            Flight flight = flightMapper.dtoToEntity(row.flight());
+            flight.setId(row.flight().getId());
+            flight.setOriginId(row.originId());
+            flight.setDestinationId(row.destinationId());
+            flightScheduleIndex.refreshAfterCommit(flight);
+            autocompleteIndex.refreshFlightAfterCommit(flight);
+        }
+    }
+
+    /**
+     * Inserta las filas con una sentencia por lotes en su propia transacción. Si alguna fila
+     * incumple una restricción (por ejemplo, otro proceso ha creado el mismo vuelo entre la
+     * comprobación y la inserción), el lote entero se deshace y se reintenta por mitades, de modo
+     * que solo se rechazan las filas que fallan por sí solas.
+     *
+     * @return Filas insertadas.
+     */
+    private List<Row> insertRows(List<Row> rows, FlightImportReportDto report) {
+        try {
+            transactionTemplate.executeWithoutResult(status ->
+                    jdbcTemplate.batchUpdate(INSERT_SQL, rows, rows.size(), FlightImportService::bind));
+            return rows;
+        } catch (DataIntegrityViolationException e) {
+            if (rows.size() == 1) {
+                logger.debug("Fila de importación rechazada en la línea {}: {}", rows.get(0).line(), e.getMessage());
+                reject(report, rows.get(0).line(), e instanceof DuplicateKeyException
+                        ? "Ya existe un vuelo con ese número o nombre."
+                        : "No se ha podido insertar la fila");
+                return List.of();
+            }
+            int half = rows.size() / 2;
+            List<Row> inserted = new ArrayList<>(insertRows(rows.subList(0, half), report));
+            inserted.addAll(insertRows(rows.subList(half, rows.size()), report));
+            return inserted;
+        }
+    }
+
+    private static void bind(PreparedStatement ps, Row row) throws SQLException {
+        FlightDto flight = row.flight();
+        ps.setLong(1, flight.getId());
+        ps.setString(2, flight.getName());
+        ps.setString(3, flight.getFlightNumber());
+        ps.setString(4, flight.getOrigin());
+        ps.setString(5, flight.getDestination());
+        ps.setString(6, PlaceKeys.of(flight.getOrigin()));
+        ps.setString(7, PlaceKeys.of(flight.getDestination()));
+        ps.setInt(8, row.originId());
+        ps.setInt(9, row.destinationId());
+        ps.setInt(10, flight.getBusinessSeatsQ());
+        ps.setInt(11, flight.getEconomySeatsQ());
+        ps.setDouble(12, flight.getBusinessSeatPrice());
+        ps.setDouble(13, flight.getEconomySeatPrice());
+        ps.setBoolean(14, flight.isActiva());
+        ps.setDate(15, Date.valueOf(flight.getDateFrom()));
+        ps.setDate(16, Date.valueOf(flight.getDateTo()));
+    }
+
+    /**
+     * @return El primer error de validación del vuelo, o {@code null} si es válido.
+     */
+    private String validate(FlightDto dto) {
+        if (dto == null) {
+            return "Fila vacía";
+        }
+        return validator.validate(dto).stream()
+                .map(ConstraintViolation::getMessage)
+                .sorted()
+                .findFirst()
+                .orElse(null);
+    }
+
+    private static void reject(FlightImportReportDto report, long line, String message) {
+        report.setRejected(report.getRejected() + 1);
+        if (report.getErrors().size() < MAX_REPORTED_ERRORS) {
+            report.getErrors().add(new ImportRowErrorDto(line, message));
+        }
+    }
+
+    private static List<String> parseHeader(String line) {
+        List<String> header = parseCsvLine(line).stream().map(String::trim).toList();
+        if (header.contains("") || new HashSet<>(header).size() != header.size()) {
+            throw new IllegalArgumentException("La cabecera CSV no es válida");
+        }
+        return header;
+    }
+
+    private static Map<String, String> toFields(List<String> header, String line) {
+        List<String> values = parseCsvLine(line);
+        if (values.size() != header.size()) {
+            throw new IllegalArgumentException("Número de columnas incorrecto");
+        }
+        Map<String, String> fields = new LinkedHashMap<>();
+        for (int i = 0; i < header.size(); i++) {
+            fields.put(header.get(i), values.get(i).trim());
+        }
+        return fields;
+    }
+
+    /**
+     * Separa una línea CSV en campos. Admite campos entre comillas dobles, con las comillas
+     * internas escritas como {@code ""}.
+     */
+    static List<String> parseCsvLine(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    /**
+     * Fila válida pendiente de insertar, con su número de línea para informar de errores y, una
+     * vez descartados los duplicados, los identificadores de su origen y su destino.
+     */
+    private record Row(long line, FlightDto flight, int originId, int destinationId) {
+
+        Row withPlaceIds(int newOriginId, int newDestinationId) {
+            return new Row(line, flight, newOriginId, newDestinationId);
+        }
+    }
+}
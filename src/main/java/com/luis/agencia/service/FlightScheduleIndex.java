@@ -0,0 +1,485 @@
+package com.luis.agencia.service;
+
+import com.luis.agencia.model.Flight;
+import com.luis.agencia.repository.IFlightRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+
+/**
+ * Índice en memoria del calendario de vuelos.
+ * <p>
+ * Mantiene una copia de cada {@link Flight} indexada por ruta (identificadores de origen y
+ * destino en el {@link DestinationDictionary}) y día (epoch-day) de ida y de vuelta, y por
+ * ciudad de origen y día de salida (el grafo de rutas que recorren las búsquedas con escalas),
+ * de modo que las comparaciones de rutas son comparaciones de enteros y las búsquedas de vuelos
+ * disponibles se resuelven sin consultar la base de datos. Además guarda, por ruta y día de
+ * ida, el precio mínimo de cada clase (el calendario de tarifas). Se reconstruye al arrancar la aplicación y
+ * se mantiene sincronizado desde {@link FlightService} cada vez que un vuelo se crea, edita,
+ * elimina o cambia su número de asientos. Los cambios se aplican tras el commit de la
+ * transacción para no publicar datos que luego se deshagan, y cada cambio invalida en la
+ * {@link SearchCache} las búsquedas de las rutas afectadas.
+ */
+@Component
+public class FlightScheduleIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(FlightScheduleIndex.class);
+
+    private final IFlightRepository flightRepository;
+
+    private final SearchCache searchCache;
+
+    private final DestinationDictionary destinationDictionary;
+
+    /**
+     * Copia de cada vuelo indexado, por identificador.
+     */
+    private final Map<Long, Flight> flightsById = new ConcurrentHashMap<>();
+
+    /**
+     * Vuelos por ruta y día de ida.
+     */
+    private final Map<RouteDay, Set<Long>> departures = new ConcurrentHashMap<>();
+
+    /**
+     * Vuelos por ruta y día de vuelta.
+     */
+    private final Map<RouteDay, Set<Long>> returns = new ConcurrentHashMap<>();
+
+    /**
+     * Vuelos por día, tanto de ida como de vuelta.
+     */
+    private final Map<Long, Set<Long>> flightsByDay = new ConcurrentHashMap<>();
+
+    /**
+     * Grafo de rutas: vuelos por ciudad de origen y día de salida (lista de adyacencia).
+     */
+    private final Map<CityDay, Set<Long>> departuresByOrigin = new ConcurrentHashMap<>();
+
+    /**
+     * Calendario de tarifas precalculado: precio mínimo de turista y de business por ruta y
+     * día de ida, entre los vuelos activos con asientos libres. Se recalcula solo el día de la
+     * ruta afectada cada vez que un vuelo entra o sale del índice.
+     */
+    private final Map<RouteDay, DayFares> fares = new ConcurrentHashMap<>();
+
+    /**
+     * Indica si el índice ya se ha cargado desde la base de datos.
+     */
+    private volatile boolean ready;
+
+    public FlightScheduleIndex(IFlightRepository flightRepository, SearchCache searchCache,
+                               DestinationDictionary destinationDictionary) {
+        this.flightRepository = flightRepository;
+        this.searchCache = searchCache;
+        this.destinationDictionary = destinationDictionary;
+    }
+
+    /**
+     * Carga (o recarga) el índice completo a partir de los vuelos de la base de datos.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void rebuild() {
+        flightsById.clear();
+        departures.clear();
+        returns.clear();
+        flightsByDay.clear();
+        departuresByOrigin.clear();
+        fares.clear();
+        List<Flight> flights = flightRepository.findAll();
+        for (Flight flight : flights) {
+            apply(snapshot(flight));
+        }
+        ready = true;
+        searchCache.invalidateAll();
+        logger.debug("Índice de vuelos cargado con {} vuelos", flights.size());
+    }
+
+    /**
+     * @return {@code true} si el índice está cargado y puede responder búsquedas.
+     */
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Devuelve los vuelos de una ruta cuya fecha de ida coincide con la indicada.
+     *
+     * @param origin      Origen del vuelo.
+     * @param destination Destino del vuelo.
+     * @param dateFrom    Fecha de ida.
+     * @return Copias de los vuelos encontrados, ordenadas por identificador.
+     */
+    public List<Flight> findDepartures(String origin, String destination, LocalDate dateFrom) {
+        return findBetween(departures, origin, destination, dateFrom, dateFrom);
+    }
+
+    /**
+     * Devuelve los vuelos de una ruta cuya fecha de vuelta coincide con la indicada.
+     *
+     * @param origin      Origen del vuelo.
+     * @param destination Destino del vuelo.
+     * @param dateTo      Fecha de vuelta.
+     * @return Copias de los vuelos encontrados, ordenadas por identificador.
+     */
+    public List<Flight> findReturns(String origin, String destination, LocalDate dateTo) {
+        return findBetween(returns, origin, destination, dateTo, dateTo);
+    }
+
+    /**
+     * Devuelve los vuelos de una ruta cuya fecha de ida está entre las dos indicadas (incluidas).
+     *
+     * @param origin      Origen del vuelo.
+     * @param destination Destino del vuelo.
+     * @param from        Primera fecha de ida.
+     * @param to          Última fecha de ida.
+     * @return Copias de los vuelos encontrados, ordenadas por fecha de ida e identificador.
+     */
+    public List<Flight> findDeparturesBetween(String origin, String destination, LocalDate from, LocalDate to) {
+        return findBetween(departures, origin, destination, from, to);
+    }
+
+    /**
+     * Devuelve los vuelos de una ruta cuya fecha de vuelta está entre las dos indicadas (incluidas).
+     *
+     * @param origin      Origen del vuelo.
+     * @param destination Destino del vuelo.
+     * @param from        Primera fecha de vuelta.
+     * @param to          Última fecha de vuelta.
+     * @return Copias de los vuelos encontrados, ordenadas por fecha de vuelta e identificador.
+     */
+    public List<Flight> findReturnsBetween(String origin, String destination, LocalDate from, LocalDate to) {
+        return findBetween(returns, origin, destination, from, to);
+    }
+
+    /**
+     * Traduce la ruta a identificadores una sola vez y recorre los días del rango.
+     */
+    private List<Flight> findBetween(Map<RouteDay, Set<Long>> byRouteDay, String origin, String destination,
+                                     LocalDate from, LocalDate to) {
+        int originId = destinationDictionary.idOf(origin);
+        int destinationId = destinationDictionary.idOf(destination);
+        if (originId == DestinationDictionary.UNKNOWN || destinationId == DestinationDictionary.UNKNOWN) {
+            return Collections.emptyList();
+        }
+        List<Flight> result = new ArrayList<>();
+        for (long day = from.toEpochDay(); day <= to.toEpochDay(); day++) {
+            result.addAll(copiesOf(byRouteDay.get(new RouteDay(originId, destinationId, day))));
+        }
+        return result;
+    }
+
+    /**
+     * Devuelve las tarifas mínimas precalculadas de una ruta para cada día de ida del rango
+     * que tenga algún vuelo activo con asientos libres.
+     *
+     * @param origin      Origen del vuelo.
+     * @param destination Destino del vuelo.
+     * @param from        Primera fecha de ida.
+     * @param to          Última fecha de ida.
+     * @return Tarifas por día, ordenadas por fecha (los días sin tarifa no aparecen).
+     */
+    public SortedMap<LocalDate, DayFares> findFares(String origin, String destination, LocalDate from, LocalDate to) {
+        SortedMap<LocalDate, DayFares> result = new TreeMap<>();
+        int originId = destinationDictionary.idOf(origin);
+        int destinationId = destinationDictionary.idOf(destination);
+        if (originId == DestinationDictionary.UNKNOWN || destinationId == DestinationDictionary.UNKNOWN) {
+            return result;
+        }
+        for (LocalDate day = from; !day.isAfter(to); day = day.plusDays(1)) {
+            DayFares dayFares = fares.get(new RouteDay(originId, destinationId, day.toEpochDay()));
+            if (dayFares != null) {
+                result.put(day, dayFares);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Devuelve los identificadores de los vuelos cuya fecha de ida o de vuelta coincide con la indicada.
+     *
+     * @param date Fecha a buscar.
+     * @return Identificadores ordenados de forma ascendente.
+     */
+    public List<Long> findIdsByDay(LocalDate date) {
+        Set<Long> ids = flightsByDay.get(date.toEpochDay());
+        if (ids == null) {
+            return Collections.emptyList();
+        }
+        List<Long> sorted = new ArrayList<>(ids);
+        Collections.sort(sorted);
+        return sorted;
+    }
+
+    /**
+     * Actualiza el índice con el estado del vuelo cuando la transacción en curso confirme
+     * (o de inmediato si no hay transacción activa). El estado se copia tras el commit,
+     * cuando la entidad ya refleja la versión escrita en la base de datos.
+     *
+     * @param flight Vuelo recién creado o modificado (debe tener identificador).
+     */
+    public void refreshAfterCommit(Flight flight) {
+        if (flight == null || flight.getId() == null) {
+            return;
+        }
+        AfterCommit.run(() -> apply(snapshot(flight)));
+    }
+
+    /**
+     * Actualiza los asientos disponibles de un vuelo indexado tras el commit de la transacción.
+     * Se usa después de las actualizaciones atómicas de asientos, que no pasan por la entidad.
+     *
+     * @param flightId      Identificador del vuelo.
+     * @param economySeats  Asientos de turista disponibles leídos de la base de datos.
+     * @param businessSeats Asientos business disponibles leídos de la base de datos.
+     * @param version       Versión del vuelo leída junto a los asientos.
+     */
+    public void refreshSeatsAfterCommit(Long flightId, int economySeats, int businessSeats, long version) {
+        AfterCommit.run(() -> {
+            Flight current = flightsById.get(flightId);
+            if (current == null) {
+                return;
+            }
+            Flight updated = snapshot(current);
+            updated.setEconomySeatsQ(economySeats);
+            updated.setBusinessSeatsQ(businessSeats);
+            updated.setVersion(version);
+            apply(updated);
+        });
+    }
+
+    /**
+     * Busca itinerarios con escalas recorriendo el grafo de rutas en memoria, sin consultar
+     * la base de datos. Cada tramo sale de la ciudad de llegada del anterior entre
+     * {@code minLayoverDays} y {@code maxLayoverDays} días después de la salida de este (los
+     * vuelos solo tienen fecha, no hora), y un itinerario no pasa dos veces por la misma ciudad.
+     * Los vuelos directos no se incluyen. Las ciudades ya visitadas se marcan por su
+     * identificador en un {@link BitSet}, sin comparar textos.
+     *
+     * @param origin         Ciudad de origen.
+     * @param destination    Ciudad de destino.
+     * @param date           Fecha de salida del primer tramo.
+     * @param maxStops       Número máximo de escalas.
+     * @param minLayoverDays Días mínimos entre la salida de un tramo y la del siguiente.
+     * @param maxLayoverDays Días máximos entre la salida de un tramo y la del siguiente.
+     * @param usable         Condición que debe cumplir cada tramo (por ejemplo, plazas libres).
+     * @return Itinerarios encontrados, cada uno como la lista de copias de sus tramos.
+     */
+    public List<List<Flight>> findConnections(String origin, String destination, LocalDate date, int maxStops,
+                                              int minLayoverDays, int maxLayoverDays, Predicate<Flight> usable) {
+        int start = destinationDictionary.idOf(origin);
+        int target = destinationDictionary.idOf(destination);
+        if (start == DestinationDictionary.UNKNOWN || target == DestinationDictionary.UNKNOWN) {
+            return Collections.emptyList();
+        }
+        BitSet visited = new BitSet();
+        visited.set(start);
+        List<List<Flight>> result = new ArrayList<>();
+        Deque<Flight> path = new ArrayDeque<>();
+        for (Flight first : usableDepartures(start, date.toEpochDay(), usable)) {
+            int city = placeId(first.getDestinationId());
+            if (city != target && !visited.get(city)) {
+                visited.set(city);
+                path.addLast(first);
+                extend(path, visited, target, maxStops, minLayoverDays, maxLayoverDays, usable, result);
+                path.removeLast();
+                visited.clear(city);
+            }
+        }
+        return result;
+    }
+
+    private void extend(Deque<Flight> path, BitSet visited, int target, int maxStops,
+                        int minLayoverDays, int maxLayoverDays, Predicate<Flight> usable, List<List<Flight>> result) {
+        if (path.size() > maxStops) {
+            return;
+        }
+        Flight last = path.getLast();
+        int city = placeId(last.getDestinationId());
+        long day = last.getDateFrom().toEpochDay();
+        for (long next = day + minLayoverDays; next <= day + maxLayoverDays; next++) {
+            for (Flight leg : usableDepartures(city, next, usable)) {
+                int arrival = placeId(leg.getDestinationId());
+                if (arrival == target) {
+                    List<Flight> itinerary = new ArrayList<>(path.size() + 1);
+                    path.forEach(flight -> itinerary.add(snapshot(flight)));
+                    itinerary.add(snapshot(leg));
+                    result.add(itinerary);
+                } else if (!visited.get(arrival)) {
+                    visited.set(arrival);
+                    path.addLast(leg);
+                    extend(path, visited, target, maxStops, minLayoverDays, maxLayoverDays, usable, result);
+                    path.removeLast();
+                    visited.clear(arrival);
+                }
+            }
+        }
+    }
+
+    private List<Flight> usableDepartures(int city, long epochDay, Predicate<Flight> usable) {
+        Set<Long> ids = departuresByOrigin.get(new CityDay(city, epochDay));
+        if (ids == null) {
+            return Collections.emptyList();
+        }
+        List<Flight> flights = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            Flight flight = flightsById.get(id);
+            if (flight != null && usable.test(flight)) {
+                flights.add(flight);
+            }
+        }
+        return flights;
+    }
+
+    /**
+     * Sustituye la entrada de un vuelo en todas las estructuras del índice.
+     * Se descarta el estado si es más antiguo que el ya indexado, ya que las
+     * transacciones pueden confirmar en un orden distinto al de sus lecturas.
+     */
+    private synchronized void apply(Flight snapshot) {
+        Flight previous = flightsById.get(snapshot.getId());
+        if (previous != null) {
+            if (previous.getVersion() > snapshot.getVersion()) {
+                return;
+            }
+            unlink(previous);
+            searchCache.invalidate(SearchCache.routeTag(placeId(previous.getOriginId()),
+                    placeId(previous.getDestinationId())));
+        }
+        flightsById.put(snapshot.getId(), snapshot);
+        link(snapshot);
+        searchCache.invalidate(SearchCache.routeTag(placeId(snapshot.getOriginId()),
+                placeId(snapshot.getDestinationId())));
+    }
+
+    private void link(Flight flight) {
+        Long id = flight.getId();
+        RouteDay departure = RouteDay.of(flight, flight.getDateFrom());
+        departures.computeIfAbsent(departure, key -> ConcurrentHashMap.newKeySet()).add(id);
+        refreshFares(departure);
+        returns.computeIfAbsent(RouteDay.of(flight, flight.getDateTo()),
+                key -> ConcurrentHashMap.newKeySet()).add(id);
+        flightsByDay.computeIfAbsent(flight.getDateFrom().toEpochDay(), key -> ConcurrentHashMap.newKeySet()).add(id);
+        flightsByDay.computeIfAbsent(flight.getDateTo().toEpochDay(), key -> ConcurrentHashMap.newKeySet()).add(id);
+        departuresByOrigin.computeIfAbsent(CityDay.of(flight),
+                key -> ConcurrentHashMap.newKeySet()).add(id);
+    }
+
+    private void unlink(Flight flight) {
+        Long id = flight.getId();
+        RouteDay departure = RouteDay.of(flight, flight.getDateFrom());
+        removeFrom(departures, departure, id);
+        refreshFares(departure);
+        removeFrom(returns, RouteDay.of(flight, flight.getDateTo()), id);
+        removeFrom(flightsByDay, flight.getDateFrom().toEpochDay(), id);
+        removeFrom(flightsByDay, flight.getDateTo().toEpochDay(), id);
+        removeFrom(departuresByOrigin, CityDay.of(flight), id);
+    }
+
+    /**
+     * Recalcula las tarifas mínimas de un día de una ruta a partir de sus vuelos de ida.
+     */
+    private void refreshFares(RouteDay routeDay) {
+        Set<Long> ids = departures.get(routeDay);
+        double minEconomy = Double.MAX_VALUE;
+        double minBusiness = Double.MAX_VALUE;
+        if (ids != null) {
+            for (Long id : ids) {
+                Flight flight = flightsById.get(id);
+                if (flight == null || !flight.isActiva()) {
+                    continue;
+                }
+                if (flight.getEconomySeatsQ() > 0) {
+                    minEconomy = Math.min(minEconomy, flight.getEconomySeatPrice());
+                }
+                if (flight.getBusinessSeatsQ() > 0) {
+                    minBusiness = Math.min(minBusiness, flight.getBusinessSeatPrice());
+                }
+            }
+        }
+        if (minEconomy == Double.MAX_VALUE && minBusiness == Double.MAX_VALUE) {
+            fares.remove(routeDay);
+        } else {
+            fares.put(routeDay, new DayFares(minEconomy == Double.MAX_VALUE ? null : minEconomy,
+                    minBusiness == Double.MAX_VALUE ? null : minBusiness));
+        }
+    }
+
+    private static <K> void removeFrom(Map<K, Set<Long>> map, K key, Long id) {
+        map.computeIfPresent(key, (k, ids) -> {
+            ids.remove(id);
+            return ids.isEmpty() ? null : ids;
+        });
+    }
+
+    private List<Flight> copiesOf(Set<Long> ids) {
+        if (ids == null || ids.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<Flight> result = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            Flight flight = flightsById.get(id);
+            if (flight != null) {
+                result.add(snapshot(flight));
+            }
+        }
+        result.sort(Comparator.comparing(Flight::getId));
+        return result;
+    }
+
+    /**
+     * Copia los datos del vuelo sin la colección de reservas, para no retener
+     * entidades gestionadas por Hibernate dentro del índice.
+     */
+    private static Flight snapshot(Flight flight) {
+        Flight copy = new Flight(flight.getName(), flight.getFlightNumber(), flight.getOrigin(),
+                flight.getDestination(), flight.getBusinessSeatsQ(), flight.getEconomySeatsQ(),
+                flight.getBusinessSeatPrice(), flight.getEconomySeatPrice(), flight.isActiva(),
+                flight.getDateFrom(), flight.getDateTo());
+        copy.setId(flight.getId());
+        copy.setVersion(flight.getVersion());
+        copy.setOriginId(flight.getOriginId());
+        copy.setDestinationId(flight.getDestinationId());
+        return copy;
+    }
+
+    /**
+     * Identificador de destino de un vuelo, o {@link DestinationDictionary#UNKNOWN} si no lo tiene.
+     */
+    static int placeId(Integer id) {
+        return id == null ? DestinationDictionary.UNKNOWN : id;
+    }
+
+    /**
+     * Tarifas mínimas de un día de una ruta; {@code null} si no quedan asientos de esa clase.
+     */
+    public record DayFares(Double minEconomyPrice, Double minBusinessPrice) {
+    }
+
+    /**
+     * Nodo del grafo de rutas: identificador de la ciudad y día de salida expresado en epoch-day.
+     */
+    record CityDay(int city, long epochDay) {
+
+        static CityDay of(Flight flight) {
+            return new CityDay(placeId(flight.getOriginId()), flight.getDateFrom().toEpochDay());
+        }
+    }
+
+    /**
+     * Clave del índice: identificadores de origen y destino y día expresado en epoch-day.
+     */
+    record RouteDay(int origin, int destination, long epochDay) {
+
+        static RouteDay of(Flight flight, LocalDate date) {
+            return new RouteDay(placeId(flight.getOriginId()), placeId(flight.getDestinationId()), date.toEpochDay());
+        }
+    }
+}
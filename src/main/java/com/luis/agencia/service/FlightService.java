@@ -1,19 +1,36 @@
 package com.luis.agencia.service;
 
+import com.luis.agencia.dto.ConnectionDto;
+import com.luis.agencia.dto.DayFlightsDto;
+import com.luis.agencia.dto.FareCalendarDayDto;
+import com.luis.agencia.dto.FlexibleDateSearchDto;
 import com.luis.agencia.dto.FlightDto;
+import com.luis.agencia.dto.RoundTripDto;
 import com.luis.agencia.mapper.FlightMapper;
 import com.luis.agencia.model.Flight;
+import com.luis.agencia.repository.IFlightBookingRepository;
 import com.luis.agencia.repository.IFlightRepository;
 import jakarta.transaction.Transactional;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.LocalDate;
+import java.time.YearMonth;
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
 /**
  * Servicio que gestiona la lógica relacionada con los vuelos, incluyendo
@@ -30,6 +47,14 @@ public class FlightService implements IFlightService {
     @Autowired
     private IFlightRepository flightRepository;
 
+    /**
+     * Repositorio de reservas de vuelo, usado para comprobar si un vuelo tiene reservas
+     * sin cargar su colección.
+     * Inyectado por Spring.
+     */
+    @Autowired
+    private IFlightBookingRepository flightBookingRepository;
+
     /**
      * Mapper para convertir entre entidades {@link Flight} y DTOs {@link FlightDto}.
      * Inyectado por Spring.
@@ -37,8 +62,74 @@ public class FlightService implements IFlightService {
     @Autowired
     private FlightMapper flightMapper;
 
+    /**
+     * Índice en memoria de vuelos por ruta y fecha, usado para las búsquedas.
+     * Inyectado por Spring.
+     */
+    @Autowired
+    private FlightScheduleIndex flightScheduleIndex;
+
+    /**
+     * Catálogo de destinos, que da a cada ciudad el identificador con el que se busca.
+     * Inyectado por Spring.
+     */
+    @Autowired
+    private DestinationDictionary destinationDictionary;
+
+    /**
+     * Índice de autocompletado de orígenes y destinos.
+     * Inyectado por Spring.
+     */
+    @Autowired
+    private AutocompleteIndex autocompleteIndex;
+
+    /**
+     * Plantilla transaccional para reintentar las escrituras que fallan por bloqueo optimista.
+     * Inyectada por Spring.
+     */
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    /**
+     * Caché de resultados de búsqueda, invalidada por el índice de vuelos.
+     * Inyectada por Spring.
+     */
+    @Autowired
+    private SearchCache searchCache;
+
     private static final Logger logger = LoggerFactory.getLogger(FlightService.class);
 
+    /**
+     * Número máximo de intentos de una escritura que entra en conflicto con otra
+     * actualización concurrente del mismo vuelo (por ejemplo, una reserva de asientos).
+     */
+    private static final int MAX_OPTIMISTIC_ATTEMPTS = 3;
+
+    /**
+     * Número máximo de combinaciones devueltas por {@link #findRoundTrips}.
+     */
+    private static final int MAX_ROUND_TRIPS = 100;
+
+    /**
+     * Número máximo de itinerarios devueltos por {@link #findConnections}.
+     */
+    private static final int MAX_CONNECTIONS = 100;
+
+    /**
+     * Número máximo de escalas admitido en la búsqueda de itinerarios.
+     */
+    private static final int MAX_STOPS = 2;
+
+    /**
+     * Número máximo de días entre la salida de un tramo y la del siguiente.
+     */
+    private static final int MAX_LAYOVER_DAYS = 3;
+
+    /**
+     * Número máximo de días de margen, antes y después, en la búsqueda con fechas flexibles.
+     */
+    private static final int MAX_FLEX_DAYS = 7;
+
     /**
      * Busca un vuelo por su identificador.
      *
@@ -60,8 +151,7 @@ public class FlightService implements IFlightService {
      * @return El DTO del vuelo si se encuentra, o null en caso contrario.
      */
     public FlightDto findFlightDtoById(Long id) {
-        Optional<Flight> flight = flightRepository.findById(id);
-        return flight.map(flightMapper::entityToDto).orElse(null);
+        return flightRepository.findDtoById(id).orElse(null);
     }
 
     /**
@@ -80,18 +170,26 @@ public class FlightService implements IFlightService {
             throw new IllegalArgumentException("Ya existe un vuelo con ese número.");
         }
 
-        flightRepository.save(flightMapper.dtoToEntity(flightDto));
+        Flight flight = flightMapper.dtoToEntity(flightDto);
+        destinationDictionary.assignIds(flight);
+        Flight saved = flightRepository.save(flight);
+        flightScheduleIndex.refreshAfterCommit(saved);
+        autocompleteIndex.refreshFlightAfterCommit(saved);
     }
 
     /**
      * Edita un vuelo existente en la base de datos.
+     * Si una reserva modifica el vuelo a la vez, la edición se repite con los datos actuales.
      *
      * @param id        Identificador del vuelo que se desea editar.
      * @param flightDto DTO con la información actualizada del vuelo.
      * @return Mensaje indicando el resultado de la operación.
      */
-    @Transactional
     public String editFlight(Long id, FlightDto flightDto) {
+        return executeWithOptimisticRetry(() -> doEditFlight(id, flightDto));
+    }
+
+    private String doEditFlight(Long id, FlightDto flightDto) {
         logger.debug("editFlight llamado en FlightService con ID: {}", id);
         Optional<Flight> flightOpt = flightRepository.findById(id);
 
@@ -126,38 +224,49 @@ public class FlightService implements IFlightService {
         flightAnt.setEconomySeatsQ(flightNew.getEconomySeatsQ());
         flightAnt.setBusinessSeatPrice(flightNew.getBusinessSeatPrice());
         flightAnt.setEconomySeatPrice(flightNew.getEconomySeatPrice());
+        destinationDictionary.assignIds(flightAnt);
 
         flightRepository.save(flightAnt);
+        flightScheduleIndex.refreshAfterCommit(flightAnt);
+        autocompleteIndex.refreshFlightAfterCommit(flightAnt);
         logger.debug("El vuelo ha sido editado con éxito con ID: {}", id);
         return "El vuelo ha sido editado con éxito";
     }
 
     /**
-     * Retorna una lista de todos los vuelos activos en forma de DTO.
+     * Retorna una página de vuelos activos en forma de DTO. Los vuelos inactivos se
+     * descartan en la consulta, que además lee directamente las columnas del DTO.
      *
-     * @return Lista de DTOs de vuelos que están activos.
+     * @param cursor Id del último elemento de la página anterior, o {@code null} para la primera página.
+     * @param size   Tamaño de página solicitado.
+     * @return Página de DTOs de vuelos activos.
      */
-    public List<FlightDto> listFlights() {
-        return flightRepository.findAll().stream()
-                .map(flightMapper::entityToDto)   // Reemplazo de lambda por referencia de método
-                .filter(FlightDto::isActiva)      // Reemplazo de lambda por referencia de método
-                .toList();
+    public KeysetPage<FlightDto> listFlights(Long cursor, Integer size) {
+        int pageSize = KeysetPage.pageSize(size);
+        List<FlightDto> rows = flightRepository.findActiveDtoPage(KeysetPage.after(cursor), KeysetPage.limit(pageSize));
+        return KeysetPage.of(rows, pageSize, FlightDto::getId);
     }
 
     /**
      * Marca un vuelo como inactivo (eliminación lógica), siempre que no tenga reservas pendientes.
+     * Si se crea una reserva a la vez, el borrado se repite y vuelve a comprobar las reservas.
      *
      * @param id Identificador del vuelo a eliminar.
      * @return Mensaje indicando el resultado de la operación.
      */
-    @Transactional
     public String deleteFlight(Long id) {
+        return executeWithOptimisticRetry(() -> doDeleteFlight(id));
+    }
+
+    private String doDeleteFlight(Long id) {
         Optional<Flight> vueloOpt = flightRepository.findById(id);
         if (vueloOpt.isPresent()) {
             Flight flight = vueloOpt.get();
-            if (flight.getFlightBookings().isEmpty()) {
+            if (!flightBookingRepository.existsByFlightId(id)) {
                 flight.setActiva(false);
                 flightRepository.save(flight);
+                flightScheduleIndex.refreshAfterCommit(flight);
+                autocompleteIndex.refreshFlightAfterCommit(flight);
                 return "El vuelo ha sido eliminado por lógica";
             } else {
                 return "El vuelo no ha sido eliminado porque tiene reservas pendientes";
@@ -168,7 +277,10 @@ public class FlightService implements IFlightService {
 
     /**
      * Retorna una lista de vuelos disponibles en base a la fecha de salida, fecha de llegada,
-     * origen y destino.
+     * origen y destino. Las búsquedas se resuelven sobre el {@link FlightScheduleIndex};
+     * solo se consulta la base de datos mientras el índice aún no se ha cargado. El resultado
+     * se guarda en la {@link SearchCache} hasta que cambia algún vuelo de la ruta en uno de
+     * los dos sentidos.
      *
      * @param dateFrom    Fecha de salida.
      * @param dateTo      Fecha de llegada.
@@ -179,37 +291,415 @@ public class FlightService implements IFlightService {
     @Override
     public List<Flight> getVuelosDisponibles(LocalDate dateFrom, LocalDate dateTo,
                                              String origin, String destination) {
-        List<Flight> vuelosIda = flightRepository.findByDateFromAndOriginAndDestination(dateFrom, origin, destination);
-        List<Flight> vuelosVuelta = flightRepository.findByDateToAndOriginAndDestination(dateTo, destination, origin);
+        String from = origin.trim();
+        String to = destination.trim();
+        int fromId = destinationDictionary.idOf(from);
+        int toId = destinationDictionary.idOf(to);
+        return searchCache.get(new FlightSearchKey(dateFrom, dateTo, fromId, toId),
+                Set.of(SearchCache.routeTag(fromId, toId), SearchCache.routeTag(toId, fromId)), () -> {
+                    List<Flight> vuelosDisponibles = new ArrayList<>();
+                    vuelosDisponibles.addAll(findOutboundCandidates(dateFrom, from, to));
+                    vuelosDisponibles.addAll(findReturnCandidates(dateTo, from, to));
+                    return List.copyOf(vuelosDisponibles);
+                });
+    }
+
+    /**
+     * Busca vuelos activos de ida y vuelta con fechas flexibles: los de ida con salida en
+     * {@code dateFrom} ± {@code flexDays} y los de vuelta con vuelta en {@code dateTo} ± {@code flexDays},
+     * agrupados por día. Con el índice cargado no se consulta la base de datos; si no, se usa una
+     * consulta por rango para la ida y otra para la vuelta, en lugar de dos por cada día.
+     *
+     * @param dateFrom    Fecha de salida central.
+     * @param dateTo      Fecha de vuelta central.
+     * @param origin      Origen del vuelo.
+     * @param destination Destino del vuelo.
+     * @param flexDays    Días de margen antes y después de cada fecha (entre 0 y {@link #MAX_FLEX_DAYS}).
+     * @return Vuelos de ida y de vuelta por día, con todos los días del rango.
+     * @throws IllegalArgumentException si el margen no es válido.
+     */
+    @Override
+    public FlexibleDateSearchDto getVuelosDisponiblesFlexibles(LocalDate dateFrom, LocalDate dateTo,
+                                                               String origin, String destination, int flexDays) {
+        if (flexDays < 0 || flexDays > MAX_FLEX_DAYS) {
+            throw new IllegalArgumentException("El margen de días debe estar entre 0 y " + MAX_FLEX_DAYS);
+        }
+        LocalDate idaDesde = dateFrom.minusDays(flexDays);
+        LocalDate idaHasta = dateFrom.plusDays(flexDays);
+        LocalDate vueltaDesde = dateTo.minusDays(flexDays);
+        LocalDate vueltaHasta = dateTo.plusDays(flexDays);
+        List<FlightDto> vuelosIda;
+        List<FlightDto> vuelosVuelta;
+        if (flightScheduleIndex.isReady()) {
+            vuelosIda = activeDtos(flightScheduleIndex.findDeparturesBetween(origin, destination, idaDesde, idaHasta));
+            vuelosVuelta = activeDtos(flightScheduleIndex.findReturnsBetween(destination, origin, vueltaDesde, vueltaHasta));
+        } else {
+            int originId = destinationDictionary.idOf(origin);
+            int destinationId = destinationDictionary.idOf(destination);
+            vuelosIda = flightRepository.findActiveDtosByDateFromBetween(originId, destinationId, idaDesde, idaHasta);
+            vuelosVuelta = flightRepository.findActiveDtosByDateToBetween(destinationId, originId, vueltaDesde, vueltaHasta);
+        }
+        return new FlexibleDateSearchDto(
+                byDay(vuelosIda, idaDesde, idaHasta, FlightDto::getDateFrom),
+                byDay(vuelosVuelta, vueltaDesde, vueltaHasta, FlightDto::getDateTo));
+    }
+
+    private List<FlightDto> activeDtos(List<Flight> flights) {
+        return flights.stream()
+                .filter(Flight::isActiva)
+                .map(flightMapper::entityToDto)
+                .toList();
+    }
+
+    /**
+     * Agrupa los vuelos por día, con una entrada (posiblemente vacía) por cada día del rango.
+     */
+    private static List<DayFlightsDto> byDay(List<FlightDto> flights, LocalDate from, LocalDate to,
+                                             Function<FlightDto, LocalDate> dayOf) {
+        Map<LocalDate, List<FlightDto>> buckets = new TreeMap<>();
+        for (LocalDate day = from; !day.isAfter(to); day = day.plusDays(1)) {
+            buckets.put(day, new ArrayList<>());
+        }
+        for (FlightDto flight : flights) {
+            List<FlightDto> bucket = buckets.get(dayOf.apply(flight));
+            if (bucket != null) {
+                bucket.add(flight);
+            }
+        }
+        List<DayFlightsDto> days = new ArrayList<>(buckets.size());
+        buckets.forEach((day, dayFlights) -> days.add(new DayFlightsDto(day, dayFlights)));
+        return days;
+    }
+
+    /**
+     * Devuelve el calendario de tarifas de una ruta para un mes: el precio mínimo de turista y
+     * de business de cada día de ida. Se lee del agregado precalculado en el índice de vuelos,
+     * que se actualiza al crear, editar o eliminar vuelos y al cambiar sus asientos libres.
+     *
+     * @param origin      Origen del vuelo.
+     * @param destination Destino del vuelo.
+     * @param month       Mes del calendario.
+     * @return Un elemento por cada día del mes, con precios {@code null} si no hay asientos libres.
+     * @throws IllegalStateException si el índice de vuelos aún no está cargado.
+     */
+    @Override
+    public List<FareCalendarDayDto> getFareCalendar(String origin, String destination, YearMonth month) {
+        if (!flightScheduleIndex.isReady()) {
+            throw new IllegalStateException("El calendario de tarifas aún no está disponible");
+        }
+        SortedMap<LocalDate, FlightScheduleIndex.DayFares> fares =
+                flightScheduleIndex.findFares(origin, destination, month.atDay(1), month.atEndOfMonth());
+        List<FareCalendarDayDto> calendar = new ArrayList<>(month.lengthOfMonth());
+        for (LocalDate day = month.atDay(1); !day.isAfter(month.atEndOfMonth()); day = day.plusDays(1)) {
+            FlightScheduleIndex.DayFares dayFares = fares.get(day);
+            calendar.add(dayFares == null
+                    ? new FareCalendarDayDto(day, null, null)
+                    : new FareCalendarDayDto(day, dayFares.minEconomyPrice(), dayFares.minBusinessPrice()));
+        }
+        return calendar;
+    }
+
+    /**
+     * Busca combinaciones de ida y vuelta y las devuelve ordenadas por precio total.
+     * <p>
+     * Todas las idas son de la misma ruta y todas las vueltas de la inversa, así que cualquier ida
+     * se combina con cualquier vuelta. Ambas listas se ordenan por precio y se recorren en ese
+     * orden manteniendo un montículo con las {@code limit} combinaciones más baratas vistas hasta
+     * el momento: en cuanto una combinación no mejora la peor del montículo, las siguientes vueltas
+     * de esa ida tampoco, y si eso ocurre con la primera vuelta, tampoco las idas siguientes.
+     * Solo las combinaciones finales se convierten a DTO.
+     *
+     * @param dateFrom    Fecha de ida.
+     * @param dateTo      Fecha de vuelta.
+     * @param origin      Origen del viaje.
+     * @param destination Destino del viaje.
+     * @param passengers  Número de pasajeros; ambos vuelos deben tener asientos para todos.
+     * @param business    {@code true} para precios y asientos business, {@code false} para turista.
+     * @param limit       Número máximo de combinaciones (como mucho {@link #MAX_ROUND_TRIPS}).
+     * @return Combinaciones de vuelos activos, de la más barata a la más cara.
+     * @throws IllegalArgumentException si el número de pasajeros no es positivo o la vuelta es anterior a la ida.
+     */
+    @Override
+    public List<RoundTripDto> findRoundTrips(LocalDate dateFrom, LocalDate dateTo, String origin, String destination,
+                                             int passengers, boolean business, int limit) {
+        if (passengers < 1) {
+            throw new IllegalArgumentException("El número de pasajeros debe ser positivo");
+        }
+        if (dateTo.isBefore(dateFrom)) {
+            throw new IllegalArgumentException("La fecha de vuelta no puede ser anterior a la de ida");
+        }
+        int maxResults = Math.max(1, Math.min(limit, MAX_ROUND_TRIPS));
 
-        List<Flight> vuelosDisponibles = new ArrayList<>();
-        vuelosDisponibles.addAll(vuelosIda);
-        vuelosDisponibles.addAll(vuelosVuelta);
+        List<Flight> vueltas = cheapestWithSeats(findReturnCandidates(dateTo, origin, destination), passengers, business);
+        if (vueltas.isEmpty()) {
+            return new ArrayList<>();
+        }
+        List<Flight> idas = cheapestWithSeats(findOutboundCandidates(dateFrom, origin, destination), passengers, business);
+
+        // El montículo está ordenado de mayor a menor precio: la cabeza es la combinación a descartar
+        Comparator<RoundTrip> cheapestFirst = Comparator.comparingDouble(RoundTrip::fare)
+                .thenComparing(trip -> trip.outbound().getId())
+                .thenComparing(trip -> trip.inbound().getId());
+        PriorityQueue<RoundTrip> best = new PriorityQueue<>(maxResults + 1, cheapestFirst.reversed());
+        for (Flight ida : idas) {
+            boolean improved = false;
+            for (Flight vuelta : vueltas) {
+                RoundTrip trip = new RoundTrip(ida, vuelta, seatPrice(ida, business) + seatPrice(vuelta, business));
+                if (best.size() == maxResults && cheapestFirst.compare(trip, best.peek()) >= 0) {
+                    break;
+                }
+                if (best.size() == maxResults) {
+                    best.poll();
+                }
+                best.add(trip);
+                improved = true;
+            }
+            if (!improved) {
+                break;
+            }
+        }
 
-        return vuelosDisponibles;
+        List<RoundTrip> trips = new ArrayList<>(best);
+        trips.sort(cheapestFirst);
+        return trips.stream()
+                .map(trip -> new RoundTripDto(flightMapper.entityToDto(trip.outbound()),
+                        flightMapper.entityToDto(trip.inbound()), trip.fare() * passengers))
+                .toList();
+    }
+
+    /**
+     * Busca itinerarios de una y dos escalas sobre el grafo de rutas del {@link FlightScheduleIndex},
+     * sin consultas por tramo a la base de datos. Los itinerarios se ordenan por día de salida del
+     * último tramo, después por precio y por número de escalas.
+     *
+     * @param date           Fecha de salida del primer tramo.
+     * @param origin         Ciudad de origen.
+     * @param destination    Ciudad de destino.
+     * @param passengers     Número de pasajeros; todos los tramos deben tener asientos para todos.
+     * @param business       {@code true} para precios y asientos business, {@code false} para turista.
+     * @param maxStops       Número máximo de escalas (1 o 2).
+     * @param minLayoverDays Días mínimos entre la salida de un tramo y la del siguiente.
+     * @param maxLayoverDays Días máximos entre la salida de un tramo y la del siguiente (como mucho 3).
+     * @param limit          Número máximo de itinerarios (como mucho {@link #MAX_CONNECTIONS}).
+     * @return Itinerarios con escalas que cumplen los criterios.
+     * @throws IllegalArgumentException si algún parámetro no es válido.
+     * @throws IllegalStateException    si el índice de vuelos aún no se ha cargado.
+     */
+    @Override
+    @SuppressWarnings("java:S107") // Se suprime la advertencia de demasiados parámetros
+    public List<ConnectionDto> findConnections(LocalDate date, String origin, String destination, int passengers,
+                                               boolean business, int maxStops, int minLayoverDays,
+                                               int maxLayoverDays, int limit) {
+        if (passengers < 1) {
+            throw new IllegalArgumentException("El número de pasajeros debe ser positivo");
+        }
+        if (maxStops < 1 || maxStops > MAX_STOPS) {
+            throw new IllegalArgumentException("El número de escalas debe estar entre 1 y " + MAX_STOPS);
+        }
+        if (minLayoverDays < 0 || maxLayoverDays < minLayoverDays || maxLayoverDays > MAX_LAYOVER_DAYS) {
+            throw new IllegalArgumentException("Los días de escala deben cumplir 0 <= mínimo <= máximo <= "
+                    + MAX_LAYOVER_DAYS);
+        }
+        if (!flightScheduleIndex.isReady()) {
+            throw new IllegalStateException("El índice de vuelos aún no está disponible");
+        }
+        int maxResults = Math.max(1, Math.min(limit, MAX_CONNECTIONS));
+
+        List<List<Flight>> itineraries = flightScheduleIndex.findConnections(origin, destination, date, maxStops,
+                minLayoverDays, maxLayoverDays, flight -> canCarry(flight, passengers, business));
+        Comparator<List<Flight>> order = Comparator
+                .comparing((List<Flight> legs) -> legs.get(legs.size() - 1).getDateFrom())
+                .thenComparingDouble(legs -> itineraryPrice(legs, business))
+                .thenComparingInt(List::size)
+                .thenComparing(legs -> legs.stream().map(Flight::getId).toList(), FlightService::compareIds);
+        return itineraries.stream()
+                .sorted(order)
+                .limit(maxResults)
+                .map(legs -> new ConnectionDto(legs.stream().map(flightMapper::entityToDto).toList(),
+                        legs.size() - 1, itineraryPrice(legs, business) * passengers))
+                .toList();
+    }
+
+    private static double itineraryPrice(List<Flight> legs, boolean business) {
+        double price = 0;
+        for (Flight leg : legs) {
+            price += seatPrice(leg, business);
+        }
+        return price;
+    }
+
+    private static int compareIds(List<Long> a, List<Long> b) {
+        for (int i = 0; i < Math.min(a.size(), b.size()); i++) {
+            int cmp = a.get(i).compareTo(b.get(i));
+            if (cmp != 0) {
+                return cmp;
+            }
+        }
+        return Integer.compare(a.size(), b.size());
+    }
+
+    /**
+     * Vuelos de ida de la ruta en la fecha indicada, desde el índice o, si aún no está cargado,
+     * desde la base de datos.
+     */
+    private List<Flight> findOutboundCandidates(LocalDate dateFrom, String origin, String destination) {
+        if (flightScheduleIndex.isReady()) {
+            return flightScheduleIndex.findDepartures(origin, destination, dateFrom);
+        }
+        return flightRepository.findByDateFromAndOriginIdAndDestinationId(dateFrom,
+                destinationDictionary.idOf(origin), destinationDictionary.idOf(destination));
+    }
+
+    /**
+     * Vuelos de vuelta (de destino a origen) con fecha de vuelta la indicada, desde el índice o,
+     * si aún no está cargado, desde la base de datos.
+     */
+    private List<Flight> findReturnCandidates(LocalDate dateTo, String origin, String destination) {
+        if (flightScheduleIndex.isReady()) {
+            return flightScheduleIndex.findReturns(destination, origin, dateTo);
+        }
+        return flightRepository.findByDateToAndOriginIdAndDestinationId(dateTo,
+                destinationDictionary.idOf(destination), destinationDictionary.idOf(origin));
+    }
+
+    /**
+     * Vuelos con asientos para todos los pasajeros, del más barato al más caro (y por id si empatan).
+     */
+    private static List<Flight> cheapestWithSeats(List<Flight> flights, int passengers, boolean business) {
+        return flights.stream()
+                .filter(flight -> canCarry(flight, passengers, business))
+                .sorted(Comparator.comparingDouble((Flight flight) -> seatPrice(flight, business))
+                        .thenComparing(Flight::getId))
+                .toList();
+    }
+
+    private static boolean canCarry(Flight flight, int passengers, boolean business) {
+        int seats = business ? flight.getBusinessSeatsQ() : flight.getEconomySeatsQ();
+        return flight.isActiva() && seats >= passengers;
+    }
+
+    private static double seatPrice(Flight flight, boolean business) {
+        return business ? flight.getBusinessSeatPrice() : flight.getEconomySeatPrice();
+    }
+
+    /**
+     * Clave de {@link #getVuelosDisponibles} en la {@link SearchCache}: fechas e identificadores de la ruta.
+     */
+    private record FlightSearchKey(LocalDate dateFrom, LocalDate dateTo, int origin, int destination) {
+    }
+
+    /**
+     * Combinación candidata de ida y vuelta con el precio por pasajero.
+     */
+    private record RoundTrip(Flight outbound, Flight inbound, double fare) {
     }
 
     /**
      * Retorna una lista de vuelos que coinciden con la fecha de salida o la fecha de llegada proporcionada.
+     * Los identificadores se obtienen del índice en memoria y los vuelos se cargan por clave primaria,
+     * evitando la consulta con OR sobre ambas fechas.
      *
      * @param date Fecha a comparar.
      * @return Lista de vuelos que tienen la fecha indicada en la fecha de salida o llegada.
      */
     @Override
     public List<Flight> findByDateFromOrByDateTo(LocalDate date) {
-        return flightRepository.findByDateFromOrDateTo(date);
+        if (!flightScheduleIndex.isReady()) {
+            return flightRepository.findByDateFromOrDateTo(date);
+        }
+        List<Long> ids = flightScheduleIndex.findIdsByDay(date);
+        if (ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+        List<Flight> flights = new ArrayList<>(flightRepository.findAllById(ids));
+        flights.sort(Comparator.comparing(Flight::getId));
+        return flights;
     }
 
     /**
-     * Guarda o actualiza un vuelo en la base de datos.
+     * Guarda o actualiza un vuelo en la base de datos y refleja el cambio (por ejemplo,
+     * de asientos disponibles) en el índice de búsqueda.
      *
      * @param flight Entidad del vuelo que se desea persistir.
      */
     @Override
     public void save(Flight flight) {
         flightRepository.save(flight);
+        flightScheduleIndex.refreshAfterCommit(flight);
+    }
+
+    /**
+     * Reserva asientos en un vuelo mediante un descuento atómico en la base de datos,
+     * que solo se aplica si quedan suficientes asientos de ambas clases.
+     *
+     * @param flightId      Identificador del vuelo.
+     * @param economySeats  Asientos de turista a reservar.
+     * @param businessSeats Asientos business a reservar.
+     * @return {@code true} si se reservaron los asientos, {@code false} si no había suficientes.
+     * @throws IllegalArgumentException si se solicita un número negativo de asientos.
+     */
+    @Override
+    @Transactional
+    public boolean reserveSeats(Long flightId, int economySeats, int businessSeats) {
+        if (economySeats < 0 || businessSeats < 0) {
+            throw new IllegalArgumentException("El número de asientos no puede ser negativo");
+        }
+        if (flightRepository.decrementSeats(flightId, economySeats, businessSeats) == 0) {
+            return false;
+        }
+        refreshSeats(flightId);
+        return true;
     }
-}
 
+    /**
+     * Devuelve asientos a un vuelo mediante un incremento atómico en la base de datos.
+     *
+     * @param flightId      Identificador del vuelo.
+     * @param economySeats  Asientos de turista a devolver.
+     * @param businessSeats Asientos business a devolver.
+     */
+    @Override
+    @Transactional
+    public void releaseSeats(Long flightId, int economySeats, int businessSeats) {
+        if (flightRepository.incrementSeats(flightId, economySeats, businessSeats) > 0) {
+            refreshSeats(flightId);
+        }
+    }
+
+    /**
+     * Lee de la base de datos los asientos disponibles de un vuelo.
+     *
+     * @param flightId Identificador del vuelo.
+     * @return Asientos disponibles y versión del vuelo, o vacío si no existe.
+     */
+    @Override
+    public Optional<IFlightRepository.SeatAvailability> findSeatAvailability(Long flightId) {
+        return flightRepository.findSeatAvailabilityById(flightId);
+    }
 
+    /**
+     * Lee los asientos resultantes de una actualización atómica y los publica en el índice.
+     */
+    private void refreshSeats(Long flightId) {
+        findSeatAvailability(flightId).ifPresent(seats ->
+                flightScheduleIndex.refreshSeatsAfterCommit(flightId, seats.getEconomySeatsQ(),
+                        seats.getBusinessSeatsQ(), seats.getVersion()));
+    }
 
+    /**
+     * Ejecuta una operación en su propia transacción, repitiéndola (hasta
+     * {@link #MAX_OPTIMISTIC_ATTEMPTS} veces) si falla por bloqueo optimista.
+     */
+    private <T> T executeWithOptimisticRetry(Supplier<T> operation) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return transactionTemplate.execute(status -> operation.get());
+            } catch (OptimisticLockingFailureException e) {
+                if (attempt >= MAX_OPTIMISTIC_ATTEMPTS) {
+                    throw e;
+                }
+                logger.debug("Conflicto de versión en el vuelo, reintento {} de {}", attempt + 1, MAX_OPTIMISTIC_ATTEMPTS);
+            }
+        }
+    }
+}
@@ -1,14 +1,18 @@
 package com.luis.agencia.service;
 
 import com.luis.agencia.dto.HotelDto;
+import com.luis.agencia.dto.HotelRoomCounterDto;
 import com.luis.agencia.mapper.HotelMapper;
 import com.luis.agencia.model.Hotel;
 import com.luis.agencia.repository.IHotelRepository;
+import com.luis.agencia.repository.IRoomRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
 import jakarta.transaction.Transactional;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 
 /**
@@ -22,9 +26,21 @@ public class HotelService implements IHotelService {
     @Autowired
     private IHotelRepository hotelRepository;
 
+    @Autowired
+    private IRoomRepository roomRepository;
+
     @Autowired
     private HotelMapper hotelMapper;
 
+    @Autowired
+    private RoomAvailabilityIndex roomAvailabilityIndex;
+
+    @Autowired
+    private DestinationDictionary destinationDictionary;
+
+    @Autowired
+    private AutocompleteIndex autocompleteIndex;
+
     /**
      * Busca un hotel por su identificador.
      *
@@ -38,7 +54,8 @@ public class HotelService implements IHotelService {
     }
 
     /**
-     * Busca un hotel por su identificador y lo devuelve en forma de DTO.
+     * Busca un hotel activo por su identificador y lo devuelve en forma de DTO.
+     * Los hoteles dados de baja se descartan en la propia consulta.
      *
      * @param id Identificador del hotel.
      * @return El DTO {@link HotelDto} del hotel encontrado, o {@code null} en caso contrario.
@@ -46,16 +63,14 @@ public class HotelService implements IHotelService {
     @Override
     @Transactional
     public HotelDto findHotelDtoById(Long id) {
-        Hotel hotel = hotelRepository.findById(id).orElse(null);
-        if (hotel == null) {
-            return null;
-        }
-        HotelDto hotelDto = hotelMapper.entityToDto(hotel);
-        return hotel.isActive() ? hotelDto : null;
+        return hotelRepository.findActiveDtoById(id)
+                .map(hotelDto -> withRoomIds(List.of(hotelDto)).get(0))
+                .orElse(null);
     }
 
     /**
-     * Crea un nuevo hotel en la base de datos a partir de un DTO.
+     * Crea un nuevo hotel en la base de datos a partir de un DTO, con los contadores
+     * de habitaciones a cero hasta que se den de alta sus habitaciones.
      *
      * @param hotelDto DTO que contiene la información del hotel a crear.
      * @return Un mensaje indicando el resultado de la operación.
@@ -77,10 +92,12 @@ public class HotelService implements IHotelService {
         if (hotelDto.getSimpleRoomPrice() < 0 || hotelDto.getDoubleRoomPrice() < 0) {
             return "Los precios de las habitaciones no pueden ser negativos";
         }
-        if (hotelDto.getSingleRoomsQ() < 0 || hotelDto.getDoubleRoomsQ() < 0) {
-            return "El número de habitaciones tiene que ser mayor que 0";
-        }
-        hotelRepository.save(hotelMapper.dtoToEntity(hotelDto));
+        Hotel hotel = hotelMapper.dtoToEntity(hotelDto);
+        // Los contadores reflejan las habitaciones dadas de alta, y un hotel nuevo aún no tiene ninguna
+        hotel.setSingleRoomsQ(0);
+        hotel.setDoubleRoomsQ(0);
+        destinationDictionary.assignId(hotel);
+        autocompleteIndex.refreshHotelAfterCommit(hotelRepository.save(hotel));
         return "El hotel ha sido añadido con éxito";
     }
 
@@ -100,11 +117,13 @@ public class HotelService implements IHotelService {
         }
         hotel.setActive(false);
         hotelRepository.save(hotel);
+        autocompleteIndex.refreshHotelAfterCommit(hotel);
         return "El hotel ha sido eliminado con éxito por lógica";
     }
 
     /**
      * Edita la información de un hotel existente.
+     * Los contadores de habitaciones no se toman del DTO: se recalculan a partir de las habitaciones.
      *
      * @param id       Identificador del hotel a editar.
      * @param hotelDto DTO que contiene la información actualizada del hotel.
@@ -124,18 +143,16 @@ public class HotelService implements IHotelService {
         if (hotelDto.getSimpleRoomPrice() < 0 || hotelDto.getDoubleRoomPrice() < 0) {
             return "Los precios de las habitaciones no pueden ser negativos";
         }
-        if (hotelDto.getSingleRoomsQ() < 0 || hotelDto.getDoubleRoomsQ() < 0) {
-            return "El número de habitaciones tiene que ser mayor que 0";
-        }
         hotelAnt.setHotelCode(hotelDto.getHotelCode());
         hotelAnt.setName(hotelDto.getName());
         hotelAnt.setPlace(hotelDto.getPlace());
-        hotelAnt.setSingleRoomsQ(hotelDto.getSingleRoomsQ());
-        hotelAnt.setDoubleRoomsQ(hotelDto.getDoubleRoomsQ());
         hotelAnt.setDoubleRoomPrice(hotelDto.getDoubleRoomPrice());
         hotelAnt.setSimpleRoomPrice(hotelDto.getSimpleRoomPrice());
+        destinationDictionary.assignId(hotelAnt);
         try {
             hotelRepository.save(hotelAnt);
+            roomAvailabilityIndex.refreshHotelPlaceAfterCommit(hotelAnt.getId(), hotelAnt.getPlaceId());
+            autocompleteIndex.refreshHotelAfterCommit(hotelAnt);
             return "El hotel ha sido editado con éxito";
         } catch (DataIntegrityViolationException e) {
             return "Ocurrió un error al editar el hotel: " + e.getMessage();
@@ -143,46 +160,70 @@ public class HotelService implements IHotelService {
     }
 
     /**
-     * Decrementa la disponibilidad de habitaciones en un hotel.
-     * Se restan las habitaciones dobles y simples indicadas.
+     * Retorna una página de hoteles activos de la base de datos, en formato DTO.
+     * Los hoteles dados de baja se descartan en la propia consulta.
      *
-     * @param hotel       Hotel a actualizar.
-     * @param doubleRooms Número de habitaciones dobles a restar.
-     * @param singleRooms Número de habitaciones simples a restar.
+     * @param cursor Id del último elemento de la página anterior, o {@code null} para la primera página.
+     * @param size   Tamaño de página solicitado.
+     * @return Página de {@link HotelDto} con la información de los hoteles.
      */
+    @Override
     @Transactional
-    public void decrementRoomAvailability(Hotel hotel, int doubleRooms, int singleRooms) {
-        hotel.setDoubleRoomsQ(hotel.getDoubleRoomsQ() - doubleRooms);
-        hotel.setSingleRoomsQ(hotel.getSingleRoomsQ() - singleRooms);
-        hotelRepository.save(hotel);
+    public KeysetPage<HotelDto> listHotels(Long cursor, Integer size) {
+        int pageSize = KeysetPage.pageSize(size);
+        List<HotelDto> rows = hotelRepository.findActiveDtoPage(KeysetPage.after(cursor), KeysetPage.limit(pageSize));
+        KeysetPage<HotelDto> page = KeysetPage.of(rows, pageSize, HotelDto::getId);
+        withRoomIds(page.getItems());
+        return page;
     }
 
     /**
-     * Incrementa la disponibilidad de habitaciones en un hotel.
-     * Se suman las habitaciones dobles y simples indicadas.
+     * Devuelve los hoteles activos cuyos contadores de habitaciones no coinciden con las
+     * habitaciones de cada tipo que tienen dadas de alta.
      *
-     * @param hotel       Hotel a actualizar.
-     * @param doubleRooms Número de habitaciones dobles a sumar.
-     * @param singleRooms Número de habitaciones simples a sumar.
+     * @return Lista de {@link HotelRoomCounterDto} con los hoteles desajustados.
      */
+    @Override
     @Transactional
-    public void incrementRoomAvailability(Hotel hotel, int doubleRooms, int singleRooms) {
-        hotel.setDoubleRoomsQ(hotel.getDoubleRoomsQ() + doubleRooms);
-        hotel.setSingleRoomsQ(hotel.getSingleRoomsQ() + singleRooms);
-        hotelRepository.save(hotel);
+    public List<HotelRoomCounterDto> findRoomCounterMismatches() {
+        return hotelRepository.findRoomCounterMismatches().stream()
+                .map(m -> new HotelRoomCounterDto(m.getHotelId(), m.getHotelCode(),
+                        m.getSingleRoomsQ(), m.getDoubleRoomsQ(),
+                        m.getSingleRooms(), m.getDoubleRooms()))
+                .toList();
     }
 
     /**
-     * Retorna una lista con todos los hoteles existentes en la base de datos, en formato DTO.
+     * Iguala con una única sentencia los contadores de habitaciones de todos los hoteles con
+     * las habitaciones de cada tipo que tienen dadas de alta. Corrige los contadores que
+     * rebajaron las reservas antes de llevar la ocupación por noches.
      *
-     * @return Lista de {@link HotelDto} con la información de los hoteles.
+     * @return Número de hoteles cuyos contadores han cambiado.
      */
     @Override
     @Transactional
-    public List<HotelDto> listHotels() {
-        return hotelRepository.findAll().stream()
-                .map(hotelMapper::entityToDto)
-                .toList();
+    public int recomputeRoomCounters() {
+        return hotelRepository.recomputeRoomCounters();
+    }
+
+    /**
+     * Rellena la lista de habitaciones de los DTOs de hotel con una sola consulta para todos ellos.
+     *
+     * @param hotels DTOs de hotel leídos con la proyección, con la lista de habitaciones vacía.
+     * @return La misma lista de DTOs.
+     */
+    private List<HotelDto> withRoomIds(List<HotelDto> hotels) {
+        if (hotels.isEmpty()) {
+            return hotels;
+        }
+        Map<Long, HotelDto> byId = new HashMap<>();
+        for (HotelDto hotel : hotels) {
+            byId.put(hotel.getId(), hotel);
+        }
+        for (IRoomRepository.HotelRoomId room : roomRepository.findRoomIdsByHotelIdIn(byId.keySet())) {
+            byId.get(room.getHotelId()).getRooms().add(room.getRoomId());
+        }
+        return hotels;
     }
 }
 
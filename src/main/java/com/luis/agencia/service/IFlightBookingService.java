@@ -4,6 +4,8 @@ import com.luis.agencia.dto.FlightBookingDetailDto;
 import com.luis.agencia.dto.FlightBookingDto;
 import com.luis.agencia.model.FlightBooking;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.List;
 
 /**
@@ -45,10 +47,21 @@ public interface IFlightBookingService {
     FlightBooking findById(Long id);
 
     /**
-     * Retorna una lista con todas las reservas de vuelo existentes.
+     * Retorna una página de reservas de vuelo, ordenadas por identificador.
      *
-     * @return Lista de entidades {@link FlightBooking}.
+     * @param cursor Id del último elemento de la página anterior, o {@code null} para la primera página.
+     * @param size   Tamaño de página (por defecto {@link KeysetPage#DEFAULT_SIZE}, como mucho {@link KeysetPage#MAX_SIZE}).
+     * @return Página de entidades {@link FlightBooking} con el cursor de la página siguiente.
      */
-    List<FlightBooking> findAll();
+    KeysetPage<FlightBooking> findAll(Long cursor, Integer size);
+
+    /**
+     * Exporta todas las reservas de vuelo en streaming.
+     *
+     * @param out    Flujo de salida.
+     * @param format Formato de la exportación.
+     * @throws IOException si falla la escritura.
+     */
+    void exportAll(OutputStream out, FileFormat format) throws IOException;
 }
 
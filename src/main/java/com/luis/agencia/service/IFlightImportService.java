@@ -0,0 +1,22 @@
+package com.luis.agencia.service;
+
+import com.luis.agencia.dto.FlightImportReportDto;
+
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * Interfaz de servicio para la importación masiva de vuelos.
+ */
+public interface IFlightImportService {
+
+     /**
+      * Importa los vuelos leídos de un flujo de texto, fila a fila, y devuelve el resultado.
+      *
+      * @param reader Flujo con el contenido del fichero.
+      * @param format Formato del contenido.
+      * @return {@link FlightImportReportDto} con los vuelos importados y los errores por fila.
+      * @throws IOException si falla la lectura del flujo.
+      */
+     FlightImportReportDto importFlights(Reader reader, FileFormat format) throws IOException;
+}
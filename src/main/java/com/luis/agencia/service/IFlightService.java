@@ -1,9 +1,16 @@
 package com.luis.agencia.service;
 
+import com.luis.agencia.dto.ConnectionDto;
+import com.luis.agencia.dto.FareCalendarDayDto;
+import com.luis.agencia.dto.FlexibleDateSearchDto;
 import com.luis.agencia.dto.FlightDto;
+import com.luis.agencia.dto.RoundTripDto;
 import com.luis.agencia.model.Flight;
+import com.luis.agencia.repository.IFlightRepository;
 import java.time.LocalDate;
+import java.time.YearMonth;
 import java.util.List;
+import java.util.Optional;
 
 /**
  * Interfaz de servicio para gestionar operaciones relacionadas con vuelos.
@@ -27,11 +34,13 @@ public interface IFlightService {
      void createFlight(FlightDto flightDto);
 
      /**
-      * Retorna una lista de vuelos en formato DTO.
+      * Retorna una página de vuelos activos en formato DTO, ordenados por identificador.
       *
-      * @return Lista de {@link FlightDto} con la información de los vuelos.
+      * @param cursor Id del último vuelo de la página anterior, o {@code null} para la primera página.
+      * @param size   Tamaño de página (por defecto {@link KeysetPage#DEFAULT_SIZE}, como mucho {@link KeysetPage#MAX_SIZE}).
+      * @return Página de {@link FlightDto} con el cursor de la página siguiente.
       */
-     List<FlightDto> listFlights();
+     KeysetPage<FlightDto> listFlights(Long cursor, Integer size);
 
      /**
       * Edita la información de un vuelo existente.
@@ -70,6 +79,62 @@ public interface IFlightService {
       */
      List<Flight> getVuelosDisponibles(LocalDate dateFrom, LocalDate dateTo, String origin, String destination);
 
+     /**
+      * Obtiene el calendario de tarifas de una ruta para un mes.
+      *
+      * @param origin      Origen del vuelo.
+      * @param destination Destino del vuelo.
+      * @param month       Mes del calendario.
+      * @return Tarifas mínimas de turista y business de cada día del mes.
+      */
+     List<FareCalendarDayDto> getFareCalendar(String origin, String destination, YearMonth month);
+
+     /**
+      * Obtiene los vuelos activos de ida y vuelta con fechas flexibles, agrupados por día.
+      *
+      * @param dateFrom    Fecha de salida central.
+      * @param dateTo      Fecha de vuelta central.
+      * @param origin      Origen del vuelo.
+      * @param destination Destino del vuelo.
+      * @param flexDays    Días de margen antes y después de cada fecha.
+      * @return {@link FlexibleDateSearchDto} con los vuelos de ida y de vuelta por día.
+      */
+     FlexibleDateSearchDto getVuelosDisponiblesFlexibles(LocalDate dateFrom, LocalDate dateTo, String origin,
+                                                         String destination, int flexDays);
+
+     /**
+      * Busca combinaciones de vuelos de ida y vuelta y las devuelve ordenadas por precio total.
+      *
+      * @param dateFrom    Fecha de ida.
+      * @param dateTo      Fecha de vuelta.
+      * @param origin      Origen del viaje.
+      * @param destination Destino del viaje.
+      * @param passengers  Número de pasajeros.
+      * @param business    {@code true} para viajar en business, {@code false} para turista.
+      * @param limit       Número máximo de combinaciones a devolver.
+      * @return Lista de {@link RoundTripDto}, de la más barata a la más cara.
+      */
+     List<RoundTripDto> findRoundTrips(LocalDate dateFrom, LocalDate dateTo, String origin, String destination,
+                                       int passengers, boolean business, int limit);
+
+     /**
+      * Busca itinerarios con una o dos escalas entre dos ciudades.
+      *
+      * @param date           Fecha de salida del primer tramo.
+      * @param origin         Ciudad de origen.
+      * @param destination    Ciudad de destino.
+      * @param passengers     Número de pasajeros.
+      * @param business       {@code true} para viajar en business, {@code false} para turista.
+      * @param maxStops       Número máximo de escalas.
+      * @param minLayoverDays Días mínimos entre la salida de un tramo y la del siguiente.
+      * @param maxLayoverDays Días máximos entre la salida de un tramo y la del siguiente.
+      * @param limit          Número máximo de itinerarios a devolver.
+      * @return Lista de {@link ConnectionDto} con los itinerarios encontrados.
+      */
+     List<ConnectionDto> findConnections(LocalDate date, String origin, String destination, int passengers,
+                                         boolean business, int maxStops, int minLayoverDays, int maxLayoverDays,
+                                         int limit);
+
      /**
       * Obtiene una lista de vuelos cuyo campo de fecha (ida o vuelta) coincide con la fecha proporcionada.
       *
@@ -84,5 +149,31 @@ public interface IFlightService {
       * @param flight La entidad {@link Flight} que se desea guardar.
       */
      void save(Flight flight);
-}
 
+     /**
+      * Reserva asientos en un vuelo de forma atómica, solo si quedan suficientes.
+      *
+      * @param flightId      Identificador del vuelo.
+      * @param economySeats  Asientos de turista a reservar.
+      * @param businessSeats Asientos business a reservar.
+      * @return {@code true} si se reservaron los asientos, {@code false} si no había suficientes.
+      */
+     boolean reserveSeats(Long flightId, int economySeats, int businessSeats);
+
+     /**
+      * Devuelve asientos a un vuelo de forma atómica.
+      *
+      * @param flightId      Identificador del vuelo.
+      * @param economySeats  Asientos de turista a devolver.
+      * @param businessSeats Asientos business a devolver.
+      */
+     void releaseSeats(Long flightId, int economySeats, int businessSeats);
+
+     /**
+      * Lee de la base de datos los asientos disponibles de un vuelo.
+      *
+      * @param flightId Identificador del vuelo.
+      * @return Asientos disponibles y versión del vuelo, o vacío si no existe.
+      */
+     Optional<IFlightRepository.SeatAvailability> findSeatAvailability(Long flightId);
+}
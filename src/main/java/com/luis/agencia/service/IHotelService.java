@@ -1,6 +1,7 @@
 package com.luis.agencia.service;
 
 import com.luis.agencia.dto.HotelDto;
+import com.luis.agencia.dto.HotelRoomCounterDto;
 import com.luis.agencia.model.Hotel;
 import java.util.List;
 
@@ -52,10 +53,27 @@ public interface IHotelService {
     String editHotel(Long id, HotelDto hotelDto);
 
     /**
-     * Retorna una lista con todos los hoteles existentes, en formato DTO.
+     * Retorna una página de hoteles en formato DTO, ordenados por identificador.
      *
-     * @return Lista de {@link HotelDto} con la información de los hoteles.
+     * @param cursor Id del último elemento de la página anterior, o {@code null} para la primera página.
+     * @param size   Tamaño de página (por defecto {@link KeysetPage#DEFAULT_SIZE}, como mucho {@link KeysetPage#MAX_SIZE}).
+     * @return Página de {@link HotelDto} con el cursor de la página siguiente.
      */
-    List<HotelDto> listHotels();
-}
+    KeysetPage<HotelDto> listHotels(Long cursor, Integer size);
+
+    /**
+     * Concilia los contadores de habitaciones de los hoteles activos con las habitaciones
+     * que tienen dadas de alta.
+     *
+     * @return Lista de {@link HotelRoomCounterDto} con los hoteles cuyos contadores no coinciden.
+     */
+    List<HotelRoomCounterDto> findRoomCounterMismatches();
 
+    /**
+     * Iguala los contadores de habitaciones de todos los hoteles con las habitaciones
+     * que tienen dadas de alta.
+     *
+     * @return Número de hoteles cuyos contadores han cambiado.
+     */
+    int recomputeRoomCounters();
+}
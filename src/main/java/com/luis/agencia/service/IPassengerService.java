@@ -1,8 +1,11 @@
 package com.luis.agencia.service;
 
 import com.luis.agencia.dto.PassengerDto;
+import com.luis.agencia.model.FlightBooking;
 import com.luis.agencia.model.Passenger;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Interfaz de servicio para gestionar operaciones relacionadas con pasajeros.
@@ -30,11 +33,13 @@ public interface IPassengerService {
     PassengerDto findPassengerDtoById(Long id);
 
     /**
-     * Retorna una lista de DTOs de pasajeros.
+     * Retorna una página de pasajeros en formato DTO, ordenados por identificador.
      *
-     * @return Lista de {@link PassengerDto} con la información de todos los pasajeros.
+     * @param cursor Id del último elemento de la página anterior, o {@code null} para la primera página.
+     * @param size   Tamaño de página (por defecto {@link KeysetPage#DEFAULT_SIZE}, como mucho {@link KeysetPage#MAX_SIZE}).
+     * @return Página de {@link PassengerDto} con el cursor de la página siguiente.
      */
-    List<PassengerDto> listPassengers();
+    KeysetPage<PassengerDto> listPassengers(Long cursor, Integer size);
 
     /**
      * Crea un nuevo pasajero a partir de un DTO y devuelve el DTO resultante.
@@ -74,7 +79,29 @@ public interface IPassengerService {
      * @param passenger La entidad {@link Passenger} que se desea persistir.
      */
     void save(Passenger passenger);
-}
 
+    /**
+     * Carga en una sola consulta los pasajeros correspondientes a una lista de identificadores.
+     * Los identificadores que no existen no aparecen en el resultado, de modo que el llamador
+     * puede detectarlos comparando con las claves devueltas.
+     *
+     * @param ids Identificadores de los pasajeros.
+     * @return Pasajeros encontrados, por identificador y en el orden de la lista recibida.
+     */
+    Map<Long, Passenger> findPassengersByIds(List<Long> ids);
 
+    /**
+     * Asocia a una reserva de vuelo todos los pasajeros indicados con una única actualización.
+     *
+     * @param flightBooking Reserva de vuelo ya persistida.
+     * @param ids           Identificadores de los pasajeros.
+     */
+    void assignFlightBooking(FlightBooking flightBooking, Collection<Long> ids);
 
+    /**
+     * Desvincula de una reserva de vuelo todos sus pasajeros con una única actualización.
+     *
+     * @param flightBooking Reserva de vuelo.
+     */
+    void unassignFlightBooking(FlightBooking flightBooking);
+}
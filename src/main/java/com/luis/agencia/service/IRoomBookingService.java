@@ -2,6 +2,8 @@ package com.luis.agencia.service;
 
 import com.luis.agencia.dto.RoomBookingDto;
 import com.luis.agencia.dto.RoomBookingDetailDto;
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.List;
 
 /**
@@ -35,11 +37,13 @@ public interface IRoomBookingService {
     void deleteRoomBooking(Long id);
 
     /**
-     * Retorna una lista con los detalles de todas las reservas de habitación existentes.
+     * Retorna una página con los detalles de las reservas de habitación, ordenadas por identificador.
      *
-     * @return Lista de {@link RoomBookingDetailDto} con la información de cada reserva.
+     * @param cursor Id del último elemento de la página anterior, o {@code null} para la primera página.
+     * @param size   Tamaño de página (por defecto {@link KeysetPage#DEFAULT_SIZE}, como mucho {@link KeysetPage#MAX_SIZE}).
+     * @return Página de {@link RoomBookingDetailDto} con el cursor de la página siguiente.
      */
-    List<RoomBookingDetailDto> listAllRoomBookings();
+    KeysetPage<RoomBookingDetailDto> listAllRoomBookings(Long cursor, Integer size);
 
     /**
      * Obtiene los detalles de una reserva de habitación a partir de su identificador.
@@ -48,6 +52,15 @@ public interface IRoomBookingService {
      * @return El DTO {@link RoomBookingDetailDto} con los detalles de la reserva, o {@code null} si no se encuentra.
      */
     RoomBookingDetailDto getRoomBookingDetailById(Long id);
+
+    /**
+     * Exporta todas las reservas de habitación en streaming.
+     *
+     * @param out    Flujo de salida.
+     * @param format Formato de la exportación.
+     * @throws IOException si falla la escritura.
+     */
+    void exportAll(OutputStream out, FileFormat format) throws IOException;
 }
 
 
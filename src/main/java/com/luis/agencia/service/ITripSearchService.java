@@ -0,0 +1,26 @@
+package com.luis.agencia.service;
+
+import com.luis.agencia.dto.TripSearchDto;
+
+import java.time.LocalDate;
+
+/**
+ * Interfaz de servicio para la búsqueda de paquetes de viaje (vuelos más hotel).
+ */
+public interface ITripSearchService {
+
+     /**
+      * Busca paquetes de vuelos de ida y vuelta más alojamiento en el destino para las noches
+      * entre ambas fechas, ordenados por precio total.
+      *
+      * @param dateFrom    Fecha de ida y de entrada en el hotel.
+      * @param dateTo      Fecha de vuelta y de salida del hotel.
+      * @param origin      Origen del viaje.
+      * @param destination Destino del viaje y lugar del hotel.
+      * @param passengers  Número de pasajeros.
+      * @param limit       Número máximo de paquetes a devolver.
+      * @return {@link TripSearchDto} con los paquetes y si cada búsqueda ha terminado a tiempo.
+      */
+     TripSearchDto searchPackages(LocalDate dateFrom, LocalDate dateTo, String origin, String destination,
+                                  int passengers, int limit);
+}
@@ -0,0 +1,93 @@
+package com.luis.agencia.service;
+
+import com.luis.agencia.model.IdGenerators;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Map;
+
+/**
+ * Mantenimiento de las tablas que emulan en MySQL las secuencias de identificadores
+ * (ver {@link IdGenerators}).
+ * <p>
+ * Al arrancar, adelanta cada secuencia por encima del mayor identificador de su tabla, ya que
+ * las filas creadas antes con {@code AUTO_INCREMENT} no pasaron por ella. También reserva
+ * bloques de identificadores para las inserciones JDBC que no pasan por Hibernate, respetando
+ * el reparto en bloques del optimizador {@code pooled}: un valor {@code v} leído de la
+ * secuencia da a Hibernate los identificadores {@code (v - ALLOCATION_SIZE, v]}.
+ */
+@Component
+public class IdSequences {
+
+    private static final Logger logger = LoggerFactory.getLogger(IdSequences.class);
+
+    /**
+     * Tabla de cada secuencia.
+     */
+    private static final Map<String, String> TABLES = Map.of(
+            "flight_seq", "flight",
+            "hotel_seq", "hotel",
+            "room_seq", "room",
+            "passenger_seq", "passenger",
+            "flight_booking_seq", "flight_booking",
+            "room_booking_seq", "room_booking");
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final TransactionTemplate newTransaction;
+
+    /**
+     * Recibe la factoría de JPA para que el esquema (y las tablas de secuencia) ya exista al alinearlas.
+     */
+    public IdSequences(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                       @SuppressWarnings("unused") EntityManagerFactory entityManagerFactory) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.newTransaction = new TransactionTemplate(transactionManager);
+        this.newTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * Deja cada secuencia en un valor cuyo primer bloque empieza después del mayor identificador existente.
+     */
+    @PostConstruct
+    public void alignWithExistingIds() {
+        TABLES.forEach((sequence, table) -> {
+            try {
+                jdbcTemplate.update("UPDATE " + sequence + " SET next_val = GREATEST(next_val, " +
+                        "(SELECT COALESCE(MAX(id), 0) FROM " + table + ") + " + IdGenerators.ALLOCATION_SIZE + ")");
+            } catch (DataAccessException e) {
+                logger.warn("No se ha podido alinear la secuencia {}: {}", sequence, e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Reserva en su propia transacción un rango de identificadores consecutivos de una secuencia.
+     *
+     * @param sequence Nombre de la tabla de secuencia (por ejemplo, {@code flight_seq}).
+     * @param count    Número de identificadores necesarios.
+     * @return El primero de los {@code count} identificadores reservados.
+     */
+    public long reserve(String sequence, int count) {
+        if (!TABLES.containsKey(sequence)) {
+            throw new IllegalArgumentException("Secuencia desconocida: " + sequence);
+        }
+        // Se reservan bloques completos para no solaparse con los que lea Hibernate después
+        int blocks = (count + IdGenerators.ALLOCATION_SIZE - 1) / IdGenerators.ALLOCATION_SIZE;
+        Long first = newTransaction.execute(status -> {
+            Long current = jdbcTemplate.queryForObject("SELECT next_val FROM " + sequence + " FOR UPDATE", Long.class);
+            jdbcTemplate.update("UPDATE " + sequence + " SET next_val = ?",
+                    current + (long) blocks * IdGenerators.ALLOCATION_SIZE);
+            return current - IdGenerators.ALLOCATION_SIZE + 1;
+        });
+        return first;
+    }
+}
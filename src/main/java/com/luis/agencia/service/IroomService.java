@@ -55,11 +55,13 @@ public interface IroomService {
         RoomDto findRoomById(Long roomId);
 
         /**
-         * Retorna una lista de todas las habitaciones existentes en el sistema.
+         * Retorna una página de las habitaciones existentes en el sistema, ordenadas por identificador.
          *
-         * @return Lista de {@link RoomDto} con la información de todas las habitaciones.
+         * @param cursor Id del último elemento de la página anterior, o {@code null} para la primera página.
+         * @param size   Tamaño de página (por defecto {@link KeysetPage#DEFAULT_SIZE}, como mucho {@link KeysetPage#MAX_SIZE}).
+         * @return Página de {@link RoomDto} con el cursor de la página siguiente.
          */
-        List<RoomDto> listAllRooms();
+        KeysetPage<RoomDto> listAllRooms(Long cursor, Integer size);
 
         /**
          * Retorna una lista de habitaciones asociadas a un hotel específico.
@@ -0,0 +1,109 @@
+package com.luis.agencia.service;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.springframework.data.domain.Limit;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Página de un listado paginado por clave ({@code id > cursor}, en orden ascendente de id).
+ * <p>
+ * A diferencia de la paginación por desplazamiento, cada página se obtiene recorriendo el
+ * índice de la clave primaria desde el cursor, por lo que su coste no depende de la posición
+ * de la página ni del tamaño de la tabla. Los servicios la devuelven y los controladores
+ * responden con sus elementos y el cursor en una cabecera.
+ *
+ * @param <T> Tipo de los elementos de la página.
+ */
+@Getter
+@AllArgsConstructor
+public class KeysetPage<T> {
+
+    /**
+     * Tamaño de página usado si no se indica ninguno.
+     */
+    public static final int DEFAULT_SIZE = 50;
+
+    /**
+     * Tamaño de página máximo admitido.
+     */
+    public static final int MAX_SIZE = 500;
+
+    /**
+     * Elementos de la página.
+     */
+    private List<T> items;
+
+    /**
+     * Identificador del último elemento de la página, que se usa como cursor para pedir la
+     * siguiente; {@code null} si no hay más elementos.
+     */
+    private Long nextCursor;
+
+    /**
+     * Ajusta el tamaño de página solicitado al rango admitido.
+     *
+     * @param size Tamaño solicitado, o {@code null} para usar el tamaño por defecto.
+     * @return Tamaño entre 1 y {@link #MAX_SIZE}.
+     */
+    public static int pageSize(Integer size) {
+        if (size == null) {
+            return DEFAULT_SIZE;
+        }
+        return Math.max(1, Math.min(size, MAX_SIZE));
+    }
+
+    /**
+     * @param cursor Cursor recibido, o {@code null} para la primera página.
+     * @return Identificador a partir del cual (sin incluirlo) empieza la página.
+     */
+    public static long after(Long cursor) {
+        return cursor == null ? 0L : cursor;
+    }
+
+    /**
+     * Límite de filas a consultar: una más que el tamaño de página, para saber si hay
+     * página siguiente sin hacer otra consulta.
+     *
+     * @param size Tamaño de página ya ajustado con {@link #pageSize(Integer)}.
+     * @return Límite para la consulta del repositorio.
+     */
+    public static Limit limit(int size) {
+        return Limit.of(size + 1);
+    }
+
+    /**
+     * Construye la página a partir de las filas leídas con {@link #limit(int)}.
+     *
+     * @param rows Filas leídas, ordenadas por id ascendente.
+     * @param size Tamaño de página.
+     * @param idOf Función que obtiene el id de cada fila.
+     * @return Página con, como mucho, {@code size} elementos.
+     */
+    public static <T> KeysetPage<T> of(List<T> rows, int size, Function<T, Long> idOf) {
+        if (rows.size() <= size) {
+            return new KeysetPage<>(rows, null);
+        }
+        List<T> items = rows.subList(0, size);
+        return new KeysetPage<>(items, idOf.apply(items.get(size - 1)));
+    }
+
+    /**
+     * Convierte los elementos de la página conservando el cursor.
+     *
+     * @param mapper Función de conversión.
+     * @return Nueva página con los elementos convertidos.
+     */
+    public <R> KeysetPage<R> map(Function<T, R> mapper) {
+        return new KeysetPage<>(items.stream().map(mapper).toList(), nextCursor);
+    }
+
+    /**
+     * @return {@code true} si la página no tiene elementos.
+     */
+    public boolean isEmpty() {
+        return items.isEmpty();
+    }
+}
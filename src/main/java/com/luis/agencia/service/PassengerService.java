@@ -2,14 +2,20 @@ package com.luis.agencia.service;
 
 import com.luis.agencia.dto.PassengerDto;
 import com.luis.agencia.mapper.PassengerMapper;
+import com.luis.agencia.model.FlightBooking;
 import com.luis.agencia.model.Passenger;
 import com.luis.agencia.repository.IPassengerRepository;
 import jakarta.transaction.Transactional;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 /**
  * Servicio que gestiona la lógica relacionada con los pasajeros,
@@ -66,16 +72,18 @@ public class PassengerService implements IPassengerService {
     }
 
     /**
-     * Retorna la lista de todos los pasajeros en formato DTO.
+     * Retorna una página de pasajeros en formato DTO.
      *
-     * @return Lista de DTOs de todos los pasajeros.
+     * @param cursor Id del último elemento de la página anterior, o {@code null} para la primera página.
+     * @param size   Tamaño de página solicitado.
+     * @return Página de DTOs de pasajeros.
      */
     @Override
     @Transactional
-    public List<PassengerDto> listPassengers() {
-        return passengerRepository.findAll().stream()
-                .map(passengerMapper::entityToDto)
-                .toList();
+    public KeysetPage<PassengerDto> listPassengers(Long cursor, Integer size) {
+        int pageSize = KeysetPage.pageSize(size);
+        List<Passenger> rows = passengerRepository.findByIdGreaterThanOrderByIdAsc(KeysetPage.after(cursor), KeysetPage.limit(pageSize));
+        return KeysetPage.of(rows, pageSize, Passenger::getId).map(passengerMapper::entityToDto);
     }
 
     /**
@@ -162,9 +170,50 @@ public class PassengerService implements IPassengerService {
     public void save(Passenger passenger) {
         passengerRepository.save(passenger);
     }
-}
-
-
 
+    /**
+     * Carga en una sola consulta los pasajeros correspondientes a una lista de identificadores.
+     *
+     * @param ids Identificadores de los pasajeros.
+     * @return Pasajeros encontrados, por identificador y en el orden de la lista recibida.
+     */
+    @Override
+    @Transactional
+    public Map<Long, Passenger> findPassengersByIds(List<Long> ids) {
+        Map<Long, Passenger> found = passengerRepository.findAllById(ids).stream()
+                .collect(Collectors.toMap(Passenger::getId, Function.identity()));
+        Map<Long, Passenger> ordered = new LinkedHashMap<>();
+        for (Long id : ids) {
+            Passenger passenger = found.get(id);
+            if (passenger != null) {
+                ordered.put(id, passenger);
+            }
+        }
+        return ordered;
+    }
 
+    /**
+     * Asocia a una reserva de vuelo todos los pasajeros indicados con una única actualización.
+     *
+     * @param flightBooking Reserva de vuelo ya persistida.
+     * @param ids           Identificadores de los pasajeros.
+     */
+    @Override
+    @Transactional
+    public void assignFlightBooking(FlightBooking flightBooking, Collection<Long> ids) {
+        if (!ids.isEmpty()) {
+            passengerRepository.assignFlightBooking(flightBooking, ids);
+        }
+    }
 
+    /**
+     * Desvincula de una reserva de vuelo todos sus pasajeros con una única actualización.
+     *
+     * @param flightBooking Reserva de vuelo.
+     */
+    @Override
+    @Transactional
+    public void unassignFlightBooking(FlightBooking flightBooking) {
+        passengerRepository.unassignFlightBooking(flightBooking);
+    }
+}
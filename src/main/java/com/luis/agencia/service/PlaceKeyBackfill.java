@@ -0,0 +1,115 @@
+package com.luis.agencia.service;
+
+import com.luis.agencia.model.PlaceKeys;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Rellena al arrancar las claves normalizadas de lugar ({@link PlaceKeys}) y los identificadores
+ * del catálogo de destinos ({@link DestinationDictionary}) de los vuelos y hoteles guardados antes
+ * de que existieran esas columnas. Las filas nuevas ya los reciben al escribirse, así que en un
+ * arranque normal no hay nada que actualizar.
+ * <p>
+ * La normalización (acentos incluidos) se hace en Java, igual que al guardar, para que las
+ * claves coincidan exactamente con las que se calculan en las búsquedas.
+ */
+@Component
+public class PlaceKeyBackfill {
+
+    private static final Logger logger = LoggerFactory.getLogger(PlaceKeyBackfill.class);
+
+    /**
+     * Filas actualizadas por cada sentencia JDBC.
+     */
+    static final int BATCH_SIZE = 500;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final DestinationDictionary destinationDictionary;
+
+    /**
+     * Recibe la factoría de JPA para que el esquema (y las nuevas columnas) ya exista al rellenarlas.
+     */
+    public PlaceKeyBackfill(JdbcTemplate jdbcTemplate, DestinationDictionary destinationDictionary,
+                            @SuppressWarnings("unused") EntityManagerFactory entityManagerFactory) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.destinationDictionary = destinationDictionary;
+    }
+
+    /**
+     * Calcula las claves y los identificadores que falten en las tablas de vuelos y hoteles.
+     */
+    @PostConstruct
+    public void backfill() {
+        try {
+            backfillKeys();
+            backfillDestinationIds();
+        } catch (DataAccessException e) {
+            logger.warn("No se han podido rellenar las claves de lugar: {}", e.getMessage());
+        }
+    }
+
+    private void backfillKeys() {
+        List<Object[]> flights = jdbcTemplate.query(
+                "SELECT id, origin, destination FROM flight WHERE origin_key IS NULL OR destination_key IS NULL",
+                (rs, rowNum) -> new Object[]{PlaceKeys.of(rs.getString("origin")),
+                        PlaceKeys.of(rs.getString("destination")), rs.getLong("id")});
+        jdbcTemplate.batchUpdate("UPDATE flight SET origin_key = ?, destination_key = ? WHERE id = ?",
+                flights, BATCH_SIZE, (ps, row) -> {
+                    ps.setString(1, (String) row[0]);
+                    ps.setString(2, (String) row[1]);
+                    ps.setLong(3, (Long) row[2]);
+                });
+
+        List<Object[]> hotels = jdbcTemplate.query(
+                "SELECT id, place FROM hotel WHERE place_key IS NULL",
+                (rs, rowNum) -> new Object[]{PlaceKeys.of(rs.getString("place")), rs.getLong("id")});
+        jdbcTemplate.batchUpdate("UPDATE hotel SET place_key = ? WHERE id = ?",
+                hotels, BATCH_SIZE, (ps, row) -> {
+                    ps.setString(1, (String) row[0]);
+                    ps.setLong(2, (Long) row[1]);
+                });
+
+        if (!flights.isEmpty() || !hotels.isEmpty()) {
+            logger.info("Claves de lugar rellenadas: {} vuelos, {} hoteles", flights.size(), hotels.size());
+        }
+    }
+
+    /**
+     * Da de alta en el catálogo los lugares que aún no tienen identificador y lo asigna, con una
+     * actualización por lugar y columna, a todas las filas que comparten su clave.
+     */
+    private void backfillDestinationIds() {
+        List<String> places = jdbcTemplate.queryForList(
+                "SELECT origin FROM flight WHERE origin_id IS NULL " +
+                        "UNION SELECT destination FROM flight WHERE destination_id IS NULL " +
+                        "UNION SELECT place FROM hotel WHERE place_id IS NULL", String.class);
+        Map<String, Integer> idsByKey = new LinkedHashMap<>();
+        for (String place : places) {
+            int id = destinationDictionary.resolve(place);
+            if (id != DestinationDictionary.UNKNOWN) {
+                idsByKey.putIfAbsent(PlaceKeys.of(place), id);
+            }
+        }
+        if (idsByKey.isEmpty()) {
+            return;
+        }
+        List<Object[]> updates = new ArrayList<>(idsByKey.size());
+        idsByKey.forEach((key, id) -> updates.add(new Object[]{id, key}));
+        jdbcTemplate.batchUpdate("UPDATE flight SET origin_id = ? WHERE origin_id IS NULL AND origin_key = ?", updates);
+        jdbcTemplate.batchUpdate("UPDATE flight SET destination_id = ? WHERE destination_id IS NULL AND destination_key = ?",
+                updates);
+        jdbcTemplate.batchUpdate("UPDATE hotel SET place_id = ? WHERE place_id IS NULL AND place_key = ?", updates);
+        logger.info("Identificadores de destino asignados a {} lugares", idsByKey.size());
+    }
+}
@@ -0,0 +1,346 @@
+package com.luis.agencia.service;
+
+import com.luis.agencia.model.Room;
+import com.luis.agencia.model.RoomType;
+import com.luis.agencia.repository.IRoomNightRepository;
+import com.luis.agencia.repository.IRoomRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+
+/**
+ * Índice en memoria de la disponibilidad de habitaciones por noches.
+ * <p>
+ * Para cada habitación guarda un {@link BitSet} con las noches reservadas (un bit por día,
+ * contado desde un día base de la habitación), y agrupa las habitaciones por destino
+ * (su identificador en el {@link DestinationDictionary}), tipo de habitación y hotel. Así, saber qué habitaciones de un tipo están libres
+ * en un destino entre dos fechas se resuelve recorriendo los bits del rango palabra a palabra,
+ * sin consultar la base de datos. Se reconstruye al arrancar la aplicación a partir de
+ * {@link Room} y las noches reservadas, y se mantiene sincronizado desde {@link RoomService},
+ * {@link RoomBookingService} y {@link HotelService}. Los cambios se aplican tras el commit
+ * de la transacción para no publicar datos que luego se deshagan (las noches de las reservas se
+ * releen de la base de datos en ese momento), y cada cambio invalida en la
+ * {@link SearchCache} las búsquedas del destino afectado.
+ */
+@Component
+public class RoomAvailabilityIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(RoomAvailabilityIndex.class);
+
+    private final IRoomRepository roomRepository;
+
+    private final IRoomNightRepository roomNightRepository;
+
+    private final SearchCache searchCache;
+
+    private final DestinationDictionary destinationDictionary;
+
+    /**
+     * Estado de cada habitación indexada, por identificador.
+     * Las entradas no se modifican: cada cambio publica una entrada nueva.
+     */
+    private final Map<Long, RoomEntry> roomsById = new ConcurrentHashMap<>();
+
+    /**
+     * Habitaciones por destino y tipo, agrupadas por hotel.
+     */
+    private final Map<DestinationType, Map<Long, Set<Long>>> roomsByDestination = new ConcurrentHashMap<>();
+
+    /**
+     * Indica si el índice ya se ha cargado desde la base de datos.
+     */
+    private volatile boolean ready;
+
+    public RoomAvailabilityIndex(IRoomRepository roomRepository, IRoomNightRepository roomNightRepository,
+                                 SearchCache searchCache, DestinationDictionary destinationDictionary) {
+        this.roomRepository = roomRepository;
+        this.roomNightRepository = roomNightRepository;
+        this.searchCache = searchCache;
+        this.destinationDictionary = destinationDictionary;
+    }
+
+    /**
+     * Carga (o recarga) el índice completo a partir de las habitaciones y noches reservadas.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void rebuild() {
+        roomsById.clear();
+        roomsByDestination.clear();
+        List<Room> rooms = roomRepository.findAll();
+        for (Room room : rooms) {
+            RoomEntry entry = entryOf(room);
+            if (entry != null) {
+                put(entry);
+            }
+        }
+        applyNights(roomNightRepository.findAllBookedNights(), List.of());
+        ready = true;
+        searchCache.invalidateAll();
+        logger.debug("Índice de disponibilidad cargado con {} habitaciones", rooms.size());
+    }
+
+    /**
+     * @return {@code true} si el índice está cargado y puede responder búsquedas.
+     */
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Devuelve las habitaciones de un tipo en un destino que se ofrecen durante todo el rango
+     * y no tienen ninguna noche de [{@code dateFrom}, {@code dateTo}) reservada.
+     *
+     * @param roomType    Tipo de habitación.
+     * @param destination Destino (lugar del hotel).
+     * @param dateFrom    Fecha de entrada.
+     * @param dateTo      Fecha de salida.
+     * @return Identificadores de las habitaciones libres, ordenados de forma ascendente.
+     */
+    public List<Long> findAvailableRoomIds(RoomType roomType, String destination, LocalDate dateFrom, LocalDate dateTo) {
+        long from = dateFrom.toEpochDay();
+        long to = dateTo.toEpochDay();
+        return findRoomIds(destination, List.of(roomType), entry -> entry.isFree(from, to));
+    }
+
+    /**
+     * Devuelve las habitaciones de cualquier tipo en un destino que se ofrecen en algún día del
+     * rango y no tienen ninguna noche de [{@code dateFrom}, {@code dateTo}) reservada, con el
+     * mismo criterio que {@link IRoomRepository#findAvailableRoomsByDestination}.
+     *
+     * @param destination Destino (lugar del hotel).
+     * @param dateFrom    Fecha de entrada.
+     * @param dateTo      Fecha de salida.
+     * @return Identificadores de las habitaciones libres, ordenados de forma ascendente.
+     */
+    public List<Long> findAvailableRoomIds(String destination, LocalDate dateFrom, LocalDate dateTo) {
+        long from = dateFrom.toEpochDay();
+        long to = dateTo.toEpochDay();
+        return findRoomIds(destination, List.of(RoomType.values()), entry -> entry.isFreeWithin(from, to));
+    }
+
+    private List<Long> findRoomIds(String destination, List<RoomType> roomTypes, Predicate<RoomEntry> free) {
+        int destinationId = destinationDictionary.idOf(destination);
+        if (destinationId == DestinationDictionary.UNKNOWN) {
+            return Collections.emptyList();
+        }
+        List<Long> result = new ArrayList<>();
+        for (RoomType roomType : roomTypes) {
+            Map<Long, Set<Long>> byHotel = roomsByDestination.get(new DestinationType(destinationId, roomType));
+            if (byHotel == null) {
+                continue;
+            }
+            for (Set<Long> roomIds : byHotel.values()) {
+                for (Long roomId : roomIds) {
+                    RoomEntry entry = roomsById.get(roomId);
+                    if (entry != null && free.test(entry)) {
+                        result.add(roomId);
+                    }
+                }
+            }
+        }
+        Collections.sort(result);
+        return result;
+    }
+
+    /**
+     * Actualiza el índice con los datos de una habitación creada o modificada cuando la
+     * transacción en curso confirme, conservando sus noches reservadas.
+     *
+     * @param room Habitación (debe tener identificador).
+     */
+    public void refreshRoomAfterCommit(Room room) {
+        if (room == null || room.getId() == null) {
+            return;
+        }
+        RoomEntry updated = entryOf(room);
+        AfterCommit.run(() -> {
+            synchronized (this) {
+                RoomEntry previous = roomsById.get(room.getId());
+                if (updated == null) {
+                    remove(room.getId());
+                } else {
+                    put(previous == null ? updated : updated.withBookedNights(previous.base(), previous.bookedNights()));
+                }
+            }
+        });
+    }
+
+    /**
+     * Elimina una habitación del índice cuando la transacción en curso confirme.
+     *
+     * @param roomId Identificador de la habitación.
+     */
+    public void removeRoomAfterCommit(Long roomId) {
+        AfterCommit.run(() -> remove(roomId));
+    }
+
+    /**
+     * Actualiza el destino de todas las habitaciones de un hotel cuando la transacción confirme.
+     *
+     * @param hotelId Identificador del hotel.
+     * @param placeId Identificador del nuevo lugar del hotel.
+     */
+    public void refreshHotelPlaceAfterCommit(Long hotelId, int placeId) {
+        AfterCommit.run(() -> {
+            synchronized (this) {
+                for (RoomEntry entry : List.copyOf(roomsById.values())) {
+                    if (entry.hotelId().equals(hotelId)) {
+                        put(entry.withDestination(placeId));
+                    }
+                }
+            }
+        });
+    }
+
+    /**
+     * Vuelve a leer de la base de datos las noches reservadas de las habitaciones indicadas
+     * cuando la transacción confirme. Se relee el estado confirmado en lugar de aplicar el cambio
+     * de esta transacción, porque las de otras reservas sobre las mismas habitaciones pueden
+     * confirmar en otro orden: la lectura y la publicación se hacen con el bloqueo del índice, así
+     * que la última relectura ve todas las transacciones ya confirmadas.
+     *
+     * @param roomIds Identificadores de las habitaciones cuyas noches han cambiado.
+     */
+    public void refreshNightsAfterCommit(Collection<Long> roomIds) {
+        if (roomIds.isEmpty()) {
+            return;
+        }
+        List<Long> ids = List.copyOf(roomIds);
+        AfterCommit.run(() -> reloadNights(ids));
+    }
+
+    private synchronized void reloadNights(List<Long> roomIds) {
+        applyNights(roomNightRepository.findBookedNightsByRoomIdIn(roomIds), roomIds);
+    }
+
+    /**
+     * Publica las noches reservadas leídas para cada habitación. Las habitaciones de
+     * {@code roomIds} sin ninguna noche leída quedan libres.
+     */
+    private synchronized void applyNights(List<IRoomNightRepository.BookedNight> bookedNights, List<Long> roomIds) {
+        Map<Long, List<Long>> nightsByRoom = new HashMap<>();
+        for (Long roomId : roomIds) {
+            nightsByRoom.put(roomId, new ArrayList<>());
+        }
+        for (IRoomNightRepository.BookedNight night : bookedNights) {
+            nightsByRoom.computeIfAbsent(night.getRoomId(), id -> new ArrayList<>()).add(night.getNight().toEpochDay());
+        }
+        nightsByRoom.forEach((roomId, nights) -> {
+            RoomEntry entry = roomsById.get(roomId);
+            if (entry == null) {
+                return;
+            }
+            long base = nights.isEmpty() ? entry.availableFrom() : Math.min(entry.availableFrom(), Collections.min(nights));
+            BitSet bits = new BitSet();
+            for (long night : nights) {
+                bits.set((int) (night - base));
+            }
+            roomsById.put(roomId, entry.withBookedNights(base, bits));
+            searchCache.invalidate(SearchCache.destinationTag(entry.destination()));
+        });
+    }
+
+    private synchronized void put(RoomEntry entry) {
+        RoomEntry previous = roomsById.put(entry.id(), entry);
+        if (previous != null) {
+            unlink(previous);
+        }
+        roomsByDestination.computeIfAbsent(DestinationType.of(entry), key -> new ConcurrentHashMap<>())
+                .computeIfAbsent(entry.hotelId(), key -> ConcurrentHashMap.newKeySet())
+                .add(entry.id());
+        searchCache.invalidate(SearchCache.destinationTag(entry.destination()));
+    }
+
+    private synchronized void remove(Long roomId) {
+        RoomEntry previous = roomsById.remove(roomId);
+        if (previous != null) {
+            unlink(previous);
+        }
+    }
+
+    private void unlink(RoomEntry entry) {
+        searchCache.invalidate(SearchCache.destinationTag(entry.destination()));
+        roomsByDestination.computeIfPresent(DestinationType.of(entry), (key, byHotel) -> {
+            byHotel.computeIfPresent(entry.hotelId(), (hotelId, ids) -> {
+                ids.remove(entry.id());
+                return ids.isEmpty() ? null : ids;
+            });
+            return byHotel.isEmpty() ? null : byHotel;
+        });
+    }
+
+    /**
+     * Crea la entrada de una habitación sin noches reservadas, o {@code null} si le faltan
+     * los datos necesarios para indexarla.
+     */
+    private static RoomEntry entryOf(Room room) {
+        if (room.getHotel() == null || room.getHotel().getPlaceId() == null || room.getRoomType() == null
+                || room.getDisponibilityDateFrom() == null || room.getDisponibilityDateTo() == null) {
+            return null;
+        }
+        long availableFrom = room.getDisponibilityDateFrom().toEpochDay();
+        return new RoomEntry(room.getId(), room.getHotel().getId(),
+                room.getHotel().getPlaceId(), room.getRoomType(),
+                availableFrom, room.getDisponibilityDateTo().toEpochDay(),
+                availableFrom, new BitSet());
+    }
+
+    /**
+     * Estado de una habitación en el índice. Las noches reservadas se guardan como bits
+     * contados desde {@code base} (en epoch-day); el {@link BitSet} no se modifica una vez publicado.
+     */
+    record RoomEntry(Long id, Long hotelId, int destination, RoomType roomType,
+                     long availableFrom, long availableTo, long base, BitSet bookedNights) {
+
+        /**
+         * Indica si la habitación se ofrece durante todo el rango y no tiene reservada
+         * ninguna noche de [{@code from}, {@code to}).
+         */
+        boolean isFree(long from, long to) {
+            return availableFrom <= from && availableTo >= to && hasNoBookedNights(from, to);
+        }
+
+        /**
+         * Indica si la habitación se ofrece en algún día del rango (hasta {@code to} incluido)
+         * y no tiene reservada ninguna noche de [{@code from}, {@code to}).
+         */
+        boolean isFreeWithin(long from, long to) {
+            return availableFrom <= to && availableTo >= from && hasNoBookedNights(from, to);
+        }
+
+        private boolean hasNoBookedNights(long from, long to) {
+            int start = (int) Math.max(0, from - base);
+            int end = (int) (to - base);
+            if (end <= start) {
+                return true;
+            }
+            int next = bookedNights.nextSetBit(start);
+            return next < 0 || next >= end;
+        }
+
+        RoomEntry withBookedNights(long newBase, BitSet nights) {
+            return new RoomEntry(id, hotelId, destination, roomType, availableFrom, availableTo, newBase, nights);
+        }
+
+        RoomEntry withDestination(int newDestination) {
+            return new RoomEntry(id, hotelId, newDestination, roomType, availableFrom, availableTo, base, bookedNights);
+        }
+    }
+
+    /**
+     * Clave de agrupación: identificador del destino y tipo de habitación.
+     */
+    record DestinationType(int destination, RoomType roomType) {
+
+        static DestinationType of(RoomEntry entry) {
+            return new DestinationType(entry.destination(), entry.roomType());
+        }
+    }
+}
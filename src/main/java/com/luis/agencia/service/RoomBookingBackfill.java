@@ -0,0 +1,165 @@
+package com.luis.agencia.service;
+
+import com.luis.agencia.model.RoomNight;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+/**
+ * Migra al arrancar las reservas de habitación guardadas con el modelo anterior, en el que cada
+ * habitación apuntaba a su única reserva con la columna {@code room.room_booking_id}.
+ * <p>
+ * Por cada habitación enlazada así crea la fila de {@code room_booking_room} y las noches de
+ * {@link RoomNight} de la estancia de su reserva, para que el inventario por noches las tenga en
+ * cuenta y no se vuelvan a vender. En la misma transacción vacía después la columna de esas
+ * habitaciones, para que su clave ajena no impida borrar las reservas migradas. La copia es
+ * idempotente y se serializa con un bloqueo con nombre de MySQL, de modo que varias instancias que
+ * arrancan a la vez no duplican enlaces. Si falla, el arranque falla con ella y no se vacía nada.
+ * <p>
+ * La columna, ya vacía, puede retirarse del esquema con el script
+ * {@code db/drop-legacy-room-booking-id.sql}; mientras exista, cada arranque comprueba que no haya
+ * enlaces nuevos que migrar.
+ */
+@Component
+public class RoomBookingBackfill {
+
+    private static final Logger logger = LoggerFactory.getLogger(RoomBookingBackfill.class);
+
+    /**
+     * Nombre del bloqueo de MySQL que serializa la copia entre instancias.
+     */
+    static final String LOCK_NAME = "agencia.room_booking_backfill";
+
+    /**
+     * Segundos que una instancia espera a que otra termine la copia.
+     */
+    static final int LOCK_TIMEOUT_SECONDS = 60;
+
+    /**
+     * Noches [entrada, salida) de cada habitación enlazada con la columna heredada.
+     */
+    private static final String LEGACY_NIGHTS =
+            "WITH RECURSIVE nights (room_id, room_booking_id, night, date_to) AS (" +
+                    "SELECT r.id, b.id, b.date_from, b.date_to FROM room r " +
+                    "JOIN room_booking b ON b.id = r.room_booking_id WHERE b.date_from < b.date_to " +
+                    "UNION ALL SELECT room_id, room_booking_id, night + INTERVAL 1 DAY, date_to FROM nights " +
+                    "WHERE night + INTERVAL 1 DAY < date_to) ";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final TransactionTemplate newTransaction;
+
+    /**
+     * Recibe la factoría de JPA para que el esquema (y las tablas de noches) ya exista al migrar.
+     */
+    public RoomBookingBackfill(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                               @SuppressWarnings("unused") EntityManagerFactory entityManagerFactory) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.newTransaction = new TransactionTemplate(transactionManager);
+        this.newTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * Copia los enlaces antiguos a las tablas de reservas y noches. Los errores de acceso a datos
+     * no se capturan: una copia a medias no debe dejar arrancar la aplicación.
+     */
+    @PostConstruct
+    public void backfill() {
+        if (!hasLegacyColumn()) {
+            return;
+        }
+        // La transacción fija la conexión: el bloqueo con nombre es de sesión
+        newTransaction.executeWithoutResult(status -> {
+            acquireLock();
+            try {
+                int links = copyLinks();
+                reportConflicts();
+                int nights = copyNights();
+                int cleared = clearLegacyLinks();
+                if (links > 0 || nights > 0 || cleared > 0) {
+                    logger.info("Reservas antiguas migradas: {} habitaciones enlazadas, {} noches ocupadas, " +
+                            "{} enlaces antiguos vaciados", links, nights, cleared);
+                }
+            } finally {
+                jdbcTemplate.queryForObject("SELECT RELEASE_LOCK(?)", Integer.class, LOCK_NAME);
+            }
+        });
+        logger.info("La columna heredada room.room_booking_id ya no se usa; puede retirarse con " +
+                "db/drop-legacy-room-booking-id.sql");
+    }
+
+    private boolean hasLegacyColumn() {
+        Integer count = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM information_schema.COLUMNS WHERE TABLE_SCHEMA = DATABASE() " +
+                        "AND TABLE_NAME = 'room' AND COLUMN_NAME = 'room_booking_id'", Integer.class);
+        return count != null && count > 0;
+    }
+
+    private void acquireLock() {
+        Integer acquired = jdbcTemplate.queryForObject("SELECT GET_LOCK(?, ?)", Integer.class,
+                LOCK_NAME, LOCK_TIMEOUT_SECONDS);
+        if (acquired == null || acquired != 1) {
+            throw new IllegalStateException("No se ha podido obtener el bloqueo " + LOCK_NAME +
+                    " para migrar las reservas de habitación antiguas");
+        }
+    }
+
+    private int copyLinks() {
+        return jdbcTemplate.update(
+                "INSERT INTO room_booking_room (room_booking_id, room_id) " +
+                        "SELECT r.room_booking_id, r.id FROM room r " +
+                        "JOIN room_booking b ON b.id = r.room_booking_id " +
+                        "WHERE NOT EXISTS (SELECT 1 FROM room_booking_room x " +
+                        "WHERE x.room_booking_id = r.room_booking_id AND x.room_id = r.id)");
+    }
+
+    /**
+     * Avisa de cada noche antigua que ya tiene ocupada otra reserva. Esas noches no se copian:
+     * son ventas dobles del modelo anterior que tiene que resolver un operador.
+     */
+    private void reportConflicts() {
+        List<String> conflicts = jdbcTemplate.query(LEGACY_NIGHTS +
+                        "SELECT n.room_id, n.room_booking_id, n.night, x.room_booking_id AS holder " +
+                        "FROM nights n JOIN room_night x ON x.room_id = n.room_id AND x.night = n.night " +
+                        "WHERE x.room_booking_id <> n.room_booking_id ORDER BY n.room_id, n.night",
+                (rs, rowNum) -> "habitación " + rs.getLong("room_id") + ", noche " + rs.getDate("night") +
+                        ": reserva " + rs.getLong("room_booking_id") + " frente a " + rs.getLong("holder"));
+        if (!conflicts.isEmpty()) {
+            logger.error("{} noches de reservas antiguas no se han migrado porque ya las ocupa otra reserva: {}",
+                    conflicts.size(), conflicts);
+        }
+    }
+
+    /**
+     * Ocupa las noches [entrada, salida) de cada habitación enlazada que aún estén libres. Las que
+     * ya se copiaron en un arranque anterior no se vuelven a insertar, y las ocupadas por otra
+     * reserva ya se han notificado en {@link #reportConflicts()}.
+     */
+    private int copyNights() {
+        return jdbcTemplate.update(
+                "INSERT INTO room_night (room_id, room_booking_id, night) " + LEGACY_NIGHTS +
+                        "SELECT n.room_id, n.room_booking_id, n.night FROM nights n " +
+                        "WHERE NOT EXISTS (SELECT 1 FROM room_night x " +
+                        "WHERE x.room_id = n.room_id AND x.night = n.night)");
+    }
+
+    /**
+     * Vacía la columna heredada de las habitaciones cuyo enlace ya está en {@code room_booking_room},
+     * de modo que borrar una reserva migrada no choque con su clave ajena. Las noches en conflicto
+     * ya se han notificado y el enlace se conserva en la tabla nueva.
+     */
+    private int clearLegacyLinks() {
+        return jdbcTemplate.update(
+                "UPDATE room r SET r.room_booking_id = NULL " +
+                        "WHERE r.room_booking_id IS NOT NULL AND EXISTS (SELECT 1 FROM room_booking_room x " +
+                        "WHERE x.room_booking_id = r.room_booking_id AND x.room_id = r.id)");
+    }
+}
@@ -5,14 +5,25 @@ import com.luis.agencia.dto.RoomBookingDetailDto;
 import com.luis.agencia.mapper.RoomBookingMapper;
 import com.luis.agencia.model.*;
 import com.luis.agencia.repository.IRoomBookingRepository;
+import com.luis.agencia.repository.IRoomNightRepository;
 import com.luis.agencia.repository.IRoomRepository;
 import com.luis.agencia.repository.IPassengerRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.transaction.Transactional;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.PessimisticLockingFailureException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
 import java.util.*;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
 
 /**
  * Servicio que gestiona la lógica de reservas de habitaciones ({@link RoomBooking}).
@@ -28,6 +39,20 @@ public class RoomBookingService implements IRoomBookingService {
     // --------------------------------------------------------------------------------------
     private static final String MSG_NOT_EXISTS = "no existe";
 
+    private static final Logger logger = LoggerFactory.getLogger(RoomBookingService.class);
+
+    /**
+     * Número máximo de intentos para ocupar las habitaciones de una reserva cuando
+     * otra reserva simultánea ocupa alguna de las candidatas o la interbloquea.
+     */
+    private static final int MAX_CLAIM_ATTEMPTS = 3;
+
+    /**
+     * Columnas de la exportación en CSV.
+     */
+    private static final List<String> EXPORT_COLUMNS = List.of("id", "dateFrom", "dateTo", "nights", "peopleQ",
+            "totalCost", "hotelName", "destination", "reservedDoubleRoomIds", "reservedSingleRoomIds");
+
     /**
      * Repositorio para realizar operaciones CRUD sobre las reservas de habitación.
      * Inyectado por Spring.
@@ -42,6 +67,13 @@ public class RoomBookingService implements IRoomBookingService {
     @Autowired
     private IRoomRepository roomRepository;
 
+    /**
+     * Repositorio para registrar y liberar las noches ocupadas de cada habitación.
+     * Inyectado por Spring.
+     */
+    @Autowired
+    private IRoomNightRepository roomNightRepository;
+
     /**
      * Repositorio para acceder a la información de los pasajeros.
      * Inyectado por Spring.
@@ -57,11 +89,16 @@ public class RoomBookingService implements IRoomBookingService {
     private IPassengerService passengerService;
 
     /**
-     * Servicio para gestionar la lógica de hoteles.
-     * Se utiliza para actualizar los contadores de habitaciones disponibles.
+     * Índice en memoria de la disponibilidad por noches, que se actualiza con cada reserva.
+     */
+    @Autowired
+    private RoomAvailabilityIndex roomAvailabilityIndex;
+
+    /**
+     * Catálogo de destinos, que da a cada lugar el identificador con el que se busca.
      */
     @Autowired
-    private HotelService hotelService;
+    private DestinationDictionary destinationDictionary;
 
     /**
      * Mapper para convertir entre entidades {@link RoomBooking} y DTOs
@@ -70,54 +107,79 @@ public class RoomBookingService implements IRoomBookingService {
     @Autowired
     private RoomBookingMapper roomBookingMapper;
 
+    /**
+     * Conversor JSON para la exportación en NDJSON.
+     * Inyectado por Spring.
+     */
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    /**
+     * Plantilla transaccional para reintentar las reservas que fallan por interbloqueo.
+     * Inyectada por Spring.
+     */
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
     /**
      * Crea una nueva reserva de habitación.
      * Valida la disponibilidad de habitaciones en base al tipo (doble o simple),
      * fechas y destino. Asigna las habitaciones solicitadas y asocia los pasajeros a la reserva.
      * <p>
-     * Además, se actualizan los contadores de disponibilidad de habitaciones en el Hotel
-     * a través del HotelService.
+     * La ocupación se registra por noches ({@link RoomNight}); los contadores de habitaciones
+     * del Hotel indican su inventario y no cambian con las reservas.
      *
      * @param roomBookingDto DTO con la información de la reserva (fechas, destino, habitaciones solicitadas, etc.).
      * @return Un {@link RoomBookingDto} con los datos de la reserva creada, incluyendo el costo total.
      */
     @Override
-    @Transactional
     public RoomBookingDto createRoomBooking(RoomBookingDto roomBookingDto) {
+        validateStayDates(roomBookingDto);
+        return executeWithLockRetry(() -> saveNewRoomBooking(roomBookingDto));
+    }
+
+    /**
+     * Crea la reserva dentro de la transacción abierta por {@link #executeWithLockRetry}.
+     */
+    private RoomBookingDto saveNewRoomBooking(RoomBookingDto roomBookingDto) {
         // 1) Validar y asignar habitaciones
         List<Room> assignedDoubleRooms = validateAndAssignRooms(
                 roomBookingDto.getDoubleRoomQ(),
                 RoomType.DOUBLE,
                 roomBookingDto.getDateFrom(),
                 roomBookingDto.getDateTo(),
-                roomBookingDto.getDestination().trim()
+                roomBookingDto.getDestination().trim(),
+                List.of()
         );
         List<Room> assignedSingleRooms = validateAndAssignRooms(
                 roomBookingDto.getSingleRoomQ(),
                 RoomType.SINGLE,
                 roomBookingDto.getDateFrom(),
                 roomBookingDto.getDateTo(),
-                roomBookingDto.getDestination().trim()
+                roomBookingDto.getDestination().trim(),
+                List.of()
         );
-        List<Room> assignedRooms = new ArrayList<>();
-        assignedRooms.addAll(assignedDoubleRooms);
-        assignedRooms.addAll(assignedSingleRooms);
+        List<Room> assignedRooms = joinRooms(assignedDoubleRooms, assignedSingleRooms);
 
         // 2) Verificar la existencia de los pasajeros
         List<Passenger> passengers = validatePassengers(roomBookingDto.getPassengersIds());
 
-        // 3) Crear la reserva y calcular costo total
+        // 3) Crear y guardar la reserva
         RoomBooking booking = buildRoomBooking(roomBookingDto, passengers, assignedRooms);
-        double totalCost = calcTotalCost(assignedDoubleRooms, assignedSingleRooms, roomBookingDto.getNights());
-
-        // 4) Guardar la reserva
         RoomBooking savedBooking = roomBookingRepository.save(booking);
 
-        // 5) Vincular habitaciones y pasajeros a la reserva
-        linkPassengersAndRooms(savedBooking, assignedRooms, passengers);
+        // 4) Ocupar las habitaciones (sustituyendo las que otra reserva haya ocupado) y calcular costo total
+        assignedDoubleRooms = claimRooms(savedBooking, assignedDoubleRooms, RoomType.DOUBLE, roomBookingDto);
+        assignedSingleRooms = claimRooms(savedBooking, assignedSingleRooms, RoomType.SINGLE, roomBookingDto);
+        savedBooking.setRooms(joinRooms(assignedDoubleRooms, assignedSingleRooms));
+        double totalCost = calcTotalCost(assignedDoubleRooms, assignedSingleRooms, roomBookingDto.getNights());
+
+        // 5) Vincular pasajeros a la reserva
+        linkPassengers(savedBooking, passengers);
 
-        // 6) Actualizar contadores en Hotel
-        updateHotelCountersForCreation(assignedDoubleRooms, assignedSingleRooms);
+        // 6) Actualizar el índice de disponibilidad
+        List<Long> claimedRoomIds = roomIds(savedBooking.getRooms());
+        roomAvailabilityIndex.refreshNightsAfterCommit(claimedRoomIds);
 
         // 7) Retornar DTO
         RoomBookingDto savedDto = roomBookingMapper.entityToDto(savedBooking);
@@ -128,20 +190,27 @@ public class RoomBookingService implements IRoomBookingService {
     /**
      * Actualiza una reserva de habitación existente, cambiando las fechas, el destino,
      * el número de habitaciones solicitadas y los pasajeros asociados.
-     * Se revierte primero el efecto de la reserva anterior (incrementando los contadores del Hotel)
-     * y luego se aplican los nuevos decrementos según la nueva asignación.
+     * Las noches de la asignación anterior se liberan antes de ocupar las de la nueva.
      *
      * @param id             Identificador de la reserva a actualizar.
      * @param roomBookingDto DTO con la nueva información de la reserva.
      * @return Un {@link RoomBookingDto} con los datos de la reserva actualizada, incluyendo el nuevo costo total.
      */
     @Override
-    @Transactional
     public RoomBookingDto updateRoomBooking(Long id, RoomBookingDto roomBookingDto) {
-        // 1) Buscar la reserva y revertir contadores de la asignación anterior
+        validateStayDates(roomBookingDto);
+        return executeWithLockRetry(() -> saveRoomBookingChanges(id, roomBookingDto));
+    }
+
+    /**
+     * Actualiza la reserva dentro de la transacción abierta por {@link #executeWithLockRetry}.
+     */
+    private RoomBookingDto saveRoomBookingChanges(Long id, RoomBookingDto roomBookingDto) {
+        // 1) Buscar la reserva y anotar las habitaciones de la asignación anterior
         RoomBooking existingBooking = roomBookingRepository.findById(id)
                 .orElseThrow(() -> new IllegalArgumentException("La reserva con id " + id + " " + MSG_NOT_EXISTS));
-        revertHotelCounters(existingBooking);
+        List<Long> releasedRoomIds = roomIds(existingBooking.getRooms());
+        roomAvailabilityIndex.refreshNightsAfterCommit(releasedRoomIds);
 
         // 2) Desvincular pasajeros y habitaciones previos
         unlinkPassengersAndRooms(existingBooking);
@@ -152,38 +221,38 @@ public class RoomBookingService implements IRoomBookingService {
                 RoomType.DOUBLE,
                 roomBookingDto.getDateFrom(),
                 roomBookingDto.getDateTo(),
-                roomBookingDto.getDestination().trim()
+                roomBookingDto.getDestination().trim(),
+                List.of()
         );
         List<Room> assignedSingleRooms = validateAndAssignRooms(
                 roomBookingDto.getSingleRoomQ(),
                 RoomType.SINGLE,
                 roomBookingDto.getDateFrom(),
                 roomBookingDto.getDateTo(),
-                roomBookingDto.getDestination().trim()
+                roomBookingDto.getDestination().trim(),
+                List.of()
         );
-        List<Room> newAssignedRooms = new ArrayList<>();
-        newAssignedRooms.addAll(assignedDoubleRooms);
-        newAssignedRooms.addAll(assignedSingleRooms);
-
         // 4) Verificar la existencia de los nuevos pasajeros
         List<Passenger> newPassengers = validatePassengers(roomBookingDto.getPassengersIds());
 
-        // 5) Actualizar la reserva existente y calcular costo total
+        // 5) Actualizar la reserva existente
         existingBooking.setDateFrom(roomBookingDto.getDateFrom());
         existingBooking.setDateTo(roomBookingDto.getDateTo());
         existingBooking.setNights(roomBookingDto.getNights());
         existingBooking.setPeopleQ(roomBookingDto.getPeopleQ());
         existingBooking.setPassengers(newPassengers);
-        existingBooking.setRooms(newAssignedRooms);
-        double newTotalCost = calcTotalCost(assignedDoubleRooms, assignedSingleRooms, roomBookingDto.getNights());
-
         RoomBooking savedBooking = roomBookingRepository.save(existingBooking);
 
-        // 6) Vincular nuevas habitaciones y pasajeros
-        linkPassengersAndRooms(savedBooking, newAssignedRooms, newPassengers);
+        // 6) Ocupar las nuevas habitaciones, vincular pasajeros y calcular costo total
+        assignedDoubleRooms = claimRooms(savedBooking, assignedDoubleRooms, RoomType.DOUBLE, roomBookingDto);
+        assignedSingleRooms = claimRooms(savedBooking, assignedSingleRooms, RoomType.SINGLE, roomBookingDto);
+        savedBooking.setRooms(joinRooms(assignedDoubleRooms, assignedSingleRooms));
+        double newTotalCost = calcTotalCost(assignedDoubleRooms, assignedSingleRooms, roomBookingDto.getNights());
+        linkPassengers(savedBooking, newPassengers);
 
-        // 7) Actualizar contadores en Hotel
-        updateHotelCountersForCreation(assignedDoubleRooms, assignedSingleRooms);
+        // 7) Actualizar el índice de disponibilidad con las nuevas habitaciones
+        List<Long> claimedRoomIds = roomIds(savedBooking.getRooms());
+        roomAvailabilityIndex.refreshNightsAfterCommit(claimedRoomIds);
 
         // 8) Retornar DTO
         RoomBookingDto savedDto = roomBookingMapper.entityToDto(savedBooking);
@@ -193,8 +262,8 @@ public class RoomBookingService implements IRoomBookingService {
 
     /**
      * Elimina físicamente una reserva de habitación, desvinculando previamente
-     * las habitaciones y los pasajeros asociados, y actualizando los contadores del Hotel
-     * para liberar las habitaciones reservadas.
+     * las habitaciones y los pasajeros asociados, y liberando las noches que ocupaban
+     * sus habitaciones.
      *
      * @param id Identificador de la reserva a eliminar.
      */
@@ -203,8 +272,9 @@ public class RoomBookingService implements IRoomBookingService {
     public void deleteRoomBooking(Long id) {
         RoomBooking booking = roomBookingRepository.findById(id)
                 .orElseThrow(() -> new IllegalArgumentException("La reserva con id " + id + " " + MSG_NOT_EXISTS));
-        // 1) Liberar habitaciones (incrementar contadores)
-        revertHotelCounters(booking);
+        // 1) Liberar las noches de sus habitaciones en el índice
+        List<Long> releasedRoomIds = roomIds(booking.getRooms());
+        roomAvailabilityIndex.refreshNightsAfterCommit(releasedRoomIds);
 
         // 2) Desvincular pasajeros y habitaciones
         unlinkPassengersAndRooms(booking);
@@ -214,17 +284,18 @@ public class RoomBookingService implements IRoomBookingService {
     }
 
     /**
-     * Retorna una lista con los detalles de todas las reservas de habitación existentes.
+     * Retorna una página con los detalles de las reservas de habitación.
      *
-     * @return Lista de {@link RoomBookingDetailDto} con la información de cada reserva.
+     * @param cursor Id del último elemento de la página anterior, o {@code null} para la primera página.
+     * @param size   Tamaño de página solicitado.
+     * @return Página de {@link RoomBookingDetailDto} con la información de cada reserva.
      */
     @Override
     @Transactional
-    public List<RoomBookingDetailDto> listAllRoomBookings() {
-        List<RoomBooking> bookings = roomBookingRepository.findAll();
-        return bookings.stream()
-                .map(roomBookingMapper::entityToDetailDto)
-                .toList();
+    public KeysetPage<RoomBookingDetailDto> listAllRoomBookings(Long cursor, Integer size) {
+        int pageSize = KeysetPage.pageSize(size);
+        List<RoomBooking> bookings = roomBookingRepository.findByIdGreaterThanOrderByIdAsc(KeysetPage.after(cursor), KeysetPage.limit(pageSize));
+        return KeysetPage.of(bookings, pageSize, RoomBooking::getId).map(roomBookingMapper::entityToDetailDto);
     }
 
     /**
@@ -240,12 +311,64 @@ public class RoomBookingService implements IRoomBookingService {
         return roomBookingMapper.entityToDetailDto(booking);
     }
 
+    /**
+     * Exporta todas las reservas de habitación con el mismo detalle que {@link #listAllRoomBookings},
+     * escribiéndolas en el flujo de salida a medida que se leen. Las habitaciones y hoteles se leen
+     * en la misma consulta (una fila por habitación reservada, ordenadas por reserva), y cada
+     * reserva se escribe en cuanto llegan todas sus filas, así que la memoria usada no depende
+     * del número de reservas.
+     *
+     * @param out    Flujo de salida (no se cierra).
+     * @param format Formato de la exportación.
+     * @throws IOException si falla la escritura.
+     */
+    @Override
+    @Transactional
+    public void exportAll(OutputStream out, FileFormat format) throws IOException {
+        ExportWriter<RoomBookingDetailDto> writer = new ExportWriter<>(out, format, objectMapper,
+                RoomBookingDetailDto.class, EXPORT_COLUMNS, detail -> Arrays.asList(detail.getId(), detail.getDateFrom(),
+                detail.getDateTo(), detail.getNights(), detail.getPeopleQ(), detail.getTotalCost(),
+                detail.getHotelName(), detail.getDestination(), detail.getReservedDoubleRoomIds(), detail.getReservedSingleRoomIds()));
+        try (Stream<IRoomBookingRepository.BookedRoomRow> rows = roomBookingRepository.streamBookedRoomsForExport()) {
+            RoomBookingDetailDto current = null;
+            double pricePerNight = 0;
+            for (IRoomBookingRepository.BookedRoomRow row : (Iterable<IRoomBookingRepository.BookedRoomRow>) rows::iterator) {
+                if (current == null || !current.getId().equals(row.getBookingId())) {
+                    if (current != null) {
+                        current.setTotalCost(pricePerNight * current.getNights());
+                        writer.write(current);
+                    }
+                    current = new RoomBookingDetailDto(row.getBookingId(), row.getDateFrom(), row.getDateTo(),
+                            row.getNights(), row.getPeopleQ(), 0, row.getHotelName(), row.getPlace(),
+                            new ArrayList<>(), new ArrayList<>());
+                    pricePerNight = 0;
+                }
+                if (row.getRoomId() != null) {
+                    if (row.getRoomType() == RoomType.DOUBLE) {
+                        current.getReservedDoubleRoomIds().add(row.getRoomId());
+                        pricePerNight += row.getDoubleRoomPrice();
+                    } else {
+                        current.getReservedSingleRoomIds().add(row.getRoomId());
+                        pricePerNight += row.getSimpleRoomPrice();
+                    }
+                }
+            }
+            if (current != null) {
+                current.setTotalCost(pricePerNight * current.getNights());
+                writer.write(current);
+            }
+        }
+        writer.flush();
+    }
+
     // --------------------------------------------------------------------------------------
     // MÉTODOS PRIVADOS PARA REDUCIR COMPLEJIDAD Y REUTILIZAR LÓGICA
     // --------------------------------------------------------------------------------------
 
     /**
      * Valida que haya suficientes habitaciones de un tipo específico y las asigna.
+     * Solo se leen las habitaciones necesarias del destino indicado, sin bloquearlas: la
+     * ocupación efectiva la decide {@link #claimRooms}.
      * Lanza excepción si no hay suficientes.
      *
      * @param requested   Cantidad de habitaciones requeridas.
@@ -253,33 +376,126 @@ public class RoomBookingService implements IRoomBookingService {
      * @param dateFrom    Fecha de inicio.
      * @param dateTo      Fecha de fin.
      * @param destination Lugar de destino.
+     * @param excludedIds Habitaciones que no deben volver a proponerse.
      * @return Lista de habitaciones asignadas.
      */
     private List<Room> validateAndAssignRooms(int requested, RoomType roomType,
                                               LocalDate dateFrom, LocalDate dateTo,
-                                              String destination) {
+                                              String destination, Collection<Long> excludedIds) {
 
         if (requested <= 0) {
             return Collections.emptyList();
         }
-        List<Room> availableRooms = roomRepository
-                .findByRoomTypeAndDisponibilityDateFromLessThanEqualAndDisponibilityDateToGreaterThanEqualAndRoomBookingIsNull(
-                        roomType, dateFrom, dateTo
-                ).stream()
-                .filter(r -> r.getHotel().getPlace().equalsIgnoreCase(destination))
-                .toList();
+        // MySQL no admite NOT IN (): una lista vacía se sustituye por un identificador que no existe
+        List<Room> availableRooms = roomRepository.findRoomCandidatesByTypeAndDestination(
+                roomType.name(), dateFrom, dateTo, destinationDictionary.idOf(destination),
+                excludedIds.isEmpty() ? List.of(0L) : excludedIds, requested);
 
         if (availableRooms.size() < requested) {
-            throw new IllegalArgumentException(
-                    String.format("No hay suficientes habitaciones %s disponibles en el destino %s.",
-                            roomType, destination)
-            );
+            throw notEnoughRooms(roomType, destination);
         }
-        return new ArrayList<>(availableRooms.subList(0, requested));
+        return new ArrayList<>(availableRooms);
     }
 
     /**
-     * Verifica la existencia de los pasajeros a partir de sus IDs.
+     * Ocupa para la reserva todas las noches de la estancia de las habitaciones candidatas,
+     * con una única sentencia que solo afecta a las habitaciones que siguen libres en todo el
+     * rango. Si otra reserva ha ocupado alguna entretanto, incluso en paralelo con esta, se
+     * liberan las noches que se llegaron a ocupar de esa habitación, se buscan sustitutas (sin
+     * volver a proponer las perdidas) y se vuelve a intentar, hasta {@link #MAX_CLAIM_ATTEMPTS} veces.
+     *
+     * @param booking    Reserva ya persistida.
+     * @param candidates Habitaciones candidatas, todas del tipo indicado.
+     * @param roomType   Tipo de las habitaciones.
+     * @param dto        Datos de la reserva (fechas y destino), para buscar sustitutas.
+     * @return Habitaciones efectivamente asignadas a la reserva.
+     */
+    private List<Room> claimRooms(RoomBooking booking, List<Room> candidates, RoomType roomType, RoomBookingDto dto) {
+        long nights = ChronoUnit.DAYS.between(dto.getDateFrom(), dto.getDateTo());
+        List<Room> claimed = new ArrayList<>();
+        Set<Long> lost = new HashSet<>();
+        List<Room> pending = candidates;
+        for (int attempt = 1; !pending.isEmpty(); attempt++) {
+            List<Long> ids = pending.stream().map(Room::getId).toList();
+            roomNightRepository.claimNights(booking.getId(), ids, dto.getDateFrom(), dto.getDateTo());
+            Set<Long> claimedIds = new HashSet<>(roomNightRepository.findFullyClaimedRoomIds(booking, ids, nights));
+            List<Long> partialIds = new ArrayList<>();
+            for (Room room : pending) {
+                if (claimedIds.contains(room.getId())) {
+                    claimed.add(room);
+                } else {
+                    partialIds.add(room.getId());
+                }
+            }
+            if (partialIds.isEmpty()) {
+                break;
+            }
+            // Una reserva concurrente puede haber ocupado solo algunas de sus noches
+            roomNightRepository.releaseNights(booking, partialIds);
+            lost.addAll(partialIds);
+            if (attempt >= MAX_CLAIM_ATTEMPTS) {
+                throw notEnoughRooms(roomType, dto.getDestination().trim());
+            }
+            pending = validateAndAssignRooms(candidates.size() - claimed.size(), roomType,
+                    dto.getDateFrom(), dto.getDateTo(), dto.getDestination().trim(), lost);
+        }
+        return claimed;
+    }
+
+    /**
+     * Ejecuta una reserva en su propia transacción, repitiéndola (hasta {@link #MAX_CLAIM_ATTEMPTS}
+     * veces) si MySQL la aborta por un interbloqueo o una espera de bloqueo al ocupar las noches.
+     * InnoDB deshace entonces toda la transacción, no solo la sentencia, así que el reintento
+     * vuelve a empezar desde la búsqueda de habitaciones.
+     */
+    private <T> T executeWithLockRetry(Supplier<T> operation) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return transactionTemplate.execute(status -> operation.get());
+            } catch (PessimisticLockingFailureException e) {
+                if (attempt >= MAX_CLAIM_ATTEMPTS) {
+                    throw e;
+                }
+                logger.debug("Conflicto de bloqueo en la reserva de habitación, reintento {} de {}",
+                        attempt + 1, MAX_CLAIM_ATTEMPTS);
+            }
+        }
+    }
+
+    /**
+     * Comprueba que la estancia tenga al menos una noche: la fecha de salida no se
+     * ocupa, por lo que debe ser posterior a la de entrada. El número de noches indicado debe
+     * coincidir con el de las fechas, que son las que se ocupan, para cobrar las mismas noches.
+     *
+     * @param dto Datos de la reserva.
+     */
+    private static void validateStayDates(RoomBookingDto dto) {
+        if (dto.getDateFrom() == null || dto.getDateTo() == null || !dto.getDateTo().isAfter(dto.getDateFrom())) {
+            throw new IllegalArgumentException("La fecha de salida debe ser posterior a la de entrada");
+        }
+        long nights = ChronoUnit.DAYS.between(dto.getDateFrom(), dto.getDateTo());
+        if (dto.getNights() != nights) {
+            throw new IllegalArgumentException(String.format(
+                    "El número de noches (%d) no coincide con las fechas de la estancia (%d noches)",
+                    dto.getNights(), nights));
+        }
+    }
+
+    private static IllegalArgumentException notEnoughRooms(RoomType roomType, String destination) {
+        return new IllegalArgumentException(
+                String.format("No hay suficientes habitaciones %s disponibles en el destino %s.",
+                        roomType, destination)
+        );
+    }
+
+    private static List<Room> joinRooms(List<Room> doubleRooms, List<Room> singleRooms) {
+        List<Room> rooms = new ArrayList<>(doubleRooms);
+        rooms.addAll(singleRooms);
+        return rooms;
+    }
+
+    /**
+     * Verifica la existencia de los pasajeros a partir de sus IDs, cargándolos en una sola consulta.
      * Lanza excepción si alguno no existe.
      *
      * @param passengersIds Lista de IDs de pasajeros.
@@ -289,15 +505,13 @@ public class RoomBookingService implements IRoomBookingService {
         if (passengersIds == null || passengersIds.isEmpty()) {
             return Collections.emptyList();
         }
-        return passengersIds.stream()
-                .map(id -> {
-                    Passenger p = passengerService.findPassengerById(id);
-                    if (p == null) {
-                        throw new IllegalArgumentException("El pasajero con id " + id + " " + MSG_NOT_EXISTS);
-                    }
-                    return p;
-                })
-                .toList();
+        Map<Long, Passenger> found = passengerService.findPassengersByIds(passengersIds);
+        for (Long id : passengersIds) {
+            if (!found.containsKey(id)) {
+                throw new IllegalArgumentException("El pasajero con id " + id + " " + MSG_NOT_EXISTS);
+            }
+        }
+        return new ArrayList<>(found.values());
     }
 
     /**
@@ -339,107 +553,41 @@ public class RoomBookingService implements IRoomBookingService {
     }
 
     /**
-     * Vincula las habitaciones y pasajeros a la reserva persistida, guardando los cambios.
+     * Vincula los pasajeros a la reserva persistida con una única actualización.
      *
-     * @param booking   Reserva ya persistida.
-     * @param rooms     Lista de habitaciones asignadas.
+     * @param booking    Reserva ya persistida.
      * @param passengers Lista de pasajeros validados.
      */
-    private void linkPassengersAndRooms(RoomBooking booking, List<Room> rooms, List<Passenger> passengers) {
-        for (Room room : rooms) {
-            room.setRoomBooking(booking);
-            roomRepository.save(room);
-        }
-        for (Passenger p : passengers) {
-            p.setRoomBooking(booking);
-            passengerRepository.save(p);
+    private void linkPassengers(RoomBooking booking, List<Passenger> passengers) {
+        if (!passengers.isEmpty()) {
+            passengerRepository.assignRoomBooking(booking,
+                    passengers.stream().map(Passenger::getId).toList());
         }
     }
 
     /**
-     * Desvincula pasajeros y habitaciones de la reserva, guardando los cambios.
+     * Desvincula pasajeros y habitaciones de la reserva, con una única sentencia para cada uno:
+     * se desvinculan los pasajeros y se liberan todas las noches ocupadas por la reserva.
+     * La tabla que relaciona la reserva con sus habitaciones la mantiene Hibernate al
+     * cambiar o eliminar la reserva.
      *
      * @param booking Reserva de la que se desvincularán pasajeros y habitaciones.
      */
     private void unlinkPassengersAndRooms(RoomBooking booking) {
-        if (booking.getPassengers() != null) {
-            for (Passenger p : booking.getPassengers()) {
-                p.setRoomBooking(null);
-                passengerRepository.save(p);
-            }
-        }
-        if (booking.getRooms() != null) {
-            for (Room r : booking.getRooms()) {
-                r.setRoomBooking(null);
-                roomRepository.save(r);
-            }
-        }
+        passengerRepository.unassignRoomBooking(booking);
+        roomNightRepository.releaseNights(booking);
     }
 
     /**
-     * Actualiza los contadores del hotel para cada habitación asignada (dobles y simples).
-     * Llama a HotelService para reducir la disponibilidad en consecuencia.
+     * Devuelve los identificadores de una lista de habitaciones.
      *
-     * @param assignedDoubleRooms Lista de habitaciones dobles asignadas.
-     * @param assignedSingleRooms Lista de habitaciones simples asignadas.
+     * @param rooms Habitaciones (puede ser null).
+     * @return Lista de identificadores.
      */
-    private void updateHotelCountersForCreation(List<Room> assignedDoubleRooms, List<Room> assignedSingleRooms) {
-        Map<Hotel, Integer> hotelDoubleDecrement = new HashMap<>();
-        for (Room room : assignedDoubleRooms) {
-            Hotel hotel = room.getHotel();
-            hotelDoubleDecrement.put(hotel, hotelDoubleDecrement.getOrDefault(hotel, 0) + 1);
-        }
-        Map<Hotel, Integer> hotelSingleDecrement = new HashMap<>();
-        for (Room room : assignedSingleRooms) {
-            Hotel hotel = room.getHotel();
-            hotelSingleDecrement.put(hotel, hotelSingleDecrement.getOrDefault(hotel, 0) + 1);
-        }
-        for (Map.Entry<Hotel, Integer> entry : hotelDoubleDecrement.entrySet()) {
-            hotelService.decrementRoomAvailability(entry.getKey(), entry.getValue(), 0);
-        }
-        for (Map.Entry<Hotel, Integer> entry : hotelSingleDecrement.entrySet()) {
-            hotelService.decrementRoomAvailability(entry.getKey(), 0, entry.getValue());
-        }
-    }
-
-    /**
-     * Revertir (incrementar) los contadores del hotel para todas las habitaciones
-     * asociadas a la reserva actual, por ejemplo, antes de editar o eliminar.
-     *
-     * @param booking Reserva que se va a modificar o eliminar.
-     */
-    private void revertHotelCounters(RoomBooking booking) {
-        if (booking.getRooms() == null) {
-            return;
-        }
-        Map<Hotel, Integer> hotelDoubleIncrement = new HashMap<>();
-        Map<Hotel, Integer> hotelSingleIncrement = new HashMap<>();
-        for (Room room : booking.getRooms()) {
-            Hotel hotel = room.getHotel();
-            if (room.getRoomType() == RoomType.DOUBLE) {
-                hotelDoubleIncrement.put(hotel, hotelDoubleIncrement.getOrDefault(hotel, 0) + 1);
-            } else if (room.getRoomType() == RoomType.SINGLE) {
-                hotelSingleIncrement.put(hotel, hotelSingleIncrement.getOrDefault(hotel, 0) + 1);
-            }
-        }
-        for (Map.Entry<Hotel, Integer> entry : hotelDoubleIncrement.entrySet()) {
-            hotelService.incrementRoomAvailability(entry.getKey(), entry.getValue(), 0);
-        }
-        for (Map.Entry<Hotel, Integer> entry : hotelSingleIncrement.entrySet()) {
-            hotelService.incrementRoomAvailability(entry.getKey(), 0, entry.getValue());
+    private static List<Long> roomIds(List<Room> rooms) {
+        if (rooms == null) {
+            return Collections.emptyList();
         }
+        return rooms.stream().map(Room::getId).toList();
     }
 }
-
-
-
-
-
-
-
-
-
-
-
-
-
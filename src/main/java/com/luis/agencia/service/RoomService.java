@@ -11,7 +11,9 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Set;
 
 /**
  * Servicio que gestiona la lógica relacionada con las habitaciones ({@link Room}).
@@ -44,6 +46,27 @@ public class RoomService implements IroomService {
     @Autowired
     private RoomMapper roomMapper;
 
+    /**
+     * Índice en memoria de la disponibilidad por noches, usado para las búsquedas.
+     * Inyectado por Spring.
+     */
+    @Autowired
+    private RoomAvailabilityIndex roomAvailabilityIndex;
+
+    /**
+     * Caché de resultados de búsqueda, invalidada por el índice de disponibilidad.
+     * Inyectada por Spring.
+     */
+    @Autowired
+    private SearchCache searchCache;
+
+    /**
+     * Catálogo de destinos, que da a cada lugar el identificador con el que se busca.
+     * Inyectado por Spring.
+     */
+    @Autowired
+    private DestinationDictionary destinationDictionary;
+
     /**
      * Retorna una lista de habitaciones disponibles en un hotel específico, según un rango de fechas.
      *
@@ -80,6 +103,7 @@ public class RoomService implements IroomService {
         }
         Room room = roomMapper.dtoToEntity(roomDto);
         roomRepository.save(room);
+        roomAvailabilityIndex.refreshRoomAfterCommit(room);
         return "Room created successfully.";
     }
 
@@ -101,6 +125,7 @@ public class RoomService implements IroomService {
         room.setDisponibilityDateFrom(roomDto.getDisponibilityDateFrom());
         room.setDisponibilityDateTo(roomDto.getDisponibilityDateTo());
         roomRepository.save(room);
+        roomAvailabilityIndex.refreshRoomAfterCommit(room);
         return "Room updated successfully.";
     }
 
@@ -117,6 +142,7 @@ public class RoomService implements IroomService {
             return "La habitación no existe.";
         }
         roomRepository.deleteById(roomId);
+        roomAvailabilityIndex.removeRoomAfterCommit(roomId);
         return "Room deleted successfully.";
     }
 
@@ -137,17 +163,18 @@ public class RoomService implements IroomService {
     }
 
     /**
-     * Retorna una lista de todas las habitaciones en la base de datos, en formato DTO.
+     * Retorna una página de habitaciones de la base de datos, en formato DTO.
      *
-     * @return Lista de {@link RoomDto}.
+     * @param cursor Id del último elemento de la página anterior, o {@code null} para la primera página.
+     * @param size   Tamaño de página solicitado.
+     * @return Página de {@link RoomDto}.
      */
     @Override
     @Transactional
-    public List<RoomDto> listAllRooms() {
-        List<Room> rooms = roomRepository.findAll();
-        return rooms.stream()
-                .map(roomMapper::entityToDto)
-                .toList();
+    public KeysetPage<RoomDto> listAllRooms(Long cursor, Integer size) {
+        int pageSize = KeysetPage.pageSize(size);
+        List<Room> rooms = roomRepository.findByIdGreaterThanOrderByIdAsc(KeysetPage.after(cursor), KeysetPage.limit(pageSize));
+        return KeysetPage.of(rooms, pageSize, Room::getId).map(roomMapper::entityToDto);
     }
 
     /**
@@ -167,6 +194,9 @@ public class RoomService implements IroomService {
 
     /**
      * Retorna una lista de habitaciones disponibles según el destino y un rango de fechas.
+     * La disponibilidad se resuelve en el {@link RoomAvailabilityIndex} si está cargado, y el
+     * resultado se guarda en la {@link SearchCache} hasta que cambia alguna habitación o
+     * reserva del destino.
      *
      * @param destination Destino (lugar) del hotel.
      * @param fromDate    Fecha de inicio de la disponibilidad.
@@ -176,7 +206,25 @@ public class RoomService implements IroomService {
     @Override
     @Transactional
     public List<RoomDto> findAvailableRoomsByDestination(String destination, LocalDate fromDate, LocalDate toDate) {
-        List<Room> rooms = roomRepository.findAvailableRoomsByDestination(destination, fromDate, toDate);
+        int place = destinationDictionary.idOf(destination);
+        return searchCache.get(new RoomSearchKey(null, place, fromDate, toDate),
+                Set.of(SearchCache.destinationTag(place)), () -> findAvailableRooms(destination, place, fromDate, toDate));
+    }
+
+    /**
+     * Busca las habitaciones libres de cualquier tipo en un destino, desde el índice si está cargado.
+     */
+    private List<RoomDto> findAvailableRooms(String destination, int destinationId, LocalDate fromDate, LocalDate toDate) {
+        List<Room> rooms;
+        if (roomAvailabilityIndex.isReady()) {
+            List<Long> ids = roomAvailabilityIndex.findAvailableRoomIds(destination, fromDate, toDate);
+            rooms = roomRepository.findAllById(ids).stream()
+                    .sorted(Comparator.comparing(Room::getId))
+                    .toList();
+        } else {
+            rooms = roomRepository.findAvailableRoomsByDestination(destinationId, fromDate, toDate);
+        }
+
         return rooms.stream()
                 .map(roomMapper::entityToDto)
                 .toList();
@@ -184,7 +232,9 @@ public class RoomService implements IroomService {
 
     /**
      * Retorna una lista de habitaciones disponibles según el tipo de habitación, el destino
-     * y un rango de fechas. Solo incluye aquellas habitaciones que no estén ya reservadas.
+     * y un rango de fechas. Solo incluye aquellas habitaciones que no tengan ninguna noche
+     * del rango ya reservada. El resultado se guarda en la {@link SearchCache} hasta que
+     * cambia alguna habitación o reserva del destino.
      *
      * @param roomType    Tipo de habitación (ej. SINGLE, DOUBLE).
      * @param fromDate    Fecha de inicio de la disponibilidad.
@@ -197,18 +247,38 @@ public class RoomService implements IroomService {
     public List<RoomDto> findAvailableRoomsByTypeAndDestination(String roomType, LocalDate fromDate, LocalDate toDate, String destination) {
         // Convertir el String a enum RoomType
         RoomType type = RoomType.valueOf(roomType.toUpperCase());
+        int place = destinationDictionary.idOf(destination);
+        return searchCache.get(new RoomSearchKey(type, place, fromDate, toDate),
+                Set.of(SearchCache.destinationTag(place)), () -> findAvailableRooms(type, destination, place, fromDate, toDate));
+    }
 
-        List<Room> rooms = roomRepository
-                .findByRoomTypeAndDisponibilityDateFromLessThanEqualAndDisponibilityDateToGreaterThanEqualAndRoomBookingIsNull(
-                        type, fromDate, toDate
-                ).stream()
-                .filter(r -> r.getHotel().getPlace().equalsIgnoreCase(destination))
-                .toList();
+    /**
+     * Busca las habitaciones libres de un tipo en un destino, desde el índice si está cargado.
+     */
+    private List<RoomDto> findAvailableRooms(RoomType type, String destination, int destinationId,
+                                             LocalDate fromDate, LocalDate toDate) {
+        List<Room> rooms;
+        if (roomAvailabilityIndex.isReady()) {
+            // Se resuelve la disponibilidad en memoria y solo se cargan las habitaciones libres
+            List<Long> ids = roomAvailabilityIndex.findAvailableRoomIds(type, destination, fromDate, toDate);
+            rooms = roomRepository.findAllById(ids).stream()
+                    .sorted(Comparator.comparing(Room::getId))
+                    .toList();
+        } else {
+            rooms = roomRepository.findAvailableRoomsByTypeAndDestination(type, fromDate, toDate, destinationId);
+        }
 
         return rooms.stream()
                 .map(roomMapper::entityToDto)
                 .toList();
     }
+
+    /**
+     * Clave de las búsquedas por destino en la {@link SearchCache}, con el identificador del
+     * destino; sin tipo si se buscan todos.
+     */
+    private record RoomSearchKey(RoomType roomType, int destination, LocalDate fromDate, LocalDate toDate) {
+    }
 }
 
 
@@ -0,0 +1,217 @@
+package com.luis.agencia.service;
+
+import com.luis.agencia.dto.SearchCacheStatsDto;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Caché de resultados de búsqueda de vuelos y habitaciones.
+ * <p>
+ * Guarda como mucho {@link #MAX_ENTRIES} resultados (se descartan los menos usados) durante
+ * {@link #TTL}. Cada resultado se asocia a etiquetas (una ruta o un destino) y se invalida en
+ * cuanto {@link FlightScheduleIndex} o {@link RoomAvailabilityIndex} aplican, tras el commit, un
+ * cambio que afecta a alguna de ellas: una reserva, la edición de un vuelo o de una habitación.
+ * Si una etiqueta se invalida mientras se calcula un resultado, ese resultado no se guarda, ya
+ * que puede haberse leído antes del cambio.
+ */
+@Component
+public class SearchCache {
+
+    /**
+     * Número máximo de resultados guardados.
+     */
+    static final int MAX_ENTRIES = 10_000;
+
+    /**
+     * Tiempo que se conserva un resultado, aunque no se invalide.
+     */
+    static final Duration TTL = Duration.ofSeconds(60);
+
+    private final int maxEntries;
+
+    private final long ttlNanos;
+
+    private final LongSupplier nanoTime;
+
+    /**
+     * Resultados por clave, en orden de último acceso.
+     */
+    private final LinkedHashMap<Object, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    /**
+     * Claves asociadas a cada etiqueta.
+     */
+    private final Map<String, Set<Object>> keysByTag = new HashMap<>();
+
+    /**
+     * Número de invalidaciones de cada etiqueta, para descartar resultados calculados antes de una.
+     */
+    private final Map<String, Long> tagVersions = new HashMap<>();
+
+    /**
+     * Número de veces que se ha vaciado la caché completa.
+     */
+    private long generation;
+
+    private final AtomicLong hits = new AtomicLong();
+
+    private final AtomicLong misses = new AtomicLong();
+
+    private final AtomicLong evictions = new AtomicLong();
+
+    private final AtomicLong expirations = new AtomicLong();
+
+    private final AtomicLong invalidations = new AtomicLong();
+
+    public SearchCache() {
+        this(MAX_ENTRIES, TTL, System::nanoTime);
+    }
+
+    SearchCache(int maxEntries, Duration ttl, LongSupplier nanoTime) {
+        this.maxEntries = maxEntries;
+        this.ttlNanos = ttl.toNanos();
+        this.nanoTime = nanoTime;
+    }
+
+    /**
+     * Devuelve el resultado guardado para la clave o, si no lo hay o ha caducado, lo calcula
+     * y lo guarda asociado a las etiquetas indicadas. El cálculo se hace fuera del bloqueo.
+     *
+     * @param key    Clave de la búsqueda, con los parámetros ya normalizados.
+     * @param tags   Etiquetas cuyos cambios invalidan el resultado.
+     * @param loader Cálculo del resultado.
+     * @param <T>    Tipo del resultado; no debe modificarse una vez devuelto.
+     * @return El resultado guardado o el recién calculado.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Set<String> tags, Supplier<T> loader) {
+        Map<String, Long> versions;
+        long loadGeneration;
+        synchronized (this) {
+            Entry entry = entries.get(key);
+            if (entry != null) {
+                if (nanoTime.getAsLong() - entry.createdAt() < ttlNanos) {
+                    hits.incrementAndGet();
+                    return (T) entry.value();
+                }
+                remove(key);
+                expirations.incrementAndGet();
+            }
+            misses.incrementAndGet();
+            loadGeneration = generation;
+            versions = new HashMap<>();
+            for (String tag : tags) {
+                versions.put(tag, tagVersions.getOrDefault(tag, 0L));
+            }
+        }
+        T value = loader.get();
+        synchronized (this) {
+            if (loadGeneration != generation) {
+                return value;
+            }
+            for (Map.Entry<String, Long> version : versions.entrySet()) {
+                if (!version.getValue().equals(tagVersions.getOrDefault(version.getKey(), 0L))) {
+                    return value;
+                }
+            }
+            remove(key);
+            entries.put(key, new Entry(value, Set.copyOf(tags), nanoTime.getAsLong()));
+            for (String tag : tags) {
+                keysByTag.computeIfAbsent(tag, t -> new HashSet<>()).add(key);
+            }
+            Iterator<Map.Entry<Object, Entry>> eldest = entries.entrySet().iterator();
+            while (entries.size() > maxEntries) {
+                Map.Entry<Object, Entry> victim = eldest.next();
+                eldest.remove();
+                unlinkTags(victim.getKey(), victim.getValue());
+                evictions.incrementAndGet();
+            }
+        }
+        return value;
+    }
+
+    /**
+     * Descarta los resultados asociados a una etiqueta.
+     *
+     * @param tag Etiqueta afectada por un cambio.
+     */
+    public synchronized void invalidate(String tag) {
+        tagVersions.merge(tag, 1L, Long::sum);
+        Set<Object> keys = keysByTag.remove(tag);
+        if (keys == null) {
+            return;
+        }
+        for (Object key : keys) {
+            if (remove(key)) {
+                invalidations.incrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * Descarta todos los resultados, por ejemplo al recargar un índice.
+     */
+    public synchronized void invalidateAll() {
+        generation++;
+        invalidations.addAndGet(entries.size());
+        entries.clear();
+        keysByTag.clear();
+    }
+
+    /**
+     * @return Contadores de aciertos, fallos y descartes desde el arranque, y número de resultados guardados.
+     */
+    public synchronized SearchCacheStatsDto stats() {
+        return new SearchCacheStatsDto(hits.get(), misses.get(), evictions.get(), expirations.get(),
+                invalidations.get(), entries.size(), maxEntries);
+    }
+
+    /**
+     * Etiqueta de los vuelos de una ruta, en un sentido, a partir de los identificadores de
+     * sus destinos ({@link DestinationDictionary}).
+     */
+    public static String routeTag(int origin, int destination) {
+        return "route:" + origin + ">" + destination;
+    }
+
+    /**
+     * Etiqueta de las habitaciones de un destino, a partir de su identificador.
+     */
+    public static String destinationTag(int destination) {
+        return "destination:" + destination;
+    }
+
+    private boolean remove(Object key) {
+        Entry entry = entries.remove(key);
+        if (entry == null) {
+            return false;
+        }
+        unlinkTags(key, entry);
+        return true;
+    }
+
+    private void unlinkTags(Object key, Entry entry) {
+        for (String tag : entry.tags()) {
+            Set<Object> keys = keysByTag.get(tag);
+            if (keys != null) {
+                keys.remove(key);
+                if (keys.isEmpty()) {
+                    keysByTag.remove(tag);
+                }
+            }
+        }
+    }
+
+    private record Entry(Object value, Set<String> tags, long createdAt) {
+    }
+}
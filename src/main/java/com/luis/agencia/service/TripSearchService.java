@@ -0,0 +1,256 @@
+package com.luis.agencia.service;
+
+import com.luis.agencia.dto.HotelOptionDto;
+import com.luis.agencia.dto.RoomDto;
+import com.luis.agencia.dto.RoundTripDto;
+import com.luis.agencia.dto.TripPackageDto;
+import com.luis.agencia.dto.TripSearchDto;
+import com.luis.agencia.model.Hotel;
+import com.luis.agencia.model.RoomType;
+import com.luis.agencia.repository.IHotelRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.Supplier;
+
+/**
+ * Servicio de búsqueda de paquetes de viaje.
+ * <p>
+ * La búsqueda de vuelos de ida y vuelta y la de habitaciones libres en el destino se lanzan a
+ * la vez en el ejecutor {@code tripSearchExecutor}, de modo que el tiempo de respuesta es el de
+ * la más lenta y no la suma de ambas. Cada búsqueda tiene su propio plazo, contado desde el
+ * inicio de la petición: si no termina a tiempo se abandona y la respuesta lo indica, en lugar
+ * de hacer esperar al cliente.
+ * <p>
+ * Una búsqueda abandonada se cancela interrumpiendo su hilo. Como el controlador JDBC no
+ * atiende la interrupción mientras espera a la base de datos, cada búsqueda corre además en
+ * una transacción de solo lectura con un plazo de {@link #QUERY_TIMEOUT_SECONDS} segundos, que
+ * se aplica como tiempo máximo de sus consultas: así el hilo y la conexión se liberan poco después del
+ * plazo y las búsquedas lentas no agotan el ejecutor ni el pool de conexiones.
+ */
+@Service
+public class TripSearchService implements ITripSearchService {
+
+    private static final Logger logger = LoggerFactory.getLogger(TripSearchService.class);
+
+    /**
+     * Plazo de la búsqueda de vuelos, en milisegundos.
+     */
+    static final long FLIGHTS_TIMEOUT_MILLIS = 1500;
+
+    /**
+     * Plazo de la búsqueda de hoteles, en milisegundos.
+     */
+    static final long HOTELS_TIMEOUT_MILLIS = 1500;
+
+    /**
+     * Plazo de las transacciones de búsqueda, en segundos: el primer segundo entero después
+     * del plazo más largo.
+     */
+    static final int QUERY_TIMEOUT_SECONDS =
+            (int) TimeUnit.MILLISECONDS.toSeconds(Math.max(FLIGHTS_TIMEOUT_MILLIS, HOTELS_TIMEOUT_MILLIS)) + 1;
+
+    /**
+     * Número máximo de paquetes devueltos por {@link #searchPackages}.
+     */
+    private static final int MAX_PACKAGES = 100;
+
+    /**
+     * Servicio de vuelos, que calcula las combinaciones de ida y vuelta.
+     * Inyectado por Spring.
+     */
+    @Autowired
+    private IFlightService flightService;
+
+    /**
+     * Servicio de habitaciones, que busca las habitaciones libres del destino.
+     * Inyectado por Spring.
+     */
+    @Autowired
+    private IroomService roomService;
+
+    /**
+     * Repositorio de hoteles, del que se leen los precios de las habitaciones.
+     * Inyectado por Spring.
+     */
+    @Autowired
+    private IHotelRepository hotelRepository;
+
+    /**
+     * Ejecutor de las dos búsquedas.
+     * Inyectado por Spring.
+     */
+    @Autowired
+    @Qualifier("tripSearchExecutor")
+    private Executor tripSearchExecutor;
+
+    /**
+     * Gestor de transacciones con el que se limita la duración de las consultas de cada búsqueda.
+     * Inyectado por Spring.
+     */
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws IllegalArgumentException si no hay pasajeros o la vuelta no es posterior a la ida.
+     * @throws RejectedExecutionException si el ejecutor de búsquedas está saturado.
+     */
+    @Override
+    public TripSearchDto searchPackages(LocalDate dateFrom, LocalDate dateTo, String origin, String destination,
+                                        int passengers, int limit) {
+        if (passengers < 1) {
+            throw new IllegalArgumentException("El número de pasajeros debe ser positivo");
+        }
+        if (!dateTo.isAfter(dateFrom)) {
+            throw new IllegalArgumentException("La fecha de vuelta debe ser posterior a la de ida");
+        }
+        int maxResults = Math.max(1, Math.min(limit, MAX_PACKAGES));
+        long start = System.nanoTime();
+
+        Future<List<RoundTripDto>> flights = submit(() ->
+                flightService.findRoundTrips(dateFrom, dateTo, origin, destination, passengers, false, maxResults));
+        Future<List<HotelOptionDto>> hotels;
+        try {
+            hotels = submit(() -> findHotelOptions(destination, dateFrom, dateTo, passengers));
+        } catch (RejectedExecutionException e) {
+            flights.cancel(true);
+            throw e;
+        }
+
+        List<RoundTripDto> roundTrips;
+        List<HotelOptionDto> hotelOptions;
+        try {
+            roundTrips = await(flights, start, FLIGHTS_TIMEOUT_MILLIS, "vuelos");
+            hotelOptions = await(hotels, start, HOTELS_TIMEOUT_MILLIS, "hoteles");
+        } finally {
+            // Si una espera falla, la otra búsqueda no debe seguir ocupando un hilo y una conexión
+            flights.cancel(true);
+            hotels.cancel(true);
+        }
+        List<TripPackageDto> packages = roundTrips == null || hotelOptions == null
+                ? List.of()
+                : combine(roundTrips, hotelOptions, maxResults);
+        return new TripSearchDto(packages, roundTrips != null, hotelOptions != null);
+    }
+
+    /**
+     * Lanza una búsqueda en el ejecutor, dentro de una transacción de solo lectura con plazo.
+     * Se envuelve en un {@link FutureTask}, cuya cancelación sí interrumpe el hilo que la ejecuta.
+     */
+    private <T> Future<T> submit(Supplier<T> search) {
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        readOnly.setTimeout(QUERY_TIMEOUT_SECONDS);
+        FutureTask<T> task = new FutureTask<>(() -> readOnly.execute(status -> search.get()));
+        tripSearchExecutor.execute(task);
+        return task;
+    }
+
+    /**
+     * Calcula, para cada hotel activo del destino con habitaciones libres, el alojamiento más
+     * barato para el grupo, ordenados de más barato a más caro. Solo cuentan las habitaciones
+     * que se ofrecen durante toda la estancia y no tienen ninguna noche reservada, las mismas
+     * que luego se pueden reservar.
+     */
+    private List<HotelOptionDto> findHotelOptions(String destination, LocalDate dateFrom, LocalDate dateTo,
+                                                  int passengers) {
+        // Habitaciones libres por hotel: [individuales, dobles]
+        Map<Long, int[]> freeRoomsByHotel = new HashMap<>();
+        for (RoomType type : RoomType.values()) {
+            for (RoomDto room : roomService.findAvailableRoomsByTypeAndDestination(type.name(), dateFrom, dateTo,
+                    destination)) {
+                int[] free = freeRoomsByHotel.computeIfAbsent(room.getHotelId(), id -> new int[2]);
+                free[type == RoomType.DOUBLE ? 1 : 0]++;
+            }
+        }
+        if (freeRoomsByHotel.isEmpty()) {
+            return List.of();
+        }
+        long nights = ChronoUnit.DAYS.between(dateFrom, dateTo);
+        List<HotelOptionDto> options = new ArrayList<>();
+        for (Hotel hotel : hotelRepository.findAllById(freeRoomsByHotel.keySet())) {
+            if (hotel.isActive()) {
+                int[] free = freeRoomsByHotel.get(hotel.getId());
+                HotelOptionDto option = cheapestStay(hotel, free[0], free[1], passengers, nights);
+                if (option != null) {
+                    options.add(option);
+                }
+            }
+        }
+        options.sort(Comparator.comparingDouble(HotelOptionDto::getTotalPrice).thenComparing(HotelOptionDto::getHotelId));
+        return options;
+    }
+
+    /**
+     * Reparto más barato del grupo entre las habitaciones libres de un hotel: dos personas por
+     * habitación doble y una por individual.
+     *
+     * @return El alojamiento, o {@code null} si no caben todos.
+     */
+    private static HotelOptionDto cheapestStay(Hotel hotel, int freeSingles, int freeDoubles, int passengers, long nights) {
+        HotelOptionDto best = null;
+        for (int doubles = 0; doubles <= Math.min(freeDoubles, (passengers + 1) / 2); doubles++) {
+            int singles = Math.max(0, passengers - 2 * doubles);
+            if (singles > freeSingles) {
+                continue;
+            }
+            double price = (doubles * hotel.getDoubleRoomPrice() + singles * hotel.getSimpleRoomPrice()) * nights;
+            if (best == null || price < best.getTotalPrice()) {
+                best = new HotelOptionDto(hotel.getId(), hotel.getName(), hotel.getPlace(), doubles, singles, price);
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Combina los vuelos y los hoteles más baratos. Como ambas listas están ordenadas por precio,
+     * los {@code limit} paquetes más baratos solo pueden usar los {@code limit} primeros de cada una.
+     */
+    private static List<TripPackageDto> combine(List<RoundTripDto> roundTrips, List<HotelOptionDto> hotelOptions,
+                                                int limit) {
+        List<TripPackageDto> packages = new ArrayList<>();
+        for (RoundTripDto roundTrip : roundTrips.subList(0, Math.min(limit, roundTrips.size()))) {
+            for (HotelOptionDto hotel : hotelOptions.subList(0, Math.min(limit, hotelOptions.size()))) {
+                packages.add(new TripPackageDto(roundTrip, hotel, roundTrip.getTotalPrice() + hotel.getTotalPrice()));
+            }
+        }
+        packages.sort(Comparator.comparingDouble(TripPackageDto::getTotalPrice));
+        return List.copyOf(packages.subList(0, Math.min(limit, packages.size())));
+    }
+
+    /**
+     * Espera el resultado de una búsqueda hasta el final de su plazo.
+     *
+     * @return El resultado, o {@code null} si la búsqueda no ha terminado a tiempo.
+     */
+    private static <T> List<T> await(Future<List<T>> search, long startNanos, long timeoutMillis,
+                                     String name) {
+        long remaining = timeoutMillis - TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+        try {
+            return search.get(Math.max(0, remaining), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            search.cancel(true);
+            logger.warn("La búsqueda de {} no ha terminado en {} ms", name, timeoutMillis);
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Búsqueda de paquetes interrumpida", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+}
@@ -0,0 +1,22 @@
+-- Retira la columna heredada room.room_booking_id del modelo anterior de reservas de habitación,
+-- en el que cada habitación apuntaba a su única reserva.
+--
+-- Limpieza opcional del esquema: no la ejecuta la aplicación ni hace falta para que funcione.
+-- RoomBookingBackfill copia al arrancar los enlaces y las noches y vacía la columna, así que basta
+-- con haber arrancado la aplicación una vez. La consulta de comprobación debe devolver 0.
+
+-- Habitaciones que siguen enlazadas con la columna heredada
+SELECT COUNT(*) AS pending_links FROM room WHERE room_booking_id IS NOT NULL;
+
+-- Clave ajena de la columna (su nombre lo generó Hibernate)
+SELECT CONSTRAINT_NAME INTO @fk FROM information_schema.KEY_COLUMN_USAGE
+WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'room'
+  AND COLUMN_NAME = 'room_booking_id' AND REFERENCED_TABLE_NAME IS NOT NULL
+LIMIT 1;
+
+SET @drop_fk = IF(@fk IS NULL, 'DO 0', CONCAT('ALTER TABLE room DROP FOREIGN KEY `', @fk, '`'));
+PREPARE drop_fk FROM @drop_fk;
+EXECUTE drop_fk;
+DEALLOCATE PREPARE drop_fk;
+
+ALTER TABLE room DROP COLUMN room_booking_id;
@@ -0,0 +1,90 @@
+package com.luis.agencia.mapper;
+
+import com.luis.agencia.dto.FlightDto;
+import com.luis.agencia.model.Flight;
+import org.modelmapper.ModelMapper;
+import org.modelmapper.convention.MatchingStrategies;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Comparativa JMH del coste por objeto y de la memoria reservada por objeto al mapear
+ * {@link Flight} a {@link FlightDto} con {@link FlightMapper} y con ModelMapper.
+ * <p>
+ * No es una prueba: no se ejecuta con {@code mvn test}. Se lanza a mano desde el IDE o con
+ * {@code mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=com.luis.agencia.mapper.FlightMapperBenchmark}. La memoria por objeto es la
+ * métrica {@code gc.alloc.rate.norm} del perfilador de GC.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FlightMapperBenchmark {
+
+    private static final int FLIGHTS = 1_000;
+
+    private List<Flight> flights;
+
+    private FlightMapper flightMapper;
+
+    private ModelMapper modelMapper;
+
+    @Setup
+    public void setUp() {
+        flights = new ArrayList<>(FLIGHTS);
+        for (int i = 0; i < FLIGHTS; i++) {
+            Flight flight = new Flight("Vuelo " + i, "FN" + i, "Madrid", "Paris", 10, 50, 250.0, 100.0,
+                    true, LocalDate.of(2025, 3, 15).plusDays(i % 30), LocalDate.of(2025, 4, 15));
+            flight.setId((long) i);
+            flights.add(flight);
+        }
+        flightMapper = new FlightMapper();
+        modelMapper = new ModelMapper();
+        modelMapper.getConfiguration().setMatchingStrategy(MatchingStrategies.STRICT);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(FLIGHTS)
+    public void flightMapper(Blackhole blackhole) {
+        for (Flight flight : flights) {
+            blackhole.consume(flightMapper.entityToDto(flight));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(FLIGHTS)
+    public void modelMapper(Blackhole blackhole) {
+        for (Flight flight : flights) {
+            blackhole.consume(modelMapper.map(flight, FlightDto.class));
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(FlightMapperBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
@@ -4,14 +4,65 @@ import com.luis.agencia.dto.FlightDto;
 import com.luis.agencia.model.Flight;
 import org.junit.jupiter.api.Test;
 import org.modelmapper.ModelMapper;
+import org.modelmapper.convention.MatchingStrategies;
 
 import java.time.LocalDate;
+import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
 
 class FlightMapperTest {
 
-    private final FlightMapper flightMapper = new FlightMapper(new ModelMapper());
+    private final FlightMapper flightMapper = new FlightMapper();
+
+    /**
+     * Implementación anterior del mapper, usada como referencia en las pruebas de equivalencia.
+     */
+    private final ModelMapper modelMapper = new ModelMapper();
+
+    FlightMapperTest() {
+        modelMapper.getConfiguration().setMatchingStrategy(MatchingStrategies.STRICT);
+    }
+
+    private static Flight sampleFlight(boolean activa, String origin) {
+        Flight flight = new Flight("Flight C303", "F303", origin, "Roma", 12, 60, 280.5, 99.9,
+                activa, LocalDate.of(2025, 3, 15), LocalDate.of(2025, 3, 22));
+        flight.setId(303L);
+        flight.setVersion(4L);
+        return flight;
+    }
+
+    private static void assertSameDto(FlightDto expected, FlightDto actual) {
+        assertEquals(expected.getId(), actual.getId());
+        assertEquals(expected.getName(), actual.getName());
+        assertEquals(expected.getFlightNumber(), actual.getFlightNumber());
+        assertEquals(expected.getOrigin(), actual.getOrigin());
+        assertEquals(expected.getDestination(), actual.getDestination());
+        assertEquals(expected.getBusinessSeatsQ(), actual.getBusinessSeatsQ());
+        assertEquals(expected.getEconomySeatsQ(), actual.getEconomySeatsQ());
+        assertEquals(expected.getBusinessSeatPrice(), actual.getBusinessSeatPrice());
+        assertEquals(expected.getEconomySeatPrice(), actual.getEconomySeatPrice());
+        assertEquals(expected.getDateFrom(), actual.getDateFrom());
+        assertEquals(expected.getDateTo(), actual.getDateTo());
+        assertEquals(expected.isActiva(), actual.isActiva());
+    }
+
+    private static void assertSameEntity(Flight expected, Flight actual) {
+        assertEquals(expected.getId(), actual.getId());
+        assertEquals(expected.getName(), actual.getName());
+        assertEquals(expected.getFlightNumber(), actual.getFlightNumber());
+        assertEquals(expected.getOrigin(), actual.getOrigin());
+        assertEquals(expected.getDestination(), actual.getDestination());
+        assertEquals(expected.getBusinessSeatsQ(), actual.getBusinessSeatsQ());
+        assertEquals(expected.getEconomySeatsQ(), actual.getEconomySeatsQ());
+        assertEquals(expected.getBusinessSeatPrice(), actual.getBusinessSeatPrice());
+        assertEquals(expected.getEconomySeatPrice(), actual.getEconomySeatPrice());
+        assertEquals(expected.getDateFrom(), actual.getDateFrom());
+        assertEquals(expected.getDateTo(), actual.getDateTo());
+        assertEquals(expected.isActiva(), actual.isActiva());
+        assertEquals(expected.getVersion(), actual.getVersion());
+        assertEquals(expected.getFlightBookings(), actual.getFlightBookings());
+    }
 
     @Test
     void testEntityToDto() {
@@ -66,6 +117,29 @@ class FlightMapperTest {
         assertEquals("New York", flight.getDestination());
         assertTrue(flight.isActiva());
     }
-}
 
+    @Test
+    void testEntityToDtoMatchesModelMapper() {
+        for (Flight flight : List.of(sampleFlight(true, "Madrid"), sampleFlight(false, null), new Flight())) {
+            assertSameDto(modelMapper.map(flight, FlightDto.class), flightMapper.entityToDto(flight));
+        }
+    }
 
+    @Test
+    void testDtoToEntityMatchesModelMapper() {
+        FlightDto inactive = modelMapper.map(sampleFlight(false, "Madrid"), FlightDto.class);
+        FlightDto withNulls = modelMapper.map(sampleFlight(true, null), FlightDto.class);
+        for (FlightDto dto : List.of(inactive, withNulls, new FlightDto())) {
+            Flight expected = modelMapper.map(dto, Flight.class);
+            // El id del DTO no se lleva a la entidad: lo asigna la base de datos
+            expected.setId(null);
+            assertSameEntity(expected, flightMapper.dtoToEntity(dto));
+        }
+    }
+
+    @Test
+    void testNullMapsToNull() {
+        assertNull(flightMapper.entityToDto(null));
+        assertNull(flightMapper.dtoToEntity(null));
+    }
+}
@@ -0,0 +1,102 @@
+package com.luis.agencia.repository;
+
+import com.luis.agencia.AgenciaApplication;
+import com.luis.agencia.model.Hotel;
+import com.luis.agencia.model.Passenger;
+import com.luis.agencia.model.Room;
+import com.luis.agencia.model.RoomType;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Mide cuántas sentencias JDBC se preparan y cuánto se tarda al crear en bloque
+ * {@link #ROWS} habitaciones y {@link #ROWS} pasajeros con {@code saveAll}.
+ * <p>
+ * Con identificadores de secuencia ({@code pooled}) y {@code hibernate.jdbc.batch_size}, los
+ * INSERT se envían en lotes y el número de sentencias preparadas por cada mil filas queda en
+ * unas pocas decenas (un lote por cada {@code batch_size} filas y una lectura de la secuencia por
+ * cada bloque de identificadores), en lugar de una por fila como con {@code IDENTITY}.
+ * <p>
+ * No es una prueba: no se ejecuta con {@code mvn test}. Necesita la base de datos configurada en
+ * {@code application.properties} (usar una base de datos de pruebas: crea filas y las borra al
+ * terminar) y se lanza a mano desde el IDE o con {@code mvn test-compile exec:java
+ * -Dexec.classpathScope=test -Dexec.mainClass=com.luis.agencia.repository.BulkInsertBenchmark}.
+ */
+public final class BulkInsertBenchmark {
+
+    private static final int ROWS = 1_000;
+
+    private BulkInsertBenchmark() {
+    }
+
+    public static void main(String[] args) {
+        SpringApplication application = new SpringApplication(AgenciaApplication.class);
+        application.setWebApplicationType(WebApplicationType.NONE);
+        try (ConfigurableApplicationContext context = application.run(
+                "--spring.jpa.properties.hibernate.generate_statistics=true", "--logging.level.root=WARN")) {
+            Statistics statistics = context.getBean(EntityManagerFactory.class)
+                    .unwrap(SessionFactory.class).getStatistics();
+            TransactionTemplate transactionTemplate = context.getBean(TransactionTemplate.class);
+            IHotelRepository hotelRepository = context.getBean(IHotelRepository.class);
+            IRoomRepository roomRepository = context.getBean(IRoomRepository.class);
+            IPassengerRepository passengerRepository = context.getBean(IPassengerRepository.class);
+
+            Hotel hotel = new Hotel();
+            hotel.setHotelCode("BENCH-" + System.currentTimeMillis());
+            hotel.setName("Hotel de pruebas");
+            hotel.setPlace("Madrid");
+            Hotel savedHotel = hotelRepository.save(hotel);
+
+            List<Room> rooms = measure("Habitaciones", statistics, transactionTemplate, () -> {
+                List<Room> batch = new ArrayList<>(ROWS);
+                for (int i = 0; i < ROWS; i++) {
+                    Room room = new Room();
+                    room.setRoomType(i % 2 == 0 ? RoomType.SINGLE : RoomType.DOUBLE);
+                    room.setDisponibilityDateFrom(LocalDate.of(2025, 3, 1));
+                    room.setDisponibilityDateTo(LocalDate.of(2025, 9, 30));
+                    room.setHotel(savedHotel);
+                    batch.add(room);
+                }
+                return roomRepository.saveAll(batch);
+            });
+            List<Passenger> passengers = measure("Pasajeros", statistics, transactionTemplate, () -> {
+                List<Passenger> batch = new ArrayList<>(ROWS);
+                for (int i = 0; i < ROWS; i++) {
+                    Passenger passenger = new Passenger();
+                    passenger.setName("Pasajero " + i);
+                    passenger.setLastName("Pruebas");
+                    passenger.setDni(String.format("%08dB", i));
+                    batch.add(passenger);
+                }
+                return passengerRepository.saveAll(batch);
+            });
+
+            transactionTemplate.executeWithoutResult(status -> {
+                roomRepository.deleteAllInBatch(rooms);
+                passengerRepository.deleteAllInBatch(passengers);
+                hotelRepository.deleteById(savedHotel.getId());
+            });
+        }
+    }
+
+    private static <T> T measure(String name, Statistics statistics, TransactionTemplate transactionTemplate,
+                                 Supplier<T> insert) {
+        statistics.clear();
+        long start = System.nanoTime();
+        T result = transactionTemplate.execute(status -> insert.get());
+        long elapsed = System.nanoTime() - start;
+        System.out.printf("%s: %d filas, %d sentencias preparadas, %d inserciones, %.1f ms%n", name, ROWS,
+                statistics.getPrepareStatementCount(), statistics.getEntityInsertCount(), elapsed / 1_000_000.0);
+        return result;
+    }
+}
@@ -0,0 +1,850 @@
+package com.luis.agencia.repository;
+
+import com.luis.agencia.model.Destination;
+import com.luis.agencia.model.Flight;
+import com.luis.agencia.model.FlightBooking;
+import com.luis.agencia.model.Hotel;
+import com.luis.agencia.model.Passenger;
+import com.luis.agencia.model.Room;
+import com.luis.agencia.model.RoomBooking;
+import com.luis.agencia.model.RoomNight;
+import jakarta.persistence.CollectionTable;
+import jakarta.persistence.Column;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.JoinColumn;
+import jakarta.persistence.JoinTable;
+import jakarta.persistence.OneToMany;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.mapping.PropertyPath;
+import org.springframework.data.repository.query.parser.Part;
+import org.springframework.data.repository.query.parser.PartTree;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.ParameterizedType;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Comprueba que cada consulta de los repositorios de vuelos, habitaciones, hoteles, pasajeros,
+ * destinos, noches ocupadas y reservas puede resolverse con un índice (clave primaria, clave
+ * única, clave ajena o índice declarado en la entidad) en lugar de recorrer la tabla entera: para
+ * cada acceso a una tabla, alguno de sus índices debe empezar por todas las columnas comparadas
+ * por igualdad, en cualquier orden entre ellas, seguidas si acaso de la columna comparada por
+ * rango. Si no hay igualdades, el índice debe empezar por la columna del rango. Un índice único
+ * contenido en las igualdades también vale, porque devuelve como mucho una fila.
+ * <p>
+ * Las consultas derivadas del nombre del método se analizan igual que lo hace Spring Data. Las
+ * consultas con {@code @Query} se analizan a partir de su texto: las tablas salen de FROM, JOIN y
+ * UPDATE (y, en JPQL, de las relaciones que se recorren), y las columnas de las comparaciones con
+ * parámetros o con columnas de otras tablas. Para cada orden posible de las tablas se comprueba si
+ * todas se leen por índice, y el primero que lo cumple debe coincidir con el descrito en
+ * {@link #QUERY_ACCESSES}. La prueba falla si una consulta no tiene descripción o si la descripción
+ * ya no corresponde a su texto.
+ */
+class RepositoryIndexCoverageTest {
+
+    private static final Map<Class<?>, Class<?>> REPOSITORIES = Map.of(
+            IFlightRepository.class, Flight.class,
+            IRoomRepository.class, Room.class,
+            IHotelRepository.class, Hotel.class,
+            IPassengerRepository.class, Passenger.class,
+            IDestinationRepository.class, Destination.class,
+            IRoomNightRepository.class, RoomNight.class,
+            IFlightBookingRepository.class, FlightBooking.class,
+            IRoomBookingRepository.class, RoomBooking.class);
+
+    private static final List<Class<?>> ENTITIES = List.of(Flight.class, Room.class, Hotel.class,
+            Passenger.class, RoomNight.class, Destination.class, FlightBooking.class, RoomBooking.class);
+
+    /**
+     * Accesos por índice de cada consulta con {@code @Query}, por {@code Repositorio.método} (con
+     * {@code /número de parámetros} si el método está sobrecargado), con la forma
+     * {@code tabla(igualdades; rango)} y en el orden en que se leen las tablas. Una tabla sin
+     * condiciones, {@code tabla()}, se recorre entera y tiene que figurar en {@link #FULL_SCANS}.
+     * Las condiciones unidas con OR se describen como accesos separados a la misma tabla.
+     */
+    private static final Map<String, String> QUERY_ACCESSES = Map.ofEntries(
+            Map.entry("IFlightRepository.findExistingFlightNumbers", "flight(flight_number)"),
+            Map.entry("IFlightRepository.findExistingNames", "flight(name)"),
+            Map.entry("IFlightRepository.findActiveDtosByDateFromBetween", "flight(origin_id, destination_id; date_from)"),
+            Map.entry("IFlightRepository.findActiveDtosByDateToBetween", "flight(origin_id, destination_id; date_to)"),
+            Map.entry("IFlightRepository.findByDateFromOrDateTo", "flight(date_from) flight(date_to)"),
+            Map.entry("IFlightRepository.decrementSeats", "flight(id; economy_seats_q)"),
+            Map.entry("IFlightRepository.incrementSeats", "flight(id)"),
+            Map.entry("IFlightRepository.findSeatAvailabilityById", "flight(id)"),
+            Map.entry("IFlightRepository.findActiveDtoPage", "flight(; id)"),
+            Map.entry("IFlightRepository.findDtoById", "flight(id)"),
+            Map.entry("IHotelRepository.findActiveDtoPage", "hotel(; id)"),
+            Map.entry("IHotelRepository.findActiveDtoById", "hotel(id)"),
+            Map.entry("IHotelRepository.findRoomCounterMismatches", "hotel() room(hotel_id)"),
+            Map.entry("IHotelRepository.recomputeRoomCounters", "hotel() room()"),
+            Map.entry("IRoomRepository.findRoomIdsByHotelIdIn", "room(hotel_id)"),
+            Map.entry("IRoomRepository.findAvailableRoomsByTypeAndDestination",
+                    "room(room_type; disponibility_date_from) room_night(room_id; night) hotel(id, place_id)"),
+            Map.entry("IRoomRepository.findAvailableRoomsByDestination",
+                    "hotel(place_id) room(hotel_id; disponibility_date_from) room_night(room_id; night)"),
+            Map.entry("IRoomRepository.findRoomCandidatesByTypeAndDestination",
+                    "room(room_type; disponibility_date_from) hotel(id, place_id) room_night(room_id; night)"),
+            Map.entry("IPassengerRepository.assignFlightBooking", "passenger(id)"),
+            Map.entry("IPassengerRepository.unassignFlightBooking", "passenger(flight_booking_id)"),
+            Map.entry("IPassengerRepository.assignRoomBooking", "passenger(id)"),
+            Map.entry("IPassengerRepository.unassignRoomBooking", "passenger(room_booking_id)"),
+            Map.entry("IDestinationRepository.findByAliasKey", "destination_alias(alias_key) destination(id)"),
+            Map.entry("IRoomNightRepository.claimNights", "room(id) room_night(room_id; night)"),
+            Map.entry("IRoomNightRepository.findBookedNightsByRoomIdIn", "room_night(room_id)"),
+            Map.entry("IRoomNightRepository.findFullyClaimedRoomIds", "room_night(room_booking_id, room_id)"),
+            Map.entry("IRoomNightRepository.releaseNights/2", "room_night(room_booking_id, room_id)"),
+            Map.entry("IRoomNightRepository.releaseNights/1", "room_night(room_booking_id)"),
+            Map.entry("IRoomNightRepository.findAllBookedNights", "room_night()"),
+            Map.entry("IFlightBookingRepository.streamAllForExport", "flight_booking() flight(id)"),
+            Map.entry("IRoomBookingRepository.streamBookedRoomsForExport",
+                    "room_booking() room_booking_room(room_booking_id) room(id) hotel(id)"));
+
+    /**
+     * Tablas que una consulta recorre enteras a propósito, por {@code Repositorio.método}.
+     */
+    private static final Map<String, Set<String>> FULL_SCANS = Map.of(
+            // Concilian todos los hoteles con sus habitaciones
+            "IHotelRepository.findRoomCounterMismatches", Set.of("hotel"),
+            "IHotelRepository.recomputeRoomCounters", Set.of("hotel", "room"),
+            // Carga el índice de disponibilidad en memoria
+            "IRoomNightRepository.findAllBookedNights", Set.of("room_night"),
+            // Las exportaciones recorren todas las reservas
+            "IFlightBookingRepository.streamAllForExport", Set.of("flight_booking"),
+            "IRoomBookingRepository.streamBookedRoomsForExport", Set.of("room_booking"));
+
+    private static final Pattern ACCESS = Pattern.compile("(\\w+)\\(([^;)]*)(?:;([^)]*))?\\)");
+
+    private static final Pattern TABLE_REFERENCE = Pattern.compile(
+            "(?i)\\b(LEFT\\s+(?:OUTER\\s+)?JOIN|JOIN|FROM|UPDATE)\\s+([\\w.]+)(?:\\s+(?:AS\\s+)?(\\w+))?");
+
+    private static final String OPERAND = "[A-Za-z_]\\w*(?:\\.\\w+)*|:\\w+|\\(\\s*:\\w+\\s*\\)|'[^']*'|\\d+";
+
+    /**
+     * Comparación entre dos operandos. Las que no pueden usar un índice ({@code <>}, NOT IN) se
+     * reconocen para descartarlas.
+     */
+    private static final Pattern COMPARISON = Pattern.compile("(?i)(?<![\\w.:'])(" + OPERAND + ")\\s*"
+            + "(<=|>=|<>|!=|=|<|>|NOT\\s+IN\\b|IN\\b|BETWEEN\\b)\\s*(" + OPERAND + ")");
+
+    private static final Pattern PARAMETER = Pattern.compile("\\(?\\s*:\\w+\\s*\\)?");
+
+    private static final Set<String> KEYWORDS = Set.of("where", "set", "on", "left", "right", "inner", "outer",
+            "cross", "join", "order", "group", "having", "limit", "with", "union", "as");
+
+    @Test
+    void testEveryRepositoryQueryHasAnIndex() {
+        Map<String, List<Key>> indexes = indexesByTable();
+        List<String> uncovered = new ArrayList<>();
+        REPOSITORIES.forEach((repository, entity) -> {
+            for (Method method : repository.getDeclaredMethods()) {
+                if (method.isDefault() || method.isSynthetic()) {
+                    continue;
+                }
+                String key = key(repository, method);
+                Set<String> scans = FULL_SCANS.getOrDefault(key, Set.of());
+                List<Access> accesses = method.isAnnotationPresent(Query.class)
+                        ? queryAccesses(method.getAnnotation(Query.class), scans, indexes)
+                        : derivedAccesses(method, entity);
+                for (Access access : accesses) {
+                    if (!isCovered(access, indexes.getOrDefault(access.table(), List.of()))
+                            && !(access.isFullScan() && scans.contains(access.table()))) {
+                        uncovered.add(key + ": " + access);
+                    }
+                }
+            }
+        });
+        assertEquals(List.of(), uncovered);
+    }
+
+    @Test
+    void testQueryDescriptionsMatchQueryText() {
+        Map<String, List<Key>> indexes = indexesByTable();
+        List<String> stale = new ArrayList<>();
+        Set<String> keys = new HashSet<>();
+        for (Class<?> repository : REPOSITORIES.keySet()) {
+            for (Method method : repository.getDeclaredMethods()) {
+                Query query = method.getAnnotation(Query.class);
+                if (query == null) {
+                    continue;
+                }
+                String key = key(repository, method);
+                keys.add(key);
+                String description = QUERY_ACCESSES.get(key);
+                if (description == null) {
+                    stale.add(key + ": consulta sin describir");
+                    continue;
+                }
+                List<Access> accesses = queryAccesses(query, FULL_SCANS.getOrDefault(key, Set.of()), indexes);
+                if (!accesses.equals(parseAccesses(description))) {
+                    stale.add(key + ": " + accesses);
+                }
+            }
+        }
+        QUERY_ACCESSES.keySet().stream().filter(key -> !keys.contains(key))
+                .forEach(key -> stale.add(key + ": descripción sin consulta"));
+        FULL_SCANS.keySet().stream().filter(key -> !keys.contains(key))
+                .forEach(key -> stale.add(key + ": recorrido sin consulta"));
+        assertEquals(List.of(), stale);
+    }
+
+    @Test
+    void testQueryAccessesFollowTheQueryText() {
+        Map<String, List<Key>> indexes = indexesByTable();
+
+        // Sin índice para el rango de fechas de la habitación, la consulta empieza por el hotel del destino
+        assertEquals(parseAccesses("hotel(place_id) room(hotel_id; disponibility_date_from) room_night(room_id; night)"),
+                queryAccesses(method(IRoomRepository.class, "findAvailableRoomsByDestination").getAnnotation(Query.class),
+                        Set.of(), indexes));
+        // Las comparaciones con valores fijos y las que no pueden usar un índice se filtran después
+        Query query = queryOf("SELECT f FROM Flight f WHERE f.isActiva = true AND f.id <> :id "
+                + "AND f.flightNumber NOT IN :numbers AND f.dateFrom >= :from");
+        assertEquals(List.of(new Access("flight", Set.of(), "date_from")), queryAccesses(query, Set.of(), indexes));
+        // Cada rama de un OR es un acceso distinto
+        assertEquals(parseAccesses("flight(origin_id) flight(destination_id)"),
+                queryAccesses(queryOf("SELECT f FROM Flight f WHERE f.originId = :id OR f.destinationId = :id"),
+                        Set.of(), indexes));
+        // Una tabla sin condiciones solo se lee entera si no hay otro orden mejor
+        assertEquals(parseAccesses("hotel() room(hotel_id)"),
+                queryAccesses(queryOf("SELECT h FROM Hotel h LEFT JOIN h.rooms r"), Set.of("hotel"), indexes));
+    }
+
+    @Test
+    void testDerivedQueriesUseDeclaredIndexes() {
+        Map<String, List<Key>> indexes = indexesByTable();
+
+        assertTrue(indexes.get("flight").contains(new Key(List.of("origin_id", "destination_id", "date_from"), false)));
+        assertTrue(indexes.get("flight").contains(new Key(List.of("origin_id", "destination_id", "date_to"), false)));
+        assertTrue(indexes.get("passenger").contains(new Key(List.of("dni"), false)));
+        Access byRouteAndDate = new Access("flight", Set.of("date_from", "origin_id", "destination_id"), null);
+        assertEquals(List.of(byRouteAndDate),
+                derivedAccesses(method(IFlightRepository.class, "findByDateFromAndOriginIdAndDestinationId"), Flight.class));
+        assertTrue(isCovered(byRouteAndDate, indexes.get("flight")));
+        assertEquals(List.of(new Access("room", Set.of("hotel_id"), "disponibility_date_from")),
+                derivedAccesses(method(IRoomRepository.class,
+                        "findByHotelIdAndDisponibilityDateFromLessThanEqualAndDisponibilityDateToGreaterThanEqual"), Room.class));
+    }
+
+    @Test
+    void testIndexMustStartWithEveryEqualityColumn() {
+        Key byDate = new Key(List.of("date_from"), false);
+        Key byRouteAndDate = new Key(List.of("origin_id", "destination_id", "date_from"), false);
+        Key byId = new Key(List.of("id"), true);
+
+        // La fecha sola no basta cuando también se filtra por ruta
+        assertFalse(isCovered(new Access("flight", Set.of("origin_id", "destination_id", "date_from"), null), List.of(byDate, byId)));
+        assertTrue(isCovered(new Access("flight", Set.of("date_from", "destination_id", "origin_id"), null), List.of(byRouteAndDate)));
+        assertTrue(isCovered(new Access("flight", Set.of("origin_id", "destination_id"), "date_from"), List.of(byRouteAndDate)));
+        // Un índice que empieza por una columna que la consulta no fija no sirve
+        assertFalse(isCovered(new Access("flight", Set.of("destination_id"), "date_from"), List.of(byRouteAndDate)));
+        assertFalse(isCovered(new Access("flight", Set.of(), "date_from"), List.of(byRouteAndDate)));
+        assertTrue(isCovered(new Access("flight", Set.of(), "date_from"), List.of(byDate)));
+        // Una clave única contenida en las igualdades devuelve como mucho una fila
+        assertTrue(isCovered(new Access("flight", Set.of("id", "origin_id"), null), List.of(byId)));
+    }
+
+    private static Method method(Class<?> repository, String name) {
+        return Arrays.stream(repository.getDeclaredMethods())
+                .filter(m -> m.getName().equals(name))
+                .findFirst()
+                .orElseThrow();
+    }
+
+    /**
+     * Una tabla se accede por índice si alguno de sus índices empieza por todas las columnas
+     * comparadas por igualdad (o por la del rango si no hay igualdades), o si es un índice único
+     * cuyas columnas se fijan todas por igualdad.
+     */
+    private static boolean isCovered(Access access, List<Key> indexes) {
+        Set<String> equalities = access.equalities();
+        for (Key index : indexes) {
+            List<String> columns = index.columns();
+            if (index.unique() && !equalities.isEmpty() && equalities.containsAll(columns)) {
+                return true;
+            }
+            if (equalities.isEmpty()) {
+                if (columns.get(0).equals(access.range())) {
+                    return true;
+                }
+            } else if (columns.size() >= equalities.size()
+                    && Set.copyOf(columns.subList(0, equalities.size())).equals(equalities)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Columnas filtradas por una consulta derivada, un acceso por cada rama OR. Las comparaciones
+     * por rango después de la primera, y las que no pueden usar un índice (LIKE, NOT...), se
+     * filtran sobre las filas ya encontradas y no cuentan.
+     */
+    private static List<Access> derivedAccesses(Method method, Class<?> entity) {
+        PartTree tree = new PartTree(method.getName(), entity);
+        List<Access> accesses = new ArrayList<>();
+        for (PartTree.OrPart orPart : tree) {
+            Set<String> equalities = new HashSet<>();
+            String range = null;
+            for (Part part : orPart) {
+                String column = column(entity, part.getProperty());
+                switch (part.getType()) {
+                    case SIMPLE_PROPERTY, IN, TRUE, FALSE, IS_NULL -> equalities.add(column);
+                    case BETWEEN, LESS_THAN, LESS_THAN_EQUAL, GREATER_THAN, GREATER_THAN_EQUAL,
+                         BEFORE, AFTER, STARTING_WITH -> range = range == null ? column : range;
+                    default -> {
+                    }
+                }
+            }
+            accesses.add(new Access(tableName(entity), Set.copyOf(equalities), range));
+        }
+        return accesses;
+    }
+
+    /**
+     * Clave de un método en {@link #QUERY_ACCESSES} y {@link #FULL_SCANS}.
+     */
+    private static String key(Class<?> repository, Method method) {
+        long overloads = Arrays.stream(repository.getDeclaredMethods())
+                .filter(m -> m.getName().equals(method.getName()))
+                .count();
+        return repository.getSimpleName() + "." + method.getName()
+                + (overloads > 1 ? "/" + method.getParameterCount() : "");
+    }
+
+    private static List<Access> parseAccesses(String description) {
+        List<Access> accesses = new ArrayList<>();
+        Matcher matcher = ACCESS.matcher(description);
+        while (matcher.find()) {
+            Set<String> equalities = Arrays.stream(matcher.group(2).split(","))
+                    .map(String::trim)
+                    .filter(column -> !column.isEmpty())
+                    .collect(Collectors.toUnmodifiableSet());
+            String range = matcher.group(3) == null || matcher.group(3).isBlank() ? null : matcher.group(3).trim();
+            accesses.add(new Access(matcher.group(1), equalities, range));
+        }
+        return accesses;
+    }
+
+    /**
+     * Accesos de una consulta con {@code @Query}, leídos de su texto. Se prueban todos los órdenes
+     * de las tablas (las de subconsultas y LEFT JOIN no pueden ir primero) y se devuelve el primero
+     * en que todas se leen por índice o están en {@code scans}; si no hay ninguno, el orden en que
+     * aparecen, para informar de las que no lo cumplen.
+     */
+    private static List<Access> queryAccesses(Query query, Set<String> scans, Map<String, List<Key>> indexes) {
+        String text = statementWithoutAssignments(query.value());
+        QueryModel model = new QueryModel(query.nativeQuery());
+        model.readTables(text);
+        // Crea las uniones implícitas de las rutas (r.hotel.placeId) antes de separar las ramas
+        Matcher operands = COMPARISON.matcher(text);
+        while (operands.find()) {
+            model.resolve(operands.group(1));
+            model.resolve(operands.group(3));
+        }
+        Set<Access> accesses = new LinkedHashSet<>();
+        for (String branch : whereBranches(text)) {
+            accesses.addAll(model.plan(model.conditions(branch), scans, indexes));
+        }
+        return List.copyOf(accesses);
+    }
+
+    /**
+     * Quita las asignaciones de UPDATE ({@code SET ...}) y de {@code ON DUPLICATE KEY UPDATE},
+     * que no filtran filas.
+     */
+    private static String statementWithoutAssignments(String query) {
+        String text = query.replaceAll("(?is)\\s+ON\\s+DUPLICATE\\s+KEY\\s+UPDATE\\s+.*$", "");
+        if (text.trim().toUpperCase().startsWith("UPDATE")) {
+            int set = topLevelKeyword(text, "SET", 0);
+            if (set >= 0) {
+                int where = topLevelKeyword(text, "WHERE", set);
+                text = text.substring(0, set) + (where >= 0 ? text.substring(where) : "");
+            }
+        }
+        return text;
+    }
+
+    /**
+     * Texto de la consulta una vez por cada rama OR de su WHERE principal, con el resto de la consulta.
+     */
+    private static List<String> whereBranches(String text) {
+        int where = topLevelKeyword(text, "WHERE", 0);
+        if (where < 0) {
+            return List.of(text);
+        }
+        int end = text.length();
+        for (String keyword : List.of("ORDER", "GROUP", "HAVING", "LIMIT")) {
+            int position = topLevelKeyword(text, keyword, where);
+            if (position >= 0) {
+                end = Math.min(end, position);
+            }
+        }
+        String shared = text.substring(0, where) + " " + text.substring(end);
+        List<String> branches = new ArrayList<>();
+        int from = where + "WHERE".length();
+        for (int or = topLevelKeyword(text, "OR", from); or >= 0 && or < end; or = topLevelKeyword(text, "OR", from)) {
+            branches.add(shared + " WHERE " + text.substring(from, or));
+            from = or + "OR".length();
+        }
+        branches.add(shared + " WHERE " + text.substring(from, end));
+        return branches;
+    }
+
+    /**
+     * Posición de la primera palabra clave fuera de paréntesis a partir de {@code from}, o -1.
+     */
+    private static int topLevelKeyword(String text, String keyword, int from) {
+        Matcher matcher = Pattern.compile("(?i)\\b" + keyword + "\\b").matcher(text);
+        int searchFrom = from;
+        while (matcher.find(searchFrom)) {
+            if (depth(text, matcher.start()) == 0) {
+                return matcher.start();
+            }
+            searchFrom = matcher.end();
+        }
+        return -1;
+    }
+
+    private static int depth(String text, int position) {
+        int depth = 0;
+        for (int i = 0; i < position; i++) {
+            if (text.charAt(i) == '(') {
+                depth++;
+            } else if (text.charAt(i) == ')') {
+                depth--;
+            }
+        }
+        return depth;
+    }
+
+    private static boolean isLiteral(String operand) {
+        return operand.startsWith("'") || Character.isDigit(operand.charAt(0))
+                || Set.of("true", "false", "null").contains(operand.toLowerCase());
+    }
+
+    private static Class<?> targetEntity(Field field) {
+        if (field.getGenericType() instanceof ParameterizedType generic) {
+            return (Class<?>) generic.getActualTypeArguments()[0];
+        }
+        return field.getType();
+    }
+
+    /**
+     * Consulta de prueba con el texto indicado, en JPQL.
+     */
+    private static Query queryOf(String value) {
+        return new Query() {
+            @Override
+            public Class<? extends java.lang.annotation.Annotation> annotationType() {
+                return Query.class;
+            }
+
+            @Override
+            public String value() {
+                return value;
+            }
+
+            @Override
+            public String countQuery() {
+                return "";
+            }
+
+            @Override
+            public String countProjection() {
+                return "";
+            }
+
+            @Override
+            public boolean nativeQuery() {
+                return false;
+            }
+
+            @Override
+            public String name() {
+                return "";
+            }
+
+            @Override
+            public String countName() {
+                return "";
+            }
+
+            @Override
+            public Class<? extends org.springframework.data.jpa.repository.QueryRewriter> queryRewriter() {
+                return org.springframework.data.jpa.repository.QueryRewriter.IdentityQueryRewriter.class;
+            }
+        };
+    }
+
+    private static String column(Class<?> entity, PropertyPath path) {
+        Field field = field(entity, path.getSegment());
+        if (path.hasNext() && field.isAnnotationPresent(JoinColumn.class)) {
+            // hotel.id se resuelve con la clave ajena hotel_id, sin unir la tabla del hotel
+            return field.getAnnotation(JoinColumn.class).name();
+        }
+        return columnName(field);
+    }
+
+    private static Map<String, List<Key>> indexesByTable() {
+        Map<String, List<Key>> indexes = new HashMap<>();
+        for (Class<?> entity : ENTITIES) {
+            List<Key> tableIndexes = indexes.computeIfAbsent(tableName(entity), t -> new ArrayList<>());
+            Table table = entity.getAnnotation(Table.class);
+            if (table != null) {
+                for (Index index : table.indexes()) {
+                    tableIndexes.add(new Key(Arrays.stream(index.columnList().split(",")).map(String::trim).toList(),
+                            index.unique()));
+                }
+                for (UniqueConstraint unique : table.uniqueConstraints()) {
+                    tableIndexes.add(new Key(List.of(unique.columnNames()), true));
+                }
+            }
+            for (Field field : entity.getDeclaredFields()) {
+                Column column = field.getAnnotation(Column.class);
+                if (field.isAnnotationPresent(Id.class) || (column != null && column.unique())) {
+                    tableIndexes.add(new Key(List.of(columnName(field)), true));
+                }
+                // InnoDB crea un índice para cada clave ajena
+                if (field.isAnnotationPresent(JoinColumn.class)) {
+                    tableIndexes.add(new Key(List.of(field.getAnnotation(JoinColumn.class).name()), false));
+                }
+                // Igual en las tablas de unión, con una clave ajena por cada lado
+                JoinTable joinTable = field.getAnnotation(JoinTable.class);
+                if (joinTable != null) {
+                    List<Key> joinIndexes = indexes.computeIfAbsent(joinTable.name(), t -> new ArrayList<>());
+                    for (JoinColumn joinColumn : joinTable.joinColumns()) {
+                        joinIndexes.add(new Key(List.of(joinColumn.name()), false));
+                    }
+                    for (JoinColumn joinColumn : joinTable.inverseJoinColumns()) {
+                        joinIndexes.add(new Key(List.of(joinColumn.name()), false));
+                    }
+                }
+                CollectionTable collection = field.getAnnotation(CollectionTable.class);
+                if (collection != null) {
+                    List<Key> collectionIndexes = indexes.computeIfAbsent(collection.name(), t -> new ArrayList<>());
+                    for (JoinColumn joinColumn : collection.joinColumns()) {
+                        collectionIndexes.add(new Key(List.of(joinColumn.name()), false));
+                    }
+                    for (UniqueConstraint unique : collection.uniqueConstraints()) {
+                        collectionIndexes.add(new Key(List.of(unique.columnNames()), true));
+                    }
+                }
+            }
+        }
+        return indexes;
+    }
+
+    private static String tableName(Class<?> entity) {
+        Table table = entity.getAnnotation(Table.class);
+        return table != null && !table.name().isEmpty() ? table.name() : snakeCase(entity.getSimpleName());
+    }
+
+    private static String columnName(Field field) {
+        Column column = field.getAnnotation(Column.class);
+        return column != null && !column.name().isEmpty() ? column.name() : snakeCase(field.getName());
+    }
+
+    private static Field field(Class<?> entity, String name) {
+        try {
+            return entity.getDeclaredField(name);
+        } catch (NoSuchFieldException e) {
+            throw new IllegalArgumentException("Propiedad desconocida " + entity.getSimpleName() + "." + name, e);
+        }
+    }
+
+    /**
+     * Mismo criterio que la estrategia de nombres de Spring: camelCase pasa a snake_case.
+     */
+    private static String snakeCase(String name) {
+        return name.replaceAll("([a-z0-9])([A-Z])", "$1_$2").toLowerCase();
+    }
+
+    /**
+     * Acceso a una tabla: columnas comparadas por igualdad y, si la hay, columna comparada por rango.
+     */
+    private record Access(String table, Set<String> equalities, String range) {
+
+        boolean isFullScan() {
+            return equalities.isEmpty() && range == null;
+        }
+
+        @Override
+        public String toString() {
+            return table + equalities.stream().sorted().toList() + (range == null ? "" : " rango " + range);
+        }
+    }
+
+    /**
+     * Tabla leída por una consulta: su alias, la entidad si la tiene, la columna de valor si es una
+     * colección de valores y si puede ser la primera en leerse.
+     */
+    private record TableRef(String alias, String table, Class<?> entity, String valueColumn, boolean canLead) {
+    }
+
+    /**
+     * Columna de una tabla de la consulta.
+     */
+    private record ColumnRef(int table, String column) {
+    }
+
+    /**
+     * Comparación de una columna con un parámetro ({@code other} nulo) o con otra columna, por
+     * igualdad o por rango.
+     */
+    private record Condition(ColumnRef column, boolean equality, ColumnRef other) {
+    }
+
+    /**
+     * Tablas y uniones de una consulta, con las que se resuelven sus operandos.
+     */
+    private static final class QueryModel {
+
+        private final boolean nativeQuery;
+
+        private final List<TableRef> tables = new ArrayList<>();
+
+        private final Map<String, Integer> aliases = new HashMap<>();
+
+        /**
+         * Condiciones de unión de las relaciones recorridas, comunes a todas las ramas.
+         */
+        private final List<Condition> joins = new ArrayList<>();
+
+        QueryModel(boolean nativeQuery) {
+            this.nativeQuery = nativeQuery;
+        }
+
+        void readTables(String text) {
+            Map<String, Class<?>> entities = ENTITIES.stream()
+                    .collect(Collectors.toMap(Class::getSimpleName, entity -> entity));
+            Set<String> tableNames = ENTITIES.stream().map(RepositoryIndexCoverageTest::tableName)
+                    .collect(Collectors.toSet());
+            Matcher matcher = TABLE_REFERENCE.matcher(text);
+            while (matcher.find()) {
+                String source = matcher.group(2);
+                String alias = matcher.group(3) == null || KEYWORDS.contains(matcher.group(3).toLowerCase())
+                        ? source : matcher.group(3);
+                boolean canLead = depth(text, matcher.start()) == 0
+                        && !matcher.group(1).toUpperCase().startsWith("LEFT");
+                if (source.contains(".")) {
+                    String[] path = source.split("\\.");
+                    join(aliases.get(path[0]), path[1], alias, canLead);
+                } else if (!nativeQuery && entities.containsKey(source)) {
+                    add(alias, new TableRef(alias, tableName(entities.get(source)), entities.get(source), null, canLead));
+                } else if (nativeQuery && tableNames.contains(source)) {
+                    add(alias, new TableRef(alias, source, null, null, canLead));
+                }
+            }
+        }
+
+        private int add(String alias, TableRef table) {
+            tables.add(table);
+            if (alias != null) {
+                aliases.put(alias, tables.size() - 1);
+            }
+            return tables.size() - 1;
+        }
+
+        /**
+         * Une a la tabla {@code from} la relación {@code name} de su entidad, con sus condiciones de unión.
+         */
+        private int join(int from, String name, String alias, boolean canLead) {
+            Field field = field(tables.get(from).entity(), name);
+            Class<?> target = targetEntity(field);
+            CollectionTable collection = field.getAnnotation(CollectionTable.class);
+            if (collection != null) {
+                int values = add(alias, new TableRef(alias, collection.name(), null, columnName(field), canLead));
+                link(values, collection.joinColumns()[0].name(), from, "id");
+                return values;
+            }
+            JoinTable joinTable = field.getAnnotation(JoinTable.class);
+            if (joinTable != null) {
+                int linkTable = add(null, new TableRef(null, joinTable.name(), null, null, canLead));
+                link(linkTable, joinTable.joinColumns()[0].name(), from, "id");
+                int joined = add(alias, new TableRef(alias, tableName(target), target, null, canLead));
+                link(joined, "id", linkTable, joinTable.inverseJoinColumns()[0].name());
+                return joined;
+            }
+            int joined = add(alias, new TableRef(alias, tableName(target), target, null, canLead));
+            OneToMany oneToMany = field.getAnnotation(OneToMany.class);
+            if (oneToMany != null) {
+                link(joined, field(target, oneToMany.mappedBy()).getAnnotation(JoinColumn.class).name(), from, "id");
+            } else {
+                link(joined, "id", from, field.getAnnotation(JoinColumn.class).name());
+            }
+            return joined;
+        }
+
+        private void link(int table, String column, int other, String otherColumn) {
+            ColumnRef left = new ColumnRef(table, column);
+            ColumnRef right = new ColumnRef(other, otherColumn);
+            joins.add(new Condition(left, true, right));
+            joins.add(new Condition(right, true, left));
+        }
+
+        /**
+         * Columna a la que se refiere un operando, o {@code null} si no es una columna de una tabla
+         * conocida (parámetros, valores fijos, columnas de tablas derivadas...).
+         */
+        ColumnRef resolve(String operand) {
+            String[] path = operand.split("\\.");
+            Integer table = aliases.get(path[0]);
+            if (table == null) {
+                return null;
+            }
+            if (path.length == 1) {
+                TableRef ref = tables.get(table);
+                // Un alias suelto es el valor de una colección o la entidad, por su clave primaria
+                return nativeQuery ? null : new ColumnRef(table, ref.valueColumn() != null ? ref.valueColumn() : "id");
+            }
+            if (nativeQuery) {
+                return new ColumnRef(table, path[1]);
+            }
+            for (int i = 1; i < path.length; i++) {
+                Field field = field(tables.get(table).entity(), path[i]);
+                boolean relation = field.isAnnotationPresent(JoinColumn.class);
+                boolean last = i == path.length - 1;
+                if (relation && (last || (i == path.length - 2 && path[i + 1].equals("id")))) {
+                    // r.hotel o r.hotel.id se resuelven con la clave ajena, sin unir la tabla del hotel
+                    return new ColumnRef(table, field.getAnnotation(JoinColumn.class).name());
+                }
+                if (last) {
+                    return new ColumnRef(table, columnName(field));
+                }
+                String implicit = String.join(".", Arrays.copyOf(path, i + 1));
+                Integer joined = aliases.get(implicit);
+                table = joined != null ? joined : join(table, path[i], implicit, true);
+            }
+            throw new IllegalStateException(operand);
+        }
+
+        /**
+         * Condiciones de la rama: las uniones de las relaciones más las comparaciones del texto
+         * que pueden usar un índice, orientadas hacia cada columna de tabla que intervenga.
+         */
+        List<Condition> conditions(String branch) {
+            List<Condition> conditions = new ArrayList<>(joins);
+            Matcher matcher = COMPARISON.matcher(branch);
+            while (matcher.find()) {
+                String operator = matcher.group(2).toUpperCase().replaceAll("\\s+", " ");
+                if (Set.of("<>", "!=", "NOT IN").contains(operator)) {
+                    continue;
+                }
+                boolean equality = operator.equals("=") || operator.equals("IN");
+                add(conditions, matcher.group(1), matcher.group(3), equality);
+                if (equality) {
+                    add(conditions, matcher.group(3), matcher.group(1), true);
+                } else if (!operator.equals("BETWEEN")) {
+                    // :desde <= f.fecha es un rango sobre f.fecha
+                    add(conditions, matcher.group(3), matcher.group(1), false);
+                }
+            }
+            return conditions;
+        }
+
+        private void add(List<Condition> conditions, String left, String right, boolean equality) {
+            ColumnRef column = resolve(left);
+            if (column == null || isLiteral(right)) {
+                return;
+            }
+            if (PARAMETER.matcher(right).matches()) {
+                conditions.add(new Condition(column, equality, null));
+                return;
+            }
+            ColumnRef other = resolve(right);
+            if (other != null && other.table() != column.table()) {
+                conditions.add(new Condition(column, equality, other));
+            }
+        }
+
+        /**
+         * Accesos del primer orden de tablas en que todas se leen por índice o están en {@code scans}.
+         */
+        List<Access> plan(List<Condition> conditions, Set<String> scans, Map<String, List<Key>> indexes) {
+            List<Integer> appearance = new ArrayList<>();
+            for (int i = 0; i < tables.size(); i++) {
+                appearance.add(i);
+            }
+            for (List<Integer> order : permutations(appearance)) {
+                if (!tables.get(order.get(0)).canLead()) {
+                    continue;
+                }
+                List<Access> accesses = accesses(order, conditions);
+                boolean covered = accesses.stream().allMatch(access ->
+                        isCovered(access, indexes.getOrDefault(access.table(), List.of()))
+                                || (access.isFullScan() && scans.contains(access.table())));
+                if (covered) {
+                    return accesses;
+                }
+            }
+            return accesses(appearance, conditions);
+        }
+
+        /**
+         * Accesos al leer las tablas en el orden indicado: cada tabla usa las comparaciones con
+         * parámetros y con columnas de las tablas ya leídas.
+         */
+        private List<Access> accesses(List<Integer> order, List<Condition> conditions) {
+            List<Access> accesses = new ArrayList<>();
+            for (int position = 0; position < order.size(); position++) {
+                int table = order.get(position);
+                Set<Integer> read = Set.copyOf(order.subList(0, position));
+                Set<String> equalities = new HashSet<>();
+                String range = null;
+                for (Condition condition : conditions) {
+                    if (condition.column().table() != table
+                            || (condition.other() != null && !read.contains(condition.other().table()))) {
+                        continue;
+                    }
+                    if (condition.equality()) {
+                        equalities.add(condition.column().column());
+                    } else if (range == null) {
+                        range = condition.column().column();
+                    }
+                }
+                accesses.add(new Access(tables.get(table).table(), Set.copyOf(equalities), range));
+            }
+            return accesses;
+        }
+
+        private static List<List<Integer>> permutations(List<Integer> items) {
+            if (items.isEmpty()) {
+                return List.of(List.of());
+            }
+            List<List<Integer>> permutations = new ArrayList<>();
+            for (Integer first : items) {
+                List<Integer> rest = new ArrayList<>(items);
+                rest.remove(first);
+                for (List<Integer> tail : permutations(rest)) {
+                    List<Integer> permutation = new ArrayList<>();
+                    permutation.add(first);
+                    permutation.addAll(tail);
+                    permutations.add(permutation);
+                }
+            }
+            return permutations;
+        }
+    }
+
+    /**
+     * Índice de una tabla: columnas en el orden declarado y si es único.
+     */
+    private record Key(List<String> columns, boolean unique) {
+    }
+}
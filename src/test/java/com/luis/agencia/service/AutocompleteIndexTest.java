@@ -0,0 +1,94 @@
+package com.luis.agencia.service;
+
+import com.luis.agencia.model.Flight;
+import com.luis.agencia.model.Hotel;
+import com.luis.agencia.repository.IFlightRepository;
+import com.luis.agencia.repository.IHotelRepository;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class AutocompleteIndexTest {
+
+    private static final LocalDate IDA = LocalDate.of(2025, 3, 15);
+    private static final LocalDate VUELTA = LocalDate.of(2025, 3, 22);
+
+    private final IFlightRepository flightRepository = mock(IFlightRepository.class);
+
+    private final IHotelRepository hotelRepository = mock(IHotelRepository.class);
+
+    private final AutocompleteIndex index = new AutocompleteIndex(flightRepository, hotelRepository);
+
+    private static Flight flight(Long id, String origin, String destination) {
+        Flight flight = new Flight("Vuelo " + id, "FN" + id, origin, destination,
+                10, 50, 250.0, 100.0, true, IDA, VUELTA);
+        flight.setId(id);
+        return flight;
+    }
+
+    private static Hotel hotel(Long id, String name, String place) {
+        Hotel hotel = new Hotel();
+        hotel.setId(id);
+        hotel.setName(name);
+        hotel.setPlace(place);
+        hotel.setActive(true);
+        return hotel;
+    }
+
+    @Test
+    void testSuggestsByPrefixIgnoringCaseAndAccents() {
+        when(flightRepository.findAll()).thenReturn(List.of(
+                flight(1L, "Madrid", "París"),
+                flight(2L, "Málaga", "Paris"),
+                flight(3L, "Paris", "Marrakech"),
+                flight(4L, "Mallorca", "Roma")));
+        when(hotelRepository.findAll()).thenReturn(List.of(
+                hotel(1L, "Hotel Sol", "Sevilla"),
+                hotel(2L, "Hostal Luna", "Segovia")));
+
+        index.rebuild();
+
+        assertEquals(List.of("Madrid", "Málaga", "Mallorca"), index.suggest(AutocompleteIndex.Field.ORIGIN, " MA", 10));
+        assertEquals(List.of("Madrid", "Málaga"), index.suggest(AutocompleteIndex.Field.ORIGIN, "ma", 2));
+        assertEquals(List.of("Málaga", "Mallorca"), index.suggest(AutocompleteIndex.Field.ORIGIN, "mal", 10));
+        // "París" y "Paris" son el mismo término; empatadas, se muestra una sola forma
+        assertEquals(1, index.suggest(AutocompleteIndex.Field.DESTINATION, "par", 10).size());
+        assertEquals(List.of("Segovia", "Sevilla"), index.suggest(AutocompleteIndex.Field.PLACE, "se", 10));
+        assertEquals(List.of("Hostal Luna", "Hotel Sol"), index.suggest(AutocompleteIndex.Field.HOTEL, "ho", 10));
+        assertTrue(index.suggest(AutocompleteIndex.Field.ORIGIN, "  ", 10).isEmpty());
+        assertTrue(index.suggest(AutocompleteIndex.Field.ORIGIN, "lisboa", 10).isEmpty());
+    }
+
+    @Test
+    void testRefreshFollowsEditsAndDeletes() {
+        when(flightRepository.findAll()).thenReturn(List.of(flight(1L, "Madrid", "Paris"), flight(2L, "Madrid", "Roma")));
+        when(hotelRepository.findAll()).thenReturn(List.of(hotel(1L, "Hotel Sol", "Sevilla")));
+        index.rebuild();
+
+        // Madrid sigue sugiriéndose mientras algún vuelo activo salga de allí
+        Flight deleted = flight(1L, "Madrid", "Paris");
+        deleted.setActiva(false);
+        index.refreshFlightAfterCommit(deleted);
+        assertEquals(List.of("Madrid"), index.suggest(AutocompleteIndex.Field.ORIGIN, "mad", 10));
+        assertTrue(index.suggest(AutocompleteIndex.Field.DESTINATION, "par", 10).isEmpty());
+
+        index.refreshFlightAfterCommit(flight(2L, "Barcelona", "Roma"));
+        assertTrue(index.suggest(AutocompleteIndex.Field.ORIGIN, "mad", 10).isEmpty());
+        assertEquals(List.of("Barcelona"), index.suggest(AutocompleteIndex.Field.ORIGIN, "b", 10));
+
+        index.refreshHotelAfterCommit(hotel(1L, "Hotel Sol y Mar", "Cádiz"));
+        index.refreshHotelAfterCommit(hotel(2L, "Hotel Luna", "Cadiz"));
+        assertTrue(index.suggest(AutocompleteIndex.Field.PLACE, "sev", 10).isEmpty());
+        assertEquals(List.of("Hotel Luna", "Hotel Sol y Mar"), index.suggest(AutocompleteIndex.Field.HOTEL, "hotel", 10));
+        assertEquals(1, index.suggest(AutocompleteIndex.Field.PLACE, "cad", 10).size());
+
+        Hotel closed = hotel(2L, "Hotel Luna", "Cadiz");
+        closed.setActive(false);
+        index.refreshHotelAfterCommit(closed);
+        assertEquals(List.of("Cádiz"), index.suggest(AutocompleteIndex.Field.PLACE, "cad", 10));
+    }
+}
@@ -0,0 +1,34 @@
+package com.luis.agencia.service;
+
+import com.luis.agencia.model.Destination;
+import com.luis.agencia.repository.IDestinationRepository;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Diccionarios de destinos para las pruebas, sin base de datos: los destinos nuevos reciben
+ * identificadores consecutivos desde 1.
+ */
+final class DestinationDictionaries {
+
+    private DestinationDictionaries() {
+    }
+
+    static DestinationDictionary inMemory() {
+        IDestinationRepository repository = mock(IDestinationRepository.class);
+        AtomicInteger ids = new AtomicInteger();
+        lenient().when(repository.save(any(Destination.class))).thenAnswer(invocation -> {
+            Destination destination = invocation.getArgument(0);
+            if (destination.getId() == null) {
+                destination.setId(ids.incrementAndGet());
+            }
+            return destination;
+        });
+        return new DestinationDictionary(repository, mock(PlatformTransactionManager.class), new SearchCache());
+    }
+}
@@ -0,0 +1,67 @@
+package com.luis.agencia.service;
+
+import com.luis.agencia.model.Destination;
+import com.luis.agencia.model.Flight;
+import com.luis.agencia.repository.IDestinationRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class DestinationDictionaryTest {
+
+    @Test
+    void testResolveCreatesEachDestinationOnceWhateverTheSpelling() {
+        DestinationDictionary dictionary = DestinationDictionaries.inMemory();
+
+        int paris = dictionary.resolve("París");
+
+        assertEquals(paris, dictionary.resolve(" PARIS "));
+        assertEquals(paris, dictionary.idOf("paris"));
+        assertEquals("París", dictionary.nameOf(paris));
+        assertNotEquals(paris, dictionary.resolve("Roma"));
+        assertEquals(DestinationDictionary.UNKNOWN, dictionary.idOf("Lisboa"));
+        assertEquals(DestinationDictionary.UNKNOWN, dictionary.resolve("  "));
+
+        Flight flight = new Flight("Vuelo 1", "FN1", "Roma", "paris", 10, 50, 250.0, 100.0, true,
+                LocalDate.of(2025, 3, 15), LocalDate.of(2025, 3, 22));
+        dictionary.assignIds(flight);
+        assertEquals(dictionary.idOf("Roma"), flight.getOriginId());
+        assertEquals(paris, flight.getDestinationId());
+    }
+
+    @Test
+    void testLoadAndAliasesMapNamesToTheSameId() {
+        IDestinationRepository repository = mock(IDestinationRepository.class);
+        Destination londres = new Destination("Londres");
+        londres.setId(3);
+        Destination roma = new Destination("Roma");
+        roma.setId(4);
+        when(repository.findAll()).thenReturn(List.of(londres, roma));
+        when(repository.findById(3)).thenReturn(Optional.of(londres));
+        when(repository.save(londres)).thenReturn(londres);
+        SearchCache searchCache = new SearchCache();
+        DestinationDictionary dictionary = new DestinationDictionary(repository, mock(PlatformTransactionManager.class),
+                searchCache);
+        dictionary.load();
+        searchCache.get("london", Set.of(SearchCache.destinationTag(DestinationDictionary.UNKNOWN)), List::of);
+        assertEquals(1, searchCache.stats().getSize());
+
+        assertEquals(3, dictionary.idOf("londres"));
+        assertEquals(DestinationDictionary.UNKNOWN, dictionary.idOf("London"));
+
+        assertEquals(List.of("london", "londres"), dictionary.addAlias(3, "London").getAliasKeys());
+        assertEquals(3, dictionary.idOf(" LONDON"));
+        // Los resultados calculados antes del alias se descartan
+        assertEquals(0, searchCache.stats().getSize());
+        // Un alias no puede pertenecer a dos destinos
+        assertThrows(IllegalArgumentException.class, () -> dictionary.addAlias(4, "london"));
+        verify(repository, never()).save(roma);
+    }
+}
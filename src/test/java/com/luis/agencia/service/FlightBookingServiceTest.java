@@ -0,0 +1,197 @@
+package com.luis.agencia.service;
+
+import com.luis.agencia.dto.FlightBookingDto;
+import com.luis.agencia.model.Flight;
+import com.luis.agencia.model.FlightBooking;
+import com.luis.agencia.model.Passenger;
+import com.luis.agencia.repository.IFlightBookingRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class FlightBookingServiceTest {
+
+    private static final LocalDate FECHA = LocalDate.of(2025, 3, 15);
+
+    /**
+     * Plantilla que ejecuta la operación directamente, sin transacción real.
+     */
+    private static final TransactionTemplate DIRECT = new TransactionTemplate() {
+        @Override
+        public <T> T execute(TransactionCallback<T> action) {
+            return action.doInTransaction(null);
+        }
+    };
+
+    /**
+     * Crea una reserva sobre un vuelo que ya tiene {@code existingBookings} reservas y
+     * devuelve el número de llamadas hechas a repositorios y servicios (es decir, las consultas).
+     */
+    private static int createBookingAndCountCalls(int existingBookings) {
+        return createBookingAndCountCalls(existingBookings, 1);
+    }
+
+    /**
+     * Igual que {@link #createBookingAndCountCalls(int)}, para una reserva de {@code passengers} pasajeros.
+     */
+    private static int createBookingAndCountCalls(int existingBookings, int passengers) {
+        IFlightService flightService = mock(IFlightService.class);
+        IFlightBookingRepository flightBookingRepo = mock(IFlightBookingRepository.class);
+        IPassengerService passengerService = mock(IPassengerService.class);
+        FlightBookingService service = new FlightBookingService();
+        ReflectionTestUtils.setField(service, "flightService", flightService);
+        ReflectionTestUtils.setField(service, "flightBookingRepo", flightBookingRepo);
+        ReflectionTestUtils.setField(service, "passengerService", passengerService);
+        ReflectionTestUtils.setField(service, "transactionTemplate", DIRECT);
+        DestinationDictionary destinationDictionary = DestinationDictionaries.inMemory();
+        ReflectionTestUtils.setField(service, "destinationDictionary", destinationDictionary);
+
+        Flight flight = new Flight("Vuelo 1", "FN1", "Madrid", "Paris", 10, 50, 250.0, 100.0, true, FECHA, FECHA.plusDays(7));
+        flight.setId(1L);
+        destinationDictionary.assignIds(flight);
+        List<FlightBooking> bookings = new ArrayList<>();
+        for (int i = 0; i < existingBookings; i++) {
+            bookings.add(new FlightBooking());
+        }
+        @SuppressWarnings("unchecked")
+        List<FlightBooking> trackedBookings = spy(bookings);
+        flight.setFlightBookings(trackedBookings);
+
+        List<Long> passengerIds = new ArrayList<>();
+        Map<Long, Passenger> passengersById = new LinkedHashMap<>();
+        for (long id = 1; id <= passengers; id++) {
+            Passenger passenger = new Passenger();
+            passenger.setId(id);
+            passengerIds.add(id);
+            passengersById.put(id, passenger);
+        }
+        when(passengerService.findPassengersByIds(passengerIds)).thenReturn(passengersById);
+        when(flightService.findByDateFromOrByDateTo(FECHA)).thenReturn(List.of(flight));
+        when(flightService.reserveSeats(1L, 1, 0)).thenReturn(true);
+
+        FlightBookingDto dto = new FlightBookingDto();
+        dto.setDate(FECHA);
+        dto.setPeopleQ(passengers);
+        dto.setPassengersIds(passengerIds);
+        dto.setOrigin("Madrid");
+        dto.setDestination("Paris");
+        dto.setTouristSeats(1);
+        dto.setBussinessSeats(0);
+
+        assertNotNull(service.create(dto));
+        verify(passengerService).assignFlightBooking(any(FlightBooking.class), eq(passengersById.keySet()));
+        // La colección de reservas del vuelo no se carga ni se modifica
+        verifyNoInteractions(trackedBookings);
+        return mockingDetails(flightService).getInvocations().size()
+                + mockingDetails(flightBookingRepo).getInvocations().size()
+                + mockingDetails(passengerService).getInvocations().size();
+    }
+
+    @Test
+    void testCreateCostDoesNotDependOnExistingBookings() {
+        assertEquals(createBookingAndCountCalls(0), createBookingAndCountCalls(5000));
+    }
+
+    @Test
+    void testGroupBookingUsesConstantNumberOfPassengerCalls() {
+        assertEquals(createBookingAndCountCalls(0, 1), createBookingAndCountCalls(0, 60));
+    }
+
+    @Test
+    void testCreateMatchesPlacesIgnoringCaseAccentsAndSpaces() {
+        IFlightService flightService = mock(IFlightService.class);
+        IPassengerService passengerService = mock(IPassengerService.class);
+        FlightBookingService service = new FlightBookingService();
+        ReflectionTestUtils.setField(service, "flightService", flightService);
+        ReflectionTestUtils.setField(service, "flightBookingRepo", mock(IFlightBookingRepository.class));
+        ReflectionTestUtils.setField(service, "passengerService", passengerService);
+        ReflectionTestUtils.setField(service, "transactionTemplate", DIRECT);
+        DestinationDictionary destinationDictionary = DestinationDictionaries.inMemory();
+        ReflectionTestUtils.setField(service, "destinationDictionary", destinationDictionary);
+
+        Flight flight = new Flight("Vuelo 1", "FN1", "Málaga", "Paris", 10, 50, 250.0, 100.0, true, FECHA, FECHA.plusDays(7));
+        flight.setId(1L);
+        destinationDictionary.assignIds(flight);
+        Passenger passenger = new Passenger();
+        passenger.setId(1L);
+        when(passengerService.findPassengersByIds(List.of(1L))).thenReturn(Map.of(1L, passenger));
+        when(flightService.findByDateFromOrByDateTo(FECHA)).thenReturn(List.of(flight));
+        when(flightService.reserveSeats(1L, 1, 0)).thenReturn(true);
+
+        FlightBookingDto dto = new FlightBookingDto();
+        dto.setDate(FECHA);
+        dto.setPeopleQ(1);
+        dto.setPassengersIds(List.of(1L));
+        dto.setOrigin(" PARÍS ");
+        dto.setDestination("malaga");
+        dto.setTouristSeats(1);
+        dto.setBussinessSeats(0);
+
+        // El vuelo de vuelta Málaga-Paris coincide aunque el usuario escriba los lugares de otra forma
+        assertNotNull(service.create(dto));
+        assertEquals(destinationDictionary.idOf("malaga"), flight.getOriginId());
+        assertEquals(destinationDictionary.idOf("paris"), flight.getDestinationId());
+    }
+
+    @Test
+    void testEditRetriesWithFreshBookingAfterConcurrentEdit() {
+        IFlightService flightService = mock(IFlightService.class);
+        IFlightBookingRepository flightBookingRepo = mock(IFlightBookingRepository.class);
+        IPassengerService passengerService = mock(IPassengerService.class);
+        FlightBookingService service = new FlightBookingService();
+        ReflectionTestUtils.setField(service, "flightService", flightService);
+        ReflectionTestUtils.setField(service, "flightBookingRepo", flightBookingRepo);
+        ReflectionTestUtils.setField(service, "passengerService", passengerService);
+        ReflectionTestUtils.setField(service, "transactionTemplate", DIRECT);
+        DestinationDictionary destinationDictionary = DestinationDictionaries.inMemory();
+        ReflectionTestUtils.setField(service, "destinationDictionary", destinationDictionary);
+
+        Flight flight = new Flight("Vuelo 1", "FN1", "Madrid", "Paris", 10, 50, 250.0, 100.0, true, FECHA, FECHA.plusDays(7));
+        flight.setId(1L);
+        destinationDictionary.assignIds(flight);
+        FlightBooking stale = new FlightBooking();
+        stale.setId(5L);
+        stale.setFlight(flight);
+        stale.setPeopleQ(1);
+        FlightBooking fresh = new FlightBooking();
+        fresh.setId(5L);
+        fresh.setFlight(flight);
+        fresh.setPeopleQ(1);
+        fresh.setVersion(1L);
+        Passenger passenger = new Passenger();
+        passenger.setId(1L);
+        when(flightBookingRepo.findById(5L)).thenReturn(Optional.of(stale), Optional.of(fresh));
+        when(passengerService.findPassengersByIds(List.of(1L))).thenReturn(Map.of(1L, passenger));
+        when(flightService.findByDateFromOrByDateTo(FECHA)).thenReturn(List.of(flight));
+        when(flightService.reserveSeats(1L, 1, 0)).thenReturn(true);
+        // Otra edición de la misma reserva confirma antes que el primer intento
+        when(flightBookingRepo.save(stale)).thenThrow(new ObjectOptimisticLockingFailureException(FlightBooking.class, 5L));
+
+        FlightBookingDto dto = new FlightBookingDto();
+        dto.setDate(FECHA);
+        dto.setPeopleQ(1);
+        dto.setPassengersIds(List.of(1L));
+        dto.setOrigin("Madrid");
+        dto.setDestination("Paris");
+        dto.setTouristSeats(1);
+        dto.setBussinessSeats(0);
+
+        assertEquals(5L, service.edit(5L, dto).getId());
+        verify(flightBookingRepo, times(2)).findById(5L);
+        verify(flightBookingRepo).save(fresh);
+        verify(passengerService).assignFlightBooking(fresh, Set.of(1L));
+    }
+}
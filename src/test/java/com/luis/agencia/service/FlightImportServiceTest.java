@@ -0,0 +1,164 @@
+package com.luis.agencia.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.luis.agencia.dto.FlightImportReportDto;
+import com.luis.agencia.dto.ImportRowErrorDto;
+import com.luis.agencia.mapper.FlightMapper;
+import com.luis.agencia.repository.IFlightRepository;
+import jakarta.validation.Validation;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentMatchers;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.StringReader;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class FlightImportServiceTest {
+
+    private static final String CSV_HEADER = "name,flightNumber,origin,destination,businessSeatsQ,economySeatsQ,"
+            + "businessSeatPrice,economySeatPrice,dateFrom,dateTo,activa";
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private IFlightRepository flightRepository;
+
+    @Mock
+    private FlightScheduleIndex flightScheduleIndex;
+
+    @Mock
+    private IdSequences idSequences;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @Mock
+    private DestinationDictionary destinationDictionary;
+
+    @Mock
+    private AutocompleteIndex autocompleteIndex;
+
+    @InjectMocks
+    private FlightImportService flightImportService;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(flightImportService, "objectMapper", new ObjectMapper().registerModule(new JavaTimeModule()));
+        ReflectionTestUtils.setField(flightImportService, "flightMapper", new FlightMapper());
+        ReflectionTestUtils.setField(flightImportService, "validator",
+                Validation.buildDefaultValidatorFactory().getValidator());
+    }
+
+    private void runTransactionsInline() {
+        doAnswer(inv -> {
+            inv.<Consumer<TransactionStatus>>getArgument(0).accept(null);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+    }
+
+    private static String csvRow(String number, int economySeats) {
+        return "\"Vuelo, " + number + "\"," + number + ",Madrid,Paris,10," + economySeats
+                + ",250.0,100.0,15-03-2025,22-03-2025,true";
+    }
+
+    @Test
+    void testImportCsv_ReportsRowErrorsAndInsertsValidRowsInOneBatch() throws Exception {
+        runTransactionsInline();
+        when(flightRepository.findExistingFlightNumbers(List.of("FN1", "FN2"))).thenReturn(Set.of("FN2"));
+        when(flightRepository.findExistingNames(List.of("Vuelo, FN1", "Vuelo, FN2"))).thenReturn(Set.of());
+        when(idSequences.reserve("flight_seq", 1)).thenReturn(101L);
+        String csv = String.join("\n", CSV_HEADER,
+                csvRow("FN1", 50),
+                csvRow("FN1", 50),
+                csvRow("FN2", 50),
+                csvRow("FN3", -1),
+                "no,es,un,vuelo");
+
+        FlightImportReportDto report = flightImportService.importFlights(new StringReader(csv), FileFormat.CSV);
+
+        assertEquals(1, report.getImported());
+        assertEquals(4, report.getRejected());
+        assertEquals(List.of(3L, 4L, 5L, 6L), report.getErrors().stream().map(ImportRowErrorDto::getLine).toList());
+        assertEquals("Ya existe un vuelo con ese número.", report.getErrors().get(1).getMessage());
+        verify(jdbcTemplate).batchUpdate(anyString(), argThat((Collection<Object> rows) -> rows.size() == 1), eq(1),
+                ArgumentMatchers.<ParameterizedPreparedStatementSetter<Object>>any());
+        // El vuelo insertado se publica en el índice con el identificador reservado
+        verify(flightScheduleIndex).refreshAfterCommit(argThat(flight -> flight.getId() == 101L));
+    }
+
+    @Test
+    void testImportNdjson_ChecksAndInsertsPerBatch() throws Exception {
+        runTransactionsInline();
+        when(flightRepository.findExistingFlightNumbers(anyCollection())).thenReturn(Set.of());
+        when(flightRepository.findExistingNames(anyCollection())).thenReturn(Set.of());
+        StringBuilder ndjson = new StringBuilder();
+        for (int i = 0; i <= FlightImportService.BATCH_SIZE; i++) {
+            ndjson.append("{\"name\":\"Vuelo ").append(i).append("\",\"flightNumber\":\"FN").append(i)
+                    .append("\",\"origin\":\"Madrid\",\"destination\":\"Paris\",\"businessSeatsQ\":10,")
+                    .append("\"economySeatsQ\":50,\"businessSeatPrice\":250.0,\"economySeatPrice\":100.0,")
+                    .append("\"dateFrom\":\"15-03-2025\",\"dateTo\":\"22-03-2025\",\"activa\":true}\n");
+        }
+        ndjson.append("{no es json\n");
+
+        FlightImportReportDto report = flightImportService.importFlights(new StringReader(ndjson.toString()),
+                FileFormat.NDJSON);
+
+        assertEquals(FlightImportService.BATCH_SIZE + 1, report.getImported());
+        assertEquals(1, report.getRejected());
+        // Una comprobación de duplicados y una inserción por lote, no por fila
+        verify(flightRepository, times(2)).findExistingFlightNumbers(anyCollection());
+        verify(idSequences).reserve("flight_seq", FlightImportService.BATCH_SIZE);
+        verify(idSequences).reserve("flight_seq", 1);
+        verify(jdbcTemplate, times(2)).batchUpdate(anyString(), anyCollection(), anyInt(),
+                ArgumentMatchers.<ParameterizedPreparedStatementSetter<Object>>any());
+    }
+
+    @Test
+    void testImportCsv_FailedBatchIsRetriedInHalvesToRejectOnlyOffendingRows() throws Exception {
+        runTransactionsInline();
+        when(flightRepository.findExistingFlightNumbers(anyCollection())).thenReturn(Set.of());
+        when(flightRepository.findExistingNames(anyCollection())).thenReturn(Set.of());
+        when(idSequences.reserve("flight_seq", 3)).thenReturn(101L);
+        // Otro proceso crea FN2 entre la comprobación y la inserción: fallan el lote [FN1, FN2, FN3],
+        // la mitad [FN2, FN3] y la fila FN2; se insertan [FN1] y [FN3]
+        doThrow(new DuplicateKeyException("Duplicate entry 'FN2'"))
+                .doReturn(new int[][]{{1}})
+                .doThrow(new DuplicateKeyException("Duplicate entry 'FN2'"))
+                .doThrow(new DuplicateKeyException("Duplicate entry 'FN2'"))
+                .doReturn(new int[][]{{1}})
+                .when(jdbcTemplate).batchUpdate(anyString(), anyCollection(), anyInt(),
+                        ArgumentMatchers.<ParameterizedPreparedStatementSetter<Object>>any());
+        String csv = String.join("\n", CSV_HEADER, csvRow("FN1", 50), csvRow("FN2", 50), csvRow("FN3", 50));
+
+        FlightImportReportDto report = flightImportService.importFlights(new StringReader(csv), FileFormat.CSV);
+
+        assertEquals(2, report.getImported());
+        assertEquals(1, report.getRejected());
+        assertEquals(3L, report.getErrors().get(0).getLine());
+        assertEquals("Ya existe un vuelo con ese número o nombre.", report.getErrors().get(0).getMessage());
+        verify(jdbcTemplate, times(5)).batchUpdate(anyString(), anyCollection(), anyInt(),
+                ArgumentMatchers.<ParameterizedPreparedStatementSetter<Object>>any());
+        verify(flightScheduleIndex).refreshAfterCommit(argThat(flight -> flight.getId() == 101L));
+        verify(flightScheduleIndex).refreshAfterCommit(argThat(flight -> flight.getId() == 103L));
+        verify(flightScheduleIndex, times(2)).refreshAfterCommit(any());
+    }
+}
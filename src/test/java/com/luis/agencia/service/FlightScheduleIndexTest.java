@@ -0,0 +1,149 @@
+package com.luis.agencia.service;
+
+import com.luis.agencia.model.Flight;
+import com.luis.agencia.repository.IFlightRepository;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.Comparator;
+import java.util.List;
+import java.util.SortedMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class FlightScheduleIndexTest {
+
+    private static final LocalDate IDA = LocalDate.of(2025, 3, 15);
+    private static final LocalDate VUELTA = LocalDate.of(2025, 3, 22);
+
+    private final IFlightRepository flightRepository = mock(IFlightRepository.class);
+
+    private final DestinationDictionary destinationDictionary = DestinationDictionaries.inMemory();
+
+    private final FlightScheduleIndex index = new FlightScheduleIndex(flightRepository, new SearchCache(),
+            destinationDictionary);
+
+    private Flight flight(Long id, String origin, String destination, LocalDate from, LocalDate to) {
+        Flight flight = new Flight("Vuelo " + id, "FN" + id, origin, destination,
+                10, 50, 250.0, 100.0, true, from, to);
+        flight.setId(id);
+        destinationDictionary.assignIds(flight);
+        return flight;
+    }
+
+    @Test
+    void testRebuildAndSearchIgnoresCase() {
+        List<Flight> flights = List.of(
+                flight(2L, "Madrid", "Paris", IDA, VUELTA),
+                flight(1L, "Madrid", "Paris", IDA, VUELTA),
+                flight(3L, "Paris", "Madrid", IDA.plusDays(1), VUELTA));
+        when(flightRepository.findAll()).thenReturn(flights);
+
+        index.rebuild();
+
+        assertTrue(index.isReady());
+        List<Flight> ida = index.findDepartures(" madrid", "PARIS ", IDA);
+        assertEquals(List.of(1L, 2L), ida.stream().map(Flight::getId).toList());
+        assertEquals(List.of(3L), index.findReturns("paris", "madrid", VUELTA).stream().map(Flight::getId).toList());
+        assertEquals(List.of(1L, 2L, 3L), index.findIdsByDay(VUELTA));
+        assertTrue(index.findDepartures("Madrid", "Paris", IDA.plusDays(1)).isEmpty());
+    }
+
+    @Test
+    void testRefreshMovesFlightToNewRouteAndDate() {
+        List<Flight> flights = List.of(flight(1L, "Madrid", "Paris", IDA, VUELTA));
+        when(flightRepository.findAll()).thenReturn(flights);
+        index.rebuild();
+
+        Flight edited = flight(1L, "Madrid", "Roma", IDA.plusDays(2), VUELTA);
+        edited.setEconomySeatsQ(7);
+        index.refreshAfterCommit(edited);
+
+        assertTrue(index.findDepartures("Madrid", "Paris", IDA).isEmpty());
+        assertTrue(index.findIdsByDay(IDA).isEmpty());
+        List<Flight> found = index.findDepartures("Madrid", "Roma", IDA.plusDays(2));
+        assertEquals(1, found.size());
+        assertEquals(7, found.get(0).getEconomySeatsQ());
+        // Las copias devueltas no deben alterar el índice
+        found.get(0).setEconomySeatsQ(0);
+        assertEquals(7, index.findDepartures("Madrid", "Roma", IDA.plusDays(2)).get(0).getEconomySeatsQ());
+    }
+
+    private static List<List<Long>> legIds(List<List<Flight>> itineraries) {
+        return itineraries.stream()
+                .map(legs -> legs.stream().map(Flight::getId).toList())
+                .sorted(Comparator.comparing(Object::toString))
+                .toList();
+    }
+
+    @Test
+    void testFindConnectionsWithOneAndTwoStops() {
+        List<Flight> flights = List.of(
+                flight(1L, "Madrid", "Roma", IDA, VUELTA),
+                flight(2L, "Madrid", "Lisboa", IDA, VUELTA),
+                flight(3L, "Madrid", "Paris", IDA, VUELTA),            // directo: no se incluye
+                flight(4L, "Roma", "Paris", IDA.plusDays(1), VUELTA),
+                flight(5L, "Lisboa", "Roma", IDA, VUELTA),
+                flight(6L, "Roma", "Madrid", IDA, VUELTA),             // vuelve al origen: no se sigue
+                flight(7L, "Roma", "Paris", IDA.plusDays(3), VUELTA));
+        when(flightRepository.findAll()).thenReturn(flights); // escala demasiado larga
+        index.rebuild();
+
+        List<List<Flight>> connections = index.findConnections("madrid", "PARIS", IDA, 2, 0, 1, flight -> true);
+
+        assertEquals(List.of(List.of(1L, 4L), List.of(2L, 5L, 4L)), legIds(connections));
+        assertEquals(List.of(List.of(1L, 4L)), legIds(index.findConnections("Madrid", "Paris", IDA, 1, 0, 1, flight -> true)));
+        // Los tramos que no cumplen la condición se descartan
+        assertTrue(index.findConnections("Madrid", "Paris", IDA, 2, 0, 1, flight -> flight.getId() != 4L).isEmpty());
+    }
+
+    @Test
+    void testConnectionGraphFollowsEdits() {
+        List<Flight> flights = List.of(
+                flight(1L, "Madrid", "Roma", IDA, VUELTA),
+                flight(2L, "Roma", "Paris", IDA, VUELTA));
+        when(flightRepository.findAll()).thenReturn(flights);
+        index.rebuild();
+        assertEquals(1, index.findConnections("Madrid", "Paris", IDA, 1, 0, 0, flight -> true).size());
+
+        index.refreshAfterCommit(flight(2L, "Roma", "Berlin", IDA, VUELTA));
+
+        assertTrue(index.findConnections("Madrid", "Paris", IDA, 1, 0, 0, flight -> true).isEmpty());
+        assertEquals(1, index.findConnections("Madrid", "Berlin", IDA, 1, 0, 0, flight -> true).size());
+    }
+
+    @Test
+    void testFareCalendarFollowsSellOutsAndEdits() {
+        Flight barato = flight(2L, "Madrid", "Paris", IDA, VUELTA);
+        barato.setEconomySeatPrice(80.0);
+        barato.setBusinessSeatPrice(300.0);
+        List<Flight> flights = List.of(
+                flight(1L, "Madrid", "Paris", IDA, VUELTA),
+                barato,
+                flight(3L, "Madrid", "Paris", IDA.plusDays(1), VUELTA));
+        when(flightRepository.findAll()).thenReturn(flights);
+        index.rebuild();
+
+        SortedMap<LocalDate, FlightScheduleIndex.DayFares> fares =
+                index.findFares("madrid", "paris", IDA, IDA.plusDays(2));
+        assertEquals(List.of(IDA, IDA.plusDays(1)), List.copyOf(fares.keySet()));
+        assertEquals(new FlightScheduleIndex.DayFares(80.0, 250.0), fares.get(IDA));
+
+        // Se agotan los asientos de turista del vuelo más barato
+        index.refreshSeatsAfterCommit(2L, 0, 10, 1L);
+        assertEquals(new FlightScheduleIndex.DayFares(100.0, 250.0),
+                index.findFares("Madrid", "Paris", IDA, IDA).get(IDA));
+
+        // Al desactivar el otro vuelo solo queda la tarifa business del primero
+        Flight inactivo = flight(1L, "Madrid", "Paris", IDA, VUELTA);
+        inactivo.setActiva(false);
+        index.refreshAfterCommit(inactivo);
+        assertEquals(new FlightScheduleIndex.DayFares(null, 300.0),
+                index.findFares("Madrid", "Paris", IDA, IDA).get(IDA));
+
+        // Al mover el vuelo 3 a otra ruta su día queda sin tarifa
+        index.refreshAfterCommit(flight(3L, "Madrid", "Roma", IDA.plusDays(1), VUELTA));
+        assertFalse(index.findFares("Madrid", "Paris", IDA, IDA.plusDays(2)).containsKey(IDA.plusDays(1)));
+    }
+}
@@ -1,17 +1,31 @@
 package com.luis.agencia.service;
 
+import com.luis.agencia.controller.KeysetPageHeaders;
+import com.luis.agencia.dto.FareCalendarDayDto;
+import com.luis.agencia.dto.FlexibleDateSearchDto;
 import com.luis.agencia.dto.FlightDto;
+import com.luis.agencia.dto.RoundTripDto;
 import com.luis.agencia.mapper.FlightMapper;
 import com.luis.agencia.model.Flight;
+import com.luis.agencia.repository.IFlightBookingRepository;
 import com.luis.agencia.repository.IFlightRepository;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.TreeMap;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -19,15 +33,34 @@ import static org.mockito.Mockito.*;
 @ExtendWith(MockitoExtension.class)
 class FlightServiceTest {
 
+    private static final LocalDate IDA = LocalDate.of(2025, 3, 15);
+    private static final LocalDate VUELTA = LocalDate.of(2025, 3, 22);
+
     @Mock
     private IFlightRepository flightRepository;
 
+    @Mock
+    private IFlightBookingRepository flightBookingRepository;
+
     @Mock
     private FlightMapper flightMapper;
 
+    @Mock
+    private FlightScheduleIndex flightScheduleIndex;
+
+    @Mock
+    private AutocompleteIndex autocompleteIndex;
+
     @InjectMocks
     private FlightService flightService;
 
+    private final DestinationDictionary destinationDictionary = DestinationDictionaries.inMemory();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(flightService, "destinationDictionary", destinationDictionary);
+    }
+
     @Test
     void testCreateFlight_Success() {
         FlightDto dto = new FlightDto();
@@ -58,5 +91,186 @@ class FlightServiceTest {
         // Verificamos que se haya llamado a save() una vez
         verify(flightRepository, times(1)).save(flight);
     }
-}
 
+    @Test
+    void testReserveSeats_NotEnoughSeats() {
+        // La actualización condicional no afecta a ninguna fila si no quedan asientos
+        when(flightRepository.decrementSeats(100L, 3, 1)).thenReturn(0);
+
+        assertFalse(flightService.reserveSeats(100L, 3, 1));
+        verify(flightScheduleIndex, never()).refreshSeatsAfterCommit(anyLong(), anyInt(), anyInt(), anyLong());
+    }
+
+    @Test
+    void testReserveSeats_Success() {
+        IFlightRepository.SeatAvailability seats = mock(IFlightRepository.SeatAvailability.class);
+        when(seats.getEconomySeatsQ()).thenReturn(17);
+        when(seats.getBusinessSeatsQ()).thenReturn(4);
+        when(seats.getVersion()).thenReturn(2L);
+        when(flightRepository.decrementSeats(100L, 3, 1)).thenReturn(1);
+        when(flightRepository.findSeatAvailabilityById(100L)).thenReturn(Optional.of(seats));
+
+        assertTrue(flightService.reserveSeats(100L, 3, 1));
+        verify(flightScheduleIndex).refreshSeatsAfterCommit(100L, 17, 4, 2L);
+        verify(flightRepository, never()).save(any());
+    }
+
+    @Test
+    void testDeleteFlight_WithBookingsUsesExistsQuery() {
+        Flight flight = new Flight();
+        flight.setId(100L);
+        flight.setActiva(true);
+        when(flightRepository.findById(100L)).thenReturn(Optional.of(flight));
+        when(flightBookingRepository.existsByFlightId(100L)).thenReturn(true);
+        ReflectionTestUtils.setField(flightService, "transactionTemplate", new TransactionTemplate() {
+            @Override
+            public <T> T execute(TransactionCallback<T> action) {
+                return action.doInTransaction(null);
+            }
+        });
+
+        assertEquals("El vuelo no ha sido eliminado porque tiene reservas pendientes", flightService.deleteFlight(100L));
+        assertTrue(flight.isActiva());
+        verify(flightRepository, never()).save(any());
+    }
+
+    private static FlightDto flightDto(Long id) {
+        FlightDto dto = new FlightDto();
+        dto.setId(id);
+        dto.setActiva(true);
+        return dto;
+    }
+
+    @Test
+    void testListFlights_ReturnsCursorWhenThereAreMoreRows() {
+        // Se pide una fila más que el tamaño de página para saber si hay página siguiente
+        when(flightRepository.findActiveDtoPage(10L, Limit.of(3)))
+                .thenReturn(List.of(flightDto(11L), flightDto(12L), flightDto(13L)));
+
+        KeysetPage<FlightDto> page = flightService.listFlights(10L, 2);
+
+        assertEquals(List.of(11L, 12L), page.getItems().stream().map(FlightDto::getId).toList());
+        assertEquals(12L, page.getNextCursor());
+        assertEquals("12", KeysetPageHeaders.of(page).getFirst(KeysetPageHeaders.NEXT_CURSOR_HEADER));
+        // La consulta ya devuelve DTOs: no se cargan entidades ni se mapean
+        verifyNoInteractions(flightMapper);
+    }
+
+    @Test
+    void testListFlights_LastPageHasNoCursor() {
+        when(flightRepository.findActiveDtoPage(0L, Limit.of(KeysetPage.DEFAULT_SIZE + 1)))
+                .thenReturn(List.of(flightDto(1L)));
+
+        KeysetPage<FlightDto> page = flightService.listFlights(null, null);
+
+        assertEquals(1, page.getItems().size());
+        assertNull(page.getNextCursor());
+        assertTrue(KeysetPageHeaders.of(page).isEmpty());
+    }
+
+    private Flight priced(Long id, String origin, String destination, double economyPrice, int economySeats) {
+        Flight flight = new Flight("Vuelo " + id, "FN" + id, origin, destination, 10, economySeats,
+                300.0, economyPrice, true, IDA, VUELTA);
+        flight.setId(id);
+        destinationDictionary.assignIds(flight);
+        return flight;
+    }
+
+    @Test
+    void testFindRoundTrips_ReturnsCheapestCombinationsFirst() {
+        Flight caro = priced(1L, "Madrid", "Paris", 200.0, 50);
+        Flight barato = priced(2L, "Madrid", "Paris", 100.0, 50);
+        Flight sinPlazas = priced(3L, "Madrid", "Paris", 10.0, 1);
+        Flight inactivo = priced(4L, "Madrid", "Paris", 5.0, 50);
+        inactivo.setActiva(false);
+        Flight vuelta1 = priced(5L, "Paris", "Madrid", 80.0, 50);
+        Flight vuelta2 = priced(6L, "Paris", "Madrid", 60.0, 50);
+        when(flightScheduleIndex.isReady()).thenReturn(true);
+        when(flightScheduleIndex.findDepartures("Madrid", "Paris", IDA)).thenReturn(List.of(caro, barato, sinPlazas, inactivo));
+        when(flightScheduleIndex.findReturns("Paris", "Madrid", VUELTA)).thenReturn(List.of(vuelta1, vuelta2));
+        when(flightMapper.entityToDto(any(Flight.class))).thenAnswer(inv -> flightDto(inv.<Flight>getArgument(0).getId()));
+
+        List<RoundTripDto> trips = flightService.findRoundTrips(IDA, VUELTA, "Madrid", "Paris", 2, false, 3);
+
+        assertEquals(3, trips.size());
+        assertEquals(List.of(2L, 2L, 1L), trips.stream().map(trip -> trip.getOutbound().getId()).toList());
+        assertEquals(List.of(6L, 5L, 6L), trips.stream().map(trip -> trip.getInbound().getId()).toList());
+        assertEquals(320.0, trips.get(0).getTotalPrice());
+        // Solo se convierten a DTO las combinaciones devueltas
+        verify(flightMapper, times(6)).entityToDto(any(Flight.class));
+    }
+
+    @Test
+    void testFindRoundTrips_RejectsReturnBeforeDeparture() {
+        assertThrows(IllegalArgumentException.class,
+                () -> flightService.findRoundTrips(VUELTA, IDA, "Madrid", "Paris", 1, false, 10));
+        verifyNoInteractions(flightScheduleIndex, flightRepository);
+    }
+
+    @Test
+    void testFlexibleSearch_UsesOneRangeQueryPerDirectionAndGroupsByDay() {
+        FlightDto ida = flightDto(1L);
+        ida.setDateFrom(IDA.minusDays(1));
+        FlightDto otraIda = flightDto(2L);
+        otraIda.setDateFrom(IDA.minusDays(1));
+        FlightDto vuelta = flightDto(3L);
+        vuelta.setDateTo(VUELTA.plusDays(2));
+        int madrid = destinationDictionary.resolve("Madrid");
+        int paris = destinationDictionary.resolve("Paris");
+        when(flightRepository.findActiveDtosByDateFromBetween(madrid, paris, IDA.minusDays(2), IDA.plusDays(2)))
+                .thenReturn(List.of(ida, otraIda));
+        when(flightRepository.findActiveDtosByDateToBetween(paris, madrid, VUELTA.minusDays(2), VUELTA.plusDays(2)))
+                .thenReturn(List.of(vuelta));
+
+        FlexibleDateSearchDto result = flightService.getVuelosDisponiblesFlexibles(IDA, VUELTA, "Madrid", "Paris", 2);
+
+        // Un día por cada fecha del rango, aunque no tenga vuelos
+        assertEquals(5, result.getOutboundDays().size());
+        assertEquals(IDA.minusDays(2), result.getOutboundDays().get(0).getDate());
+        assertEquals(List.of(0, 2, 0, 0, 0),
+                result.getOutboundDays().stream().map(day -> day.getFlights().size()).toList());
+        assertEquals(List.of(0, 0, 0, 0, 1),
+                result.getReturnDays().stream().map(day -> day.getFlights().size()).toList());
+        verify(flightRepository, never()).findByDateFromAndOriginIdAndDestinationId(any(), any(), any());
+        verifyNoInteractions(flightMapper);
+    }
+
+    @Test
+    void testFlexibleSearch_RejectsTooManyDays() {
+        assertThrows(IllegalArgumentException.class,
+                () -> flightService.getVuelosDisponiblesFlexibles(IDA, VUELTA, "Madrid", "Paris", 8));
+        verifyNoInteractions(flightScheduleIndex, flightRepository);
+    }
+
+    @Test
+    void testFareCalendar_ReturnsEveryDayOfTheMonth() {
+        when(flightScheduleIndex.isReady()).thenReturn(true);
+        when(flightScheduleIndex.findFares("Madrid", "Paris", LocalDate.of(2025, 2, 1), LocalDate.of(2025, 2, 28)))
+                .thenReturn(new TreeMap<>(Map.of(LocalDate.of(2025, 2, 10), new FlightScheduleIndex.DayFares(90.0, null))));
+
+        List<FareCalendarDayDto> calendar = flightService.getFareCalendar("Madrid", "Paris", YearMonth.of(2025, 2));
+
+        assertEquals(28, calendar.size());
+        assertEquals(90.0, calendar.get(9).getMinEconomyPrice());
+        assertNull(calendar.get(9).getMinBusinessPrice());
+        assertNull(calendar.get(10).getMinEconomyPrice());
+        verifyNoInteractions(flightRepository);
+    }
+
+    @Test
+    void testGetVuelosDisponibles_CachesResultPerNormalizedRoute() {
+        ReflectionTestUtils.setField(flightService, "searchCache", new SearchCache());
+        Flight ida = new Flight("Ida", "FN1", "Madrid", "Paris", 10, 50, 250.0, 100.0, true, IDA, VUELTA);
+        destinationDictionary.assignIds(ida);
+        when(flightScheduleIndex.isReady()).thenReturn(true);
+        when(flightScheduleIndex.findDepartures("Madrid", "Paris", IDA)).thenReturn(List.of(ida));
+        when(flightScheduleIndex.findReturns("Paris", "Madrid", VUELTA)).thenReturn(List.of());
+
+        List<Flight> first = flightService.getVuelosDisponibles(IDA, VUELTA, "Madrid", "Paris");
+        List<Flight> second = flightService.getVuelosDisponibles(IDA, VUELTA, " madrid", "PARIS ");
+
+        assertEquals(List.of(ida), first);
+        assertSame(first, second);
+        verify(flightScheduleIndex, times(1)).findDepartures(any(), any(), any());
+    }
+}
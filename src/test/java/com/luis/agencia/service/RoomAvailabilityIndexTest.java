@@ -0,0 +1,155 @@
+package com.luis.agencia.service;
+
+import com.luis.agencia.model.Hotel;
+import com.luis.agencia.model.Room;
+import com.luis.agencia.model.RoomType;
+import com.luis.agencia.repository.IRoomNightRepository;
+import com.luis.agencia.repository.IRoomRepository;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class RoomAvailabilityIndexTest {
+
+    private static final LocalDate DESDE = LocalDate.of(2025, 3, 1);
+    private static final LocalDate HASTA = LocalDate.of(2025, 3, 31);
+
+    private final IRoomRepository roomRepository = mock(IRoomRepository.class);
+
+    private final IRoomNightRepository roomNightRepository = mock(IRoomNightRepository.class);
+
+    private final DestinationDictionary destinationDictionary = DestinationDictionaries.inMemory();
+
+    private final RoomAvailabilityIndex index = new RoomAvailabilityIndex(roomRepository, roomNightRepository,
+            new SearchCache(), destinationDictionary);
+
+    private static Room room(Long id, Hotel hotel, RoomType type) {
+        Room room = new Room();
+        room.setId(id);
+        room.setHotel(hotel);
+        room.setRoomType(type);
+        room.setDisponibilityDateFrom(DESDE);
+        room.setDisponibilityDateTo(HASTA);
+        return room;
+    }
+
+    private Hotel hotel(Long id, String place) {
+        Hotel hotel = new Hotel();
+        hotel.setId(id);
+        hotel.setPlace(place);
+        destinationDictionary.assignId(hotel);
+        return hotel;
+    }
+
+    private static IRoomNightRepository.BookedNight night(Long roomId, LocalDate night) {
+        return new IRoomNightRepository.BookedNight() {
+            @Override
+            public Long getRoomId() {
+                return roomId;
+            }
+
+            @Override
+            public LocalDate getNight() {
+                return night;
+            }
+        };
+    }
+
+    @Test
+    void testRebuildSkipsRoomsWithBookedNightsInRange() {
+        Hotel sevilla = hotel(1L, "Sevilla");
+        List<Room> rooms = List.of(
+                room(2L, sevilla, RoomType.DOUBLE),
+                room(1L, sevilla, RoomType.DOUBLE),
+                room(3L, sevilla, RoomType.SINGLE),
+                room(4L, hotel(2L, "Madrid"), RoomType.DOUBLE));
+        when(roomRepository.findAll()).thenReturn(rooms);
+        when(roomNightRepository.findAllBookedNights()).thenReturn(List.of(
+                night(2L, LocalDate.of(2025, 3, 10)),
+                night(2L, LocalDate.of(2025, 3, 11))));
+
+        index.rebuild();
+
+        assertTrue(index.isReady());
+        LocalDate from = LocalDate.of(2025, 3, 9);
+        assertEquals(List.of(1L), index.findAvailableRoomIds(RoomType.DOUBLE, " sevilla", from, from.plusDays(3)));
+        // La salida el día 10 no ocupa la noche del 10
+        assertEquals(List.of(1L, 2L), index.findAvailableRoomIds(RoomType.DOUBLE, "SEVILLA", from, from.plusDays(1)));
+        // Fuera del periodo de disponibilidad no se ofrece ninguna habitación
+        assertTrue(index.findAvailableRoomIds(RoomType.DOUBLE, "Sevilla", HASTA, HASTA.plusDays(2)).isEmpty());
+    }
+
+    @Test
+    void testDestinationSearchCoversAllTypesAndOverlappingPeriods() {
+        Hotel sevilla = hotel(1L, "Sevilla");
+        List<Room> rooms = List.of(
+                room(1L, sevilla, RoomType.DOUBLE),
+                room(2L, sevilla, RoomType.DOUBLE),
+                room(3L, sevilla, RoomType.SINGLE),
+                room(4L, hotel(2L, "Madrid"), RoomType.SINGLE));
+        when(roomRepository.findAll()).thenReturn(rooms);
+        when(roomNightRepository.findAllBookedNights()).thenReturn(List.of(night(2L, LocalDate.of(2025, 3, 10))));
+        index.rebuild();
+
+        LocalDate from = LocalDate.of(2025, 3, 9);
+        assertEquals(List.of(1L, 3L), index.findAvailableRoomIds("sevilla", from, from.plusDays(3)));
+        // Basta con que el periodo de disponibilidad se solape con el rango
+        assertEquals(List.of(1L, 2L, 3L), index.findAvailableRoomIds("Sevilla", HASTA.minusDays(1), HASTA.plusDays(2)));
+        assertTrue(index.findAvailableRoomIds("Sevilla", HASTA.plusDays(1), HASTA.plusDays(2)).isEmpty());
+        assertTrue(index.findAvailableRoomIds("Lisboa", from, from.plusDays(1)).isEmpty());
+    }
+
+    @Test
+    void testRefreshNightsReadsCommittedNights() {
+        Hotel sevilla = hotel(1L, "Sevilla");
+        when(roomRepository.findAll()).thenReturn(List.of(room(1L, sevilla, RoomType.DOUBLE)));
+        index.rebuild();
+        LocalDate from = LocalDate.of(2025, 3, 15);
+        LocalDate to = LocalDate.of(2025, 3, 18);
+        when(roomNightRepository.findBookedNightsByRoomIdIn(List.of(1L))).thenReturn(List.of(
+                night(1L, from), night(1L, from.plusDays(1)), night(1L, from.plusDays(2))));
+
+        index.refreshNightsAfterCommit(List.of(1L));
+
+        assertTrue(index.findAvailableRoomIds(RoomType.DOUBLE, "Sevilla", from.plusDays(2), to.plusDays(2)).isEmpty());
+        assertEquals(List.of(1L), index.findAvailableRoomIds(RoomType.DOUBLE, "Sevilla", to, to.plusDays(2)));
+
+        when(roomNightRepository.findBookedNightsByRoomIdIn(List.of(1L))).thenReturn(List.of());
+
+        index.refreshNightsAfterCommit(List.of(1L));
+
+        assertEquals(List.of(1L), index.findAvailableRoomIds(RoomType.DOUBLE, "Sevilla", from, to));
+    }
+
+    @Test
+    void testLateReleaseDoesNotFreeNightsRebookedByAnotherBooking() {
+        Hotel sevilla = hotel(1L, "Sevilla");
+        when(roomRepository.findAll()).thenReturn(List.of(room(1L, sevilla, RoomType.DOUBLE)));
+        index.rebuild();
+        LocalDate from = LocalDate.of(2025, 3, 15);
+        // La reserva A se ha borrado y la B ha ocupado la misma noche; el aviso de A llega el último
+        when(roomNightRepository.findBookedNightsByRoomIdIn(List.of(1L))).thenReturn(List.of(night(1L, from)));
+
+        index.refreshNightsAfterCommit(List.of(1L));
+        index.refreshNightsAfterCommit(List.of(1L));
+
+        assertTrue(index.findAvailableRoomIds(RoomType.DOUBLE, "Sevilla", from, from.plusDays(1)).isEmpty());
+    }
+
+    @Test
+    void testHotelPlaceChangeMovesRooms() {
+        List<Room> rooms = List.of(room(1L, hotel(1L, "Sevilla"), RoomType.DOUBLE));
+        when(roomRepository.findAll()).thenReturn(rooms);
+        index.rebuild();
+        LocalDate from = LocalDate.of(2025, 3, 15);
+
+        index.refreshHotelPlaceAfterCommit(1L, destinationDictionary.resolve("Cádiz"));
+
+        assertTrue(index.findAvailableRoomIds(RoomType.DOUBLE, "Sevilla", from, from.plusDays(1)).isEmpty());
+        assertEquals(List.of(1L), index.findAvailableRoomIds(RoomType.DOUBLE, "cádiz", from, from.plusDays(1)));
+    }
+}
@@ -0,0 +1,267 @@
+package com.luis.agencia.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.luis.agencia.dto.RoomBookingDto;
+import com.luis.agencia.mapper.RoomBookingMapper;
+import com.luis.agencia.model.Hotel;
+import com.luis.agencia.model.Room;
+import com.luis.agencia.model.RoomBooking;
+import com.luis.agencia.model.RoomType;
+import com.luis.agencia.repository.IPassengerRepository;
+import com.luis.agencia.repository.IRoomBookingRepository;
+import com.luis.agencia.repository.IRoomNightRepository;
+import com.luis.agencia.repository.IRoomRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class RoomBookingServiceTest {
+
+    private static final LocalDate DESDE = LocalDate.of(2025, 3, 15);
+    private static final LocalDate HASTA = LocalDate.of(2025, 3, 18);
+    private static final int SEVILLA = 7;
+
+    @Mock
+    private IRoomBookingRepository roomBookingRepository;
+
+    @Mock
+    private IRoomRepository roomRepository;
+
+    @Mock
+    private IRoomNightRepository roomNightRepository;
+
+    @Mock
+    private IPassengerRepository passengerRepository;
+
+    @Mock
+    private IPassengerService passengerService;
+
+    @Mock
+    private RoomBookingMapper roomBookingMapper;
+
+    @Mock
+    private RoomAvailabilityIndex roomAvailabilityIndex;
+
+    @Mock
+    private DestinationDictionary destinationDictionary;
+
+    @InjectMocks
+    private RoomBookingService roomBookingService;
+
+    /**
+     * Ejecuta cada reserva directamente, sin transacción real.
+     */
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(roomBookingService, "transactionTemplate", new TransactionTemplate() {
+            @Override
+            public <T> T execute(TransactionCallback<T> action) {
+                return action.doInTransaction(null);
+            }
+        });
+    }
+
+    private static RoomBookingDto bookingDto(int doubleRooms) {
+        RoomBookingDto dto = new RoomBookingDto();
+        dto.setDateFrom(DESDE);
+        dto.setDateTo(HASTA);
+        dto.setNights(3);
+        dto.setPeopleQ(2);
+        dto.setDoubleRoomQ(doubleRooms);
+        dto.setDestination(" Sevilla ");
+        return dto;
+    }
+
+    private static Room room(Long id, Hotel hotel) {
+        Room room = new Room();
+        room.setId(id);
+        room.setRoomType(RoomType.DOUBLE);
+        room.setHotel(hotel);
+        return room;
+    }
+
+    @Test
+    void testCreateRoomBooking_ReadsOnlyRequestedRoomsOfDestination() {
+        when(destinationDictionary.idOf("Sevilla")).thenReturn(SEVILLA);
+        Hotel hotel = new Hotel();
+        hotel.setDoubleRoomPrice(80.0);
+        List<Room> rooms = List.of(room(1L, hotel), room(2L, hotel));
+        when(roomRepository.findRoomCandidatesByTypeAndDestination("DOUBLE", DESDE, HASTA, SEVILLA, List.of(0L), 2))
+                .thenReturn(rooms);
+        when(roomBookingRepository.save(any(RoomBooking.class))).thenAnswer(inv -> inv.getArgument(0));
+        when(roomNightRepository.findFullyClaimedRoomIds(any(RoomBooking.class), eq(List.of(1L, 2L)), eq(3L)))
+                .thenReturn(List.of(1L, 2L));
+        when(roomBookingMapper.entityToDto(any(RoomBooking.class))).thenReturn(new RoomBookingDto());
+
+        RoomBookingDto result = roomBookingService.createRoomBooking(bookingDto(2));
+
+        assertEquals(480.0, result.getTotalCost());
+        verify(roomNightRepository).claimNights(any(), eq(List.of(1L, 2L)), eq(DESDE), eq(HASTA));
+        verify(roomNightRepository, never()).releaseNights(any(RoomBooking.class), anyCollection());
+        verify(roomRepository, never()).save(any());
+        verify(roomAvailabilityIndex).refreshNightsAfterCommit(List.of(1L, 2L));
+    }
+
+    @Test
+    void testCreateRoomBooking_NotEnoughRooms() {
+        when(destinationDictionary.idOf("Sevilla")).thenReturn(SEVILLA);
+        when(roomRepository.findRoomCandidatesByTypeAndDestination("DOUBLE", DESDE, HASTA, SEVILLA, List.of(0L), 3))
+                .thenReturn(List.of(room(1L, new Hotel())));
+
+        assertThrows(IllegalArgumentException.class, () -> roomBookingService.createRoomBooking(bookingDto(3)));
+        verify(roomBookingRepository, never()).save(any());
+    }
+
+    @Test
+    void testCreateRoomBooking_RejectsNightsThatDoNotMatchDates() {
+        RoomBookingDto dto = bookingDto(1);
+        dto.setNights(1);
+
+        assertThrows(IllegalArgumentException.class, () -> roomBookingService.createRoomBooking(dto));
+        verifyNoInteractions(roomRepository, roomNightRepository, roomBookingRepository);
+    }
+
+    @Test
+    void testCreateRoomBooking_ReplacesRoomTakenByAnotherBooking() {
+        when(destinationDictionary.idOf("Sevilla")).thenReturn(SEVILLA);
+        Hotel hotel = new Hotel();
+        hotel.setDoubleRoomPrice(80.0);
+        Room first = room(1L, hotel);
+        Room taken = room(2L, hotel);
+        Room replacement = room(3L, hotel);
+        when(roomRepository.findRoomCandidatesByTypeAndDestination("DOUBLE", DESDE, HASTA, SEVILLA, List.of(0L), 2))
+                .thenReturn(List.of(first, taken));
+        when(roomBookingRepository.save(any(RoomBooking.class))).thenAnswer(inv -> inv.getArgument(0));
+        // Solo se ocupa entera una de las dos candidatas: de la otra, una reserva concurrente
+        // se ha quedado dos de las tres noches
+        when(roomNightRepository.findFullyClaimedRoomIds(any(RoomBooking.class), eq(List.of(1L, 2L)), eq(3L)))
+                .thenReturn(List.of(1L));
+        when(roomRepository.findRoomCandidatesByTypeAndDestination("DOUBLE", DESDE, HASTA, SEVILLA, Set.of(2L), 1))
+                .thenReturn(List.of(replacement));
+        when(roomNightRepository.findFullyClaimedRoomIds(any(RoomBooking.class), eq(List.of(3L)), eq(3L)))
+                .thenReturn(List.of(3L));
+        when(roomBookingMapper.entityToDto(any(RoomBooking.class))).thenReturn(new RoomBookingDto());
+
+        roomBookingService.createRoomBooking(bookingDto(2));
+
+        verify(roomNightRepository).releaseNights(any(RoomBooking.class), eq(List.of(2L)));
+        verify(roomBookingMapper).entityToDto(argThat(booking -> booking.getRooms().equals(List.of(first, replacement))));
+    }
+
+    @Test
+    void testCreateRoomBooking_RetriesWholeBookingAfterDeadlock() {
+        when(destinationDictionary.idOf("Sevilla")).thenReturn(SEVILLA);
+        Hotel hotel = new Hotel();
+        hotel.setDoubleRoomPrice(80.0);
+        when(roomRepository.findRoomCandidatesByTypeAndDestination("DOUBLE", DESDE, HASTA, SEVILLA, List.of(0L), 1))
+                .thenReturn(List.of(room(1L, hotel)));
+        when(roomBookingRepository.save(any(RoomBooking.class))).thenAnswer(inv -> inv.getArgument(0));
+        // MySQL elige esta reserva como víctima de un interbloqueo y deshace toda su transacción
+        doThrow(new CannotAcquireLockException("Deadlock found when trying to get lock"))
+                .doNothing()
+                .when(roomNightRepository).claimNights(any(), eq(List.of(1L)), eq(DESDE), eq(HASTA));
+        when(roomNightRepository.findFullyClaimedRoomIds(any(RoomBooking.class), eq(List.of(1L)), eq(3L)))
+                .thenReturn(List.of(1L));
+        when(roomBookingMapper.entityToDto(any(RoomBooking.class))).thenReturn(new RoomBookingDto());
+
+        RoomBookingDto result = roomBookingService.createRoomBooking(bookingDto(1));
+
+        assertEquals(240.0, result.getTotalCost());
+        verify(roomBookingRepository, times(2)).save(any(RoomBooking.class));
+    }
+
+    @Test
+    void testCreateRoomBooking_RejectsStayWithoutNights() {
+        RoomBookingDto dto = bookingDto(1);
+        dto.setDateTo(DESDE);
+
+        assertThrows(IllegalArgumentException.class, () -> roomBookingService.createRoomBooking(dto));
+        verifyNoInteractions(roomRepository, roomNightRepository);
+    }
+
+    @Test
+    void testExportAll_WritesOneLinePerBookingFromFlattenedRows() throws Exception {
+        ReflectionTestUtils.setField(roomBookingService, "objectMapper", new ObjectMapper()
+                .registerModule(new JavaTimeModule()).disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS));
+        when(roomBookingRepository.streamBookedRoomsForExport()).thenReturn(Stream.of(
+                new ExportRow(1L, 1L, RoomType.DOUBLE),
+                new ExportRow(1L, 2L, RoomType.SINGLE),
+                new ExportRow(2L, null, null)));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        roomBookingService.exportAll(out, FileFormat.CSV);
+
+        List<String> lines = out.toString(StandardCharsets.UTF_8).lines().toList();
+        assertEquals(List.of(
+                "id,dateFrom,dateTo,nights,peopleQ,totalCost,hotelName,destination,reservedDoubleRoomIds,reservedSingleRoomIds",
+                "1,15-03-2025,18-03-2025,3,2,390.0,\"Hotel Sol, Sevilla\",Sevilla,1,2",
+                "2,15-03-2025,18-03-2025,3,2,0.0,,,,"), lines);
+    }
+
+    /**
+     * Fila de la exportación: una habitación de una reserva, o una reserva sin habitaciones.
+     */
+    private record ExportRow(Long getBookingId, Long getRoomId, RoomType getRoomType)
+            implements IRoomBookingRepository.BookedRoomRow {
+
+        @Override
+        public LocalDate getDateFrom() {
+            return DESDE;
+        }
+
+        @Override
+        public LocalDate getDateTo() {
+            return HASTA;
+        }
+
+        @Override
+        public int getNights() {
+            return 3;
+        }
+
+        @Override
+        public int getPeopleQ() {
+            return 2;
+        }
+
+        @Override
+        public String getHotelName() {
+            return getRoomId == null ? null : "Hotel Sol, Sevilla";
+        }
+
+        @Override
+        public String getPlace() {
+            return getRoomId == null ? null : "Sevilla";
+        }
+
+        @Override
+        public Double getDoubleRoomPrice() {
+            return getRoomId == null ? null : 80.0;
+        }
+
+        @Override
+        public Double getSimpleRoomPrice() {
+            return getRoomId == null ? null : 50.0;
+        }
+    }
+}
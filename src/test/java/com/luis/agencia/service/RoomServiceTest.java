@@ -29,6 +29,9 @@ class RoomServiceTest {
     @Mock
     private RoomMapper roomMapper;
 
+    @Mock
+    private RoomAvailabilityIndex roomAvailabilityIndex;
+
     @InjectMocks
     private RoomService roomService;
 
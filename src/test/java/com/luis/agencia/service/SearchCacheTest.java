@@ -0,0 +1,82 @@
+package com.luis.agencia.service;
+
+import com.luis.agencia.dto.SearchCacheStatsDto;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SearchCacheTest {
+
+    private static final int MADRID = 1;
+    private static final int PARIS = 2;
+    private static final int ROMA = 3;
+    private static final int SEVILLA = 4;
+
+    private final AtomicLong now = new AtomicLong();
+
+    private final SearchCache cache = new SearchCache(2, Duration.ofSeconds(60), now::get);
+
+    private final AtomicInteger loads = new AtomicInteger();
+
+    private List<String> load(String value) {
+        loads.incrementAndGet();
+        return List.of(value);
+    }
+
+    @Test
+    void testGet_ReusesResultUntilTagIsInvalidated() {
+        Set<String> tags = Set.of(SearchCache.routeTag(MADRID, PARIS));
+
+        cache.get("madrid-paris", tags, () -> load("a"));
+        cache.get("madrid-paris", tags, () -> load("b"));
+        assertEquals(1, loads.get());
+
+        // Un cambio en otra ruta no afecta; uno en la misma ruta sí
+        cache.invalidate(SearchCache.routeTag(MADRID, ROMA));
+        assertEquals(List.of("a"), cache.get("madrid-paris", tags, () -> load("c")));
+        cache.invalidate(SearchCache.routeTag(MADRID, PARIS));
+        assertEquals(List.of("d"), cache.get("madrid-paris", tags, () -> load("d")));
+
+        SearchCacheStatsDto stats = cache.stats();
+        assertEquals(2, stats.getHits());
+        assertEquals(2, stats.getMisses());
+        assertEquals(1, stats.getInvalidations());
+    }
+
+    @Test
+    void testGet_DoesNotStoreResultLoadedBeforeAnInvalidation() {
+        Set<String> tags = Set.of(SearchCache.destinationTag(SEVILLA));
+
+        cache.get("sevilla", tags, () -> {
+            cache.invalidate(SearchCache.destinationTag(SEVILLA));
+            return load("antes del cambio");
+        });
+
+        assertEquals(List.of("después"), cache.get("sevilla", tags, () -> load("después")));
+        assertEquals(0, cache.stats().getHits());
+    }
+
+    @Test
+    void testGet_EvictsLeastRecentlyUsedAndExpiredResults() {
+        cache.get("a", Set.of("t"), () -> load("a"));
+        cache.get("b", Set.of("t"), () -> load("b"));
+        cache.get("a", Set.of("t"), () -> load("a2"));
+        cache.get("c", Set.of("t"), () -> load("c"));
+
+        // "b" era el menos usado
+        assertEquals(List.of("b2"), cache.get("b", Set.of("t"), () -> load("b2")));
+        now.addAndGet(Duration.ofSeconds(61).toNanos());
+        assertEquals(List.of("c2"), cache.get("c", Set.of("t"), () -> load("c2")));
+
+        SearchCacheStatsDto stats = cache.stats();
+        assertEquals(2, stats.getEvictions());
+        assertEquals(1, stats.getExpirations());
+        assertEquals(2, stats.getSize());
+    }
+}
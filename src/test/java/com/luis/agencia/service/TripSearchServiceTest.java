@@ -0,0 +1,180 @@
+package com.luis.agencia.service;
+
+import com.luis.agencia.dto.FlightDto;
+import com.luis.agencia.dto.RoomDto;
+import com.luis.agencia.dto.RoundTripDto;
+import com.luis.agencia.dto.TripPackageDto;
+import com.luis.agencia.dto.TripSearchDto;
+import com.luis.agencia.model.Hotel;
+import com.luis.agencia.model.RoomType;
+import com.luis.agencia.repository.IHotelRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TripSearchServiceTest {
+
+    private static final LocalDate IDA = LocalDate.of(2025, 3, 15);
+    private static final LocalDate VUELTA = LocalDate.of(2025, 3, 18);
+
+    @Mock
+    private IFlightService flightService;
+
+    @Mock
+    private IroomService roomService;
+
+    @Mock
+    private IHotelRepository hotelRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @InjectMocks
+    private TripSearchService tripSearchService;
+
+    private static RoundTripDto roundTrip(long id, double price) {
+        FlightDto outbound = new FlightDto();
+        outbound.setId(id);
+        return new RoundTripDto(outbound, new FlightDto(), price);
+    }
+
+    private static RoomDto room(Long hotelId, RoomType type) {
+        RoomDto room = new RoomDto();
+        room.setHotelId(hotelId);
+        room.setRoomType(type);
+        return room;
+    }
+
+    private static Hotel hotel(Long id, double singlePrice, double doublePrice, boolean active) {
+        Hotel hotel = new Hotel();
+        hotel.setId(id);
+        hotel.setName("Hotel " + id);
+        hotel.setPlace("Paris");
+        hotel.setSimpleRoomPrice(singlePrice);
+        hotel.setDoubleRoomPrice(doublePrice);
+        hotel.setActive(active);
+        return hotel;
+    }
+
+    @Test
+    void testSearchPackages_CombinesCheapestFlightsAndStays() {
+        ReflectionTestUtils.setField(tripSearchService, "tripSearchExecutor", (Executor) Runnable::run);
+        when(flightService.findRoundTrips(IDA, VUELTA, "Madrid", "Paris", 2, false, 3))
+                .thenReturn(List.of(roundTrip(1L, 100.0), roundTrip(2L, 300.0)));
+        when(roomService.findAvailableRoomsByTypeAndDestination("SINGLE", IDA, VUELTA, "Paris")).thenReturn(List.of(
+                room(1L, RoomType.SINGLE), room(1L, RoomType.SINGLE),
+                room(2L, RoomType.SINGLE), room(2L, RoomType.SINGLE)));
+        when(roomService.findAvailableRoomsByTypeAndDestination("DOUBLE", IDA, VUELTA, "Paris")).thenReturn(List.of(
+                room(1L, RoomType.DOUBLE), room(3L, RoomType.DOUBLE)));
+        when(hotelRepository.findAllById(Set.of(1L, 2L, 3L))).thenReturn(List.of(
+                hotel(1L, 50.0, 80.0, true),
+                hotel(2L, 30.0, 90.0, true),
+                hotel(3L, 10.0, 10.0, false)));
+
+        TripSearchDto result = tripSearchService.searchPackages(IDA, VUELTA, "Madrid", "Paris", 2, 3);
+
+        assertTrue(result.isFlightsComplete());
+        assertTrue(result.isHotelsComplete());
+        // Hotel 2: dos individuales (180); hotel 1: una doble (240) más barata que dos individuales (300)
+        assertEquals(List.of(280.0, 340.0, 480.0),
+                result.getPackages().stream().map(TripPackageDto::getTotalPrice).toList());
+        TripPackageDto second = result.getPackages().get(1);
+        assertEquals(1L, second.getHotel().getHotelId());
+        assertEquals(1, second.getHotel().getDoubleRooms());
+        assertEquals(0, second.getHotel().getSingleRooms());
+        assertEquals(2L, result.getPackages().get(2).getFlights().getOutbound().getId());
+    }
+
+    @Test
+    void testSearchPackages_SlowFlightSearchTimesOutWithoutBlockingHotels() throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        ReflectionTestUtils.setField(tripSearchService, "tripSearchExecutor", executor);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch interrupted = new CountDownLatch(1);
+        try {
+            when(flightService.findRoundTrips(IDA, VUELTA, "Madrid", "Paris", 1, false, 20)).thenAnswer(inv -> {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    interrupted.countDown();
+                }
+                return List.of();
+            });
+            when(roomService.findAvailableRoomsByTypeAndDestination(anyString(), eq(IDA), eq(VUELTA), eq("Paris")))
+                    .thenReturn(List.of());
+
+            long start = System.nanoTime();
+            TripSearchDto result = tripSearchService.searchPackages(IDA, VUELTA, "Madrid", "Paris", 1, 20);
+            long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+            assertFalse(result.isFlightsComplete());
+            assertTrue(result.isHotelsComplete());
+            assertTrue(result.getPackages().isEmpty());
+            assertTrue(elapsedMillis < TripSearchService.FLIGHTS_TIMEOUT_MILLIS + TripSearchService.HOTELS_TIMEOUT_MILLIS);
+            // La búsqueda abandonada se interrumpe y deja libre su hilo
+            assertTrue(interrupted.await(1, TimeUnit.SECONDS));
+        } finally {
+            release.countDown();
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void testSearchPackages_FailedFlightSearchCancelsHotelSearch() throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        ReflectionTestUtils.setField(tripSearchService, "tripSearchExecutor", executor);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch interrupted = new CountDownLatch(1);
+        try {
+            // La búsqueda de vuelos falla cuando la de hoteles ya está en marcha
+            when(flightService.findRoundTrips(IDA, VUELTA, "Madrid", "Paris", 1, false, 20))
+                    .thenAnswer(inv -> {
+                        started.await(1, TimeUnit.SECONDS);
+                        throw new IllegalArgumentException("Origen desconocido");
+                    });
+            when(roomService.findAvailableRoomsByTypeAndDestination(anyString(), eq(IDA), eq(VUELTA), eq("Paris")))
+                    .thenAnswer(inv -> {
+                        started.countDown();
+                        try {
+                            release.await();
+                        } catch (InterruptedException e) {
+                            interrupted.countDown();
+                        }
+                        return List.of();
+                    });
+
+            assertThrows(IllegalArgumentException.class,
+                    () -> tripSearchService.searchPackages(IDA, VUELTA, "Madrid", "Paris", 1, 20));
+            // La búsqueda de hoteles no sigue ocupando su hilo tras el fallo
+            assertTrue(interrupted.await(1, TimeUnit.SECONDS));
+        } finally {
+            release.countDown();
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void testSearchPackages_RequiresAtLeastOneNight() {
+        assertThrows(IllegalArgumentException.class,
+                () -> tripSearchService.searchPackages(IDA, IDA, "Madrid", "Paris", 1, 20));
+        verifyNoInteractions(flightService, roomService, hotelRepository);
+    }
+}